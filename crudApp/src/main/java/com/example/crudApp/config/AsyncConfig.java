@@ -1,13 +1,35 @@
 package com.example.crudApp.config;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.task.ThreadPoolTaskExecutorCustomizer;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
 
+import java.util.concurrent.RejectedExecutionException;
+
 /**
  * Configuration pour activer le support asynchrone
- * Permet l'envoi d'emails en arrière-plan sans bloquer les requêtes
+ * Les emails ne sont plus envoyés en @Async : ils passent par la file d'envoi (EmailOutboxDispatcher)
+ * L'exécuteur auto-configuré (tâches @Async, téléchargements en flux des exports) est dimensionné par les
+ * propriétés standard spring.task.execution.pool.core-size, max-size et queue-capacity (voir docker-compose).
+ * File pleine, la tâche est refusée (503) plutôt que conservée en mémoire. Ses jauges sont publiées par
+ * Spring Boot (executor.* avec name=application). Les autres travaux ont leur propre pool, voir {@link BoundedExecutors}.
  */
 @Configuration
 @EnableAsync
 public class AsyncConfig {
+
+    @Bean
+    public ThreadPoolTaskExecutorCustomizer boundedApplicationTaskExecutor(MeterRegistry meterRegistry) {
+        Counter rejected = Counter.builder(BoundedExecutors.REJECTED_METRIC)
+                .tag("name", "application")
+                .description("Tâches arrivées sur un pool saturé")
+                .register(meterRegistry);
+        return executor -> executor.setRejectedExecutionHandler((task, pool) -> {
+            rejected.increment();
+            throw new RejectedExecutionException("Exécuteur asynchrone saturé");
+        });
+    }
 }
@@ -0,0 +1,67 @@
+package com.example.crudApp.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pools de threads nommés et bornés, un par type de travail, instrumentés dans Micrometer
+ * Chaque pool a un nombre fixe de threads et une file d'attente bornée. Quand la file est pleine, la
+ * tâche est comptée (executor.rejected) puis confiée à la politique de saturation du pool : refus
+ * (l'appelant renonce) ou exécution dans le thread appelant (le producteur ralentit). Les jauges de
+ * ExecutorServiceMetrics (executor.active, executor.queued, executor.queue.remaining, ...) portent le
+ * tag {@code name} du pool.
+ */
+public final class BoundedExecutors {
+
+    public static final String REJECTED_METRIC = "executor.rejected";
+
+    private BoundedExecutors() {
+    }
+
+    public static ThreadPoolExecutor newExecutor(String name, int threads, int queueCapacity,
+                                                 RejectedExecutionHandler saturationPolicy,
+                                                 MeterRegistry meterRegistry) {
+        Counter rejected = Counter.builder(REJECTED_METRIC)
+                .tag("name", name)
+                .description("Tâches arrivées sur un pool saturé")
+                .register(meterRegistry);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory(name + "-"),
+                (task, pool) -> {
+                    rejected.increment();
+                    saturationPolicy.rejectedExecution(task, pool);
+                });
+        monitor(executor, name, meterRegistry);
+        return executor;
+    }
+
+    /**
+     * Publier les jauges d'un pool créé ailleurs (ForkJoinPool, planificateur)
+     */
+    public static void monitor(ExecutorService executor, String name, MeterRegistry meterRegistry) {
+        new ExecutorServiceMetrics(executor, name, Tags.empty()).bindTo(meterRegistry);
+    }
+
+    /**
+     * Saturation : la tâche s'exécute dans le thread appelant, qui cesse de produire le temps de l'exécuter
+     * Refusée si le pool est arrêté, pour que l'appelant ne reste pas en attente d'une tâche jamais exécutée
+     */
+    public static RejectedExecutionHandler runInCaller() {
+        return (task, pool) -> {
+            if (pool.isShutdown()) {
+                throw new RejectedExecutionException("Pool arrêté, tâche refusée");
+            }
+            task.run();
+        };
+    }
+}
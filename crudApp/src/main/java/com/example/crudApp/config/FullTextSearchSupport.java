@@ -0,0 +1,33 @@
+package com.example.crudApp.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Indique si la recherche de patients peut utiliser les index FULLTEXT (migration V3)
+ * Actif uniquement sur MySQL ; désactivable par la propriété patient.search.fulltext-enabled
+ */
+@Component
+public class FullTextSearchSupport {
+
+    private static final Logger logger = LoggerFactory.getLogger(FullTextSearchSupport.class);
+
+    private final boolean available;
+
+    public FullTextSearchSupport(EntityManagerFactory entityManagerFactory,
+                                 @Value("${patient.search.fulltext-enabled:true}") boolean enabled) {
+        boolean mysql = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect() instanceof MySQLDialect;
+        this.available = enabled && mysql;
+        logger.info("Recherche de patients : {}", available ? "index FULLTEXT" : "LIKE (pas d'index FULLTEXT)");
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+}
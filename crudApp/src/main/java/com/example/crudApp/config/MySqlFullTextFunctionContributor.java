@@ -0,0 +1,61 @@
+package com.example.crudApp.config;
+
+import com.example.crudApp.specification.PatientSpecification;
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.query.ReturnableType;
+import org.hibernate.query.sqm.function.AbstractSqmSelfRenderingFunctionDescriptor;
+import org.hibernate.query.sqm.produce.function.StandardArgumentsValidators;
+import org.hibernate.query.sqm.produce.function.StandardFunctionArgumentTypeResolvers;
+import org.hibernate.query.sqm.produce.function.StandardFunctionReturnTypeResolvers;
+import org.hibernate.sql.ast.SqlAstTranslator;
+import org.hibernate.sql.ast.spi.SqlAppender;
+import org.hibernate.sql.ast.tree.SqlAstNode;
+import org.hibernate.type.BasicType;
+import org.hibernate.type.StandardBasicTypes;
+
+import java.util.List;
+
+/**
+ * Enregistre la fonction {@code match_against(colonne..., expression)} pour MySQL
+ * Rendue en {@code MATCH (colonnes) AGAINST (expression IN BOOLEAN MODE)}, elle retourne le score de pertinence.
+ * Chargée par Hibernate via META-INF/services ; rien n'est enregistré pour les autres bases (H2 en test).
+ */
+public class MySqlFullTextFunctionContributor implements FunctionContributor {
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        if (!(functionContributions.getDialect() instanceof MySQLDialect)) {
+            return;
+        }
+        functionContributions.getFunctionRegistry().register(PatientSpecification.MATCH_AGAINST,
+                new MatchAgainstFunction(functionContributions.getTypeConfiguration()
+                        .getBasicTypeRegistry().resolve(StandardBasicTypes.DOUBLE)));
+    }
+
+    private static final class MatchAgainstFunction extends AbstractSqmSelfRenderingFunctionDescriptor {
+
+        MatchAgainstFunction(BasicType<Double> doubleType) {
+            super(PatientSpecification.MATCH_AGAINST,
+                    StandardArgumentsValidators.min(2),
+                    StandardFunctionReturnTypeResolvers.invariant(doubleType),
+                    StandardFunctionArgumentTypeResolvers.NULL);
+        }
+
+        @Override
+        public void render(SqlAppender sqlAppender, List<? extends SqlAstNode> arguments,
+                           ReturnableType<?> returnType, SqlAstTranslator<?> walker) {
+            sqlAppender.appendSql("match (");
+            for (int i = 0; i < arguments.size() - 1; i++) {
+                if (i > 0) {
+                    sqlAppender.appendSql(", ");
+                }
+                arguments.get(i).accept(walker);
+            }
+            sqlAppender.appendSql(") against (");
+            arguments.get(arguments.size() - 1).accept(walker);
+            sqlAppender.appendSql(" in boolean mode)");
+        }
+    }
+}
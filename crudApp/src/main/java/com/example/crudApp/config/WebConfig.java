@@ -2,6 +2,7 @@ package com.example.crudApp.config;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -11,10 +12,19 @@ public class WebConfig implements WebMvcConfigurer {
     @Value("${file.upload-dir:uploads/profile-photos}")
     private String uploadDir;
 
+    // Durée maximale des réponses écrites en flux (exports)
+    @Value("${export.streaming-timeout-ms:1800000}")
+    private long streamingTimeoutMs;
+
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
         // Servir les fichiers uploadés
         registry.addResourceHandler("/uploads/profile-photos/**")
                 .addResourceLocations("file:" + uploadDir + "/");
     }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(streamingTimeoutMs);
+    }
 }
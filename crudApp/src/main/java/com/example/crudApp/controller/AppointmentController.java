@@ -1,7 +1,11 @@
 package com.example.crudApp.controller;
 
+import com.example.crudApp.dto.AppointmentPageResponse;
 import com.example.crudApp.dto.AppointmentRequest;
 import com.example.crudApp.dto.AppointmentResponse;
+import com.example.crudApp.dto.RecurringAppointmentRequest;
+import com.example.crudApp.dto.SlotHoldRequest;
+import com.example.crudApp.dto.SlotHoldResponse;
 import com.example.crudApp.model.Appointment;
 import com.example.crudApp.service.AppointmentService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -37,7 +41,8 @@ public class AppointmentController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Rendez-vous créé avec succès"),
             @ApiResponse(responseCode = "400", description = "Données invalides ou créneau non disponible"),
-            @ApiResponse(responseCode = "404", description = "Médecin non trouvé")
+            @ApiResponse(responseCode = "404", description = "Médecin non trouvé"),
+            @ApiResponse(responseCode = "409", description = "Créneau déjà réservé")
     })
     @PostMapping
     public ResponseEntity<AppointmentResponse> createAppointment(
@@ -50,29 +55,94 @@ public class AppointmentController {
                 .body(AppointmentResponse.fromAppointment(appointment));
     }
 
+    @Operation(
+            summary = "Créer une série de rendez-vous récurrents",
+            description = "Permet à un patient de réserver le même créneau toutes les N semaines en une seule requête ; la série est refusée entièrement si un créneau n'est pas libre"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Série de rendez-vous créée avec succès"),
+            @ApiResponse(responseCode = "400", description = "Données invalides"),
+            @ApiResponse(responseCode = "404", description = "Médecin non trouvé"),
+            @ApiResponse(responseCode = "409", description = "Au moins un créneau de la série n'est pas disponible")
+    })
+    @PostMapping("/recurring")
+    public ResponseEntity<List<AppointmentResponse>> createRecurringAppointments(
+            @Valid @RequestBody RecurringAppointmentRequest request,
+            Authentication authentication) {
+        logger.info("Création d'une série de rendez-vous par: {}", authentication.getName());
+
+        List<AppointmentResponse> responses = appointmentService
+                .createRecurringAppointments(request, authentication.getName()).stream()
+                .map(AppointmentResponse::fromAppointment)
+                .collect(Collectors.toList());
+        return ResponseEntity.status(HttpStatus.CREATED).body(responses);
+    }
+
+    @Operation(
+            summary = "Réserver temporairement un créneau",
+            description = "Bloque un créneau quelques instants pour le patient connecté et retourne un jeton à transmettre lors de la création du rendez-vous"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Créneau réservé temporairement"),
+            @ApiResponse(responseCode = "400", description = "Données invalides ou créneau passé"),
+            @ApiResponse(responseCode = "404", description = "Médecin non trouvé"),
+            @ApiResponse(responseCode = "409", description = "Créneau déjà réservé ou tenu par un autre patient")
+    })
+    @PostMapping("/holds")
+    public ResponseEntity<SlotHoldResponse> holdSlot(
+            @Valid @RequestBody SlotHoldRequest request,
+            Authentication authentication) {
+        logger.info("Réservation temporaire d'un créneau par: {}", authentication.getName());
+
+        SlotHoldResponse hold = appointmentService.holdSlot(request, authentication.getName());
+        return ResponseEntity.status(HttpStatus.CREATED).body(hold);
+    }
+
+    @Operation(
+            summary = "Libérer un créneau réservé temporairement",
+            description = "Libère la réservation temporaire identifiée par son jeton"
+    )
+    @DeleteMapping("/holds/{token}")
+    public ResponseEntity<Void> releaseHold(
+            @Parameter(description = "Jeton de réservation temporaire") @PathVariable String token,
+            Authentication authentication) {
+        logger.info("Libération d'une réservation temporaire par: {}", authentication.getName());
+
+        appointmentService.releaseHold(token, authentication.getName());
+        return ResponseEntity.noContent().build();
+    }
+
     @Operation(
             summary = "Obtenir mes rendez-vous",
-            description = "Récupère tous les rendez-vous de l'utilisateur connecté (patient ou médecin)"
+            description = "Récupère les rendez-vous de l'utilisateur connecté (patient ou médecin), du plus récent au plus ancien. "
+                    + "La liste est limitée aux 100 plus récents par défaut (500 au maximum via limit) ; "
+                    + "pour parcourir tout l'historique, utiliser /history"
     )
     @GetMapping("/my-appointments")
-    public ResponseEntity<List<AppointmentResponse>> getMyAppointments(Authentication authentication) {
+    public ResponseEntity<List<AppointmentResponse>> getMyAppointments(
+            @Parameter(description = "Nombre maximal de rendez-vous (500 maximum)") @RequestParam(defaultValue = "100") int limit,
+            Authentication authentication) {
         logger.info("Récupération des rendez-vous pour: {}", authentication.getName());
 
-        List<Appointment> appointments = appointmentService.getPatientAppointments(authentication.getName());
-
-        // Si l'utilisateur est un médecin, récupérer ses rendez-vous en tant que médecin
-        try {
-            List<Appointment> doctorAppointments = appointmentService.getDoctorAppointments(authentication.getName());
-            appointments.addAll(doctorAppointments);
-        } catch (Exception e) {
-            // L'utilisateur n'est pas un médecin, ignorer
-        }
+        return ResponseEntity.ok(appointmentService.getMyAppointments(authentication.getName(), limit));
+    }
 
-        List<AppointmentResponse> responses = appointments.stream()
-                .map(AppointmentResponse::fromAppointment)
-                .collect(Collectors.toList());
+    @Operation(
+            summary = "Parcourir l'historique de mes rendez-vous",
+            description = "Récupère l'historique de l'utilisateur connecté par pages, du plus récent au plus ancien ; transmettre le jeton nextCursor pour obtenir la page suivante"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Page de l'historique"),
+            @ApiResponse(responseCode = "400", description = "Jeton de pagination ou taille de page invalide")
+    })
+    @GetMapping("/history")
+    public ResponseEntity<AppointmentPageResponse> getAppointmentHistory(
+            @Parameter(description = "Jeton de la page suivante") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Taille de la page (100 maximum)") @RequestParam(defaultValue = "20") int size,
+            Authentication authentication) {
+        logger.info("Récupération de l'historique des rendez-vous pour: {}", authentication.getName());
 
-        return ResponseEntity.ok(responses);
+        return ResponseEntity.ok(appointmentService.getAppointmentHistory(authentication.getName(), cursor, size));
     }
 
     @Operation(
@@ -80,24 +150,12 @@ public class AppointmentController {
             description = "Récupère les prochains rendez-vous de l'utilisateur connecté"
     )
     @GetMapping("/upcoming")
-    public ResponseEntity<List<AppointmentResponse>> getUpcomingAppointments(Authentication authentication) {
+    public ResponseEntity<List<AppointmentResponse>> getUpcomingAppointments(
+            @Parameter(description = "Nombre maximal de rendez-vous (500 maximum)") @RequestParam(defaultValue = "100") int limit,
+            Authentication authentication) {
         logger.info("Récupération des prochains rendez-vous pour: {}", authentication.getName());
 
-        List<Appointment> appointments = appointmentService.getUpcomingPatientAppointments(authentication.getName());
-
-        // Si l'utilisateur est un médecin, récupérer ses prochains rendez-vous en tant que médecin
-        try {
-            List<Appointment> doctorAppointments = appointmentService.getUpcomingDoctorAppointments(authentication.getName());
-            appointments.addAll(doctorAppointments);
-        } catch (Exception e) {
-            // L'utilisateur n'est pas un médecin, ignorer
-        }
-
-        List<AppointmentResponse> responses = appointments.stream()
-                .map(AppointmentResponse::fromAppointment)
-                .collect(Collectors.toList());
-
-        return ResponseEntity.ok(responses);
+        return ResponseEntity.ok(appointmentService.getMyUpcomingAppointments(authentication.getName(), limit));
     }
 
     @Operation(
@@ -3,7 +3,9 @@ package com.example.crudApp.controller;
 import com.example.crudApp.dto.AvailableSlotResponse;
 import com.example.crudApp.dto.AvailabilityExceptionRequest;
 import com.example.crudApp.dto.AvailabilityExceptionResponse;
+import com.example.crudApp.dto.DoctorCalendarResponse;
 import com.example.crudApp.dto.DoctorResponse;
+import com.example.crudApp.dto.NextAvailableSlotResponse;
 import com.example.crudApp.exception.ResourceNotFoundException;
 import com.example.crudApp.model.DoctorAvailability;
 import com.example.crudApp.model.MedicalSpecialty;
@@ -83,6 +85,48 @@ public class DoctorController {
         return ResponseEntity.ok(responses);
     }
 
+    @Operation(
+            summary = "Calendrier des créneaux de plusieurs médecins",
+            description = "Récupère, pour une spécialité ou une liste de médecins, une grille compacte des créneaux de chaque jour de la période (31 jours maximum)"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Calendrier récupéré avec succès"),
+            @ApiResponse(responseCode = "400", description = "Période invalide ou aucun critère de sélection")
+    })
+    @GetMapping("/available-slots")
+    public ResponseEntity<List<DoctorCalendarResponse>> getAvailabilityCalendar(
+            @Parameter(description = "Spécialité médicale") @RequestParam(required = false) MedicalSpecialty specialty,
+            @Parameter(description = "IDs des médecins") @RequestParam(required = false) List<Long> doctorIds,
+            @Parameter(description = "Date de début (format: yyyy-MM-dd)")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Date de fin incluse (format: yyyy-MM-dd)")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        logger.info("Récupération du calendrier des créneaux - spécialité: {}, médecins: {}, du {} au {}",
+                specialty, doctorIds, from, to);
+
+        List<DoctorCalendarResponse> calendar = appointmentService.getAvailabilityCalendar(specialty, doctorIds, from, to);
+        return ResponseEntity.ok(calendar);
+    }
+
+    @Operation(
+            summary = "Prochains créneaux libres d'une spécialité",
+            description = "Recherche, parmi tous les médecins d'une spécialité, les créneaux libres les plus proches dans le temps"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Créneaux récupérés avec succès"),
+            @ApiResponse(responseCode = "400", description = "Nombre de créneaux demandé invalide")
+    })
+    @GetMapping("/next-available")
+    public ResponseEntity<List<NextAvailableSlotResponse>> getNextAvailableSlots(
+            @Parameter(description = "Spécialité médicale") @RequestParam MedicalSpecialty specialty,
+            @Parameter(description = "Nombre de créneaux souhaités (50 maximum)")
+            @RequestParam(defaultValue = "5") int limit) {
+        logger.info("Recherche des {} prochains créneaux libres pour la spécialité: {}", limit, specialty);
+
+        List<NextAvailableSlotResponse> slots = appointmentService.findNextAvailableSlots(specialty, limit);
+        return ResponseEntity.ok(slots);
+    }
+
     @Operation(
             summary = "Obtenir les détails d'un médecin",
             description = "Récupère les informations détaillées d'un médecin spécifique"
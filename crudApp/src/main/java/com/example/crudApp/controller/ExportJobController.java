@@ -0,0 +1,115 @@
+package com.example.crudApp.controller;
+
+import com.example.crudApp.dto.ExportJobResponse;
+import com.example.crudApp.dto.PatientSearchCriteria;
+import com.example.crudApp.model.ExportFormat;
+import com.example.crudApp.model.ExportJob;
+import com.example.crudApp.service.ExportJobService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+
+@RestController
+@RequestMapping("/api/patients/export-jobs")
+@RequiredArgsConstructor
+@Tag(name = "📦 Exports", description = "Exports asynchrones des patients (CSV, Excel, PDF) pour les gros volumes")
+@SecurityRequirement(name = "bearerAuth")
+public class ExportJobController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportJobController.class);
+
+    private final ExportJobService exportJobService;
+
+    /**
+     * Soumettre un export asynchrone
+     * POST /api/patients/export-jobs?format=EXCEL&bloodType=A%2B
+     */
+    @Operation(
+            summary = "Soumettre un export",
+            description = "Lance en arrière-plan l'export des patients correspondant aux filtres de la recherche. "
+                    + "L'avancement se suit avec l'identifiant retourné, puis le fichier se télécharge une fois l'export terminé"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Export accepté"),
+            @ApiResponse(responseCode = "400", description = "Format d'export inconnu"),
+            @ApiResponse(responseCode = "429", description = "Trop d'exports en cours pour l'utilisateur ou file d'attente pleine")
+    })
+    @PostMapping
+    public ResponseEntity<ExportJobResponse> submitExport(
+            @Parameter(description = "Format du fichier (CSV, EXCEL, PDF)") @RequestParam String format,
+            @ParameterObject PatientSearchCriteria criteria,
+            Authentication authentication) {
+        logger.info("Soumission d'un export {} par: {}", format, authentication.getName());
+
+        ExportJob job = exportJobService.submit(ExportFormat.from(format), criteria, authentication.getName());
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/patients/export-jobs/" + job.getId()))
+                .body(ExportJobResponse.fromJob(job));
+    }
+
+    /**
+     * Suivre l'avancement d'un export
+     * GET /api/patients/export-jobs/{id}
+     */
+    @Operation(
+            summary = "Avancement d'un export",
+            description = "Retourne le statut et l'avancement d'un export soumis par l'utilisateur connecté"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Statut de l'export"),
+            @ApiResponse(responseCode = "404", description = "Export non trouvé")
+    })
+    @GetMapping("/{id}")
+    public ResponseEntity<ExportJobResponse> getExport(
+            @Parameter(description = "Identifiant de l'export") @PathVariable String id,
+            Authentication authentication) {
+        ExportJob job = exportJobService.getJob(id, authentication.getName());
+        return ResponseEntity.ok(ExportJobResponse.fromJob(job));
+    }
+
+    /**
+     * Télécharger le fichier d'un export terminé
+     * GET /api/patients/export-jobs/{id}/download
+     */
+    @Operation(
+            summary = "Télécharger un export",
+            description = "Télécharge le fichier produit par un export terminé"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Fichier de l'export"),
+            @ApiResponse(responseCode = "404", description = "Export non trouvé ou expiré"),
+            @ApiResponse(responseCode = "409", description = "Export pas encore terminé")
+    })
+    @GetMapping("/{id}/download")
+    public ResponseEntity<Resource> downloadExport(
+            @Parameter(description = "Identifiant de l'export") @PathVariable String id,
+            Authentication authentication) {
+        logger.info("Téléchargement de l'export {} par: {}", id, authentication.getName());
+
+        ExportJob job = exportJobService.getCompletedJob(id, authentication.getName());
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(job.getFormat().getContentType()));
+        headers.setContentDispositionFormData("attachment", job.getFormat().getFileName());
+
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(new FileSystemResource(job.getFile()));
+    }
+}
@@ -3,11 +3,9 @@ package com.example.crudApp.controller;
 import com.example.crudApp.dto.PatientRequest;
 import com.example.crudApp.dto.PatientResponse;
 import com.example.crudApp.dto.PatientSearchCriteria;
-import com.example.crudApp.model.Patient;
-import com.example.crudApp.repository.PatientRepository;
-import com.example.crudApp.service.ExportService;
+import com.example.crudApp.model.ExportFormat;
+import com.example.crudApp.service.PatientExportService;
 import com.example.crudApp.service.PatientService;
-import com.itextpdf.text.DocumentException;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -20,6 +18,7 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -28,8 +27,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -44,8 +43,7 @@ public class PatientController {
     private static final Logger logger = LoggerFactory.getLogger(PatientController.class);
 
     private final PatientService patientService;
-    private final PatientRepository patientRepository;
-    private final ExportService exportService;
+    private final PatientExportService patientExportService;
 
     /**
      * Créer un nouveau patient
@@ -191,7 +189,8 @@ public class PatientController {
      */
     @Operation(
             summary = "Recherche avancée de patients",
-            description = "Recherche de patients avec filtres multiples : nom, email, âge, groupe sanguin, allergies, date de visite, etc."
+            description = "Recherche de patients avec filtres multiples : texte libre, nom, email, âge, groupe sanguin, allergies, date de visite, etc. "
+                    + "Le tri par défaut classe les résultats par pertinence"
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Résultats de recherche retournés"),
@@ -199,6 +198,7 @@ public class PatientController {
     })
     @GetMapping("/search")
     public ResponseEntity<Map<String, Object>> searchPatients(
+            @Parameter(description = "Texte libre (nom, email, adresse, allergies, assurance, contact d'urgence)") @RequestParam(required = false) String q,
             @Parameter(description = "Nom du patient (recherche partielle)") @RequestParam(required = false) String name,
             @Parameter(description = "Email du patient (recherche partielle)") @RequestParam(required = false) String email,
             @Parameter(description = "Âge minimum") @RequestParam(required = false) Integer minAge,
@@ -214,12 +214,13 @@ public class PatientController {
             @Parameter(description = "Nom du contact d'urgence") @RequestParam(required = false) String emergencyContact,
             @Parameter(description = "Numéro de page") @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Taille de la page") @RequestParam(defaultValue = "10") int size,
-            @Parameter(description = "Champ de tri") @RequestParam(defaultValue = "name") String sortBy,
+            @Parameter(description = "Champ de tri (relevance : par pertinence)") @RequestParam(defaultValue = "relevance") String sortBy,
             @Parameter(description = "Direction du tri") @RequestParam(defaultValue = "asc") String sortDirection) {
 
         logger.info("Recherche de patients avec critères");
 
         PatientSearchCriteria criteria = new PatientSearchCriteria();
+        criteria.setKeyword(q);
         criteria.setName(name);
         criteria.setEmail(email);
         criteria.setMinAge(minAge);
@@ -346,26 +347,25 @@ public class PatientController {
      */
     @Operation(
             summary = "Export CSV des patients",
-            description = "Exporte tous les patients au format CSV pour analyse dans Excel/Google Sheets"
+            description = "Exporte au format CSV les patients correspondant aux filtres de la recherche (tous si aucun filtre), "
+                    + "écrits en flux pour analyse dans Excel/Google Sheets"
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Fichier CSV généré avec succès"),
             @ApiResponse(responseCode = "401", description = "Non authentifié")
     })
     @GetMapping("/export/csv")
-    public ResponseEntity<byte[]> exportPatientsToCSV() throws IOException {
+    public ResponseEntity<StreamingResponseBody> exportPatientsToCSV(@ParameterObject PatientSearchCriteria criteria) {
         logger.info("Export des patients en CSV");
 
-        List<Patient> patients = patientRepository.findAll();
-        String csvContent = exportService.exportPatientsToCSV(patients);
-
         HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.parseMediaType("text/csv"));
-        headers.setContentDispositionFormData("attachment", "patients.csv");
+        headers.setContentType(MediaType.parseMediaType(ExportFormat.CSV.getContentType()));
+        headers.setContentDispositionFormData("attachment", ExportFormat.CSV.getFileName());
 
+        StreamingResponseBody body = outputStream -> patientExportService.export(ExportFormat.CSV, criteria, outputStream);
         return ResponseEntity.ok()
                 .headers(headers)
-                .body(csvContent.getBytes());
+                .body(body);
     }
 
     /**
@@ -374,26 +374,25 @@ public class PatientController {
      */
     @Operation(
             summary = "Export Excel des patients",
-            description = "Exporte tous les patients au format Excel (.xlsx) avec mise en forme professionnelle"
+            description = "Exporte au format Excel (.xlsx) les patients correspondant aux filtres de la recherche (tous si aucun filtre), "
+                    + "avec mise en forme professionnelle, écrits en flux"
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Fichier Excel généré avec succès"),
             @ApiResponse(responseCode = "401", description = "Non authentifié")
     })
     @GetMapping("/export/excel")
-    public ResponseEntity<byte[]> exportPatientsToExcel() throws IOException {
+    public ResponseEntity<StreamingResponseBody> exportPatientsToExcel(@ParameterObject PatientSearchCriteria criteria) {
         logger.info("Export des patients en Excel");
 
-        List<Patient> patients = patientRepository.findAll();
-        byte[] excelContent = exportService.exportPatientsToExcel(patients);
-
         HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"));
-        headers.setContentDispositionFormData("attachment", "patients.xlsx");
+        headers.setContentType(MediaType.parseMediaType(ExportFormat.EXCEL.getContentType()));
+        headers.setContentDispositionFormData("attachment", ExportFormat.EXCEL.getFileName());
 
+        StreamingResponseBody body = outputStream -> patientExportService.export(ExportFormat.EXCEL, criteria, outputStream);
         return ResponseEntity.ok()
                 .headers(headers)
-                .body(excelContent);
+                .body(body);
     }
 
     /**
@@ -402,26 +401,25 @@ public class PatientController {
      */
     @Operation(
             summary = "Export PDF des patients",
-            description = "Exporte tous les patients au format PDF avec mention 'Document confidentiel'"
+            description = "Exporte au format PDF les patients correspondant aux filtres de la recherche (tous si aucun filtre), "
+                    + "avec mention 'Document confidentiel', écrits en flux page par page"
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Fichier PDF généré avec succès"),
             @ApiResponse(responseCode = "401", description = "Non authentifié")
     })
     @GetMapping("/export/pdf")
-    public ResponseEntity<byte[]> exportPatientsToPDF() throws DocumentException {
+    public ResponseEntity<StreamingResponseBody> exportPatientsToPDF(@ParameterObject PatientSearchCriteria criteria) {
         logger.info("Export des patients en PDF");
 
-        List<Patient> patients = patientRepository.findAll();
-        byte[] pdfContent = exportService.exportPatientsToPDF(patients);
-
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_PDF);
-        headers.setContentDispositionFormData("attachment", "patients.pdf");
+        headers.setContentDispositionFormData("attachment", ExportFormat.PDF.getFileName());
 
+        StreamingResponseBody body = outputStream -> patientExportService.export(ExportFormat.PDF, criteria, outputStream);
         return ResponseEntity.ok()
                 .headers(headers)
-                .body(pdfContent);
+                .body(body);
     }
 
     /**
@@ -0,0 +1,29 @@
+package com.example.crudApp.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Page de l'historique des rendez-vous avec le jeton de la page suivante
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Page de l'historique des rendez-vous")
+public class AppointmentPageResponse {
+
+    @Schema(description = "Rendez-vous de la page, du plus récent au plus ancien")
+    private List<AppointmentResponse> content;
+
+    @Schema(description = "Jeton à transmettre pour obtenir la page suivante (absent sur la dernière page)")
+    private String nextCursor;
+
+    @Schema(description = "Indique s'il reste des rendez-vous après cette page")
+    private boolean hasNext;
+}
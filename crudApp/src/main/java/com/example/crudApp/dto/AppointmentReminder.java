@@ -0,0 +1,25 @@
+package com.example.crudApp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Données d'un rappel de rendez-vous, lues en une requête avec le patient et le médecin
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentReminder {
+
+    private Long appointmentId;
+    private LocalDateTime appointmentDateTime;
+    private Long patientId;
+    private String patientEmail;
+    private String patientUsername;
+    private String patientFullName;
+    private String doctorUsername;
+    private String doctorFullName;
+}
@@ -40,6 +40,9 @@ public class AppointmentRequest {
     @Schema(description = "Notes additionnelles", example = "Première visite")
     private String notes;
 
+    @Schema(description = "Jeton de réservation temporaire du créneau (optionnel)")
+    private String holdToken;
+
     // Getter qui combine appointmentDate et startTime si appointmentDateTime n'est pas fourni
     public LocalDateTime getAppointmentDateTime() {
         if (appointmentDateTime != null) {
@@ -0,0 +1,27 @@
+package com.example.crudApp.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Grille compacte des créneaux d'une journée")
+public class DaySlotGridResponse {
+
+    @Schema(description = "Date de la journée")
+    private LocalDate date;
+
+    @Schema(description = "Heures de début des créneaux", example = "[\"09:00\", \"09:30\"]")
+    private List<String> times;
+
+    @Schema(description = "Disponibilité de chaque créneau, dans l'ordre de times (1 = libre, 0 = occupé)", example = "10")
+    private String availability;
+}
@@ -0,0 +1,30 @@
+package com.example.crudApp.dto;
+
+import com.example.crudApp.model.MedicalSpecialty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Calendrier des créneaux d'un médecin sur une période")
+public class DoctorCalendarResponse {
+
+    @Schema(description = "ID du médecin")
+    private Long doctorId;
+
+    @Schema(description = "Nom complet du médecin")
+    private String doctorFullName;
+
+    @Schema(description = "Spécialité du médecin")
+    private MedicalSpecialty specialty;
+
+    @Schema(description = "Grilles journalières, une par date de la période")
+    private List<DaySlotGridResponse> days;
+}
@@ -0,0 +1,67 @@
+package com.example.crudApp.dto;
+
+import com.example.crudApp.model.ExportFormat;
+import com.example.crudApp.model.ExportJob;
+import com.example.crudApp.model.ExportJobStatus;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Export asynchrone des patients")
+public class ExportJobResponse {
+
+    @Schema(description = "Identifiant de l'export")
+    private String id;
+
+    @Schema(description = "Format du fichier", example = "EXCEL")
+    private ExportFormat format;
+
+    @Schema(description = "Statut : PENDING, RUNNING, COMPLETED ou FAILED", example = "RUNNING")
+    private ExportJobStatus status;
+
+    @Schema(description = "Nombre de patients déjà écrits", example = "1200")
+    private long processedRows;
+
+    @Schema(description = "Nombre total de patients à exporter (inconnu tant que l'export n'a pas démarré)", example = "5000")
+    private Long totalRows;
+
+    @Schema(description = "Avancement en pourcentage", example = "24")
+    private Integer progress;
+
+    @Schema(description = "Date de soumission")
+    private LocalDateTime createdAt;
+
+    @Schema(description = "Date de fin (succès ou échec)")
+    private LocalDateTime completedAt;
+
+    @Schema(description = "Message d'erreur en cas d'échec")
+    private String error;
+
+    @Schema(description = "URL de téléchargement, renseignée une fois l'export terminé")
+    private String downloadUrl;
+
+    public static ExportJobResponse fromJob(ExportJob job) {
+        return ExportJobResponse.builder()
+                .id(job.getId())
+                .format(job.getFormat())
+                .status(job.getStatus())
+                .processedRows(job.getProcessedRows())
+                .totalRows(job.getTotalRows())
+                .progress(job.getProgress())
+                .createdAt(job.getCreatedAt())
+                .completedAt(job.getCompletedAt())
+                .error(job.getError())
+                .downloadUrl(job.getStatus() == ExportJobStatus.COMPLETED
+                        ? "/api/patients/export-jobs/" + job.getId() + "/download"
+                        : null)
+                .build();
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.crudApp.dto;
+
+import com.example.crudApp.model.MedicalSpecialty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Créneau libre le plus proche chez un médecin")
+public class NextAvailableSlotResponse {
+
+    @Schema(description = "ID du médecin", example = "2")
+    private Long doctorId;
+
+    @Schema(description = "Nom complet du médecin", example = "Dr. Jean Dupont")
+    private String doctorFullName;
+
+    @Schema(description = "Spécialité du médecin")
+    private MedicalSpecialty specialty;
+
+    @Schema(description = "Date et heure du créneau")
+    private LocalDateTime dateTime;
+
+    @Schema(description = "Heure lisible du créneau", example = "09:30")
+    private String displayTime;
+}
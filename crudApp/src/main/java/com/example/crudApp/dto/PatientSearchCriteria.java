@@ -4,6 +4,7 @@ import com.example.crudApp.model.MedicalSpecialty;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 
 import java.time.LocalDate;
 
@@ -12,6 +13,9 @@ import java.time.LocalDate;
 @AllArgsConstructor
 public class PatientSearchCriteria {
 
+    // Recherche libre sur le nom, l'email, l'adresse, les allergies, l'assurance et le contact d'urgence
+    private String keyword;
+
     // Critères de recherche de base (hérités de Person)
     private String name;
     private String email;
@@ -22,7 +26,9 @@ public class PatientSearchCriteria {
     // Critères de recherche médicaux
     private String bloodType;
     private String allergy; // Recherche dans les allergies
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
     private LocalDate lastVisitAfter; // Patients vus après cette date
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
     private LocalDate lastVisitBefore; // Patients vus avant cette date
     private Boolean isActive; // Patients actifs ou archivés
     private String insuranceNumber;
@@ -31,4 +37,11 @@ public class PatientSearchCriteria {
 
     // Critère de recherche par spécialité du médecin
     private MedicalSpecialty doctorSpecialty; // Filtrer par spécialité du médecin
+
+    /**
+     * Paramètre de requête "q" de la recherche : alias du texte libre
+     */
+    public void setQ(String q) {
+        this.keyword = q;
+    }
 }
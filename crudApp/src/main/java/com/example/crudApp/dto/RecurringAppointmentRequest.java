@@ -0,0 +1,38 @@
+package com.example.crudApp.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Schema(description = "Requête de création d'une série de rendez-vous récurrents")
+public class RecurringAppointmentRequest {
+
+    @NotNull(message = "L'ID du médecin est obligatoire")
+    @Schema(description = "ID du médecin", example = "1")
+    private Long doctorId;
+
+    @NotNull(message = "La date et l'heure du premier rendez-vous sont obligatoires")
+    @Schema(description = "Date et heure du premier rendez-vous", example = "2024-12-30T10:00:00")
+    private LocalDateTime firstAppointmentDateTime;
+
+    @NotNull(message = "Le nombre de rendez-vous est obligatoire")
+    @Min(value = 2, message = "Une série comporte au moins 2 rendez-vous")
+    @Max(value = 52, message = "Une série ne peut pas dépasser 52 rendez-vous")
+    @Schema(description = "Nombre de rendez-vous de la série", example = "12")
+    private Integer occurrences;
+
+    @Min(value = 1, message = "L'intervalle doit être d'au moins 1 semaine")
+    @Max(value = 4, message = "L'intervalle ne peut pas dépasser 4 semaines")
+    @Schema(description = "Nombre de semaines entre deux rendez-vous (1 par défaut)", example = "1")
+    private Integer intervalWeeks;
+
+    @Size(max = 500, message = "Le motif ne peut pas dépasser 500 caractères")
+    @Schema(description = "Motif de consultation", example = "Séance de kinésithérapie")
+    private String reason;
+}
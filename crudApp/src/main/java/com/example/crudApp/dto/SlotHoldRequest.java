@@ -0,0 +1,25 @@
+package com.example.crudApp.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Schema(description = "Requête de réservation temporaire d'un créneau")
+public class SlotHoldRequest {
+
+    @NotNull(message = "L'ID du médecin est obligatoire")
+    @Schema(description = "ID du médecin", example = "1")
+    private Long doctorId;
+
+    @NotNull(message = "La date et l'heure du créneau sont obligatoires")
+    @Schema(description = "Date et heure du créneau", example = "2024-12-30T10:00:00")
+    private LocalDateTime appointmentDateTime;
+
+    @Positive(message = "La durée de réservation doit être positive")
+    @Schema(description = "Durée de la réservation en secondes (120 par défaut)", example = "120")
+    private Integer holdSeconds;
+}
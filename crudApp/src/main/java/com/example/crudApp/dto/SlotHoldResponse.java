@@ -0,0 +1,29 @@
+package com.example.crudApp.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Réservation temporaire d'un créneau")
+public class SlotHoldResponse {
+
+    @Schema(description = "Jeton à transmettre lors de la création du rendez-vous")
+    private String holdToken;
+
+    @Schema(description = "ID du médecin", example = "1")
+    private Long doctorId;
+
+    @Schema(description = "Date et heure du créneau réservé")
+    private LocalDateTime appointmentDateTime;
+
+    @Schema(description = "Fin de la réservation temporaire")
+    private LocalDateTime expiresAt;
+}
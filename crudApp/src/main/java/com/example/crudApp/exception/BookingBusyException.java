@@ -0,0 +1,18 @@
+package com.example.crudApp.exception;
+
+/**
+ * Réservation momentanément impossible (médecin très sollicité) : la demande peut être renouvelée
+ */
+public class BookingBusyException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public BookingBusyException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
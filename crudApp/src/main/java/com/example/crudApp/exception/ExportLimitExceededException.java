@@ -0,0 +1,7 @@
+package com.example.crudApp.exception;
+
+public class ExportLimitExceededException extends RuntimeException {
+    public ExportLimitExceededException(String message) {
+        super(message);
+    }
+}
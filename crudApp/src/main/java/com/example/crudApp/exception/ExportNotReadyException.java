@@ -0,0 +1,7 @@
+package com.example.crudApp.exception;
+
+public class ExportNotReadyException extends RuntimeException {
+    public ExportNotReadyException(String message) {
+        super(message);
+    }
+}
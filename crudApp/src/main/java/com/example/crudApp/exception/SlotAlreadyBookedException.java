@@ -0,0 +1,7 @@
+package com.example.crudApp.exception;
+
+public class SlotAlreadyBookedException extends RuntimeException {
+    public SlotAlreadyBookedException(String message) {
+        super(message);
+    }
+}
@@ -9,7 +9,20 @@ import java.time.LocalDateTime;
  * Entité représentant un rendez-vous médical
  */
 @Entity
-@Table(name = "appointments")
+@Table(name = "appointments", uniqueConstraints = {
+        // Un seul rendez-vous actif par médecin et par créneau
+        @UniqueConstraint(name = "uk_appointments_doctor_active_slot", columnNames = {"doctor_id", "active_slot"})
+}, indexes = {
+        // Pagination par curseur de l'historique (date du rendez-vous, id)
+        @Index(name = "idx_appointments_patient_date_id", columnList = "patient_id, appointment_date_time, id"),
+        @Index(name = "idx_appointments_doctor_date_id", columnList = "doctor_id, appointment_date_time, id"),
+        // Conflits et créneaux occupés d'un médecin (index couvrant du comptage)
+        @Index(name = "idx_appointments_doctor_date_status", columnList = "doctor_id, appointment_date_time, status"),
+        // Rappels et clôture automatique par statut sur une période
+        @Index(name = "idx_appointments_status_date", columnList = "status, appointment_date_time"),
+        // Rappels restant à envoyer sur une période
+        @Index(name = "idx_appointments_status_reminder_date", columnList = "status, reminder_sent_at, appointment_date_time")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -56,14 +69,30 @@ public class Appointment {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // Créneau occupé : égal à la date du rendez-vous tant qu'il est en attente ou confirmé, null sinon
+    @Column(name = "active_slot")
+    private LocalDateTime activeSlot;
+
+    // Date d'envoi du rappel, null tant qu'il n'a pas été envoyé
+    @Column(name = "reminder_sent_at")
+    private LocalDateTime reminderSentAt;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
+        activeSlot = computeActiveSlot();
     }
 
     @PreUpdate
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
+        activeSlot = computeActiveSlot();
+    }
+
+    private LocalDateTime computeActiveSlot() {
+        return status == AppointmentStatus.PENDING || status == AppointmentStatus.CONFIRMED
+                ? appointmentDateTime
+                : null;
     }
 }
@@ -11,7 +11,10 @@ import java.time.LocalTime;
  * Définit les horaires de travail par jour de la semaine
  */
 @Entity
-@Table(name = "doctor_availability")
+@Table(name = "doctor_availability", indexes = {
+        // Horaires récurrents actifs d'un médecin, éventuellement pour un jour donné
+        @Index(name = "idx_availability_doctor_active_day", columnList = "doctor_id, is_active, day_of_week")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
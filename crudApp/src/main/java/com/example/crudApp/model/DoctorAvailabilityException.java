@@ -10,7 +10,12 @@ import java.time.LocalDate;
  * Permet de désactiver ou modifier des disponibilités pour des dates spécifiques
  */
 @Entity
-@Table(name = "doctor_availability_exceptions")
+@Table(name = "doctor_availability_exceptions", indexes = {
+        // Exceptions actives d'un médecin à une date ou sur une période
+        @Index(name = "idx_exceptions_doctor_active_date", columnList = "doctor_id, is_active, exception_date"),
+        // Exceptions actives de tous les médecins à une date
+        @Index(name = "idx_exceptions_date_active", columnList = "exception_date, is_active")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,78 @@
+package com.example.crudApp.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Email en attente d'envoi (outbox), enregistré dans la transaction de l'opération qui le déclenche
+ * L'envoi SMTP est fait ensuite par EmailOutboxDispatcher ; le message survit à un redémarrage
+ */
+@Entity
+@Table(name = "email_outbox", indexes = {
+        // Messages à envoyer par échéance de tentative
+        @Index(name = "idx_email_outbox_status_next_attempt", columnList = "status, next_attempt_at"),
+        // Purge des messages envoyés et des lettres mortes anciens
+        @Index(name = "idx_email_outbox_status_created", columnList = "status, created_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EmailOutboxMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Type d'email (bienvenue, rappel, ...)
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false)
+    private EmailType type;
+
+    // Adresse du destinataire
+    @Column(name = "recipient", nullable = false)
+    private String recipient;
+
+    @Column(name = "subject", nullable = false)
+    private String subject;
+
+    // Corps HTML, rendu à l'enregistrement
+    @Lob
+    @Column(name = "body", nullable = false)
+    @ToString.Exclude
+    private String body;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    @Builder.Default
+    private OutboxStatus status = OutboxStatus.PENDING;
+
+    // Nombre de tentatives d'envoi effectuées
+    @Column(name = "attempts", nullable = false)
+    @Builder.Default
+    private int attempts = 0;
+
+    // Date à partir de laquelle le message peut être (re)tenté
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    // Dernière erreur d'envoi
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (nextAttemptAt == null) {
+            nextAttemptAt = createdAt;
+        }
+    }
+}
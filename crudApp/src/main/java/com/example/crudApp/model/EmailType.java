@@ -0,0 +1,14 @@
+package com.example.crudApp.model;
+
+/**
+ * Types d'emails envoyés par l'application
+ */
+public enum EmailType {
+    WELCOME,
+    APPOINTMENT_CONFIRMATION,
+    DOCTOR_NOTIFICATION,
+    STATUS_UPDATE,
+    REMINDER,
+    RECURRING_CONFIRMATION,
+    RECURRING_DOCTOR_NOTIFICATION
+}
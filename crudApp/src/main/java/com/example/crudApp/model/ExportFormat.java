@@ -0,0 +1,58 @@
+package com.example.crudApp.model;
+
+/**
+ * Énumération des formats d'export des patients
+ */
+public enum ExportFormat {
+    /**
+     * Fichier CSV (UTF-8)
+     */
+    CSV("text/csv", "csv"),
+
+    /**
+     * Classeur Excel (.xlsx)
+     */
+    EXCEL("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx"),
+
+    /**
+     * Document PDF
+     */
+    PDF("application/pdf", "pdf");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Nom du fichier proposé au téléchargement
+     */
+    public String getFileName() {
+        return "patients." + extension;
+    }
+
+    /**
+     * Format correspondant au nom (csv, excel, pdf), sans tenir compte de la casse
+     */
+    public static ExportFormat from(String value) {
+        if (value != null) {
+            for (ExportFormat format : values()) {
+                if (format.name().equalsIgnoreCase(value.trim())) {
+                    return format;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Format d'export inconnu: " + value + " (CSV, EXCEL ou PDF)");
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.crudApp.model;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Export asynchrone demandé par un utilisateur, suivi jusqu'au téléchargement du fichier produit
+ * Le suivi est enregistré en base et le fichier écrit dans le répertoire partagé des exports : toute instance
+ * répond à l'avancement et au téléchargement. L'instance qui produit le fichier compte l'avancement en
+ * mémoire et le reporte régulièrement en base.
+ */
+@Entity
+@Table(name = "export_jobs", indexes = {
+        // Exports en cours d'un utilisateur (limite par utilisateur)
+        @Index(name = "idx_export_jobs_username_status", columnList = "username, status"),
+        // Exports terminés à purger et exports en cours sans nouvelles de leur instance
+        @Index(name = "idx_export_jobs_status_updated", columnList = "status, updated_at")
+})
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class ExportJob {
+
+    public static final List<ExportJobStatus> ACTIVE_STATUSES = List.of(ExportJobStatus.PENDING, ExportJobStatus.RUNNING);
+    public static final List<ExportJobStatus> FINISHED_STATUSES = List.of(ExportJobStatus.COMPLETED, ExportJobStatus.FAILED);
+
+    @Id
+    @Column(name = "id", length = 36)
+    private String id;
+
+    @Column(name = "username", nullable = false)
+    private String username;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "format", nullable = false)
+    private ExportFormat format;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private volatile ExportJobStatus status = ExportJobStatus.PENDING;
+
+    @Column(name = "total_rows")
+    private volatile Long totalRows;
+
+    // Avancement reporté en base ; l'instance qui produit le fichier compte dans processedRowsCounter
+    @Getter(AccessLevel.NONE)
+    @Column(name = "processed_rows", nullable = false)
+    private volatile long processedRows;
+
+    @Getter(AccessLevel.NONE)
+    @Transient
+    private final AtomicLong processedRowsCounter = new AtomicLong();
+
+    @Getter(AccessLevel.NONE)
+    @Column(name = "file_path", length = 500)
+    private volatile String filePath;
+
+    @Column(name = "error")
+    private volatile String error;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    // Dernière nouvelle de l'instance qui exécute l'export
+    @Column(name = "updated_at", nullable = false)
+    private volatile LocalDateTime updatedAt;
+
+    @Column(name = "completed_at")
+    private volatile LocalDateTime completedAt;
+
+    public ExportJob(String id, String username, ExportFormat format, LocalDateTime createdAt) {
+        this.id = id;
+        this.username = username;
+        this.format = format;
+        this.createdAt = createdAt;
+        this.updatedAt = createdAt;
+    }
+
+    public long getProcessedRows() {
+        return Math.max(processedRows, processedRowsCounter.get());
+    }
+
+    public Path getFile() {
+        return filePath != null ? Paths.get(filePath) : null;
+    }
+
+    /**
+     * Avancement en pourcentage, ou null tant que le nombre total de lignes est inconnu
+     */
+    public Integer getProgress() {
+        if (status == ExportJobStatus.COMPLETED) {
+            return 100;
+        }
+        Long total = totalRows;
+        if (total == null) {
+            return null;
+        }
+        return total == 0 ? 0 : (int) Math.min(99, getProcessedRows() * 100 / total);
+    }
+
+    public boolean isActive() {
+        return ACTIVE_STATUSES.contains(status);
+    }
+
+    public AtomicLong processedRowsCounter() {
+        return processedRowsCounter;
+    }
+
+    public void start(long totalRows, LocalDateTime now) {
+        this.totalRows = totalRows;
+        this.updatedAt = now;
+        this.status = ExportJobStatus.RUNNING;
+    }
+
+    public void complete(Path file, LocalDateTime completedAt) {
+        this.filePath = file.toString();
+        finish(ExportJobStatus.COMPLETED, completedAt);
+    }
+
+    public void fail(String error, LocalDateTime completedAt) {
+        this.error = error;
+        finish(ExportJobStatus.FAILED, completedAt);
+    }
+
+    private void finish(ExportJobStatus finalStatus, LocalDateTime completedAt) {
+        this.processedRows = getProcessedRows();
+        this.completedAt = completedAt;
+        this.updatedAt = completedAt;
+        this.status = finalStatus;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.crudApp.model;
+
+/**
+ * Statuts d'un export asynchrone
+ */
+public enum ExportJobStatus {
+    /**
+     * En attente d'un thread du pool export-job
+     */
+    PENDING,
+
+    /**
+     * Fichier en cours d'écriture
+     */
+    RUNNING,
+
+    /**
+     * Fichier prêt à être téléchargé
+     */
+    COMPLETED,
+
+    /**
+     * Échec de l'export, ou instance arrêtée pendant l'export
+     */
+    FAILED
+}
@@ -0,0 +1,36 @@
+package com.example.crudApp.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Bail d'exécution d'une tâche planifiée, partagé par toutes les instances de l'application
+ * Lu et écrit par JobLeaseService en SQL ; l'entité décrit la table (schéma généré en test)
+ */
+@Entity
+@Table(name = "job_leases")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class JobLease {
+
+    // Nom de la tâche (ex : "appointment-reminders")
+    @Id
+    @Column(name = "name", length = 64)
+    private String name;
+
+    // Fin du bail : une autre instance peut lancer la tâche après cette date
+    @Column(name = "locked_until", nullable = false)
+    private LocalDateTime lockedUntil;
+
+    // Début de la dernière exécution
+    @Column(name = "locked_at", nullable = false)
+    private LocalDateTime lockedAt;
+
+    // Instance détentrice du bail
+    @Column(name = "locked_by", nullable = false)
+    private String lockedBy;
+}
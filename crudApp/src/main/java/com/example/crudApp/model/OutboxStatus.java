@@ -0,0 +1,21 @@
+package com.example.crudApp.model;
+
+/**
+ * Statuts d'un email de la file d'envoi (outbox)
+ */
+public enum OutboxStatus {
+    /**
+     * À envoyer, éventuellement après un échec (nouvelle tentative planifiée)
+     */
+    PENDING,
+
+    /**
+     * Envoyé au serveur SMTP
+     */
+    SENT,
+
+    /**
+     * Abandonné après le nombre maximal de tentatives ou une erreur définitive
+     */
+    DEAD
+}
@@ -1,16 +1,25 @@
 package com.example.crudApp.model;
 
+import com.example.crudApp.util.AllergyNormalizer;
 import jakarta.persistence.*;
 import lombok.*;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Entité Patient - Représente un patient dans le système médical
  * Cette entité est indépendante de User et stocke des informations médicales détaillées
  */
 @Entity
-@Table(name = "patients")
+@Table(name = "patients", indexes = {
+        // Dossiers actifs par utilisateur, par dernière visite et par groupe sanguin
+        @Index(name = "idx_patients_user_active", columnList = "user_id, is_active"),
+        @Index(name = "idx_patients_active_last_visit", columnList = "is_active, last_visit"),
+        @Index(name = "idx_patients_blood_type", columnList = "blood_type")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -40,6 +49,13 @@ public class Patient {
     @Column(length = 1000)
     private String allergies;
 
+    // Allergies normalisées, dérivées du champ allergies (table patient_allergies indexée)
+    @OneToMany(mappedBy = "patient", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Builder.Default
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private List<PatientAllergy> allergyEntries = new ArrayList<>();
+
     @Column(name = "medical_history", length = 5000)
     private String medicalHistory;
 
@@ -66,4 +82,32 @@ public class Patient {
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
+
+    public void setAllergies(String allergies) {
+        this.allergies = allergies;
+        syncAllergyEntries();
+    }
+
+    /**
+     * Aligner les allergies normalisées sur le champ texte
+     * Les allergies inchangées sont conservées : seules les lignes ajoutées ou retirées sont écrites
+     */
+    public void syncAllergyEntries() {
+        Map<String, String> tokens = AllergyNormalizer.tokenize(allergies);
+        allergyEntries.removeIf(entry -> !tokens.containsKey(entry.getNormalizedName()));
+        for (PatientAllergy entry : allergyEntries) {
+            tokens.remove(entry.getNormalizedName());
+        }
+        tokens.forEach((normalizedName, name) -> allergyEntries.add(PatientAllergy.builder()
+                .patient(this)
+                .name(name)
+                .normalizedName(normalizedName)
+                .build()));
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        // Patients construits sans passer par setAllergies (builder)
+        syncAllergyEntries();
+    }
 }
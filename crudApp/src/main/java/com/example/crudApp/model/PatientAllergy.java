@@ -0,0 +1,41 @@
+package com.example.crudApp.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Entité représentant une allergie d'un patient, sous forme normalisée
+ * Dérivée du champ texte Patient.allergies ; la colonne normalized_name est indexée pour les recherches exactes
+ */
+@Entity
+@Table(name = "patient_allergies", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_patient_allergies_patient_name", columnNames = {"patient_id", "normalized_name"})
+}, indexes = {
+        // Patients ayant une allergie donnée (recherche et prescription)
+        @Index(name = "idx_patient_allergies_name_patient", columnList = "normalized_name, patient_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PatientAllergy {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Patient concerné
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "patient_id", nullable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Patient patient;
+
+    // Libellé tel que saisi (ex : "Pénicilline")
+    @Column(name = "name", nullable = false, length = 255)
+    private String name;
+
+    // Forme normalisée (ex : "penicilline")
+    @Column(name = "normalized_name", nullable = false, length = 255)
+    private String normalizedName;
+}
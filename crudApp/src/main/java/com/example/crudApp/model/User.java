@@ -8,7 +8,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        // Médecins par spécialité
+        @Index(name = "idx_users_type_specialty", columnList = "user_type, medical_specialty")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,48 @@
+package com.example.crudApp.repository;
+
+import com.example.crudApp.model.Appointment;
+import com.example.crudApp.model.AppointmentStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Insertion des rendez-vous par lots JDBC
+ * Utilisée pour les séries de rendez-vous : une seule requête préparée envoyée par lots, sans
+ * passer par le contexte de persistance. S'exécute dans la transaction JPA courante.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AppointmentBatchRepository {
+
+    private static final int BATCH_SIZE = 50;
+
+    private static final String INSERT_SQL = "INSERT INTO appointments "
+            + "(doctor_id, patient_id, appointment_date_time, status, reason, created_at, updated_at, active_slot) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Insérer les rendez-vous par lots ; les identifiants générés ne sont pas renseignés
+     */
+    public void insertAll(List<Appointment> appointments) {
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.batchUpdate(INSERT_SQL, appointments, BATCH_SIZE, (ps, appointment) -> {
+            // Même règle que l'entité : seul un rendez-vous en attente ou confirmé occupe le créneau
+            boolean active = appointment.getStatus() == AppointmentStatus.PENDING
+                    || appointment.getStatus() == AppointmentStatus.CONFIRMED;
+            ps.setLong(1, appointment.getDoctor().getId());
+            ps.setLong(2, appointment.getPatient().getId());
+            ps.setObject(3, appointment.getAppointmentDateTime());
+            ps.setString(4, appointment.getStatus().name());
+            ps.setString(5, appointment.getReason());
+            ps.setObject(6, now);
+            ps.setObject(7, now);
+            ps.setObject(8, active ? appointment.getAppointmentDateTime() : null);
+        });
+    }
+}
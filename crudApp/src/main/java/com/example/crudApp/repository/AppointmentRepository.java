@@ -1,14 +1,20 @@
 package com.example.crudApp.repository;
 
+import com.example.crudApp.dto.AppointmentReminder;
+import com.example.crudApp.dto.AppointmentResponse;
 import com.example.crudApp.model.Appointment;
 import com.example.crudApp.model.AppointmentStatus;
 import com.example.crudApp.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -20,6 +26,28 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
     // Trouver tous les rendez-vous d'un patient
     List<Appointment> findByPatient(User patient);
 
+    // Historique d'un patient par pages (index patient_id, appointment_date_time, id)
+    @Query("SELECT new com.example.crudApp.dto.AppointmentResponse(a.id, d.id, d.username, d.fullName, d.specialty, p.id, p.username, p.fullName, a.appointmentDateTime, a.status, a.reason, a.doctorNotes, a.createdAt, a.updatedAt) FROM Appointment a JOIN a.doctor d JOIN a.patient p WHERE p = :patient ORDER BY a.appointmentDateTime DESC, a.id DESC")
+    List<AppointmentResponse> findPatientHistory(@Param("patient") User patient, Pageable pageable);
+
+    // Page suivante de l'historique d'un patient, après la position (date, id) donnée
+    @Query("SELECT new com.example.crudApp.dto.AppointmentResponse(a.id, d.id, d.username, d.fullName, d.specialty, p.id, p.username, p.fullName, a.appointmentDateTime, a.status, a.reason, a.doctorNotes, a.createdAt, a.updatedAt) FROM Appointment a JOIN a.doctor d JOIN a.patient p WHERE p = :patient AND (a.appointmentDateTime < :dateTime OR (a.appointmentDateTime = :dateTime AND a.id < :id)) ORDER BY a.appointmentDateTime DESC, a.id DESC")
+    List<AppointmentResponse> findPatientHistoryAfter(@Param("patient") User patient,
+                                                      @Param("dateTime") LocalDateTime dateTime,
+                                                      @Param("id") Long id,
+                                                      Pageable pageable);
+
+    // Historique d'un médecin par pages (index doctor_id, appointment_date_time, id)
+    @Query("SELECT new com.example.crudApp.dto.AppointmentResponse(a.id, d.id, d.username, d.fullName, d.specialty, p.id, p.username, p.fullName, a.appointmentDateTime, a.status, a.reason, a.doctorNotes, a.createdAt, a.updatedAt) FROM Appointment a JOIN a.doctor d JOIN a.patient p WHERE d = :doctor ORDER BY a.appointmentDateTime DESC, a.id DESC")
+    List<AppointmentResponse> findDoctorHistory(@Param("doctor") User doctor, Pageable pageable);
+
+    // Page suivante de l'historique d'un médecin, après la position (date, id) donnée
+    @Query("SELECT new com.example.crudApp.dto.AppointmentResponse(a.id, d.id, d.username, d.fullName, d.specialty, p.id, p.username, p.fullName, a.appointmentDateTime, a.status, a.reason, a.doctorNotes, a.createdAt, a.updatedAt) FROM Appointment a JOIN a.doctor d JOIN a.patient p WHERE d = :doctor AND (a.appointmentDateTime < :dateTime OR (a.appointmentDateTime = :dateTime AND a.id < :id)) ORDER BY a.appointmentDateTime DESC, a.id DESC")
+    List<AppointmentResponse> findDoctorHistoryAfter(@Param("doctor") User doctor,
+                                                     @Param("dateTime") LocalDateTime dateTime,
+                                                     @Param("id") Long id,
+                                                     Pageable pageable);
+
     // Trouver les rendez-vous d'un médecin par statut
     List<Appointment> findByDoctorAndStatus(User doctor, AppointmentStatus status);
 
@@ -42,21 +70,86 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
     @Query("SELECT COUNT(a) FROM Appointment a WHERE a.doctor = :doctor AND a.appointmentDateTime = :dateTime AND a.status IN ('PENDING', 'CONFIRMED')")
     Long countConflictingAppointments(@Param("doctor") User doctor, @Param("dateTime") LocalDateTime dateTime);
 
-    // Trouver les prochains rendez-vous d'un médecin
-    @Query("SELECT a FROM Appointment a WHERE a.doctor = :doctor AND a.appointmentDateTime >= :now AND a.status IN ('PENDING', 'CONFIRMED') ORDER BY a.appointmentDateTime")
-    List<Appointment> findUpcomingAppointmentsByDoctor(@Param("doctor") User doctor, @Param("now") LocalDateTime now);
+    // Horaires occupés (PENDING/CONFIRMED) d'un médecin sur une période, pour le calcul des créneaux
+    @Query("SELECT a.appointmentDateTime FROM Appointment a WHERE a.doctor = :doctor AND a.appointmentDateTime >= :start AND a.appointmentDateTime < :end AND a.status IN ('PENDING', 'CONFIRMED')")
+    List<LocalDateTime> findBookedSlotTimes(@Param("doctor") User doctor,
+                                            @Param("start") LocalDateTime start,
+                                            @Param("end") LocalDateTime end);
+
+    // Horaires occupés parmi une liste de créneaux d'un médecin (index unique doctor_id, active_slot)
+    @Query("SELECT a.activeSlot FROM Appointment a WHERE a.doctor = :doctor AND a.activeSlot IN :slots")
+    List<LocalDateTime> findBookedSlotTimesIn(@Param("doctor") User doctor,
+                                              @Param("slots") Collection<LocalDateTime> slots);
+
+    // Rendez-vous actifs d'un patient avec un médecin sur une liste de créneaux
+    List<Appointment> findByDoctorAndPatientAndActiveSlotInOrderByAppointmentDateTimeAsc(User doctor, User patient,
+                                                                                       Collection<LocalDateTime> slots);
+
+    // Horaires occupés (PENDING/CONFIRMED) de plusieurs médecins sur une période
+    @Query("SELECT a.doctor.id AS doctorId, a.appointmentDateTime AS appointmentDateTime FROM Appointment a WHERE a.doctor IN :doctors AND a.appointmentDateTime >= :start AND a.appointmentDateTime < :end AND a.status IN ('PENDING', 'CONFIRMED')")
+    List<BookedSlot> findBookedSlotsByDoctors(@Param("doctors") Collection<User> doctors,
+                                              @Param("start") LocalDateTime start,
+                                              @Param("end") LocalDateTime end);
 
-    // Trouver les prochains rendez-vous d'un patient
-    @Query("SELECT a FROM Appointment a WHERE a.patient = :patient AND a.appointmentDateTime >= :now AND a.status IN ('PENDING', 'CONFIRMED') ORDER BY a.appointmentDateTime")
-    List<Appointment> findUpcomingAppointmentsByPatient(@Param("patient") User patient, @Param("now") LocalDateTime now);
+    // Prochains rendez-vous d'un médecin projetés en réponses API (index doctor_id, appointment_date_time)
+    @Query("SELECT new com.example.crudApp.dto.AppointmentResponse(a.id, d.id, d.username, d.fullName, d.specialty, p.id, p.username, p.fullName, a.appointmentDateTime, a.status, a.reason, a.doctorNotes, a.createdAt, a.updatedAt) FROM Appointment a JOIN a.doctor d JOIN a.patient p WHERE d = :doctor AND a.appointmentDateTime >= :now AND a.status IN ('PENDING', 'CONFIRMED') ORDER BY a.appointmentDateTime, a.id")
+    List<AppointmentResponse> findUpcomingResponsesByDoctor(@Param("doctor") User doctor,
+                                                            @Param("now") LocalDateTime now,
+                                                            Pageable pageable);
+
+    // Prochains rendez-vous d'un patient projetés en réponses API (index patient_id, appointment_date_time)
+    @Query("SELECT new com.example.crudApp.dto.AppointmentResponse(a.id, d.id, d.username, d.fullName, d.specialty, p.id, p.username, p.fullName, a.appointmentDateTime, a.status, a.reason, a.doctorNotes, a.createdAt, a.updatedAt) FROM Appointment a JOIN a.doctor d JOIN a.patient p WHERE p = :patient AND a.appointmentDateTime >= :now AND a.status IN ('PENDING', 'CONFIRMED') ORDER BY a.appointmentDateTime, a.id")
+    List<AppointmentResponse> findUpcomingResponsesByPatient(@Param("patient") User patient,
+                                                             @Param("now") LocalDateTime now,
+                                                             Pageable pageable);
 
     // Trouver les rendez-vous par statut dans une plage de dates (pour les rappels)
     List<Appointment> findByStatusAndAppointmentDateTimeBetween(AppointmentStatus status, LocalDateTime start, LocalDateTime end);
 
-    // Trouver les rendez-vous par statut avant une date (pour le nettoyage et auto-complétion)
-    List<Appointment> findByStatusAndAppointmentDateTimeBefore(AppointmentStatus status, LocalDateTime dateTime);
+    // Page suivante des rappels à envoyer, après l'identifiant donné (index status, reminder_sent_at, appointment_date_time)
+    @Query("SELECT new com.example.crudApp.dto.AppointmentReminder(a.id, a.appointmentDateTime, p.id, p.email, p.username, p.fullName, d.username, d.fullName) FROM Appointment a JOIN a.doctor d JOIN a.patient p WHERE a.status = :status AND a.reminderSentAt IS NULL AND a.appointmentDateTime BETWEEN :start AND :end AND a.id > :afterId ORDER BY a.id")
+    List<AppointmentReminder> findDueReminders(@Param("status") AppointmentStatus status,
+                                               @Param("start") LocalDateTime start,
+                                               @Param("end") LocalDateTime end,
+                                               @Param("afterId") Long afterId,
+                                               Pageable pageable);
+
+    // Marquer les rappels comme envoyés ; ceux déjà marqués ne sont pas modifiés
+    @Modifying
+    @Transactional
+    @Query("UPDATE Appointment a SET a.reminderSentAt = :sentAt WHERE a.id IN :ids AND a.reminderSentAt IS NULL")
+    int markRemindersSent(@Param("ids") Collection<Long> ids, @Param("sentAt") LocalDateTime sentAt);
+
+    // Premiers identifiants des rendez-vous d'un statut avant une date, pour les traitements par lots (index status, appointment_date_time)
+    @Query("SELECT a.id FROM Appointment a WHERE a.status = :status AND a.appointmentDateTime < :dateTime ORDER BY a.appointmentDateTime")
+    List<Long> findIdsByStatusAndAppointmentDateTimeBefore(@Param("status") AppointmentStatus status,
+                                                           @Param("dateTime") LocalDateTime dateTime,
+                                                           Pageable pageable);
+
+    // Marquer terminés les rendez-vous encore confirmés d'un lot ; le créneau est libéré comme le ferait onUpdate
+    @Modifying
+    @Transactional
+    @Query("UPDATE Appointment a SET a.status = com.example.crudApp.model.AppointmentStatus.COMPLETED, a.activeSlot = NULL, a.doctorNotes = :notes, a.updatedAt = :now WHERE a.id IN :ids AND a.status = com.example.crudApp.model.AppointmentStatus.CONFIRMED")
+    int completeConfirmedAppointments(@Param("ids") Collection<Long> ids,
+                                      @Param("notes") String notes,
+                                      @Param("now") LocalDateTime now);
+
+    // Supprimer les rendez-vous d'un lot encore dans le statut donné
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Appointment a WHERE a.id IN :ids AND a.status = :status")
+    int deleteByIdInAndStatus(@Param("ids") Collection<Long> ids, @Param("status") AppointmentStatus status);
 
     // Trouver un rendez-vous par ID avec les relations chargées (pour éviter les problèmes de lazy loading)
     @Query("SELECT a FROM Appointment a LEFT JOIN FETCH a.doctor LEFT JOIN FETCH a.patient WHERE a.id = :id")
     java.util.Optional<Appointment> findByIdWithRelations(@Param("id") Long id);
+
+    /**
+     * Projection d'un créneau occupé : médecin et horaire
+     */
+    interface BookedSlot {
+        Long getDoctorId();
+
+        LocalDateTime getAppointmentDateTime();
+    }
 }
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -30,6 +31,12 @@ public interface DoctorAvailabilityExceptionRepository extends JpaRepository<Doc
     List<DoctorAvailabilityException> findByDoctorAndExceptionDateBetweenAndIsActive(
             User doctor, LocalDate startDate, LocalDate endDate, Boolean isActive);
 
+    /**
+     * Trouve les exceptions de plusieurs médecins pour une plage de dates
+     */
+    List<DoctorAvailabilityException> findByDoctorInAndExceptionDateBetweenAndIsActive(
+            Collection<User> doctors, LocalDate startDate, LocalDate endDate, Boolean isActive);
+
     /**
      * Trouve toutes les exceptions pour une date donnée
      */
@@ -8,6 +8,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.DayOfWeek;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -22,6 +23,9 @@ public interface DoctorAvailabilityRepository extends JpaRepository<DoctorAvaila
     // Trouver les disponibilités d'un médecin pour un jour spécifique
     List<DoctorAvailability> findByDoctorAndDayOfWeekAndIsActiveTrue(User doctor, DayOfWeek dayOfWeek);
 
+    // Trouver les disponibilités actives de plusieurs médecins (calendrier multi-médecins)
+    List<DoctorAvailability> findByDoctorInAndIsActiveTrue(Collection<User> doctors);
+
     // Supprimer toutes les disponibilités d'un médecin
     void deleteByDoctor(User doctor);
 }
@@ -0,0 +1,54 @@
+package com.example.crudApp.repository;
+
+import com.example.crudApp.model.EmailOutboxMessage;
+import com.example.crudApp.model.OutboxStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutboxMessage, Long> {
+
+    // Messages à envoyer dont la tentative est échue, les plus anciens d'abord (index status, next_attempt_at)
+    @Query("SELECT m FROM EmailOutboxMessage m WHERE m.status = com.example.crudApp.model.OutboxStatus.PENDING AND m.nextAttemptAt <= :now ORDER BY m.nextAttemptAt, m.id")
+    List<EmailOutboxMessage> findDue(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // Nombre de messages par statut (file en attente, lettres mortes)
+    long countByStatus(OutboxStatus status);
+
+    // Marquer envoyés les messages d'un lot
+    @Modifying
+    @Transactional
+    @Query("UPDATE EmailOutboxMessage m SET m.status = com.example.crudApp.model.OutboxStatus.SENT, m.sentAt = :sentAt, m.attempts = m.attempts + 1, m.lastError = NULL WHERE m.id IN :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("sentAt") LocalDateTime sentAt);
+
+    // Identifiants des messages d'un statut créés avant la date donnée, par lots (index status, created_at)
+    @Query("SELECT m.id FROM EmailOutboxMessage m WHERE m.status = :status AND m.createdAt < :before ORDER BY m.id")
+    List<Long> findIdsByStatusCreatedBefore(@Param("status") OutboxStatus status,
+                                            @Param("before") LocalDateTime before,
+                                            Pageable pageable);
+
+    // Supprimer un lot de messages, s'ils ont toujours le statut donné
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM EmailOutboxMessage m WHERE m.id IN :ids AND m.status = :status")
+    int deleteByIdInAndStatus(@Param("ids") Collection<Long> ids, @Param("status") OutboxStatus status);
+
+    // Enregistrer l'échec d'un envoi : nouvelle tentative planifiée ou lettre morte
+    @Modifying
+    @Transactional
+    @Query("UPDATE EmailOutboxMessage m SET m.status = :status, m.attempts = :attempts, m.nextAttemptAt = :nextAttemptAt, m.lastError = :error WHERE m.id = :id")
+    int markFailed(@Param("id") Long id,
+                   @Param("status") OutboxStatus status,
+                   @Param("attempts") int attempts,
+                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                   @Param("error") String error);
+}
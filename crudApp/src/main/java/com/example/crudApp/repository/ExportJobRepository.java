@@ -0,0 +1,58 @@
+package com.example.crudApp.repository;
+
+import com.example.crudApp.model.ExportJob;
+import com.example.crudApp.model.ExportJobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ExportJobRepository extends JpaRepository<ExportJob, String> {
+
+    // Nombre d'exports d'un utilisateur par statut (index username, status)
+    long countByUsernameAndStatusIn(String username, Collection<ExportJobStatus> statuses);
+
+    // Exports terminés avant la date donnée, à purger (index status, updated_at)
+    List<ExportJob> findByStatusInAndUpdatedAtBefore(Collection<ExportJobStatus> statuses, LocalDateTime before);
+
+    // Reporter l'avancement d'un export en cours ; sans effet une fois l'export terminé
+    @Modifying
+    @Transactional
+    @Query("UPDATE ExportJob j SET j.processedRows = :processedRows, j.updatedAt = :now WHERE j.id = :id AND j.status IN (com.example.crudApp.model.ExportJobStatus.PENDING, com.example.crudApp.model.ExportJobStatus.RUNNING)")
+    int updateProgress(@Param("id") String id,
+                       @Param("processedRows") long processedRows,
+                       @Param("now") LocalDateTime now);
+
+    // Enregistrer la fin d'un export en cours ; sans effet si une autre instance l'a déjà marqué en échec
+    @Modifying
+    @Transactional
+    @Query("UPDATE ExportJob j SET j.status = com.example.crudApp.model.ExportJobStatus.COMPLETED, j.processedRows = :processedRows, j.filePath = :filePath, j.completedAt = :now, j.updatedAt = :now WHERE j.id = :id AND j.status = com.example.crudApp.model.ExportJobStatus.RUNNING")
+    int markCompleted(@Param("id") String id,
+                      @Param("processedRows") long processedRows,
+                      @Param("filePath") String filePath,
+                      @Param("now") LocalDateTime now);
+
+    // Enregistrer l'échec d'un export en cours ; sans effet si l'export est déjà terminé
+    @Modifying
+    @Transactional
+    @Query("UPDATE ExportJob j SET j.status = com.example.crudApp.model.ExportJobStatus.FAILED, j.processedRows = :processedRows, j.error = :error, j.completedAt = :now, j.updatedAt = :now WHERE j.id = :id AND j.status IN (com.example.crudApp.model.ExportJobStatus.PENDING, com.example.crudApp.model.ExportJobStatus.RUNNING)")
+    int markFailed(@Param("id") String id,
+                   @Param("processedRows") long processedRows,
+                   @Param("error") String error,
+                   @Param("now") LocalDateTime now);
+
+    // Marquer en échec les exports en cours dont l'instance ne donne plus de nouvelles (arrêt, plantage)
+    @Modifying
+    @Transactional
+    @Query("UPDATE ExportJob j SET j.status = com.example.crudApp.model.ExportJobStatus.FAILED, j.error = :error, j.completedAt = :now, j.updatedAt = :now WHERE j.status IN (com.example.crudApp.model.ExportJobStatus.PENDING, com.example.crudApp.model.ExportJobStatus.RUNNING) AND j.updatedAt < :staleBefore")
+    int failStale(@Param("staleBefore") LocalDateTime staleBefore,
+                  @Param("now") LocalDateTime now,
+                  @Param("error") String error);
+}
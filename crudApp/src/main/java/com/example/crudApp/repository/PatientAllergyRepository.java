@@ -0,0 +1,9 @@
+package com.example.crudApp.repository;
+
+import com.example.crudApp.model.PatientAllergy;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PatientAllergyRepository extends JpaRepository<PatientAllergy, Long> {
+}
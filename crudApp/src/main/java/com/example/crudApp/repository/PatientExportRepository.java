@@ -0,0 +1,92 @@
+package com.example.crudApp.repository;
+
+import com.example.crudApp.model.Patient;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Lecture des patients en flux pour les exports
+ * Le résultat est parcouru par curseur (fetch size) au lieu d'être chargé en liste, et chaque patient
+ * est détaché du contexte de persistance après lecture : la mémoire reste constante quel que soit le
+ * volume. Avec MySQL, le curseur serveur nécessite {@code useCursorFetch=true} dans l'URL JDBC.
+ * Le flux doit être consommé puis fermé dans la transaction courante. Les exports parallèles lisent
+ * plutôt des blocs d'identifiants indépendants, chacun dans sa propre transaction.
+ */
+@Repository
+public class PatientExportRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${export.fetch-size:500}")
+    private int fetchSize;
+
+    /**
+     * Patients correspondant à la spécification, par identifiant croissant
+     */
+    public Stream<Patient> stream(Specification<Patient> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Patient> query = cb.createQuery(Patient.class);
+        Root<Patient> root = query.from(Patient.class);
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(cb.asc(root.get("id")));
+
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()
+                // Les colonnes sont déjà chargées : le patient reste lisible une fois détaché
+                .peek(entityManager::detach);
+    }
+
+    /**
+     * Plus petit et plus grand identifiant des patients correspondant à la spécification, ou null si aucun
+     */
+    public long[] findIdRange(Specification<Patient> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Patient> root = query.from(Patient.class);
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.multiselect(cb.min(root.<Long>get("id")), cb.max(root.<Long>get("id")));
+
+        Tuple range = entityManager.createQuery(query).getSingleResult();
+        Long min = range.get(0, Long.class);
+        Long max = range.get(1, Long.class);
+        return min != null ? new long[]{min, max} : null;
+    }
+
+    /**
+     * Patients correspondant à la spécification dont l'identifiant est dans [fromId, toId[, par identifiant croissant
+     */
+    public List<Patient> findChunk(Specification<Patient> spec, long fromId, long toId) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Patient> query = cb.createQuery(Patient.class);
+        Root<Patient> root = query.from(Patient.class);
+        Predicate inRange = cb.and(cb.ge(root.get("id"), fromId), cb.lt(root.get("id"), toId));
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        query.where(predicate != null ? cb.and(inRange, predicate) : inRange);
+        query.orderBy(cb.asc(root.get("id")));
+
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultList();
+    }
+}
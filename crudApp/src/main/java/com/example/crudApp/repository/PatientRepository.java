@@ -2,8 +2,12 @@ package com.example.crudApp.repository;
 
 import com.example.crudApp.model.Patient;
 import com.example.crudApp.model.User;
+import com.example.crudApp.util.AllergyNormalizer;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -50,9 +54,20 @@ public interface PatientRepository extends JpaRepository<Patient, Long>, JpaSpec
     @Query("SELECT p FROM Patient p WHERE p.lastVisit < :date AND p.isActive = true")
     List<Patient> findPatientsNeedingFollowUp(@Param("date") LocalDate date);
 
-    // Recherche par allergie spécifique
-    @Query("SELECT p FROM Patient p WHERE LOWER(p.allergies) LIKE LOWER(CONCAT('%', :allergy, '%')) AND p.isActive = true")
-    List<Patient> findByAllergy(@Param("allergy") String allergy);
+    // Recherche par allergie spécifique (correspondance exacte sur la forme normalisée)
+    default List<Patient> findByAllergy(String allergy) {
+        String normalizedName = AllergyNormalizer.normalize(allergy);
+        return normalizedName != null ? findByNormalizedAllergy(normalizedName) : List.of();
+    }
+
+    // Patients actifs ayant une allergie normalisée (index idx_patient_allergies_name_patient)
+    @Query("SELECT p FROM Patient p JOIN p.allergyEntries a WHERE a.normalizedName = :normalizedName AND p.isActive = true")
+    List<Patient> findByNormalizedAllergy(@Param("normalizedName") String normalizedName);
+
+    // Patients dont les allergies n'ont pas encore été normalisées, verrouillés pour la reprise
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Patient p WHERE p.id > :afterId AND p.allergies IS NOT NULL AND p.allergies <> '' AND p.allergyEntries IS EMPTY ORDER BY p.id")
+    List<Patient> findPatientsWithoutAllergyEntries(@Param("afterId") Long afterId, Pageable pageable);
 
     // Compter les patients actifs par médecin
     @Query("SELECT COUNT(p) FROM Patient p WHERE p.user = :user AND p.isActive = true")
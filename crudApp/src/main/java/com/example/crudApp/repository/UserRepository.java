@@ -1,7 +1,10 @@
 package com.example.crudApp.repository;
 
+import com.example.crudApp.model.MedicalSpecialty;
 import com.example.crudApp.model.User;
+import com.example.crudApp.model.UserType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -10,4 +13,5 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByPhoneNumber(String phoneNumber);
     boolean existsByEmail(String email);
     boolean existsByPhoneNumber(String phoneNumber);
+    List<User> findByUserTypeAndSpecialty(UserType userType, MedicalSpecialty specialty);
 }
@@ -1,38 +1,83 @@
 package com.example.crudApp.service;
 
+import com.example.crudApp.dto.AppointmentReminder;
 import com.example.crudApp.exception.ResourceNotFoundException;
 import com.example.crudApp.model.Appointment;
 import com.example.crudApp.model.AppointmentStatus;
 import com.example.crudApp.repository.AppointmentRepository;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.ToIntFunction;
 
 /**
  * Service de planification pour l'envoi automatique de rappels de rendez-vous
  */
 @Service
-@RequiredArgsConstructor
 public class AppointmentReminderService {
 
     private static final Logger logger = LoggerFactory.getLogger(AppointmentReminderService.class);
 
+    // Rappels lus, marqués et mis en file par lot
+    static final int REMINDER_BATCH_SIZE = 100;
+
+    static final String MAINTENANCE_ROWS_METRIC = "appointments.maintenance.rows";
+    static final String MAINTENANCE_DURATION_METRIC = "appointments.maintenance.duration";
+    static final String AUTO_COMPLETE_JOB = "auto-complete";
+    static final String CLEANUP_JOB = "cleanup";
+
+    // Baux des tâches planifiées, communs à toutes les instances
+    static final String REMINDERS_LEASE = "appointment-reminders";
+    static final String CLEANUP_LEASE = "appointment-cleanup";
+    static final String AUTO_COMPLETE_LEASE = "appointment-auto-complete";
+
+    private static final String AUTO_COMPLETE_NOTE = "Rendez-vous marqué automatiquement comme terminé";
+
     private final AppointmentRepository appointmentRepository;
     private final EmailService emailService;
+    private final JobLeaseService jobLeaseService;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+    private final int maintenanceBatchSize;
+
+    public AppointmentReminderService(AppointmentRepository appointmentRepository,
+                                      EmailService emailService,
+                                      JobLeaseService jobLeaseService,
+                                      MeterRegistry meterRegistry,
+                                      PlatformTransactionManager transactionManager,
+                                      @Value("${appointments.maintenance.batch-size:500}") int maintenanceBatchSize) {
+        this.appointmentRepository = appointmentRepository;
+        this.emailService = emailService;
+        this.jobLeaseService = jobLeaseService;
+        this.meterRegistry = meterRegistry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maintenanceBatchSize = maintenanceBatchSize;
+    }
 
     /**
      * Tâche planifiée pour envoyer des rappels 24h avant les rendez-vous
-     * S'exécute toutes les heures
+     * S'exécute toutes les heures. Les rendez-vous sont lus par pages, avec le patient et le médecin,
+     * puis marqués dans la transaction qui met leurs emails en file : les fenêtres horaires se chevauchent sans double envoi.
+     * Comme les autres tâches planifiées, exécutée par une seule instance de l'application (JobLeaseService).
      */
     @Scheduled(cron = "0 0 * * * *") // Toutes les heures à la minute 0
-    @Transactional(readOnly = true)
     public void sendAppointmentReminders() {
+        jobLeaseService.runExclusively(REMINDERS_LEASE, Duration.ofMinutes(50), Duration.ofMinutes(5), this::sendDueReminders);
+    }
+
+    private void sendDueReminders() {
         logger.info("Démarrage de la tâche d'envoi de rappels de rendez-vous");
 
         try {
@@ -41,33 +86,30 @@ public class AppointmentReminderService {
             LocalDateTime reminderWindowStart = now.plusHours(23);
             LocalDateTime reminderWindowEnd = now.plusHours(25);
 
-            // Récupérer les rendez-vous confirmés dans cette fenêtre
-            List<Appointment> upcomingAppointments = appointmentRepository
-                    .findByStatusAndAppointmentDateTimeBetween(
-                            AppointmentStatus.CONFIRMED,
-                            reminderWindowStart,
-                            reminderWindowEnd
-                    );
-
-            logger.info("Trouvé {} rendez-vous nécessitant un rappel", upcomingAppointments.size());
-
-            // Envoyer un rappel pour chaque rendez-vous
-            int successCount = 0;
-            int failureCount = 0;
-
-            for (Appointment appointment : upcomingAppointments) {
-                try {
-                    emailService.sendAppointmentReminderEmail(appointment);
-                    successCount++;
-                    logger.debug("Rappel envoyé pour le rendez-vous ID: {}", appointment.getId());
-                } catch (Exception e) {
-                    failureCount++;
-                    logger.error("Erreur lors de l'envoi du rappel pour le rendez-vous ID: {} - {}",
-                            appointment.getId(), e.getMessage());
+            int queuedCount = 0;
+            long lastId = 0L;
+            List<AppointmentReminder> batch;
+
+            do {
+                // Rendez-vous confirmés de la fenêtre dont le rappel n'a pas encore été envoyé
+                batch = appointmentRepository.findDueReminders(AppointmentStatus.CONFIRMED,
+                        reminderWindowStart, reminderWindowEnd, lastId, PageRequest.of(0, REMINDER_BATCH_SIZE));
+                if (batch.isEmpty()) {
+                    break;
                 }
-            }
+                lastId = batch.get(batch.size() - 1).getAppointmentId();
+
+                // Marqueur et emails du lot dans la même transaction ; l'envoi SMTP et ses reprises suivent via l'outbox
+                List<AppointmentReminder> reminders = batch;
+                List<Long> ids = reminders.stream().map(AppointmentReminder::getAppointmentId).toList();
+                Integer queued = transactionTemplate.execute(status -> {
+                    appointmentRepository.markRemindersSent(ids, now);
+                    return emailService.sendAppointmentReminderEmails(reminders);
+                });
+                queuedCount += queued != null ? queued : 0;
+            } while (batch.size() == REMINDER_BATCH_SIZE);
 
-            logger.info("Tâche de rappels terminée - Succès: {}, Échecs: {}", successCount, failureCount);
+            logger.info("Tâche de rappels terminée - {} rappel(s) mis en file", queuedCount);
 
         } catch (Exception e) {
             logger.error("Erreur lors de l'exécution de la tâche de rappels: {}", e.getMessage(), e);
@@ -76,23 +118,25 @@ public class AppointmentReminderService {
 
     /**
      * Tâche planifiée pour nettoyer les anciens rendez-vous
-     * S'exécute tous les jours à 2h du matin
+     * S'exécute tous les jours à 2h du matin. Suppression en masse par lots, chaque lot dans sa transaction
      */
     @Scheduled(cron = "0 0 2 * * *") // Tous les jours à 2h00
-    @Transactional
     public void cleanupOldAppointments() {
+        jobLeaseService.runExclusively(CLEANUP_LEASE, Duration.ofHours(2), Duration.ofMinutes(5), this::deleteOldCancelledAppointments);
+    }
+
+    private void deleteOldCancelledAppointments() {
         logger.info("Démarrage de la tâche de nettoyage des anciens rendez-vous");
 
         try {
             // Supprimer les rendez-vous annulés de plus de 6 mois
             LocalDateTime sixMonthsAgo = LocalDateTime.now().minusMonths(6);
 
-            List<Appointment> oldCancelledAppointments = appointmentRepository
-                    .findByStatusAndAppointmentDateTimeBefore(AppointmentStatus.CANCELLED, sixMonthsAgo);
+            int deletedCount = runInBatches(CLEANUP_JOB, AppointmentStatus.CANCELLED, sixMonthsAgo,
+                    ids -> appointmentRepository.deleteByIdInAndStatus(ids, AppointmentStatus.CANCELLED));
 
-            if (!oldCancelledAppointments.isEmpty()) {
-                appointmentRepository.deleteAll(oldCancelledAppointments);
-                logger.info("Supprimé {} rendez-vous annulés de plus de 6 mois", oldCancelledAppointments.size());
+            if (deletedCount > 0) {
+                logger.info("Supprimé {} rendez-vous annulés de plus de 6 mois", deletedCount);
             } else {
                 logger.info("Aucun ancien rendez-vous à nettoyer");
             }
@@ -104,31 +148,22 @@ public class AppointmentReminderService {
 
     /**
      * Tâche planifiée pour marquer automatiquement les rendez-vous passés comme terminés
-     * S'exécute toutes les 6 heures
+     * S'exécute toutes les 6 heures. Mise à jour en masse par lots, chaque lot dans sa transaction
      */
     @Scheduled(cron = "0 0 */6 * * *") // Toutes les 6 heures
-    @Transactional
     public void autoCompletePassedAppointments() {
+        jobLeaseService.runExclusively(AUTO_COMPLETE_LEASE, Duration.ofHours(2), Duration.ofMinutes(5), this::completePassedAppointments);
+    }
+
+    private void completePassedAppointments() {
         logger.info("Démarrage de la tâche de complétion automatique des rendez-vous passés");
 
         try {
             LocalDateTime now = LocalDateTime.now();
 
-            // Trouver les rendez-vous confirmés qui sont passés
-            List<Appointment> passedAppointments = appointmentRepository
-                    .findByStatusAndAppointmentDateTimeBefore(AppointmentStatus.CONFIRMED, now);
-
-            int completedCount = 0;
-
-            for (Appointment appointment : passedAppointments) {
-                // Marquer comme terminé avec une note automatique
-                appointment.setStatus(AppointmentStatus.COMPLETED);
-                appointment.setDoctorNotes("Rendez-vous marqué automatiquement comme terminé");
-                appointmentRepository.save(appointment);
-                completedCount++;
-
-                logger.debug("Rendez-vous ID: {} marqué automatiquement comme terminé", appointment.getId());
-            }
+            // Marquer comme terminés, avec une note automatique, les rendez-vous confirmés qui sont passés
+            int completedCount = runInBatches(AUTO_COMPLETE_JOB, AppointmentStatus.CONFIRMED, now,
+                    ids -> appointmentRepository.completeConfirmedAppointments(ids, AUTO_COMPLETE_NOTE, LocalDateTime.now()));
 
             if (completedCount > 0) {
                 logger.info("Marqué {} rendez-vous comme terminés automatiquement", completedCount);
@@ -153,4 +188,35 @@ public class AppointmentReminderService {
         emailService.sendAppointmentReminderEmail(appointment);
         logger.info("Rappel immédiat envoyé pour le rendez-vous ID: {}", appointmentId);
     }
+
+    /**
+     * Applique l'opération par lots aux rendez-vous du statut antérieurs à la date, jusqu'à épuisement
+     * Les lignes traitées sortent du critère : chaque lot relit simplement les premiers identifiants restants
+     */
+    private int runInBatches(String job, AppointmentStatus status, LocalDateTime before, ToIntFunction<List<Long>> operation) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Counter rows = meterRegistry.counter(MAINTENANCE_ROWS_METRIC, "job", job);
+        int total = 0;
+        try {
+            List<Long> ids;
+            do {
+                ids = appointmentRepository.findIdsByStatusAndAppointmentDateTimeBefore(status, before,
+                        PageRequest.of(0, maintenanceBatchSize));
+                if (ids.isEmpty()) {
+                    break;
+                }
+                int affected = operation.applyAsInt(ids);
+                rows.increment(affected);
+                total += affected;
+                logger.debug("Tâche {} : lot de {} rendez-vous, {} modifiés", job, ids.size(), affected);
+                if (affected == 0) {
+                    // Lot modifié entre-temps par ailleurs : la relecture renverrait les mêmes lignes
+                    break;
+                }
+            } while (ids.size() == maintenanceBatchSize);
+        } finally {
+            sample.stop(meterRegistry.timer(MAINTENANCE_DURATION_METRIC, "job", job));
+        }
+        return total;
+    }
 }
@@ -1,27 +1,46 @@
 package com.example.crudApp.service;
 
+import com.example.crudApp.dto.AppointmentPageResponse;
 import com.example.crudApp.dto.AppointmentRequest;
+import com.example.crudApp.dto.AppointmentResponse;
 import com.example.crudApp.dto.AvailableSlotResponse;
+import com.example.crudApp.dto.DoctorCalendarResponse;
+import com.example.crudApp.dto.NextAvailableSlotResponse;
+import com.example.crudApp.dto.RecurringAppointmentRequest;
+import com.example.crudApp.dto.SlotHoldRequest;
+import com.example.crudApp.dto.SlotHoldResponse;
 import com.example.crudApp.exception.AppointmentModificationNotAllowedException;
 import com.example.crudApp.exception.ResourceNotFoundException;
 import com.example.crudApp.exception.ServiceException;
+import com.example.crudApp.exception.SlotAlreadyBookedException;
 import com.example.crudApp.model.*;
+import com.example.crudApp.repository.AppointmentBatchRepository;
 import com.example.crudApp.repository.AppointmentRepository;
 import com.example.crudApp.repository.DoctorAvailabilityRepository;
 import com.example.crudApp.repository.UserRepository;
+import com.example.crudApp.util.AppointmentCursor;
 import com.example.crudApp.util.BusinessDayCalculator;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.DayOfWeek;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -29,11 +48,28 @@ public class AppointmentService {
 
     private static final Logger logger = LoggerFactory.getLogger(AppointmentService.class);
 
+    // Nombre maximal de jours d'un calendrier de disponibilités
+    private static final int MAX_CALENDAR_DAYS = 31;
+    // Horizon et nombre maximal de résultats de la recherche du prochain créneau libre
+    private static final int NEXT_SLOT_SEARCH_DAYS = 90;
+    private static final int MAX_NEXT_SLOTS = 50;
+    // Nombre maximal de rendez-vous d'une série récurrente
+    private static final int MAX_RECURRING_OCCURRENCES = 52;
+    // Taille maximale d'une page de l'historique des rendez-vous
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+    // Nombre maximal de rendez-vous retournés par « mes rendez-vous »
+    private static final int MAX_MY_APPOINTMENTS = 500;
+
     private final AppointmentRepository appointmentRepository;
     private final DoctorAvailabilityRepository availabilityRepository;
     private final UserRepository userRepository;
     private final EmailService emailService;
     private final DoctorAvailabilityExceptionService exceptionService;
+    private final AvailabilityIndex availabilityIndex;
+    private final DoctorBookingLocks bookingLocks;
+    private final SlotHoldRegistry slotHoldRegistry;
+    private final SlotAvailabilityEngine slotAvailabilityEngine;
+    private final AppointmentBatchRepository appointmentBatchRepository;
 
     /**
      * Créer un nouveau rendez-vous
@@ -65,10 +101,25 @@ public class AppointmentService {
             throw new IllegalArgumentException("L'utilisateur spécifié n'est pas un médecin");
         }
 
-        // Vérifier que le créneau est disponible
-        if (!isSlotAvailable(doctor, appointmentDateTime)) {
+        // Un jeton de réservation temporaire valide garantit déjà que le créneau est libre
+        SlotHold hold = slotHoldRegistry.findValidHold(
+                request.getHoldToken(), doctor.getId(), appointmentDateTime, patientUsername);
+
+        // Sérialiser les réservations de ce médecin jusqu'à la fin de la transaction
+        bookingLocks.lockUntilCompletion(doctor.getId());
+
+        // Vérifier que le créneau fait partie des horaires du médecin puis qu'il est libre
+        if (!isWithinSchedule(doctor, appointmentDateTime)) {
             throw new IllegalArgumentException("Ce créneau n'est pas disponible");
         }
+        if (hold == null) {
+            if (slotHoldRegistry.isHeldByOther(doctor.getId(), appointmentDateTime, patientUsername)) {
+                throw new SlotAlreadyBookedException("Ce créneau est temporairement réservé par un autre patient");
+            }
+            if (appointmentRepository.countConflictingAppointments(doctor, appointmentDateTime) > 0) {
+                throw new SlotAlreadyBookedException("Ce créneau vient d'être réservé");
+            }
+        }
 
         // Créer le rendez-vous
         Appointment appointment = Appointment.builder()
@@ -79,19 +130,111 @@ public class AppointmentService {
                 .status(AppointmentStatus.PENDING)
                 .build();
 
-        Appointment saved = appointmentRepository.save(appointment);
+        // La contrainte (doctor_id, active_slot) tranche entre plusieurs instances de l'application
+        Appointment saved;
+        try {
+            saved = appointmentRepository.saveAndFlush(appointment);
+        } catch (DataIntegrityViolationException e) {
+            logger.warn("Créneau déjà réservé pour le médecin ID: {} à {}", doctor.getId(), appointmentDateTime);
+            throw new SlotAlreadyBookedException("Ce créneau vient d'être réservé");
+        }
+        availabilityIndex.onSlotBooked(doctor.getId(), appointmentDateTime);
+        slotHoldRegistry.releaseAfterCommit(doctor.getId(), appointmentDateTime, patientUsername);
         logger.info("Rendez-vous créé avec succès - ID: {}", saved.getId());
 
-        // Envoyer les emails de notification
+        // Mettre en file les emails de notification, dans la transaction du rendez-vous
+        emailService.sendAppointmentConfirmationEmail(saved);
+        emailService.sendAppointmentNotificationToDoctor(saved);
+        logger.info("Emails de notification mis en file pour le rendez-vous ID: {}", saved.getId());
+
+        return saved;
+    }
+
+    /**
+     * Créer une série de rendez-vous récurrents sur le même créneau toutes les N semaines
+     * Tous les créneaux sont vérifiés en une passe ensembliste puis insérés par lots JDBC dans
+     * une seule transaction ; la série est refusée entièrement si un créneau n'est pas libre
+     */
+    @Transactional
+    public List<Appointment> createRecurringAppointments(RecurringAppointmentRequest request, String patientUsername) {
+        logger.info("Création d'une série de {} rendez-vous pour le patient: {} avec le médecin ID: {}",
+                request.getOccurrences(), patientUsername, request.getDoctorId());
+
+        LocalDateTime firstDateTime = request.getFirstAppointmentDateTime();
+        if (firstDateTime == null || !firstDateTime.isAfter(LocalDateTime.now())) {
+            throw new IllegalArgumentException("Le premier rendez-vous doit être dans le futur");
+        }
+        Integer occurrences = request.getOccurrences();
+        if (occurrences == null || occurrences < 2 || occurrences > MAX_RECURRING_OCCURRENCES) {
+            throw new IllegalArgumentException("Le nombre de rendez-vous doit être compris entre 2 et "
+                    + MAX_RECURRING_OCCURRENCES);
+        }
+        int intervalWeeks = request.getIntervalWeeks() != null ? request.getIntervalWeeks() : 1;
+        if (intervalWeeks < 1) {
+            throw new IllegalArgumentException("L'intervalle doit être d'au moins 1 semaine");
+        }
+
+        User patient = userRepository.findByUsername(patientUsername)
+                .orElseThrow(() -> new ResourceNotFoundException("Patient non trouvé"));
+
+        if (patient.getUserType() != UserType.PATIENT) {
+            throw new IllegalArgumentException("Seuls les patients peuvent prendre des rendez-vous");
+        }
+
+        User doctor = userRepository.findById(request.getDoctorId())
+                .orElseThrow(() -> new ResourceNotFoundException("Médecin non trouvé avec l'ID: " + request.getDoctorId()));
+
+        if (doctor.getUserType() != UserType.DOCTOR) {
+            throw new IllegalArgumentException("L'utilisateur spécifié n'est pas un médecin");
+        }
+
+        List<LocalDateTime> slots = new ArrayList<>(occurrences);
+        for (int i = 0; i < occurrences; i++) {
+            slots.add(firstDateTime.plusWeeks((long) i * intervalWeeks));
+        }
+
+        bookingLocks.lockUntilCompletion(doctor.getId());
+
+        // Horaires, exceptions et occupation de tous les créneaux chargés en trois requêtes
+        Set<LocalDateTime> openSlots = slotAvailabilityEngine.findOpenSlots(doctor, slots);
+        List<LocalDateTime> unavailable = slots.stream()
+                .filter(slot -> !openSlots.contains(slot)
+                        || slotHoldRegistry.isHeldByOther(doctor.getId(), slot, patientUsername))
+                .collect(Collectors.toList());
+        if (!unavailable.isEmpty()) {
+            throw new SlotAlreadyBookedException("Créneaux non disponibles : " + unavailable);
+        }
+
+        List<Appointment> appointments = slots.stream()
+                .map(slot -> Appointment.builder()
+                        .doctor(doctor)
+                        .patient(patient)
+                        .appointmentDateTime(slot)
+                        .reason(request.getReason())
+                        .status(AppointmentStatus.PENDING)
+                        .build())
+                .collect(Collectors.toList());
+
         try {
-            emailService.sendAppointmentConfirmationEmail(saved);
-            emailService.sendAppointmentNotificationToDoctor(saved);
-            logger.info("Emails de notification envoyés pour le rendez-vous ID: {}", saved.getId());
-        } catch (Exception e) {
-            logger.error("Erreur lors de l'envoi des emails de notification: {}", e.getMessage());
-            // Ne pas bloquer la création du rendez-vous si l'email échoue
+            appointmentBatchRepository.insertAll(appointments);
+        } catch (DataIntegrityViolationException e) {
+            logger.warn("Un créneau de la série a été réservé entre-temps pour le médecin ID: {}", doctor.getId());
+            throw new SlotAlreadyBookedException("Un des créneaux vient d'être réservé");
         }
 
+        // Relire les rendez-vous insérés pour obtenir leurs identifiants
+        List<Appointment> saved = appointmentRepository
+                .findByDoctorAndPatientAndActiveSlotInOrderByAppointmentDateTimeAsc(doctor, patient, slots);
+        for (LocalDateTime slot : slots) {
+            availabilityIndex.onSlotBooked(doctor.getId(), slot);
+            slotHoldRegistry.releaseAfterCommit(doctor.getId(), slot, patientUsername);
+        }
+        logger.info("{} rendez-vous récurrents créés pour le patient: {}", saved.size(), patientUsername);
+
+        // Un récapitulatif au patient et au médecin au lieu de deux emails par rendez-vous
+        emailService.sendRecurringAppointmentsConfirmationEmail(saved);
+        emailService.sendRecurringAppointmentsNotificationToDoctor(saved);
+
         return saved;
     }
 
@@ -99,6 +242,24 @@ public class AppointmentService {
      * Vérifier si un créneau est disponible
      */
     public boolean isSlotAvailable(User doctor, LocalDateTime dateTime) {
+        // Un créneau temporairement réservé n'est pas disponible
+        if (slotHoldRegistry.isHeldByOther(doctor.getId(), dateTime, null)) {
+            return false;
+        }
+
+        // Vérifier qu'il n'y a pas déjà un rendez-vous à ce créneau
+        Long conflicts = appointmentRepository.countConflictingAppointments(doctor, dateTime);
+        if (conflicts > 0) {
+            return false;
+        }
+
+        return isWithinSchedule(doctor, dateTime);
+    }
+
+    /**
+     * Vérifier qu'un créneau respecte les horaires et exceptions du médecin
+     */
+    private boolean isWithinSchedule(User doctor, LocalDateTime dateTime) {
         LocalDate date = dateTime.toLocalDate();
 
         // Vérifier s'il y a une exception pour cette date
@@ -119,12 +280,6 @@ public class AppointmentService {
             }
         }
 
-        // Vérifier qu'il n'y a pas déjà un rendez-vous à ce créneau
-        Long conflicts = appointmentRepository.countConflictingAppointments(doctor, dateTime);
-        if (conflicts > 0) {
-            return false;
-        }
-
         // Vérifier que le créneau correspond aux disponibilités du médecin
         List<DoctorAvailability> availabilities = availabilityRepository
                 .findByDoctorAndDayOfWeekAndIsActiveTrue(doctor, dateTime.getDayOfWeek());
@@ -154,76 +309,230 @@ public class AppointmentService {
             throw new IllegalArgumentException("L'utilisateur spécifié n'est pas un médecin");
         }
 
-        // Vérifier s'il y a une exception pour cette date
-        DoctorAvailabilityException exception = exceptionService.getExceptionForDate(doctor, date);
+        // Grille de la journée servie par l'index en mémoire, calculée au premier accès
+        DaySchedule schedule = availabilityIndex.getDaySchedule(doctor, date);
+        return schedule.toSlotResponses(LocalDateTime.now(), slotHoldRegistry.heldSlots(doctorId, date));
+    }
 
-        // Si l'exception indique que le médecin n'est pas disponible, retourner une liste vide
-        if (exception != null && !exception.getIsAvailable()) {
-            logger.info("Le médecin n'est pas disponible le {} en raison d'une exception: {}",
-                    date, exception.getReason());
-            return new ArrayList<>();
+    /**
+     * Réserver temporairement un créneau pour un patient avant la création du rendez-vous
+     */
+    public SlotHoldResponse holdSlot(SlotHoldRequest request, String patientUsername) {
+        User patient = userRepository.findByUsername(patientUsername)
+                .orElseThrow(() -> new ResourceNotFoundException("Patient non trouvé"));
+
+        if (patient.getUserType() != UserType.PATIENT) {
+            throw new IllegalArgumentException("Seuls les patients peuvent réserver un créneau");
         }
 
-        List<DoctorAvailability> availabilities = availabilityRepository
-                .findByDoctorAndDayOfWeekAndIsActiveTrue(doctor, date.getDayOfWeek());
+        User doctor = userRepository.findById(request.getDoctorId())
+                .orElseThrow(() -> new ResourceNotFoundException("Médecin non trouvé avec l'ID: " + request.getDoctorId()));
 
-        List<AvailableSlotResponse> slots = new ArrayList<>();
+        if (doctor.getUserType() != UserType.DOCTOR) {
+            throw new IllegalArgumentException("L'utilisateur spécifié n'est pas un médecin");
+        }
 
-        for (DoctorAvailability availability : availabilities) {
-            LocalTime currentTime = availability.getStartTime();
-            LocalTime endTime = availability.getEndTime();
+        // Vérification en mémoire : la création du rendez-vous reste garantie par la contrainte d'unicité
+        LocalDateTime slot = request.getAppointmentDateTime();
+        if (!slot.isAfter(LocalDateTime.now())) {
+            throw new IllegalArgumentException("Ce créneau est déjà passé");
+        }
+        DaySchedule schedule = availabilityIndex.getDaySchedule(doctor, slot.toLocalDate());
+        if (!schedule.isOpenAt(slot.toLocalTime())) {
+            throw new SlotAlreadyBookedException("Ce créneau n'est pas disponible");
+        }
 
-            // Si l'exception a des horaires spécifiques, utiliser ceux-ci
-            if (exception != null && exception.getStartTime() != null && exception.getEndTime() != null) {
-                currentTime = LocalTime.parse(exception.getStartTime());
-                endTime = LocalTime.parse(exception.getEndTime());
-            }
+        SlotHold hold = slotHoldRegistry.hold(doctor.getId(), slot, patientUsername, request.getHoldSeconds());
+        logger.info("Créneau {} du médecin ID: {} réservé temporairement par {}", slot, doctor.getId(), patientUsername);
 
-            while (currentTime.isBefore(endTime)) {
-                LocalDateTime slotDateTime = LocalDateTime.of(date, currentTime);
-                boolean available = isSlotAvailable(doctor, slotDateTime) && slotDateTime.isAfter(LocalDateTime.now());
-                slots.add(AvailableSlotResponse.of(slotDateTime, available));
-                currentTime = currentTime.plusMinutes(availability.getSlotDurationMinutes());
-            }
+        return SlotHoldResponse.builder()
+                .holdToken(hold.getToken())
+                .doctorId(hold.getDoctorId())
+                .appointmentDateTime(hold.getSlot())
+                .expiresAt(hold.getExpiresAt())
+                .build();
+    }
+
+    /**
+     * Libérer une réservation temporaire
+     */
+    public void releaseHold(String holdToken, String username) {
+        if (!slotHoldRegistry.release(holdToken, username)) {
+            throw new ResourceNotFoundException("Réservation temporaire non trouvée ou expirée");
+        }
+    }
+
+    /**
+     * Obtenir le calendrier des créneaux de plusieurs médecins sur une période
+     * Les médecins sont sélectionnés par spécialité ou par identifiants
+     */
+    @Transactional(readOnly = true)
+    public List<DoctorCalendarResponse> getAvailabilityCalendar(MedicalSpecialty specialty, List<Long> doctorIds,
+                                                                LocalDate from, LocalDate to) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new IllegalArgumentException("La période demandée est invalide");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_CALENDAR_DAYS) {
+            throw new IllegalArgumentException("La période demandée ne peut pas dépasser " + MAX_CALENDAR_DAYS + " jours");
+        }
+
+        List<User> doctors;
+        if (doctorIds != null && !doctorIds.isEmpty()) {
+            doctors = userRepository.findAllById(doctorIds).stream()
+                    .filter(user -> user.getUserType() == UserType.DOCTOR)
+                    .filter(user -> specialty == null || user.getSpecialty() == specialty)
+                    .collect(Collectors.toList());
+        } else if (specialty != null) {
+            doctors = userRepository.findByUserTypeAndSpecialty(UserType.DOCTOR, specialty);
+        } else {
+            throw new IllegalArgumentException("Une spécialité ou une liste de médecins est obligatoire");
         }
 
-        return slots;
+        Map<Long, List<DaySchedule>> schedules = availabilityIndex.getSchedules(doctors, from, to);
+        LocalDateTime now = LocalDateTime.now();
+
+        return doctors.stream()
+                .map(doctor -> DoctorCalendarResponse.builder()
+                        .doctorId(doctor.getId())
+                        .doctorFullName(doctor.getFullName())
+                        .specialty(doctor.getSpecialty())
+                        .days(schedules.get(doctor.getId()).stream()
+                                .map(schedule -> schedule.toGridResponse(now))
+                                .collect(Collectors.toList()))
+                        .build())
+                .collect(Collectors.toList());
     }
 
     /**
-     * Obtenir tous les rendez-vous d'un patient
+     * Rechercher les K premiers créneaux libres parmi les médecins d'une spécialité
+     * Fusion par file de priorité des créneaux de chaque médecin : une journée n'est consultée
+     * que lorsque son médecin arrive en tête de file, la recherche s'arrête dès K créneaux trouvés.
+     * Les jours travaillés sont préchargés en une requête : les médecins sans horaire actif sont
+     * écartés et les jours non travaillés ne sont jamais consultés
      */
-    public List<Appointment> getPatientAppointments(String patientUsername) {
-        User patient = userRepository.findByUsername(patientUsername)
-                .orElseThrow(() -> new ResourceNotFoundException("Patient non trouvé"));
-        return appointmentRepository.findByPatient(patient);
+    @Transactional(readOnly = true)
+    public List<NextAvailableSlotResponse> findNextAvailableSlots(MedicalSpecialty specialty, int limit) {
+        if (specialty == null) {
+            throw new IllegalArgumentException("La spécialité est obligatoire");
+        }
+        if (limit < 1 || limit > MAX_NEXT_SLOTS) {
+            throw new IllegalArgumentException("Le nombre de créneaux demandé doit être compris entre 1 et " + MAX_NEXT_SLOTS);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate lastDate = now.toLocalDate().plusDays(NEXT_SLOT_SEARCH_DAYS - 1);
+
+        List<User> doctors = userRepository.findByUserTypeAndSpecialty(UserType.DOCTOR, specialty);
+        Map<Long, Set<DayOfWeek>> workingDays = slotAvailabilityEngine.loadWorkingDays(doctors);
+
+        PriorityQueue<DoctorSlotCursor> queue = new PriorityQueue<>();
+        for (User doctor : doctors) {
+            Set<DayOfWeek> days = workingDays.get(doctor.getId());
+            if (days != null && !days.isEmpty()) {
+                DoctorSlotCursor cursor = new DoctorSlotCursor(doctor, days, now);
+                if (!cursor.date.isAfter(lastDate)) {
+                    queue.add(cursor);
+                }
+            }
+        }
+
+        List<NextAvailableSlotResponse> results = new ArrayList<>(limit);
+        while (results.size() < limit && !queue.isEmpty()) {
+            DoctorSlotCursor cursor = queue.poll();
+            if (cursor.resolved) {
+                User doctor = cursor.doctor;
+                results.add(NextAvailableSlotResponse.builder()
+                        .doctorId(doctor.getId())
+                        .doctorFullName(doctor.getFullName())
+                        .specialty(doctor.getSpecialty())
+                        .dateTime(cursor.key)
+                        .displayTime(cursor.key.toLocalTime().toString())
+                        .build());
+                cursor.advanceWithinDay();
+            } else {
+                cursor.resolve(availabilityIndex.getDaySchedule(cursor.doctor, cursor.date));
+            }
+            if (!cursor.date.isAfter(lastDate)) {
+                queue.add(cursor);
+            }
+        }
+
+        logger.info("{} créneau(x) libre(s) trouvé(s) pour la spécialité {}", results.size(), specialty);
+        return results;
     }
 
     /**
-     * Obtenir tous les rendez-vous d'un médecin
+     * Obtenir les rendez-vous de l'utilisateur connecté, qu'il soit patient ou médecin
+     * L'utilisateur est résolu une seule fois ; une seule requête triée et limitée, propre au rôle,
+     * lit les rendez-vous dans l'ordre de l'index du médecin ou du patient
      */
-    public List<Appointment> getDoctorAppointments(String doctorUsername) {
-        User doctor = userRepository.findByUsername(doctorUsername)
-                .orElseThrow(() -> new ResourceNotFoundException("Médecin non trouvé"));
-        return appointmentRepository.findByDoctor(doctor);
+    public List<AppointmentResponse> getMyAppointments(String username, int limit) {
+        User user = findParticipant(username, limit);
+        Pageable page = PageRequest.of(0, limit);
+        return user.getUserType() == UserType.DOCTOR
+                ? appointmentRepository.findDoctorHistory(user, page)
+                : appointmentRepository.findPatientHistory(user, page);
     }
 
     /**
-     * Obtenir les prochains rendez-vous d'un patient
+     * Obtenir les prochains rendez-vous de l'utilisateur connecté, qu'il soit patient ou médecin
      */
-    public List<Appointment> getUpcomingPatientAppointments(String patientUsername) {
-        User patient = userRepository.findByUsername(patientUsername)
-                .orElseThrow(() -> new ResourceNotFoundException("Patient non trouvé"));
-        return appointmentRepository.findUpcomingAppointmentsByPatient(patient, LocalDateTime.now());
+    public List<AppointmentResponse> getMyUpcomingAppointments(String username, int limit) {
+        User user = findParticipant(username, limit);
+        Pageable page = PageRequest.of(0, limit);
+        LocalDateTime now = LocalDateTime.now();
+        return user.getUserType() == UserType.DOCTOR
+                ? appointmentRepository.findUpcomingResponsesByDoctor(user, now, page)
+                : appointmentRepository.findUpcomingResponsesByPatient(user, now, page);
+    }
+
+    private User findParticipant(String username, int limit) {
+        if (limit < 1 || limit > MAX_MY_APPOINTMENTS) {
+            throw new IllegalArgumentException("Le nombre de rendez-vous demandé doit être compris entre 1 et " + MAX_MY_APPOINTMENTS);
+        }
+        return userRepository.findByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("Utilisateur non trouvé"));
     }
 
     /**
-     * Obtenir les prochains rendez-vous d'un médecin
+     * Obtenir une page de l'historique des rendez-vous de l'utilisateur, du plus récent au plus ancien
+     * Pagination par curseur sur (date du rendez-vous, id) : le coût d'une page ne dépend pas de sa profondeur
      */
-    public List<Appointment> getUpcomingDoctorAppointments(String doctorUsername) {
-        User doctor = userRepository.findByUsername(doctorUsername)
-                .orElseThrow(() -> new ResourceNotFoundException("Médecin non trouvé"));
-        return appointmentRepository.findUpcomingAppointmentsByDoctor(doctor, LocalDateTime.now());
+    public AppointmentPageResponse getAppointmentHistory(String username, String cursor, int size) {
+        if (size < 1 || size > MAX_HISTORY_PAGE_SIZE) {
+            throw new IllegalArgumentException("La taille de page doit être comprise entre 1 et " + MAX_HISTORY_PAGE_SIZE);
+        }
+        AppointmentCursor position = cursor != null && !cursor.isBlank() ? AppointmentCursor.decode(cursor) : null;
+
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("Utilisateur non trouvé"));
+
+        // Une ligne de plus que la page pour savoir s'il en reste
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<AppointmentResponse> rows;
+        if (user.getUserType() == UserType.DOCTOR) {
+            rows = position == null
+                    ? appointmentRepository.findDoctorHistory(user, limit)
+                    : appointmentRepository.findDoctorHistoryAfter(user, position.getAppointmentDateTime(), position.getId(), limit);
+        } else {
+            rows = position == null
+                    ? appointmentRepository.findPatientHistory(user, limit)
+                    : appointmentRepository.findPatientHistoryAfter(user, position.getAppointmentDateTime(), position.getId(), limit);
+        }
+
+        boolean hasNext = rows.size() > size;
+        List<AppointmentResponse> content = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasNext) {
+            AppointmentResponse last = content.get(content.size() - 1);
+            nextCursor = new AppointmentCursor(last.getAppointmentDateTime(), last.getId()).encode();
+        }
+
+        return AppointmentPageResponse.builder()
+                .content(content)
+                .nextCursor(nextCursor)
+                .hasNext(hasNext)
+                .build();
     }
 
     /**
@@ -242,13 +551,9 @@ public class AppointmentService {
         appointment.setStatus(AppointmentStatus.CONFIRMED);
         Appointment updated = appointmentRepository.save(appointment);
 
-        // Envoyer un email de confirmation au patient
-        try {
-            emailService.sendAppointmentStatusUpdateEmail(updated, oldStatus);
-            logger.info("Email de confirmation envoyé au patient pour le rendez-vous ID: {}", updated.getId());
-        } catch (Exception e) {
-            logger.error("Erreur lors de l'envoi de l'email de confirmation: {}", e.getMessage());
-        }
+        // Mettre en file un email de confirmation au patient
+        emailService.sendAppointmentStatusUpdateEmail(updated, oldStatus);
+        logger.info("Email de confirmation mis en file au patient pour le rendez-vous ID: {}", updated.getId());
 
         return updated;
     }
@@ -272,18 +577,18 @@ public class AppointmentService {
             validateModificationDeadline(appointment);
         }
 
-        String oldStatus = appointment.getStatus().toString();
+        AppointmentStatus previousStatus = appointment.getStatus();
+        String oldStatus = previousStatus.toString();
         appointment.setStatus(AppointmentStatus.CANCELLED);
         Appointment updated = appointmentRepository.save(appointment);
-
-        // Envoyer un email de notification d'annulation
-        try {
-            emailService.sendAppointmentStatusUpdateEmail(updated, oldStatus);
-            logger.info("Email d'annulation envoyé pour le rendez-vous ID: {}", updated.getId());
-        } catch (Exception e) {
-            logger.error("Erreur lors de l'envoi de l'email d'annulation: {}", e.getMessage());
+        if (previousStatus == AppointmentStatus.PENDING || previousStatus == AppointmentStatus.CONFIRMED) {
+            availabilityIndex.onSlotReleased(appointment.getDoctor().getId(), appointment.getAppointmentDateTime());
         }
 
+        // Mettre en file un email de notification d'annulation
+        emailService.sendAppointmentStatusUpdateEmail(updated, oldStatus);
+        logger.info("Email d'annulation mis en file pour le rendez-vous ID: {}", updated.getId());
+
         return updated;
     }
 
@@ -311,13 +616,9 @@ public class AppointmentService {
             Appointment updated = appointmentRepository.save(appointment);
             logger.info("Rendez-vous ID: {} marqué comme terminé avec succès", updated.getId());
 
-            // Envoyer un email de notification au patient
-            try {
-                emailService.sendAppointmentStatusUpdateEmail(updated, oldStatus);
-                logger.info("Email de fin de consultation envoyé au patient pour le rendez-vous ID: {}", updated.getId());
-            } catch (Exception e) {
-                logger.error("Erreur lors de l'envoi de l'email de fin de consultation: {}", e.getMessage());
-            }
+            // Mettre en file un email de notification au patient
+            emailService.sendAppointmentStatusUpdateEmail(updated, oldStatus);
+            logger.info("Email de fin de consultation mis en file au patient pour le rendez-vous ID: {}", updated.getId());
 
             return updated;
         } catch (Exception e) {
@@ -366,4 +667,60 @@ public class AppointmentService {
             }
         }
     }
+
+    /**
+     * Position de la recherche dans les créneaux d'un médecin
+     * Tant qu'elle n'est pas résolue, la clé est le début de la journée à examiner (borne inférieure)
+     */
+    private static final class DoctorSlotCursor implements Comparable<DoctorSlotCursor> {
+        private final User doctor;
+        private final Set<DayOfWeek> workingDays;
+        private LocalDate date;
+        private LocalDateTime key;
+        private LocalDateTime after;
+        private DaySchedule schedule;
+        private boolean resolved;
+
+        DoctorSlotCursor(User doctor, Set<DayOfWeek> workingDays, LocalDateTime now) {
+            this.doctor = doctor;
+            this.workingDays = workingDays;
+            this.date = now.toLocalDate();
+            this.after = now;
+            while (!workingDays.contains(date.getDayOfWeek())) {
+                date = date.plusDays(1);
+            }
+            this.key = date.atStartOfDay();
+        }
+
+        void resolve(DaySchedule daySchedule) {
+            schedule = daySchedule;
+            LocalDateTime next = daySchedule.firstOpenAfter(after);
+            if (next != null) {
+                key = next;
+                resolved = true;
+            } else {
+                nextDay();
+            }
+        }
+
+        void advanceWithinDay() {
+            after = key;
+            resolve(schedule);
+        }
+
+        private void nextDay() {
+            do {
+                date = date.plusDays(1);
+            } while (!workingDays.contains(date.getDayOfWeek()));
+            key = date.atStartOfDay();
+            schedule = null;
+            resolved = false;
+        }
+
+        @Override
+        public int compareTo(DoctorSlotCursor other) {
+            int byTime = key.compareTo(other.key);
+            return byTime != 0 ? byTime : doctor.getId().compareTo(other.doctor.getId());
+        }
+    }
 }
@@ -0,0 +1,200 @@
+package com.example.crudApp.service;
+
+import com.example.crudApp.model.User;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Index en mémoire des grilles de créneaux par médecin et par jour
+ * Les grilles sont calculées une fois par le moteur de créneaux puis mises à jour de façon
+ * incrémentale après la validation des transactions (réservation, annulation, horaires, exceptions).
+ * Chaque entrée expire après un délai configurable afin de rattraper les modifications
+ * faites par une autre instance de l'application. La réservation reste contrôlée en base.
+ */
+@Component
+public class AvailabilityIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(AvailabilityIndex.class);
+
+    private final SlotAvailabilityEngine slotAvailabilityEngine;
+    private final long ttlNanos;
+
+    private final Map<DayKey, Entry> entries = new ConcurrentHashMap<>();
+    // Incrémenté à chaque modification d'un médecin pour ignorer les chargements devenus obsolètes
+    private final Map<Long, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    public AvailabilityIndex(SlotAvailabilityEngine slotAvailabilityEngine,
+                             @Value("${availability.index.ttl-seconds:300}") long ttlSeconds) {
+        this.slotAvailabilityEngine = slotAvailabilityEngine;
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+    }
+
+    /**
+     * Obtenir la grille d'un médecin pour une date, calculée au besoin
+     */
+    public DaySchedule getDaySchedule(User doctor, LocalDate date) {
+        DayKey key = new DayKey(doctor.getId(), date);
+        Entry entry = entries.get(key);
+        if (entry != null && !entry.isExpired(System.nanoTime(), ttlNanos)) {
+            return entry.schedule;
+        }
+
+        long generation = generation(doctor.getId()).get();
+        DaySchedule schedule = slotAvailabilityEngine.loadDaySchedule(doctor, date);
+        store(key, generation, schedule);
+        return schedule;
+    }
+
+    /**
+     * Obtenir les grilles de plusieurs médecins sur une période
+     * Les médecins dont au moins un jour manque sont rechargés ensemble en requêtes ensemblistes
+     */
+    public Map<Long, List<DaySchedule>> getSchedules(List<User> doctors, LocalDate from, LocalDate to) {
+        Map<Long, List<DaySchedule>> schedules = new LinkedHashMap<>();
+        List<User> missing = new ArrayList<>();
+        long now = System.nanoTime();
+
+        for (User doctor : doctors) {
+            List<DaySchedule> days = new ArrayList<>();
+            for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+                Entry entry = entries.get(new DayKey(doctor.getId(), date));
+                if (entry == null || entry.isExpired(now, ttlNanos)) {
+                    days = null;
+                    break;
+                }
+                days.add(entry.schedule);
+            }
+            if (days == null) {
+                missing.add(doctor);
+            }
+            schedules.put(doctor.getId(), days);
+        }
+
+        if (!missing.isEmpty()) {
+            Map<Long, Long> loadGenerations = new LinkedHashMap<>();
+            for (User doctor : missing) {
+                loadGenerations.put(doctor.getId(), generation(doctor.getId()).get());
+            }
+            Map<Long, List<DaySchedule>> loaded = slotAvailabilityEngine.loadSchedules(missing, from, to);
+            loaded.forEach((doctorId, days) -> {
+                for (DaySchedule day : days) {
+                    store(new DayKey(doctorId, day.getDate()), loadGenerations.get(doctorId), day);
+                }
+                schedules.put(doctorId, days);
+            });
+        }
+
+        return schedules;
+    }
+
+    /**
+     * Marquer un créneau comme réservé une fois la transaction courante validée
+     */
+    public void onSlotBooked(Long doctorId, LocalDateTime dateTime) {
+        afterCommit(() -> updateSlot(doctorId, dateTime, false));
+    }
+
+    /**
+     * Marquer un créneau comme libéré une fois la transaction courante validée
+     */
+    public void onSlotReleased(Long doctorId, LocalDateTime dateTime) {
+        afterCommit(() -> updateSlot(doctorId, dateTime, true));
+    }
+
+    /**
+     * Invalider une journée d'un médecin (exception modifiée) une fois la transaction validée
+     */
+    public void invalidateDay(Long doctorId, LocalDate date) {
+        afterCommit(() -> {
+            generation(doctorId).incrementAndGet();
+            entries.remove(new DayKey(doctorId, date));
+        });
+    }
+
+    /**
+     * Invalider toutes les journées d'un médecin (horaires modifiés) une fois la transaction validée
+     */
+    public void invalidateDoctor(Long doctorId) {
+        afterCommit(() -> {
+            generation(doctorId).incrementAndGet();
+            entries.keySet().removeIf(key -> key.doctorId.equals(doctorId));
+        });
+    }
+
+    /**
+     * Tâche planifiée pour retirer les journées passées et les entrées expirées
+     */
+    @Scheduled(cron = "0 15 * * * *") // Toutes les heures à la minute 15
+    public void evictStaleEntries() {
+        LocalDate today = LocalDate.now();
+        long now = System.nanoTime();
+        int before = entries.size();
+        entries.entrySet().removeIf(e -> e.getKey().date.isBefore(today) || e.getValue().isExpired(now, ttlNanos));
+        logger.debug("Index des disponibilités : {} entrées retirées, {} restantes", before - entries.size(), entries.size());
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private void updateSlot(Long doctorId, LocalDateTime dateTime, boolean isOpen) {
+        generation(doctorId).incrementAndGet();
+        entries.computeIfPresent(new DayKey(doctorId, dateTime.toLocalDate()), (key, entry) ->
+                new Entry(entry.schedule.withSlotOpen(dateTime.toLocalTime(), isOpen), entry.loadedAt));
+    }
+
+    private void store(DayKey key, long generation, DaySchedule schedule) {
+        entries.compute(key, (k, current) ->
+                generation(k.doctorId).get() == generation ? new Entry(schedule, System.nanoTime()) : current);
+    }
+
+    private AtomicLong generation(Long doctorId) {
+        return generations.computeIfAbsent(doctorId, id -> new AtomicLong());
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static final class DayKey {
+        private final Long doctorId;
+        private final LocalDate date;
+    }
+
+    @RequiredArgsConstructor
+    private static final class Entry {
+        private final DaySchedule schedule;
+        private final long loadedAt;
+
+        boolean isExpired(long now, long ttlNanos) {
+            return now - loadedAt > ttlNanos;
+        }
+    }
+}
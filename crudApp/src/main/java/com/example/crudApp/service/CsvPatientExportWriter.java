@@ -0,0 +1,30 @@
+package com.example.crudApp.service;
+
+import com.example.crudApp.model.ExportFormat;
+import com.example.crudApp.model.Patient;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.stream.Stream;
+
+/**
+ * Export des patients en CSV
+ */
+@Component
+@RequiredArgsConstructor
+public class CsvPatientExportWriter implements PatientExportWriter {
+
+    private final ExportService exportService;
+
+    @Override
+    public ExportFormat getFormat() {
+        return ExportFormat.CSV;
+    }
+
+    @Override
+    public long write(Stream<Patient> patients, OutputStream outputStream) throws IOException {
+        return exportService.writePatientsToCSV(patients, outputStream);
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.crudApp.service;
+
+import com.example.crudApp.dto.AvailableSlotResponse;
+import com.example.crudApp.dto.DaySlotGridResponse;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Grille des créneaux d'un médecin pour une journée donnée
+ * Chaque créneau est identifié par sa seconde dans la journée ; {@code bookable} indique les
+ * créneaux couverts par les horaires récurrents et {@code open} ceux qui sont en plus libres
+ * (hors prise en compte de l'heure courante)
+ */
+public final class DaySchedule {
+
+    private final LocalDate date;
+    private final int[] slotSeconds;
+    private final BitSet bookable;
+    private final BitSet open;
+
+    DaySchedule(LocalDate date, int[] slotSeconds, BitSet bookable, BitSet open) {
+        this.date = date;
+        this.slotSeconds = slotSeconds;
+        this.bookable = bookable;
+        this.open = open;
+    }
+
+    /**
+     * Journée sans aucun créneau (exception d'indisponibilité, pas d'horaires)
+     */
+    public static DaySchedule closed(LocalDate date) {
+        return new DaySchedule(date, new int[0], new BitSet(0), new BitSet(0));
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public int size() {
+        return slotSeconds.length;
+    }
+
+    public boolean isEmpty() {
+        return slotSeconds.length == 0;
+    }
+
+    public LocalDateTime slotAt(int index) {
+        return LocalDateTime.of(date, LocalTime.ofSecondOfDay(slotSeconds[index]));
+    }
+
+    public boolean isOpen(int index) {
+        return open.get(index);
+    }
+
+    /**
+     * Premier créneau libre strictement postérieur à l'instant donné, ou null s'il n'y en a pas
+     */
+    public LocalDateTime firstOpenAfter(LocalDateTime after) {
+        LocalDateTime first = null;
+        for (int i = open.nextSetBit(0); i >= 0; i = open.nextSetBit(i + 1)) {
+            LocalDateTime slotDateTime = slotAt(i);
+            if (slotDateTime.isAfter(after) && (first == null || slotDateTime.isBefore(first))) {
+                first = slotDateTime;
+            }
+        }
+        return first;
+    }
+
+    /**
+     * Copie de la grille avec un créneau libéré ou réservé ; la grille courante n'est jamais modifiée
+     * Un créneau hors horaires récurrents reste fermé. Retourne la même instance si rien ne change
+     */
+    public DaySchedule withSlotOpen(LocalTime time, boolean isOpen) {
+        int second = time.toSecondOfDay();
+        BitSet updated = null;
+        for (int i = 0; i < slotSeconds.length; i++) {
+            if (slotSeconds[i] == second && bookable.get(i) && open.get(i) != isOpen) {
+                if (updated == null) {
+                    updated = (BitSet) open.clone();
+                }
+                updated.set(i, isOpen);
+            }
+        }
+        return updated == null ? this : new DaySchedule(date, slotSeconds, bookable, updated);
+    }
+
+    /**
+     * Convertit la grille en réponses API ; les créneaux passés sont marqués indisponibles
+     */
+    public List<AvailableSlotResponse> toSlotResponses(LocalDateTime now) {
+        return toSlotResponses(now, Set.of());
+    }
+
+    /**
+     * Convertit la grille en réponses API ; les créneaux passés ou temporairement réservés sont indisponibles
+     */
+    public List<AvailableSlotResponse> toSlotResponses(LocalDateTime now, Set<LocalDateTime> heldSlots) {
+        List<AvailableSlotResponse> slots = new ArrayList<>(slotSeconds.length);
+        for (int i = 0; i < slotSeconds.length; i++) {
+            LocalDateTime slotDateTime = slotAt(i);
+            boolean available = open.get(i) && slotDateTime.isAfter(now) && !heldSlots.contains(slotDateTime);
+            slots.add(AvailableSlotResponse.of(slotDateTime, available));
+        }
+        return slots;
+    }
+
+    /**
+     * Vérifier qu'un créneau de la grille est libre à l'heure donnée
+     */
+    public boolean isOpenAt(LocalTime time) {
+        int second = time.toSecondOfDay();
+        for (int i = open.nextSetBit(0); i >= 0; i = open.nextSetBit(i + 1)) {
+            if (slotSeconds[i] == second) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Convertit la grille en représentation compacte (heures + masque de disponibilité)
+     */
+    public DaySlotGridResponse toGridResponse(LocalDateTime now) {
+        List<String> times = new ArrayList<>(slotSeconds.length);
+        StringBuilder availability = new StringBuilder(slotSeconds.length);
+        for (int i = 0; i < slotSeconds.length; i++) {
+            LocalDateTime slotDateTime = slotAt(i);
+            times.add(slotDateTime.toLocalTime().toString());
+            availability.append(open.get(i) && slotDateTime.isAfter(now) ? '1' : '0');
+        }
+        return DaySlotGridResponse.builder()
+                .date(date)
+                .times(times)
+                .availability(availability.toString())
+                .build();
+    }
+}
@@ -25,6 +25,7 @@ public class DoctorAvailabilityExceptionService {
 
     private final DoctorAvailabilityExceptionRepository exceptionRepository;
     private final UserRepository userRepository;
+    private final AvailabilityIndex availabilityIndex;
 
     /**
      * Crée une nouvelle exception de disponibilité
@@ -54,6 +55,7 @@ public class DoctorAvailabilityExceptionService {
                 .build();
 
         DoctorAvailabilityException saved = exceptionRepository.save(exception);
+        availabilityIndex.invalidateDay(doctor.getId(), request.getExceptionDate());
         logger.info("Exception créée avec succès pour la date: {}", request.getExceptionDate());
 
         return AvailabilityExceptionResponse.fromException(saved);
@@ -108,6 +110,7 @@ public class DoctorAvailabilityExceptionService {
             throw new IllegalArgumentException("Vous n'avez pas accès à cette exception");
         }
 
+        LocalDate previousDate = exception.getExceptionDate();
         exception.setExceptionDate(request.getExceptionDate());
         exception.setReason(request.getReason());
         exception.setIsAvailable(request.getIsAvailable() != null ? request.getIsAvailable() : false);
@@ -115,6 +118,8 @@ public class DoctorAvailabilityExceptionService {
         exception.setEndTime(request.getEndTime());
 
         DoctorAvailabilityException updated = exceptionRepository.save(exception);
+        availabilityIndex.invalidateDay(exception.getDoctor().getId(), previousDate);
+        availabilityIndex.invalidateDay(exception.getDoctor().getId(), exception.getExceptionDate());
         logger.info("Exception mise à jour avec succès");
 
         return AvailabilityExceptionResponse.fromException(updated);
@@ -137,6 +142,7 @@ public class DoctorAvailabilityExceptionService {
 
         exception.setIsActive(false);
         exceptionRepository.save(exception);
+        availabilityIndex.invalidateDay(exception.getDoctor().getId(), exception.getExceptionDate());
         logger.info("Exception désactivée avec succès");
     }
 
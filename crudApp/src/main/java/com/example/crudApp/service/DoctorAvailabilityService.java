@@ -22,6 +22,7 @@ public class DoctorAvailabilityService {
 
     private final DoctorAvailabilityRepository availabilityRepository;
     private final UserRepository userRepository;
+    private final AvailabilityIndex availabilityIndex;
 
     /**
      * Créer une nouvelle disponibilité pour un médecin
@@ -38,7 +39,9 @@ public class DoctorAvailabilityService {
         }
 
         availability.setDoctor(doctor);
-        return availabilityRepository.save(availability);
+        DoctorAvailability saved = availabilityRepository.save(availability);
+        availabilityIndex.invalidateDoctor(doctor.getId());
+        return saved;
     }
 
     /**
@@ -77,7 +80,9 @@ public class DoctorAvailabilityService {
         existing.setSlotDurationMinutes(updatedAvailability.getSlotDurationMinutes());
         existing.setIsActive(updatedAvailability.getIsActive());
 
-        return availabilityRepository.save(existing);
+        DoctorAvailability saved = availabilityRepository.save(existing);
+        availabilityIndex.invalidateDoctor(existing.getDoctor().getId());
+        return saved;
     }
 
     /**
@@ -93,5 +98,6 @@ public class DoctorAvailabilityService {
         }
 
         availabilityRepository.delete(availability);
+        availabilityIndex.invalidateDoctor(availability.getDoctor().getId());
     }
 }
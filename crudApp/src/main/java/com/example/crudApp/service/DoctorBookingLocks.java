@@ -0,0 +1,68 @@
+package com.example.crudApp.service;
+
+import com.example.crudApp.exception.BookingBusyException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Verrous de réservation répartis par médecin (lock striping)
+ * Les réservations d'un même médecin sont sérialisées dans la JVM, celles de médecins
+ * différents ne se bloquent presque jamais. Le verrou est conservé jusqu'à la fin de la
+ * transaction pour que la réservation suivante voie le rendez-vous validé. L'unicité reste
+ * garantie par la contrainte (doctor_id, active_slot) entre plusieurs instances.
+ * Un verrou non obtenu à temps n'est pas un conflit de créneau : la demande est refusée comme
+ * momentanément impossible (503 avec Retry-After), le client peut la renouveler telle quelle.
+ */
+@Component
+public class DoctorBookingLocks {
+
+    private final ReentrantLock[] stripes;
+    private final long timeoutMs;
+    private final long retryAfterSeconds;
+
+    public DoctorBookingLocks(@Value("${booking.lock.stripes:64}") int stripeCount,
+                              @Value("${booking.lock.timeout-ms:2000}") long timeoutMs) {
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.timeoutMs = timeoutMs;
+        this.retryAfterSeconds = Math.max(1, TimeUnit.MILLISECONDS.toSeconds(timeoutMs));
+    }
+
+    /**
+     * Verrouiller les réservations d'un médecin jusqu'à la fin de la transaction courante
+     */
+    public void lockUntilCompletion(Long doctorId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Le verrou de réservation nécessite une transaction active");
+        }
+
+        ReentrantLock lock = stripeFor(doctorId);
+        try {
+            if (!lock.tryLock(timeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new BookingBusyException(
+                        "Ce médecin reçoit trop de demandes simultanées, veuillez réessayer", retryAfterSeconds);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BookingBusyException("La réservation a été interrompue, veuillez réessayer", retryAfterSeconds);
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                lock.unlock();
+            }
+        });
+    }
+
+    private ReentrantLock stripeFor(Long doctorId) {
+        return stripes[Math.floorMod(doctorId.hashCode(), stripes.length)];
+    }
+}
@@ -0,0 +1,351 @@
+package com.example.crudApp.service;
+
+import com.example.crudApp.config.BoundedExecutors;
+import com.example.crudApp.model.EmailOutboxMessage;
+import com.example.crudApp.model.OutboxStatus;
+import com.example.crudApp.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailParseException;
+import org.springframework.mail.MailPreparationException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Envoi des emails de la file d'envoi (email_outbox)
+ * Les messages échus sont lus par lots, puis envoyés par groupes : chaque groupe part sur une seule connexion
+ * SMTP (une connexion et une négociation TLS pour tout le groupe), les groupes en parallèle sur le pool borné
+ * mail-sender. Pool saturé, le groupe est envoyé par le thread de la tâche planifiée, qui cesse de lire la
+ * file en attendant : pendant une panne SMTP, les messages restent en base et non en mémoire.
+ * Un groupe est envoyé dès qu'il est plein ou à la fin du lot ; un lot incomplet attend le passage suivant
+ * (mail.outbox.poll-delay-ms). Un échec planifie une nouvelle tentative avec un délai doublé à chaque fois
+ * (plafonné) ; après le nombre maximal de tentatives, ou pour une erreur définitive (adresse invalide), le
+ * message passe en lettre morte (DEAD).
+ * Un message envoyé mais non marqué (arrêt entre les deux) est renvoyé : la livraison est « au moins une fois ».
+ * Les groupes sont attendus au plus mail.outbox.send-timeout-ms, plus court que le bail : un serveur SMTP
+ * bloqué ne retient pas le bail au-delà de son expiration, sans quoi une autre instance renverrait les mêmes
+ * messages. Les délais de connexion et de lecture SMTP (spring.mail.properties.mail.smtp.*timeout) bornent
+ * chaque envoi, y compris celui exécuté par le thread planifié.
+ * Les messages envoyés sont supprimés après mail.outbox.sent-retention-days, les lettres mortes après
+ * mail.outbox.dead-retention-days (le temps de les examiner), par lots et par une seule instance.
+ */
+@Component
+public class EmailOutboxDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailOutboxDispatcher.class);
+
+    static final String LEASE = "email-outbox";
+    static final String PURGE_LEASE = "email-outbox-purge";
+    static final String MESSAGES_METRIC = "mail.outbox.messages";
+    static final String SEND_DURATION_METRIC = "mail.send.duration";
+    static final String DELIVERY_LATENCY_METRIC = "mail.delivery.latency";
+    static final String PENDING_METRIC = "mail.outbox.pending";
+
+    private static final String FROM = "noreply@wimedical.com";
+    private static final int MAX_ERROR_LENGTH = 1000;
+    private static final Duration LEASE_DURATION = Duration.ofMinutes(10);
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final JavaMailSender mailSender;
+    private final JobLeaseService jobLeaseService;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+    private final ExecutorService executor;
+    private final int batchSize;
+    private final int sendBatchSize;
+    private final int maxBatchesPerRun;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration sendTimeout;
+    private final Duration sentRetention;
+    private final Duration deadRetention;
+
+    private final AtomicLong pending = new AtomicLong();
+
+    @Autowired
+    public EmailOutboxDispatcher(EmailOutboxRepository emailOutboxRepository,
+                                 JavaMailSender mailSender,
+                                 JobLeaseService jobLeaseService,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${mail.outbox.concurrency:4}") int concurrency,
+                                 @Value("${mail.outbox.queue-capacity:16}") int queueCapacity,
+                                 @Value("${mail.outbox.batch-size:50}") int batchSize,
+                                 @Value("${mail.outbox.send-batch-size:25}") int sendBatchSize,
+                                 @Value("${mail.outbox.batches-per-run:20}") int maxBatchesPerRun,
+                                 @Value("${mail.outbox.max-attempts:6}") int maxAttempts,
+                                 @Value("${mail.outbox.initial-backoff-ms:30000}") long initialBackoffMs,
+                                 @Value("${mail.outbox.max-backoff-ms:3600000}") long maxBackoffMs,
+                                 @Value("${mail.outbox.send-timeout-ms:300000}") long sendTimeoutMs,
+                                 @Value("${mail.outbox.sent-retention-days:7}") long sentRetentionDays,
+                                 @Value("${mail.outbox.dead-retention-days:30}") long deadRetentionDays) {
+        this(emailOutboxRepository, mailSender, jobLeaseService, meterRegistry, Clock.systemDefaultZone(),
+                BoundedExecutors.newExecutor("mail-sender", concurrency, queueCapacity,
+                        BoundedExecutors.runInCaller(), meterRegistry),
+                batchSize, sendBatchSize, maxBatchesPerRun, maxAttempts, Duration.ofMillis(initialBackoffMs), Duration.ofMillis(maxBackoffMs),
+                Duration.ofMillis(sendTimeoutMs), Duration.ofDays(sentRetentionDays), Duration.ofDays(deadRetentionDays));
+    }
+
+    EmailOutboxDispatcher(EmailOutboxRepository emailOutboxRepository, JavaMailSender mailSender,
+                          JobLeaseService jobLeaseService, MeterRegistry meterRegistry, Clock clock,
+                          ExecutorService executor, int batchSize, int sendBatchSize, int maxBatchesPerRun, int maxAttempts,
+                          Duration initialBackoff, Duration maxBackoff, Duration sendTimeout,
+                          Duration sentRetention, Duration deadRetention) {
+        if (sendTimeout.compareTo(LEASE_DURATION) >= 0) {
+            throw new IllegalArgumentException("mail.outbox.send-timeout-ms doit être inférieur à la durée du bail ("
+                    + LEASE_DURATION.toMinutes() + " min)");
+        }
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.mailSender = mailSender;
+        this.jobLeaseService = jobLeaseService;
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        this.executor = executor;
+        this.batchSize = batchSize;
+        this.sendBatchSize = sendBatchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.sendTimeout = sendTimeout;
+        this.sentRetention = sentRetention;
+        this.deadRetention = deadRetention;
+
+        Gauge.builder(PENDING_METRIC, pending, AtomicLong::get)
+                .description("Emails en attente d'envoi")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Tâche planifiée d'envoi, exécutée par une seule instance de l'application
+     */
+    @Scheduled(initialDelayString = "${mail.outbox.initial-delay-ms:10000}",
+            fixedDelayString = "${mail.outbox.poll-delay-ms:5000}")
+    public void dispatch() {
+        jobLeaseService.runExclusively(LEASE, LEASE_DURATION, Duration.ZERO, this::drain);
+    }
+
+    /**
+     * Tâche planifiée de purge des messages envoyés et des lettres mortes anciens, exécutée par une seule instance
+     */
+    @Scheduled(initialDelayString = "${mail.outbox.purge-initial-delay-ms:600000}",
+            fixedDelayString = "${mail.outbox.purge-delay-ms:3600000}")
+    public void purgeDeliveredMessages() {
+        jobLeaseService.runExclusively(PURGE_LEASE, Duration.ofMinutes(30), Duration.ZERO, this::purge);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void drain() {
+        long deadline = System.nanoTime() + sendTimeout.toNanos();
+        try {
+            for (int run = 0; run < maxBatchesPerRun && System.nanoTime() < deadline; run++) {
+                List<EmailOutboxMessage> batch = emailOutboxRepository.findDue(LocalDateTime.now(clock),
+                        PageRequest.of(0, batchSize));
+                if (batch.isEmpty()) {
+                    break;
+                }
+                sendBatch(batch, deadline);
+                if (batch.size() < batchSize) {
+                    break;
+                }
+            }
+            pending.set(emailOutboxRepository.countByStatus(OutboxStatus.PENDING));
+        } catch (Exception e) {
+            logger.error("Erreur lors de l'envoi des emails en file: {}", e.getMessage(), e);
+        }
+    }
+
+    private void purge() {
+        try {
+            LocalDateTime now = LocalDateTime.now(clock);
+            int sent = purge(OutboxStatus.SENT, now.minus(sentRetention));
+            int dead = purge(OutboxStatus.DEAD, now.minus(deadRetention));
+            if (sent + dead > 0) {
+                logger.info("Purge de la file d'emails - Envoyés supprimés: {}, Lettres mortes supprimées: {}", sent, dead);
+            }
+        } catch (Exception e) {
+            logger.error("Erreur lors de la purge de la file d'emails: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Supprimer par lots, chacun dans sa transaction, les messages d'un statut créés avant la date donnée
+     */
+    private int purge(OutboxStatus status, LocalDateTime before) {
+        int deleted = 0;
+        List<Long> ids;
+        do {
+            ids = emailOutboxRepository.findIdsByStatusCreatedBefore(status, before, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            deleted += emailOutboxRepository.deleteByIdInAndStatus(ids, status);
+        } while (ids.size() == batchSize);
+        return deleted;
+    }
+
+    private void sendBatch(List<EmailOutboxMessage> batch, long deadline) {
+        List<List<EmailOutboxMessage>> groups = new ArrayList<>();
+        List<CompletableFuture<Map<Long, Exception>>> results = new ArrayList<>();
+        for (int from = 0; from < batch.size(); from += sendBatchSize) {
+            List<EmailOutboxMessage> group = batch.subList(from, Math.min(from + sendBatchSize, batch.size()));
+            groups.add(group);
+            results.add(CompletableFuture.supplyAsync(() -> send(group), executor));
+        }
+        Map<Long, Exception> failures = new HashMap<>();
+        for (int i = 0; i < results.size(); i++) {
+            failures.putAll(await(groups.get(i), results.get(i), deadline));
+        }
+
+        LocalDateTime now = LocalDateTime.now(clock);
+        List<Long> sent = new ArrayList<>();
+        for (EmailOutboxMessage message : batch) {
+            Exception error = failures.get(message.getId());
+            if (error == null) {
+                sent.add(message.getId());
+                String type = message.getType().name();
+                meterRegistry.counter(MESSAGES_METRIC, "type", type, "outcome", "sent").increment();
+                meterRegistry.timer(DELIVERY_LATENCY_METRIC, "type", type)
+                        .record(Duration.between(message.getCreatedAt(), now));
+            } else {
+                recordFailure(message, error);
+            }
+        }
+
+        if (!sent.isEmpty()) {
+            emailOutboxRepository.markSent(sent, now);
+        }
+        logger.info("Lot d'emails traité - Envoyés: {}, Échecs: {}", sent.size(), failures.size());
+    }
+
+    /**
+     * Envoyer un groupe de messages sur une seule connexion SMTP ; retourne les erreurs par identifiant de message
+     */
+    private Map<Long, Exception> send(List<EmailOutboxMessage> group) {
+        Map<Long, Exception> failures = new HashMap<>();
+        Map<MimeMessage, Long> prepared = new LinkedHashMap<>();
+        for (EmailOutboxMessage message : group) {
+            try {
+                prepared.put(prepare(message), message.getId());
+            } catch (Exception e) {
+                failures.put(message.getId(), new MailPreparationException("Message invalide: " + e.getMessage(), e));
+            }
+        }
+        if (prepared.isEmpty()) {
+            return failures;
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            mailSender.send(prepared.keySet().toArray(MimeMessage[]::new));
+        } catch (MailSendException e) {
+            // Erreurs par message ; sans détail, la connexion elle-même a échoué et aucun message n'est parti
+            if (e.getFailedMessages().isEmpty()) {
+                prepared.values().forEach(id -> failures.put(id, e));
+            } else {
+                e.getFailedMessages().forEach((mimeMessage, error) -> failures.put(prepared.get(mimeMessage), error));
+            }
+        } catch (Exception e) {
+            prepared.values().forEach(id -> failures.put(id, e));
+        }
+        sample.stop(meterRegistry.timer(SEND_DURATION_METRIC, "outcome", failures.isEmpty() ? "success" : "failure"));
+        return failures;
+    }
+
+    /**
+     * Attendre l'envoi d'un groupe jusqu'à l'échéance du passage ; au-delà, le groupe est compté en échec et
+     * retenté plus tard (un envoi encore en cours peut alors produire un doublon, livraison « au moins une fois »)
+     */
+    private Map<Long, Exception> await(List<EmailOutboxMessage> group, CompletableFuture<Map<Long, Exception>> result,
+                                       long deadline) {
+        Exception error;
+        try {
+            return result.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            error = new MailSendException("Délai d'envoi dépassé (" + sendTimeout.toSeconds() + " s)");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error = new MailSendException("Envoi interrompu", e);
+        } catch (ExecutionException e) {
+            error = e.getCause() instanceof Exception cause ? cause : e;
+        }
+        Map<Long, Exception> failures = new HashMap<>();
+        for (EmailOutboxMessage message : group) {
+            failures.put(message.getId(), error);
+        }
+        return failures;
+    }
+
+    private MimeMessage prepare(EmailOutboxMessage message) throws MessagingException {
+        MimeMessage mimeMessage = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, "UTF-8");
+        helper.setFrom(FROM);
+        helper.setTo(message.getRecipient());
+        helper.setSubject(message.getSubject());
+        helper.setText(message.getBody(), true);
+        return mimeMessage;
+    }
+
+    private void recordFailure(EmailOutboxMessage message, Exception error) {
+        int attempts = message.getAttempts() + 1;
+        boolean permanent = error instanceof MailParseException || error instanceof MailPreparationException;
+        String lastError = truncate(error.getClass().getSimpleName() + ": " + error.getMessage());
+
+        if (permanent || attempts >= maxAttempts) {
+            emailOutboxRepository.markFailed(message.getId(), OutboxStatus.DEAD, attempts, message.getNextAttemptAt(), lastError);
+            meterRegistry.counter(MESSAGES_METRIC, "type", message.getType().name(), "outcome", "dead").increment();
+            logger.error("Email {} ({}) abandonné après {} tentative(s): {}",
+                    message.getId(), message.getType(), attempts, lastError);
+            return;
+        }
+
+        LocalDateTime nextAttemptAt = LocalDateTime.now(clock).plus(backoff(attempts));
+        emailOutboxRepository.markFailed(message.getId(), OutboxStatus.PENDING, attempts, nextAttemptAt, lastError);
+        meterRegistry.counter(MESSAGES_METRIC, "type", message.getType().name(), "outcome", "retry").increment();
+        logger.warn("Échec de l'envoi de l'email {} (tentative {}), nouvel essai à {}: {}",
+                message.getId(), attempts, nextAttemptAt, lastError);
+    }
+
+    /**
+     * Délai avant la tentative suivante : initial, puis doublé à chaque échec, plafonné
+     */
+    Duration backoff(int attempts) {
+        Duration delay = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private static String truncate(String value) {
+        return value.length() > MAX_ERROR_LENGTH ? value.substring(0, MAX_ERROR_LENGTH) : value;
+    }
+}
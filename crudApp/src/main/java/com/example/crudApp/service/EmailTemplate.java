@@ -0,0 +1,109 @@
+package com.example.crudApp.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gabarit d'email analysé une seule fois : fragments statiques et variables en alternance
+ * {@code {{nom}}} insère la valeur échappée pour le HTML, {@code {{{nom}}}} l'insère telle quelle
+ * (fragment HTML déjà construit). Le rendu se limite à recopier les fragments et les valeurs.
+ */
+final class EmailTemplate {
+
+    private final String name;
+    // fragments.length == variables.length + 1 : fragment, variable, fragment, ..., fragment
+    private final String[] fragments;
+    private final String[] variables;
+    private final boolean[] raw;
+    private final int staticLength;
+
+    private EmailTemplate(String name, String[] fragments, String[] variables, boolean[] raw) {
+        this.name = name;
+        this.fragments = fragments;
+        this.variables = variables;
+        this.raw = raw;
+        int length = 0;
+        for (String fragment : fragments) {
+            length += fragment.length();
+        }
+        this.staticLength = length;
+    }
+
+    static EmailTemplate parse(String name, String source) {
+        List<String> fragments = new ArrayList<>();
+        List<String> variables = new ArrayList<>();
+        List<Boolean> raw = new ArrayList<>();
+
+        int position = 0;
+        int open;
+        while ((open = source.indexOf("{{", position)) >= 0) {
+            boolean unescaped = source.startsWith("{{{", open);
+            String closing = unescaped ? "}}}" : "}}";
+            int start = open + (unescaped ? 3 : 2);
+            int close = source.indexOf(closing, start);
+            if (close < 0) {
+                throw new IllegalStateException("Variable non fermée dans le gabarit " + name + " à la position " + open);
+            }
+            String variable = source.substring(start, close).trim();
+            if (variable.isEmpty()) {
+                throw new IllegalStateException("Variable sans nom dans le gabarit " + name + " à la position " + open);
+            }
+            fragments.add(source.substring(position, open));
+            variables.add(variable);
+            raw.add(unescaped);
+            position = close + closing.length();
+        }
+        fragments.add(source.substring(position));
+
+        boolean[] rawFlags = new boolean[raw.size()];
+        for (int i = 0; i < rawFlags.length; i++) {
+            rawFlags[i] = raw.get(i);
+        }
+        return new EmailTemplate(name, fragments.toArray(String[]::new), variables.toArray(String[]::new), rawFlags);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    /**
+     * Longueur cumulée des fragments statiques, base de la taille du tampon de rendu
+     */
+    int getStaticLength() {
+        return staticLength;
+    }
+
+    void renderTo(StringBuilder out, Map<String, ?> model) {
+        for (int i = 0; i < variables.length; i++) {
+            out.append(fragments[i]);
+            if (!model.containsKey(variables[i])) {
+                throw new IllegalArgumentException("Variable " + variables[i] + " manquante pour le gabarit " + name);
+            }
+            Object value = model.get(variables[i]);
+            if (value == null) {
+                continue;
+            }
+            if (raw[i]) {
+                out.append(value);
+            } else {
+                appendEscaped(out, value.toString());
+            }
+        }
+        out.append(fragments[variables.length]);
+    }
+
+    private static void appendEscaped(StringBuilder out, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&' -> out.append("&amp;");
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&#39;");
+                default -> out.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.crudApp.service;
+
+import com.example.crudApp.model.EmailType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Rendu des corps d'emails à partir des gabarits de classpath:email-templates
+ * Chaque type d'email a son gabarit ({@code WELCOME} : welcome.html), chargé et analysé au démarrage : un
+ * gabarit manquant ou mal formé empêche l'application de démarrer. Le rendu réutilise un tampon par thread.
+ */
+@Component
+public class EmailTemplateRenderer {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailTemplateRenderer.class);
+
+    // Format des dates de rendez-vous dans les emails, partagé (DateTimeFormatter est sans état)
+    public static final DateTimeFormatter APPOINTMENT_DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy à HH:mm");
+
+    private static final String TEMPLATE_LOCATION = "email-templates/";
+
+    // Au-delà, le tampon n'est pas conservé pour ne pas garder en mémoire un rendu exceptionnellement long
+    private static final int MAX_POOLED_CAPACITY = 64 * 1024;
+
+    private final Map<EmailType, EmailTemplate> templates = new EnumMap<>(EmailType.class);
+
+    private final ThreadLocal<StringBuilder> buffers = ThreadLocal.withInitial(() -> new StringBuilder(4096));
+
+    public EmailTemplateRenderer() {
+        for (EmailType type : EmailType.values()) {
+            String name = type.name().toLowerCase(Locale.ROOT).replace('_', '-') + ".html";
+            templates.put(type, EmailTemplate.parse(name, load(name)));
+        }
+        logger.info("{} gabarits d'email chargés", templates.size());
+    }
+
+    /**
+     * Corps HTML de l'email du type donné ; toutes les variables du gabarit doivent figurer dans le modèle
+     */
+    public String render(EmailType type, Map<String, ?> model) {
+        EmailTemplate template = templates.get(type);
+        StringBuilder buffer = buffers.get();
+        buffer.setLength(0);
+        buffer.ensureCapacity(template.getStaticLength() + 256);
+        try {
+            template.renderTo(buffer, model);
+            return buffer.toString();
+        } finally {
+            if (buffer.capacity() > MAX_POOLED_CAPACITY) {
+                buffers.remove();
+            }
+        }
+    }
+
+    private static String load(String name) {
+        try (InputStream input = new ClassPathResource(TEMPLATE_LOCATION + name).getInputStream()) {
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Gabarit d'email introuvable: " + TEMPLATE_LOCATION + name, e);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.crudApp.service;
+
+import com.example.crudApp.model.ExportFormat;
+import com.example.crudApp.model.Patient;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.stream.Stream;
+
+/**
+ * Export des patients en Excel
+ */
+@Component
+@RequiredArgsConstructor
+public class ExcelPatientExportWriter implements PatientExportWriter {
+
+    private final ExportService exportService;
+
+    @Override
+    public ExportFormat getFormat() {
+        return ExportFormat.EXCEL;
+    }
+
+    @Override
+    public long write(Stream<Patient> patients, OutputStream outputStream) throws IOException {
+        return exportService.writePatientsToExcel(patients, outputStream);
+    }
+}
@@ -0,0 +1,259 @@
+package com.example.crudApp.service;
+
+import com.example.crudApp.config.BoundedExecutors;
+import com.example.crudApp.dto.PatientSearchCriteria;
+import com.example.crudApp.exception.ExportLimitExceededException;
+import com.example.crudApp.exception.ExportNotReadyException;
+import com.example.crudApp.exception.ResourceNotFoundException;
+import com.example.crudApp.model.ExportFormat;
+import com.example.crudApp.model.ExportJob;
+import com.example.crudApp.model.ExportJobStatus;
+import com.example.crudApp.repository.ExportJobRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Exports asynchrones des patients : soumission, suivi de l'avancement et téléchargement
+ * Les exports s'exécutent sur le pool borné export-job (threads et file d'attente) : pool saturé, l'export
+ * est refusé plutôt que mis en attente sans limite. Chaque utilisateur a en outre un
+ * nombre limité d'exports en cours.
+ * Le suivi est enregistré en base (export_jobs) et le fichier écrit dans export.jobs.dir, qui doit être un
+ * répertoire partagé par toutes les instances (volume commun) : l'avancement et le téléchargement sont servis
+ * par n'importe quelle instance. L'instance qui exécute un export en reporte l'avancement en base ; un export
+ * dont l'instance ne donne plus de nouvelles (arrêt) passe en échec. Fichier et suivi sont supprimés une fois
+ * la durée de conservation écoulée.
+ * Les formats qui le permettent sont produits par {@link ParallelPatientExporter}.
+ */
+@Service
+public class ExportJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportJobService.class);
+
+    static final String PURGE_LEASE = "export-job-purge";
+
+    private final PatientExportService patientExportService;
+    private final ParallelPatientExporter parallelPatientExporter;
+    private final ExportJobRepository exportJobRepository;
+    private final JobLeaseService jobLeaseService;
+    private final Clock clock;
+    private final Path storageDir;
+    private final int maxActiveJobsPerUser;
+    private final long retentionMinutes;
+    private final long staleMinutes;
+    private final ThreadPoolExecutor executor;
+
+    // Exports soumis à cette instance et pas encore terminés, avec leur avancement en mémoire
+    private final Map<String, ExportJob> localJobs = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ExportJobService(PatientExportService patientExportService,
+                            ParallelPatientExporter parallelPatientExporter,
+                            ExportJobRepository exportJobRepository,
+                            JobLeaseService jobLeaseService,
+                            MeterRegistry meterRegistry,
+                            @Value("${export.jobs.dir:exports}") String storageDir,
+                            @Value("${export.jobs.threads:2}") int threads,
+                            @Value("${export.jobs.queue-capacity:20}") int queueCapacity,
+                            @Value("${export.jobs.max-per-user:2}") int maxActiveJobsPerUser,
+                            @Value("${export.jobs.retention-minutes:60}") long retentionMinutes,
+                            @Value("${export.jobs.stale-minutes:10}") long staleMinutes) {
+        this(patientExportService, parallelPatientExporter, exportJobRepository, jobLeaseService,
+                Clock.systemDefaultZone(), Paths.get(storageDir),
+                BoundedExecutors.newExecutor("export-job", threads, queueCapacity,
+                        new ThreadPoolExecutor.AbortPolicy(), meterRegistry),
+                maxActiveJobsPerUser, retentionMinutes, staleMinutes);
+    }
+
+    ExportJobService(PatientExportService patientExportService, ParallelPatientExporter parallelPatientExporter,
+                     ExportJobRepository exportJobRepository, JobLeaseService jobLeaseService,
+                     Clock clock, Path storageDir, ThreadPoolExecutor executor,
+                     int maxActiveJobsPerUser, long retentionMinutes, long staleMinutes) {
+        this.patientExportService = patientExportService;
+        this.parallelPatientExporter = parallelPatientExporter;
+        this.exportJobRepository = exportJobRepository;
+        this.jobLeaseService = jobLeaseService;
+        this.clock = clock;
+        this.storageDir = storageDir;
+        this.executor = executor;
+        this.maxActiveJobsPerUser = maxActiveJobsPerUser;
+        this.retentionMinutes = retentionMinutes;
+        this.staleMinutes = staleMinutes;
+    }
+
+    /**
+     * Soumettre un export ; refusé si l'utilisateur a déjà trop d'exports en cours ou si la file est pleine
+     * La limite est vérifiée en base : deux soumissions simultanées sur deux instances peuvent la dépasser d'un export
+     */
+    public ExportJob submit(ExportFormat format, PatientSearchCriteria criteria, String username) {
+        if (!patientExportService.supports(format)) {
+            throw new IllegalArgumentException("Format d'export non disponible: " + format);
+        }
+
+        ExportJob job = new ExportJob(UUID.randomUUID().toString(), username, format, LocalDateTime.now(clock));
+        synchronized (this) {
+            long active = exportJobRepository.countByUsernameAndStatusIn(username, ExportJob.ACTIVE_STATUSES);
+            if (active >= maxActiveJobsPerUser) {
+                throw new ExportLimitExceededException("Nombre maximal d'exports en cours atteint ("
+                        + maxActiveJobsPerUser + "), réessayez une fois un export terminé");
+            }
+            exportJobRepository.save(job);
+        }
+
+        localJobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> run(job, criteria));
+        } catch (RejectedExecutionException e) {
+            localJobs.remove(job.getId());
+            exportJobRepository.deleteById(job.getId());
+            throw new ExportLimitExceededException("Trop d'exports en attente, réessayez plus tard");
+        }
+
+        logger.info("Export {} {} soumis par {}", format, job.getId(), username);
+        return job;
+    }
+
+    /**
+     * Export de l'utilisateur ; les exports des autres utilisateurs ne sont pas visibles
+     * Un export exécuté par cette instance est lu en mémoire (avancement à jour), les autres en base
+     */
+    public ExportJob getJob(String id, String username) {
+        ExportJob job = localJobs.get(id);
+        if (job == null) {
+            job = exportJobRepository.findById(id).orElse(null);
+        }
+        if (job == null || !job.getUsername().equals(username)) {
+            throw new ResourceNotFoundException("Export non trouvé avec l'ID: " + id);
+        }
+        return job;
+    }
+
+    /**
+     * Export terminé de l'utilisateur, prêt à être téléchargé
+     */
+    public ExportJob getCompletedJob(String id, String username) {
+        ExportJob job = getJob(id, username);
+        if (job.getStatus() != ExportJobStatus.COMPLETED) {
+            throw new ExportNotReadyException("L'export n'est pas terminé (statut: " + job.getStatus() + ")");
+        }
+        if (!Files.isReadable(job.getFile())) {
+            logger.error("Fichier de l'export {} absent de cette instance ({}) : export.jobs.dir doit être partagé "
+                    + "entre les instances", id, job.getFile());
+            throw new ResourceNotFoundException("Fichier de l'export non trouvé: " + id);
+        }
+        return job;
+    }
+
+    /**
+     * Tâche planifiée qui reporte en base l'avancement des exports exécutés par cette instance
+     * Sert aussi de signe de vie : un export sans report depuis export.jobs.stale-minutes est abandonné
+     */
+    @Scheduled(fixedDelayString = "${export.jobs.progress-delay-ms:2000}")
+    public void reportProgress() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        for (ExportJob job : localJobs.values()) {
+            if (job.isActive()) {
+                exportJobRepository.updateProgress(job.getId(), job.getProcessedRows(), now);
+            }
+        }
+    }
+
+    /**
+     * Tâche planifiée qui supprime les exports terminés depuis plus que la durée de conservation
+     * et marque en échec les exports abandonnés par une instance arrêtée ; exécutée par une seule instance
+     */
+    @Scheduled(fixedDelayString = "${export.jobs.cleanup-delay-ms:300000}")
+    public void purgeExpiredJobs() {
+        jobLeaseService.runExclusively(PURGE_LEASE, Duration.ofMinutes(10), Duration.ZERO, this::purge);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void purge() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        int interrupted = exportJobRepository.failStale(now.minusMinutes(staleMinutes), now,
+                "Export interrompu, veuillez le relancer");
+        if (interrupted > 0) {
+            logger.warn("{} export(s) interrompu(s) par l'arrêt d'une instance", interrupted);
+        }
+
+        List<ExportJob> expired = exportJobRepository.findByStatusInAndUpdatedAtBefore(
+                ExportJob.FINISHED_STATUSES, now.minusMinutes(retentionMinutes));
+        for (ExportJob job : expired) {
+            deleteQuietly(job.getFile());
+            exportJobRepository.delete(job);
+        }
+        if (!expired.isEmpty()) {
+            logger.info("{} export(s) expiré(s) supprimé(s)", expired.size());
+        }
+    }
+
+    private void run(ExportJob job, PatientSearchCriteria criteria) {
+        Path file = storageDir.resolve(job.getId() + "." + job.getFormat().getExtension());
+        try {
+            Files.createDirectories(storageDir);
+            job.start(patientExportService.count(criteria), LocalDateTime.now(clock));
+            exportJobRepository.save(job);
+            try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(file))) {
+                // CSV et Excel : lecture et encodage par blocs en parallèle, le PDF reste séquentiel
+                if (parallelPatientExporter.supports(job.getFormat())) {
+                    parallelPatientExporter.export(job.getFormat(), criteria, outputStream, job.processedRowsCounter());
+                } else {
+                    patientExportService.export(job.getFormat(), criteria, outputStream, job.processedRowsCounter());
+                }
+            }
+            // Mise à jour conditionnelle : un export marqué en échec entre-temps par une autre instance le reste
+            job.complete(file, LocalDateTime.now(clock));
+            if (exportJobRepository.markCompleted(job.getId(), job.getProcessedRows(), file.toString(), job.getCompletedAt()) == 0) {
+                logger.warn("Export {} terminé après avoir été clos par une autre instance, résultat abandonné", job.getId());
+                deleteQuietly(file);
+                return;
+            }
+            logger.info("Export {} terminé: {} patients", job.getId(), job.getProcessedRows());
+        } catch (Exception e) {
+            logger.error("Échec de l'export {}: {}", job.getId(), e.getMessage(), e);
+            deleteQuietly(file);
+            job.fail("Erreur lors de la génération de l'export", LocalDateTime.now(clock));
+            if (exportJobRepository.markFailed(job.getId(), job.getProcessedRows(), job.getError(), job.getCompletedAt()) == 0) {
+                logger.warn("Échec de l'export {} non enregistré : export déjà clos", job.getId());
+            }
+        } finally {
+            localJobs.remove(job.getId());
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Impossible de supprimer le fichier d'export {}: {}", file, e.getMessage());
+        }
+    }
+}
@@ -8,13 +8,20 @@ import com.itextpdf.text.pdf.PdfWriter;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVPrinter;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.springframework.stereotype.Service;
 
+import java.io.BufferedWriter;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Service pour exporter les données en différents formats
@@ -22,6 +29,35 @@ import java.util.List;
 @Service
 public class ExportService {
 
+    private static final String[] CSV_HEADERS = {"ID", "Nom", "Email", "Âge", "Adresse", "Groupe Sanguin",
+            "Allergies", "Téléphone", "Contact Urgence", "Numéro Assurance", "Dernière Visite", "Statut"};
+
+    // Nombre de lignes CSV écrites entre deux vidages vers le flux de sortie
+    private static final int CSV_FLUSH_ROWS = 1000;
+
+    private static final String[] EXCEL_HEADERS = {"ID", "Nom", "Email", "Âge", "Adresse", "Groupe Sanguin",
+            "Allergies", "Téléphone", "Contact Urgence", "Tél. Urgence", "Numéro Assurance", "Dernière Visite", "Statut"};
+
+    // Lignes Excel gardées en mémoire avant écriture sur disque (SXSSF)
+    private static final int EXCEL_ROW_WINDOW = 100;
+
+    // Lignes Excel utilisées pour estimer la largeur des colonnes
+    private static final int EXCEL_WIDTH_SAMPLE_ROWS = 500;
+
+    private static final int EXCEL_MAX_COLUMN_WIDTH = 60;
+
+    private static final String[] PDF_HEADERS = {"ID", "Nom", "Email", "Âge", "Groupe Sanguin", "Allergies", "Téléphone", "Statut"};
+
+    // Lignes du tableau PDF mises en page et écrites à chaque ajout au document
+    private static final int PDF_CHUNK_ROWS = 500;
+
+    // Polices partagées par tous les exports PDF (jamais modifiées)
+    private static final com.itextpdf.text.Font PDF_TITLE_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18, BaseColor.DARK_GRAY);
+    private static final com.itextpdf.text.Font PDF_HEADER_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 10, BaseColor.WHITE);
+    private static final com.itextpdf.text.Font PDF_DATA_FONT = FontFactory.getFont(FontFactory.HELVETICA, 8, BaseColor.BLACK);
+    private static final com.itextpdf.text.Font PDF_FOOTER_FONT = FontFactory.getFont(FontFactory.HELVETICA, 8, BaseColor.GRAY);
+    private static final BaseColor PDF_HEADER_BACKGROUND = new BaseColor(41, 128, 185); // Bleu médical
+
     // ==================== MÉTHODES POUR PATIENTS ====================
 
     /**
@@ -29,156 +65,276 @@ public class ExportService {
      */
     public String exportPatientsToCSV(List<Patient> patients) throws IOException {
         StringWriter writer = new StringWriter();
-        CSVPrinter csvPrinter = new CSVPrinter(writer, CSVFormat.DEFAULT
-                .withHeader("ID", "Nom", "Email", "Âge", "Adresse", "Groupe Sanguin",
-                           "Allergies", "Téléphone", "Contact Urgence", "Numéro Assurance",
-                           "Dernière Visite", "Statut"));
+        printPatientsToCSV(patients.iterator(), writer);
+        return writer.toString();
+    }
+
+    /**
+     * Écrit les patients en CSV (UTF-8) au fil de l'eau dans le flux de sortie, sans le fermer
+     * Retourne le nombre de patients écrits
+     */
+    public long writePatientsToCSV(Stream<Patient> patients, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        return printPatientsToCSV(patients.iterator(), writer);
+    }
 
+    /**
+     * En-tête CSV encodé en UTF-8 (export par blocs)
+     */
+    public byte[] encodeCSVHeader() throws IOException {
+        StringWriter writer = new StringWriter();
+        CSVFormat.DEFAULT.printRecord(writer, (Object[]) CSV_HEADERS);
+        return writer.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Lignes CSV des patients, sans en-tête, encodées en UTF-8 (export par blocs)
+     */
+    public byte[] encodePatientsToCSV(List<Patient> patients) throws IOException {
+        StringWriter writer = new StringWriter();
+        CSVPrinter csvPrinter = new CSVPrinter(writer, CSVFormat.DEFAULT);
         for (Patient patient : patients) {
-            csvPrinter.printRecord(
-                    patient.getId(),
-                    patient.getName(),
-                    patient.getEmail(),
-                    patient.getAge(),
-                    patient.getAddress(),
-                    patient.getBloodType(),
-                    patient.getAllergies(),
-                    patient.getPhoneNumber(),
-                    patient.getEmergencyContact(),
-                    patient.getInsuranceNumber(),
-                    patient.getLastVisit(),
-                    patient.getIsActive() ? "Actif" : "Archivé"
-            );
+            printCSVRecord(csvPrinter, patient);
+        }
+        csvPrinter.flush();
+        return writer.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private long printPatientsToCSV(Iterator<Patient> patients, Writer writer) throws IOException {
+        CSVPrinter csvPrinter = new CSVPrinter(writer, CSVFormat.DEFAULT.withHeader(CSV_HEADERS));
+
+        long rows = 0;
+        while (patients.hasNext()) {
+            printCSVRecord(csvPrinter, patients.next());
+            // Envoi régulier au client : le volume en attente reste borné
+            if (++rows % CSV_FLUSH_ROWS == 0) {
+                csvPrinter.flush();
+            }
         }
 
         csvPrinter.flush();
-        return writer.toString();
+        return rows;
+    }
+
+    private void printCSVRecord(CSVPrinter csvPrinter, Patient patient) throws IOException {
+        csvPrinter.printRecord(
+                patient.getId(),
+                patient.getName(),
+                patient.getEmail(),
+                patient.getAge(),
+                patient.getAddress(),
+                patient.getBloodType(),
+                patient.getAllergies(),
+                patient.getPhoneNumber(),
+                patient.getEmergencyContact(),
+                patient.getInsuranceNumber(),
+                patient.getLastVisit(),
+                patient.getIsActive() ? "Actif" : "Archivé"
+        );
     }
 
     /**
      * Exporte les patients en format Excel
      */
     public byte[] exportPatientsToExcel(List<Patient> patients) throws IOException {
-        Workbook workbook = new XSSFWorkbook();
-        Sheet sheet = workbook.createSheet("Patients");
-
-        // Style pour l'en-tête
-        CellStyle headerStyle = workbook.createCellStyle();
-        org.apache.poi.ss.usermodel.Font headerFont = workbook.createFont();
-        headerFont.setBold(true);
-        headerFont.setFontHeightInPoints((short) 12);
-        headerStyle.setFont(headerFont);
-        headerStyle.setFillForegroundColor(IndexedColors.LIGHT_BLUE.getIndex());
-        headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-
-        // Créer l'en-tête
-        Row headerRow = sheet.createRow(0);
-        String[] headers = {"ID", "Nom", "Email", "Âge", "Adresse", "Groupe Sanguin",
-                           "Allergies", "Téléphone", "Contact Urgence", "Tél. Urgence",
-                           "Numéro Assurance", "Dernière Visite", "Statut"};
-        for (int i = 0; i < headers.length; i++) {
-            Cell cell = headerRow.createCell(i);
-            cell.setCellValue(headers[i]);
-            cell.setCellStyle(headerStyle);
-        }
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        writePatientsToExcel(patients.stream(), outputStream);
+        return outputStream.toByteArray();
+    }
 
-        // Remplir les données
-        int rowNum = 1;
-        for (Patient patient : patients) {
-            Row row = sheet.createRow(rowNum++);
-            row.createCell(0).setCellValue(patient.getId());
-            row.createCell(1).setCellValue(patient.getName());
-            row.createCell(2).setCellValue(patient.getEmail());
-            row.createCell(3).setCellValue(patient.getAge());
-            row.createCell(4).setCellValue(patient.getAddress());
-            row.createCell(5).setCellValue(patient.getBloodType() != null ? patient.getBloodType() : "");
-            row.createCell(6).setCellValue(patient.getAllergies() != null ? patient.getAllergies() : "");
-            row.createCell(7).setCellValue(patient.getPhoneNumber() != null ? patient.getPhoneNumber() : "");
-            row.createCell(8).setCellValue(patient.getEmergencyContact() != null ? patient.getEmergencyContact() : "");
-            row.createCell(9).setCellValue(patient.getEmergencyPhone() != null ? patient.getEmergencyPhone() : "");
-            row.createCell(10).setCellValue(patient.getInsuranceNumber() != null ? patient.getInsuranceNumber() : "");
-            row.createCell(11).setCellValue(patient.getLastVisit() != null ? patient.getLastVisit().toString() : "");
-            row.createCell(12).setCellValue(patient.getIsActive() ? "Actif" : "Archivé");
-        }
+    /**
+     * Écrit les patients en Excel (.xlsx) dans le flux de sortie, sans le fermer
+     * Classeur SXSSF : seules les EXCEL_ROW_WINDOW dernières lignes restent en mémoire, les autres sont
+     * écrites dans un fichier temporaire compressé. Les largeurs de colonnes sont estimées sur les
+     * premières lignes au lieu d'un autoSizeColumn qui relirait toute la feuille.
+     * Retourne le nombre de patients écrits
+     */
+    public long writePatientsToExcel(Stream<Patient> patients, OutputStream outputStream) throws IOException {
+        return writeExcelRows(patients.map(this::toExcelRow).iterator(), outputStream);
+    }
+
+    /**
+     * Écrit des lignes préparées par toExcelRow en Excel (.xlsx) dans le flux de sortie, sans le fermer
+     * Retourne le nombre de lignes écrites
+     */
+    public long writeExcelRows(Iterator<Object[]> rows, OutputStream outputStream) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(EXCEL_ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
+        try {
+            Sheet sheet = workbook.createSheet("Patients");
+
+            // Style pour l'en-tête
+            CellStyle headerStyle = workbook.createCellStyle();
+            org.apache.poi.ss.usermodel.Font headerFont = workbook.createFont();
+            headerFont.setBold(true);
+            headerFont.setFontHeightInPoints((short) 12);
+            headerStyle.setFont(headerFont);
+            headerStyle.setFillForegroundColor(IndexedColors.LIGHT_BLUE.getIndex());
+            headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+
+            // Créer l'en-tête
+            int[] columnWidths = new int[EXCEL_HEADERS.length];
+            Row headerRow = sheet.createRow(0);
+            for (int i = 0; i < EXCEL_HEADERS.length; i++) {
+                Cell cell = headerRow.createCell(i);
+                cell.setCellValue(EXCEL_HEADERS[i]);
+                cell.setCellStyle(headerStyle);
+                columnWidths[i] = EXCEL_HEADERS[i].length();
+            }
 
-        // Auto-size des colonnes
-        for (int i = 0; i < headers.length; i++) {
-            sheet.autoSizeColumn(i);
+            // Remplir les données ; les largeurs sont mesurées sur l'échantillon de tête
+            int rowNum = 0;
+            while (rows.hasNext()) {
+                Row row = sheet.createRow(++rowNum);
+                fillExcelRow(row, rows.next());
+                if (rowNum <= EXCEL_WIDTH_SAMPLE_ROWS) {
+                    for (int i = 0; i < EXCEL_HEADERS.length; i++) {
+                        columnWidths[i] = Math.max(columnWidths[i], displayLength(row.getCell(i)));
+                    }
+                }
+            }
+
+            // Largeur en 1/256e de caractère, marge comprise
+            for (int i = 0; i < EXCEL_HEADERS.length; i++) {
+                sheet.setColumnWidth(i, Math.min(columnWidths[i] + 2, EXCEL_MAX_COLUMN_WIDTH) * 256);
+            }
+
+            workbook.write(outputStream);
+            return rowNum;
+        } finally {
+            workbook.close();
+            workbook.dispose();
         }
+    }
 
-        // Écrire dans un ByteArrayOutputStream
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        workbook.write(outputStream);
-        workbook.close();
+    /**
+     * Valeurs des cellules Excel d'un patient (nombres pour l'ID et l'âge, textes sinon)
+     */
+    public Object[] toExcelRow(Patient patient) {
+        return new Object[]{
+                patient.getId(),
+                patient.getName(),
+                patient.getEmail(),
+                patient.getAge(),
+                patient.getAddress(),
+                patient.getBloodType() != null ? patient.getBloodType() : "",
+                patient.getAllergies() != null ? patient.getAllergies() : "",
+                patient.getPhoneNumber() != null ? patient.getPhoneNumber() : "",
+                patient.getEmergencyContact() != null ? patient.getEmergencyContact() : "",
+                patient.getEmergencyPhone() != null ? patient.getEmergencyPhone() : "",
+                patient.getInsuranceNumber() != null ? patient.getInsuranceNumber() : "",
+                patient.getLastVisit() != null ? patient.getLastVisit().toString() : "",
+                patient.getIsActive() ? "Actif" : "Archivé"
+        };
+    }
 
-        return outputStream.toByteArray();
+    private void fillExcelRow(Row row, Object[] values) {
+        for (int i = 0; i < values.length; i++) {
+            Cell cell = row.createCell(i);
+            if (values[i] instanceof Number number) {
+                cell.setCellValue(number.doubleValue());
+            } else if (values[i] != null) {
+                cell.setCellValue(values[i].toString());
+            }
+        }
+    }
+
+    private int displayLength(Cell cell) {
+        return switch (cell.getCellType()) {
+            case NUMERIC -> String.valueOf((long) cell.getNumericCellValue()).length();
+            case STRING -> cell.getStringCellValue().length();
+            default -> 0;
+        };
     }
 
     /**
      * Exporte les patients en format PDF
      */
     public byte[] exportPatientsToPDF(List<Patient> patients) throws DocumentException {
-        Document document = new Document(PageSize.A4.rotate()); // Paysage pour plus de colonnes
         ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        PdfWriter.getInstance(document, outputStream);
+        writePatientsToPDF(patients.stream(), outputStream);
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Écrit les patients en PDF dans le flux de sortie, sans le fermer
+     * Le tableau est marqué incomplet et ajouté au document toutes les PDF_CHUNK_ROWS lignes : iText
+     * met en page les lignes reçues, les écrit dans le flux et les libère. Seul un bloc de lignes reste
+     * en mémoire ; l'en-tête est répété sur chaque page. Retourne le nombre de patients écrits
+     */
+    public long writePatientsToPDF(Stream<Patient> patients, OutputStream outputStream) throws DocumentException {
+        Document document = new Document(PageSize.A4.rotate()); // Paysage pour plus de colonnes
+        PdfWriter writer = PdfWriter.getInstance(document, outputStream);
+        writer.setCloseStream(false);
 
         document.open();
 
         // Titre
-        com.itextpdf.text.Font titleFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18, BaseColor.DARK_GRAY);
-        Paragraph title = new Paragraph("Liste des Patients", titleFont);
+        Paragraph title = new Paragraph("Liste des Patients", PDF_TITLE_FONT);
         title.setAlignment(Element.ALIGN_CENTER);
         title.setSpacingAfter(20);
         document.add(title);
 
-        // Créer le tableau (8 colonnes principales)
-        PdfPTable table = new PdfPTable(8);
+        // Créer le tableau (8 colonnes principales), écrit par blocs
+        PdfPTable table = new PdfPTable(PDF_HEADERS.length);
         table.setWidthPercentage(100);
         table.setSpacingBefore(10f);
         table.setSpacingAfter(10f);
+        table.setHeaderRows(1);
+        table.setComplete(false);
 
-        // En-têtes
-        com.itextpdf.text.Font headerFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 10, BaseColor.WHITE);
-        String[] headers = {"ID", "Nom", "Email", "Âge", "Groupe Sanguin", "Allergies", "Téléphone", "Statut"};
-        for (String header : headers) {
-            PdfPCell cell = new PdfPCell(new Phrase(header, headerFont));
-            cell.setBackgroundColor(new BaseColor(41, 128, 185)); // Bleu médical
-            cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-            cell.setPadding(5);
+        // En-têtes, copiés d'un modèle de cellule
+        PdfPCell headerTemplate = new PdfPCell();
+        headerTemplate.setBackgroundColor(PDF_HEADER_BACKGROUND);
+        headerTemplate.setHorizontalAlignment(Element.ALIGN_CENTER);
+        headerTemplate.setPadding(5);
+        for (String header : PDF_HEADERS) {
+            PdfPCell cell = new PdfPCell(headerTemplate);
+            cell.setPhrase(new Phrase(header, PDF_HEADER_FONT));
             table.addCell(cell);
         }
 
-        // Données
-        com.itextpdf.text.Font dataFont = FontFactory.getFont(FontFactory.HELVETICA, 8, BaseColor.BLACK);
-        for (Patient patient : patients) {
-            table.addCell(new Phrase(String.valueOf(patient.getId()), dataFont));
-            table.addCell(new Phrase(patient.getName(), dataFont));
-            table.addCell(new Phrase(patient.getEmail(), dataFont));
-            table.addCell(new Phrase(String.valueOf(patient.getAge()), dataFont));
-            table.addCell(new Phrase(patient.getBloodType() != null ? patient.getBloodType() : "-", dataFont));
+        // Données : chaque cellule est copiée de la cellule par défaut du tableau
+        long rows = 0;
+        Iterator<Patient> iterator = patients.iterator();
+        while (iterator.hasNext()) {
+            Patient patient = iterator.next();
+            addPdfCell(table, String.valueOf(patient.getId()));
+            addPdfCell(table, patient.getName());
+            addPdfCell(table, patient.getEmail());
+            addPdfCell(table, String.valueOf(patient.getAge()));
+            addPdfCell(table, patient.getBloodType() != null ? patient.getBloodType() : "-");
 
             // Tronquer les allergies si trop longues
             String allergies = patient.getAllergies() != null ? patient.getAllergies() : "-";
             if (allergies.length() > 30) {
                 allergies = allergies.substring(0, 27) + "...";
             }
-            table.addCell(new Phrase(allergies, dataFont));
+            addPdfCell(table, allergies);
+
+            addPdfCell(table, patient.getPhoneNumber() != null ? patient.getPhoneNumber() : "-");
+            addPdfCell(table, patient.getIsActive() ? "Actif" : "Archivé");
 
-            table.addCell(new Phrase(patient.getPhoneNumber() != null ? patient.getPhoneNumber() : "-", dataFont));
-            table.addCell(new Phrase(patient.getIsActive() ? "Actif" : "Archivé", dataFont));
+            if (++rows % PDF_CHUNK_ROWS == 0) {
+                document.add(table);
+            }
         }
 
+        table.setComplete(true);
         document.add(table);
 
         // Pied de page
-        Paragraph footer = new Paragraph("Document confidentiel - Généré le : " + new java.util.Date(),
-                FontFactory.getFont(FontFactory.HELVETICA, 8, BaseColor.GRAY));
+        Paragraph footer = new Paragraph("Document confidentiel - Généré le : " + new java.util.Date(), PDF_FOOTER_FONT);
         footer.setAlignment(Element.ALIGN_RIGHT);
         footer.setSpacingBefore(20);
         document.add(footer);
 
         document.close();
 
-        return outputStream.toByteArray();
+        return rows;
+    }
+
+    private void addPdfCell(PdfPTable table, String text) {
+        table.addCell(new Phrase(text, PDF_DATA_FONT));
     }
 }
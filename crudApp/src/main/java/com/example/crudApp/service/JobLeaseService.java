@@ -0,0 +1,95 @@
+package com.example.crudApp.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Baux des tâches planifiées en base (table job_leases), pour qu'une seule instance exécute chaque tâche
+ * Le bail est pris par une mise à jour conditionnelle (ou une insertion à la première exécution), en dehors
+ * de toute transaction, puis relâché en fin de tâche. Il expire de lui-même après lockAtMostFor si
+ * l'instance s'arrête en cours de tâche, et reste pris au moins lockAtLeastFor pour que les instances
+ * dont l'horloge est légèrement décalée ne relancent pas la même échéance.
+ * Les tâches qui ne portent que sur l'état en mémoire d'une instance n'ont pas besoin de bail.
+ */
+@Service
+public class JobLeaseService {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobLeaseService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Clock clock;
+    private final String owner;
+
+    @Autowired
+    public JobLeaseService(JdbcTemplate jdbcTemplate) {
+        // Plusieurs contextes peuvent partager la JVM : l'identifiant du processus ne suffit pas
+        this(jdbcTemplate, Clock.systemDefaultZone(),
+                ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID().toString().substring(0, 8));
+    }
+
+    JobLeaseService(JdbcTemplate jdbcTemplate, Clock clock, String owner) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clock = clock;
+        this.owner = owner;
+    }
+
+    /**
+     * Exécuter la tâche si le bail est obtenu ; retourne false si une autre instance le détient
+     */
+    public boolean runExclusively(String name, Duration lockAtMostFor, Duration lockAtLeastFor, Runnable task) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        if (!tryAcquire(name, now, now.plus(lockAtMostFor))) {
+            logger.debug("Tâche {} ignorée : bail détenu par une autre instance", name);
+            return false;
+        }
+
+        logger.debug("Bail de la tâche {} obtenu par {}", name, owner);
+        try {
+            task.run();
+        } finally {
+            release(name, now.plus(lockAtLeastFor));
+        }
+        return true;
+    }
+
+    private boolean tryAcquire(String name, LocalDateTime now, LocalDateTime lockedUntil) {
+        int updated = jdbcTemplate.update(
+                "UPDATE job_leases SET locked_until = ?, locked_at = ?, locked_by = ? WHERE name = ? AND locked_until <= ?",
+                lockedUntil, now, owner, name, now);
+        if (updated > 0) {
+            return true;
+        }
+
+        try {
+            jdbcTemplate.update(
+                    "INSERT INTO job_leases (name, locked_until, locked_at, locked_by) VALUES (?, ?, ?, ?)",
+                    name, lockedUntil, now, owner);
+            return true;
+        } catch (DuplicateKeyException e) {
+            // Bail existant et encore valide, ou créé au même moment par une autre instance
+            return false;
+        }
+    }
+
+    private void release(String name, LocalDateTime minimumLockedUntil) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        LocalDateTime lockedUntil = now.isAfter(minimumLockedUntil) ? now : minimumLockedUntil;
+        try {
+            jdbcTemplate.update("UPDATE job_leases SET locked_until = ? WHERE name = ? AND locked_by = ?",
+                    lockedUntil, name, owner);
+        } catch (Exception e) {
+            // Le bail expirera de lui-même à lockAtMostFor
+            logger.warn("Impossible de relâcher le bail de la tâche {}: {}", name, e.getMessage());
+        }
+    }
+}
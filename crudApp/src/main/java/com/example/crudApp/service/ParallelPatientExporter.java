@@ -0,0 +1,222 @@
+package com.example.crudApp.service;
+
+import com.example.crudApp.config.BoundedExecutors;
+import com.example.crudApp.config.FullTextSearchSupport;
+import com.example.crudApp.dto.PatientSearchCriteria;
+import com.example.crudApp.model.ExportFormat;
+import com.example.crudApp.model.Patient;
+import com.example.crudApp.repository.PatientExportRepository;
+import com.example.crudApp.specification.PatientSpecification;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.StreamSupport;
+
+/**
+ * Export parallèle des patients par blocs d'identifiants, sur un ForkJoinPool dédié
+ * La plage d'identifiants est découpée en blocs de taille fixe ; chaque bloc est lu dans sa propre
+ * transaction puis préparé (encodage CSV, valeurs des cellules Excel) par un thread du pool. Les blocs
+ * sont écrits dans l'ordre des identifiants et au plus deux blocs par thread sont en cours ou en attente
+ * d'écriture : la mémoire reste bornée quel que soit le volume.
+ * Chaque bloc en cours de lecture occupe une connexion du pool JDBC, partagé avec les requêtes de l'API :
+ * le pool d'export compte peu de threads (export.parallel.threads, 4 par défaut), et jamais plus de la
+ * moitié des connexions (spring.datasource.hikari.maximum-pool-size).
+ * Seuls les formats dont les lignes sont indépendantes (CSV, Excel) sont pris en charge.
+ */
+@Component
+public class ParallelPatientExporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParallelPatientExporter.class);
+
+    private final PatientExportRepository patientExportRepository;
+    private final ExportService exportService;
+    private final FullTextSearchSupport fullTextSearchSupport;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private final int window;
+
+    @Autowired
+    public ParallelPatientExporter(PatientExportRepository patientExportRepository,
+                                   ExportService exportService,
+                                   FullTextSearchSupport fullTextSearchSupport,
+                                   PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${export.parallel.threads:4}") int threads,
+                                   @Value("${export.parallel.chunk-size:5000}") int chunkSize,
+                                   @Value("${spring.datasource.hikari.maximum-pool-size:10}") int maxConnections) {
+        this.patientExportRepository = patientExportRepository;
+        this.exportService = exportService;
+        this.fullTextSearchSupport = fullTextSearchSupport;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.chunkSize = chunkSize;
+
+        if (threads <= 0) {
+            throw new IllegalArgumentException("export.parallel.threads doit être positif: " + threads);
+        }
+        // Une connexion par bloc en cours de lecture : la moitié du pool JDBC au plus
+        int parallelism = Math.min(threads, Math.max(1, maxConnections / 2));
+        if (parallelism < threads) {
+            logger.warn("export.parallel.threads ramené de {} à {} (pool JDBC de {} connexions)",
+                    threads, parallelism, maxConnections);
+        }
+        this.pool = new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("export-parallel-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+        this.window = parallelism * 2;
+        BoundedExecutors.monitor(pool, "export-parallel", meterRegistry);
+    }
+
+    public boolean supports(ExportFormat format) {
+        return format == ExportFormat.CSV || format == ExportFormat.EXCEL;
+    }
+
+    /**
+     * Exporter les patients correspondant aux critères ; retourne le nombre de lignes écrites
+     * Le résultat est identique à l'export séquentiel du même format
+     */
+    public long export(ExportFormat format, PatientSearchCriteria criteria, OutputStream outputStream,
+                       AtomicLong processedRows) throws IOException {
+        if (!supports(format)) {
+            throw new IllegalArgumentException("Format d'export non disponible en parallèle: " + format);
+        }
+        Specification<Patient> spec = PatientSpecification.withCriteria(criteria, fullTextSearchSupport.isAvailable());
+        List<long[]> chunks = split(readOnlyTransaction.execute(status -> patientExportRepository.findIdRange(spec)));
+        logger.info("Export parallèle {} : {} bloc(s) sur {} thread(s)", format, chunks.size(), pool.getParallelism());
+
+        long rows = format == ExportFormat.CSV
+                ? exportCSV(spec, chunks, outputStream, processedRows)
+                : exportExcel(spec, chunks, outputStream, processedRows);
+        logger.info("Export parallèle {} terminé: {} patients", format, rows);
+        return rows;
+    }
+
+    private long exportCSV(Specification<Patient> spec, List<long[]> chunks, OutputStream outputStream,
+                           AtomicLong processedRows) throws IOException {
+        outputStream.write(exportService.encodeCSVHeader());
+        long rows = 0;
+        try (OrderedChunks<CsvChunk> encoded = new OrderedChunks<>(chunks, chunk -> {
+            List<Patient> patients = fetch(spec, chunk, processedRows);
+            return new CsvChunk(patients.size(), exportService.encodePatientsToCSV(patients));
+        })) {
+            while (encoded.hasNext()) {
+                CsvChunk chunk = encoded.next();
+                outputStream.write(chunk.bytes());
+                rows += chunk.rows();
+            }
+        }
+        outputStream.flush();
+        return rows;
+    }
+
+    private long exportExcel(Specification<Patient> spec, List<long[]> chunks, OutputStream outputStream,
+                             AtomicLong processedRows) throws IOException {
+        // Le classeur n'est pas partagé entre threads : seules la lecture et la préparation des valeurs sont parallèles
+        try (OrderedChunks<List<Object[]>> prepared = new OrderedChunks<>(chunks, chunk ->
+                fetch(spec, chunk, processedRows).stream().map(exportService::toExcelRow).toList())) {
+            Iterator<Object[]> rows = StreamSupport
+                    .stream(Spliterators.spliteratorUnknownSize(prepared, Spliterator.ORDERED), false)
+                    .flatMap(List::stream)
+                    .iterator();
+            return exportService.writeExcelRows(rows, outputStream);
+        }
+    }
+
+    private List<Patient> fetch(Specification<Patient> spec, long[] chunk, AtomicLong processedRows) {
+        List<Patient> patients = readOnlyTransaction.execute(status ->
+                patientExportRepository.findChunk(spec, chunk[0], chunk[1]));
+        processedRows.addAndGet(patients.size());
+        return patients;
+    }
+
+    /**
+     * Blocs [début, fin[ couvrant la plage d'identifiants [min, max]
+     */
+    List<long[]> split(long[] idRange) {
+        List<long[]> chunks = new ArrayList<>();
+        if (idRange != null) {
+            for (long from = idRange[0]; from <= idRange[1]; from += chunkSize) {
+                chunks.add(new long[]{from, Math.min(from + chunkSize, idRange[1] + 1)});
+            }
+        }
+        return chunks;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @FunctionalInterface
+    private interface ChunkTask<T> {
+        T apply(long[] chunk) throws Exception;
+    }
+
+    private record CsvChunk(int rows, byte[] bytes) {
+    }
+
+    /**
+     * Résultats des blocs dans l'ordre de soumission ; au plus {@code window} blocs soumis à l'avance
+     */
+    private final class OrderedChunks<T> implements Iterator<T>, AutoCloseable {
+
+        private final Iterator<long[]> pending;
+        private final ChunkTask<T> task;
+        private final Deque<ForkJoinTask<T>> running = new ArrayDeque<>();
+
+        OrderedChunks(List<long[]> chunks, ChunkTask<T> task) {
+            this.pending = chunks.iterator();
+            this.task = task;
+            submitAhead();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !running.isEmpty();
+        }
+
+        @Override
+        public T next() {
+            T result = running.removeFirst().join();
+            submitAhead();
+            return result;
+        }
+
+        @Override
+        public void close() {
+            running.forEach(submitted -> submitted.cancel(true));
+            running.clear();
+        }
+
+        private void submitAhead() {
+            while (running.size() < window && pending.hasNext()) {
+                long[] chunk = pending.next();
+                running.addLast(pool.submit(() -> task.apply(chunk)));
+            }
+        }
+    }
+}
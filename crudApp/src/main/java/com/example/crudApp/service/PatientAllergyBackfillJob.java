@@ -0,0 +1,70 @@
+package com.example.crudApp.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Reprise en ligne des allergies saisies avant la table patient_allergies
+ * Chaque passage traite quelques lots courts (une transaction par lot, par ID croissant) puis rend la main.
+ * L'avancement n'est pas gardé en mémoire : un patient repris a des lignes dans patient_allergies, chaque
+ * passage repart donc du premier patient restant, quelle que soit l'instance qui détient le bail.
+ * Une fois la reprise terminée, un passage se limite à une requête sans résultat. Les nouveaux patients
+ * sont normalisés à l'enregistrement.
+ */
+@Component
+public class PatientAllergyBackfillJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(PatientAllergyBackfillJob.class);
+
+    static final String LEASE = "patient-allergy-backfill";
+
+    private final PatientService patientService;
+    private final JobLeaseService jobLeaseService;
+    private final int batchSize;
+    private final int batchesPerRun;
+
+    public PatientAllergyBackfillJob(PatientService patientService,
+                                     JobLeaseService jobLeaseService,
+                                     @Value("${patient.allergy-backfill.batch-size:200}") int batchSize,
+                                     @Value("${patient.allergy-backfill.batches-per-run:10}") int batchesPerRun) {
+        this.patientService = patientService;
+        this.jobLeaseService = jobLeaseService;
+        this.batchSize = batchSize;
+        this.batchesPerRun = batchesPerRun;
+    }
+
+    /**
+     * Tâche planifiée de reprise, toutes les minutes
+     * Une seule instance de l'application traite des lots à un instant donné
+     */
+    @Scheduled(initialDelayString = "${patient.allergy-backfill.initial-delay-ms:60000}",
+            fixedDelayString = "${patient.allergy-backfill.delay-ms:60000}")
+    public void run() {
+        jobLeaseService.runExclusively(LEASE, Duration.ofMinutes(5), Duration.ofSeconds(30), this::backfillBatches);
+    }
+
+    private void backfillBatches() {
+        long lastId = 0;
+        try {
+            for (int batch = 0; batch < batchesPerRun; batch++) {
+                Long processedUpTo = patientService.backfillAllergyEntries(lastId, batchSize);
+                if (processedUpTo == null) {
+                    if (lastId > 0) {
+                        logger.info("Reprise des allergies terminée (dernier patient ID: {})", lastId);
+                    }
+                    return;
+                }
+                lastId = processedUpTo;
+            }
+            logger.info("Reprise des allergies en cours (patients traités jusqu'à l'ID: {})", lastId);
+        } catch (Exception e) {
+            // Le lot en échec (ex : modification concurrente) est retenté au prochain passage
+            logger.error("Erreur lors de la reprise des allergies après l'ID {}: {}", lastId, e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.crudApp.service;
+
+import com.example.crudApp.config.FullTextSearchSupport;
+import com.example.crudApp.dto.PatientSearchCriteria;
+import com.example.crudApp.model.ExportFormat;
+import com.example.crudApp.model.Patient;
+import com.example.crudApp.repository.PatientExportRepository;
+import com.example.crudApp.repository.PatientRepository;
+import com.example.crudApp.specification.PatientSpecification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Exports des patients filtrés par les critères de la recherche, écrits en flux
+ * Aucun export ne charge la table en mémoire : les patients sont lus par curseur et écrits au fur et à mesure
+ * par l'écrivain (PatientExportWriter) du format demandé
+ */
+@Service
+public class PatientExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PatientExportService.class);
+
+    private final PatientExportRepository patientExportRepository;
+    private final PatientRepository patientRepository;
+    private final FullTextSearchSupport fullTextSearchSupport;
+    private final Map<ExportFormat, PatientExportWriter> writers = new EnumMap<>(ExportFormat.class);
+
+    public PatientExportService(PatientExportRepository patientExportRepository,
+                                PatientRepository patientRepository,
+                                FullTextSearchSupport fullTextSearchSupport,
+                                List<PatientExportWriter> writers) {
+        this.patientExportRepository = patientExportRepository;
+        this.patientRepository = patientRepository;
+        this.fullTextSearchSupport = fullTextSearchSupport;
+        for (PatientExportWriter writer : writers) {
+            this.writers.put(writer.getFormat(), writer);
+        }
+    }
+
+    /**
+     * Vérifier qu'un écrivain est disponible pour le format
+     */
+    public boolean supports(ExportFormat format) {
+        return writers.containsKey(format);
+    }
+
+    /**
+     * Exporter les patients correspondant aux critères ; retourne le nombre de lignes écrites
+     */
+    @Transactional(readOnly = true)
+    public long export(ExportFormat format, PatientSearchCriteria criteria, OutputStream outputStream) throws IOException {
+        return export(format, criteria, outputStream, new AtomicLong());
+    }
+
+    /**
+     * Exporter les patients correspondant aux critères en comptant les lignes lues au fil de l'export
+     */
+    @Transactional(readOnly = true)
+    public long export(ExportFormat format, PatientSearchCriteria criteria, OutputStream outputStream,
+                       AtomicLong processedRows) throws IOException {
+        PatientExportWriter writer = writers.get(format);
+        if (writer == null) {
+            throw new IllegalArgumentException("Format d'export non disponible: " + format);
+        }
+        logger.info("Export {} des patients avec critères: {}", format, criteria);
+
+        try (Stream<Patient> patients = patientExportRepository.stream(specification(criteria))) {
+            long rows = writer.write(patients.peek(patient -> processedRows.incrementAndGet()), outputStream);
+            logger.info("Export {} terminé: {} patients", format, rows);
+            return rows;
+        }
+    }
+
+    /**
+     * Nombre de patients correspondant aux critères (progression des exports)
+     */
+    @Transactional(readOnly = true)
+    public long count(PatientSearchCriteria criteria) {
+        return patientRepository.count(specification(criteria));
+    }
+
+    private Specification<Patient> specification(PatientSearchCriteria criteria) {
+        return PatientSpecification.withCriteria(criteria, fullTextSearchSupport.isAvailable());
+    }
+}
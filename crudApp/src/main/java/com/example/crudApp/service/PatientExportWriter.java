@@ -0,0 +1,22 @@
+package com.example.crudApp.service;
+
+import com.example.crudApp.model.ExportFormat;
+import com.example.crudApp.model.Patient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.stream.Stream;
+
+/**
+ * Écriture des patients dans un format d'export
+ * Chaque format est un composant Spring ; PatientExportService choisit l'écrivain du format demandé
+ */
+public interface PatientExportWriter {
+
+    ExportFormat getFormat();
+
+    /**
+     * Écrire les patients dans le flux de sortie, sans le fermer ; retourne le nombre de patients écrits
+     */
+    long write(Stream<Patient> patients, OutputStream outputStream) throws IOException;
+}
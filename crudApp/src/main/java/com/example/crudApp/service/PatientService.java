@@ -1,15 +1,19 @@
 package com.example.crudApp.service;
 
+import com.example.crudApp.config.FullTextSearchSupport;
 import com.example.crudApp.dto.PatientRequest;
 import com.example.crudApp.dto.PatientResponse;
 import com.example.crudApp.dto.PatientSearchCriteria;
 import com.example.crudApp.exception.DuplicateResourceException;
 import com.example.crudApp.exception.ResourceNotFoundException;
 import com.example.crudApp.model.Patient;
+import com.example.crudApp.model.PatientAllergy;
 import com.example.crudApp.model.User;
+import com.example.crudApp.repository.PatientAllergyRepository;
 import com.example.crudApp.repository.PatientRepository;
 import com.example.crudApp.repository.UserRepository;
 import com.example.crudApp.specification.PatientSpecification;
+import com.example.crudApp.util.AllergyNormalizer;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,7 +26,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -32,8 +38,13 @@ public class PatientService {
 
     private static final Logger logger = LoggerFactory.getLogger(PatientService.class);
 
+    // Tri par score de pertinence des index FULLTEXT (par nom sans index disponible)
+    public static final String SORT_BY_RELEVANCE = "relevance";
+
     private final PatientRepository patientRepository;
     private final UserRepository userRepository;
+    private final FullTextSearchSupport fullTextSearchSupport;
+    private final PatientAllergyRepository patientAllergyRepository;
 
     /**
      * Créer un nouveau patient
@@ -152,18 +163,31 @@ public class PatientService {
 
     /**
      * Rechercher des patients avec critères
+     * Sur MySQL, les critères texte sont servis par les index FULLTEXT et le tri "relevance"
+     * classe les résultats par score ; sinon la recherche utilise LIKE et "relevance" trie par nom
      */
     @Transactional(readOnly = true)
     public Page<PatientResponse> searchPatients(PatientSearchCriteria criteria, int page, int size,
                                                   String sortBy, String sortDirection) {
         logger.info("Recherche de patients avec critères: {}", criteria);
 
-        Sort sort = sortDirection.equalsIgnoreCase("desc")
-                ? Sort.by(sortBy).descending()
-                : Sort.by(sortBy).ascending();
+        boolean fullText = fullTextSearchSupport.isAvailable();
+        Specification<Patient> spec = PatientSpecification.withCriteria(criteria, fullText);
 
-        Pageable pageable = PageRequest.of(page, size, sort);
-        Specification<Patient> spec = PatientSpecification.withCriteria(criteria);
+        Pageable pageable;
+        if (SORT_BY_RELEVANCE.equalsIgnoreCase(sortBy)) {
+            if (fullText && PatientSpecification.hasFullTextTerm(criteria)) {
+                pageable = PageRequest.of(page, size);
+                spec = spec.and(PatientSpecification.orderByRelevance(criteria));
+            } else {
+                pageable = PageRequest.of(page, size, Sort.by("name").ascending());
+            }
+        } else {
+            Sort sort = sortDirection.equalsIgnoreCase("desc")
+                    ? Sort.by(sortBy).descending()
+                    : Sort.by(sortBy).ascending();
+            pageable = PageRequest.of(page, size, sort);
+        }
 
         Page<Patient> patientsPage = patientRepository.findAll(spec, pageable);
         return patientsPage.map(PatientResponse::fromPatient);
@@ -232,6 +256,41 @@ public class PatientService {
         return PatientResponse.fromPatient(reactivatedPatient);
     }
 
+    /**
+     * Normaliser les allergies d'un lot de patients existants (reprise en ligne)
+     * Les patients du lot sont verrouillés le temps de la transaction ; retourne le dernier ID traité,
+     * ou null lorsqu'il ne reste plus de patient à reprendre après afterId
+     */
+    public Long backfillAllergyEntries(Long afterId, int batchSize) {
+        List<Patient> patients = patientRepository.findPatientsWithoutAllergyEntries(afterId, PageRequest.of(0, batchSize));
+        if (patients.isEmpty()) {
+            return null;
+        }
+
+        List<PatientAllergy> entries = new ArrayList<>();
+        int cleared = 0;
+        for (Patient patient : patients) {
+            Map<String, String> tokens = AllergyNormalizer.tokenize(patient.getAllergies());
+            if (tokens.isEmpty()) {
+                // Texte sans allergie (espaces, séparateurs) : vidé, sinon le patient serait relu à chaque passage
+                patient.setAllergies(null);
+                cleared++;
+                continue;
+            }
+            tokens.forEach((normalizedName, name) ->
+                    entries.add(PatientAllergy.builder()
+                            .patient(patient)
+                            .name(name)
+                            .normalizedName(normalizedName)
+                            .build()));
+        }
+        patientAllergyRepository.saveAll(entries);
+
+        logger.debug("Reprise des allergies : {} patients, {} allergies, {} textes vides effacés",
+                patients.size(), entries.size(), cleared);
+        return patients.get(patients.size() - 1).getId();
+    }
+
     /**
      * Mapper PatientRequest vers Patient
      */
@@ -0,0 +1,35 @@
+package com.example.crudApp.service;
+
+import com.example.crudApp.model.ExportFormat;
+import com.example.crudApp.model.Patient;
+import com.itextpdf.text.DocumentException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.stream.Stream;
+
+/**
+ * Export des patients en PDF
+ */
+@Component
+@RequiredArgsConstructor
+public class PdfPatientExportWriter implements PatientExportWriter {
+
+    private final ExportService exportService;
+
+    @Override
+    public ExportFormat getFormat() {
+        return ExportFormat.PDF;
+    }
+
+    @Override
+    public long write(Stream<Patient> patients, OutputStream outputStream) throws IOException {
+        try {
+            return exportService.writePatientsToPDF(patients, outputStream);
+        } catch (DocumentException e) {
+            throw new IOException("Erreur lors de la génération du PDF", e);
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.example.crudApp.service;
+
+import com.example.crudApp.model.DoctorAvailability;
+import com.example.crudApp.model.DoctorAvailabilityException;
+import com.example.crudApp.model.User;
+import com.example.crudApp.repository.AppointmentRepository;
+import com.example.crudApp.repository.DoctorAvailabilityExceptionRepository;
+import com.example.crudApp.repository.DoctorAvailabilityRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Moteur de calcul des créneaux disponibles
+ * Charge en une seule fois les horaires, l'exception et les rendez-vous actifs d'une journée
+ * (trois requêtes au maximum) puis calcule tous les créneaux en mémoire
+ */
+@Service
+@RequiredArgsConstructor
+public class SlotAvailabilityEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlotAvailabilityEngine.class);
+
+    private final DoctorAvailabilityRepository availabilityRepository;
+    private final DoctorAvailabilityExceptionRepository exceptionRepository;
+    private final AppointmentRepository appointmentRepository;
+
+    /**
+     * Charger la grille des créneaux d'un médecin pour une date
+     */
+    public DaySchedule loadDaySchedule(User doctor, LocalDate date) {
+        DoctorAvailabilityException exception = exceptionRepository
+                .findByDoctorAndExceptionDateAndIsActive(doctor, date, true)
+                .orElse(null);
+
+        if (exception != null && !exception.getIsAvailable()) {
+            logger.info("Le médecin n'est pas disponible le {} en raison d'une exception: {}",
+                    date, exception.getReason());
+            return DaySchedule.closed(date);
+        }
+
+        List<DoctorAvailability> availabilities = availabilityRepository
+                .findByDoctorAndDayOfWeekAndIsActiveTrue(doctor, date.getDayOfWeek());
+        if (availabilities.isEmpty()) {
+            return DaySchedule.closed(date);
+        }
+
+        List<LocalDateTime> bookedTimes = appointmentRepository.findBookedSlotTimes(
+                doctor, date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+
+        return computeDaySchedule(date, availabilities, exception, bookedTimes);
+    }
+
+    /**
+     * Charger les grilles de plusieurs médecins sur une période
+     * Trois requêtes ensemblistes quel que soit le nombre de médecins et de jours
+     */
+    public Map<Long, List<DaySchedule>> loadSchedules(List<User> doctors, LocalDate from, LocalDate to) {
+        Map<Long, List<DaySchedule>> schedules = new LinkedHashMap<>();
+        if (doctors.isEmpty()) {
+            return schedules;
+        }
+
+        Map<Long, List<DoctorAvailability>> availabilitiesByDoctor = availabilityRepository
+                .findByDoctorInAndIsActiveTrue(doctors).stream()
+                .collect(Collectors.groupingBy(availability -> availability.getDoctor().getId()));
+
+        Map<Long, Map<LocalDate, DoctorAvailabilityException>> exceptionsByDoctor = new HashMap<>();
+        for (DoctorAvailabilityException exception : exceptionRepository
+                .findByDoctorInAndExceptionDateBetweenAndIsActive(doctors, from, to, true)) {
+            exceptionsByDoctor
+                    .computeIfAbsent(exception.getDoctor().getId(), id -> new HashMap<>())
+                    .putIfAbsent(exception.getExceptionDate(), exception);
+        }
+
+        Map<Long, Map<LocalDate, List<LocalDateTime>>> bookedByDoctor = new HashMap<>();
+        for (AppointmentRepository.BookedSlot slot : appointmentRepository
+                .findBookedSlotsByDoctors(doctors, from.atStartOfDay(), to.plusDays(1).atStartOfDay())) {
+            bookedByDoctor
+                    .computeIfAbsent(slot.getDoctorId(), id -> new HashMap<>())
+                    .computeIfAbsent(slot.getAppointmentDateTime().toLocalDate(), date -> new ArrayList<>())
+                    .add(slot.getAppointmentDateTime());
+        }
+
+        for (User doctor : doctors) {
+            List<DoctorAvailability> availabilities = availabilitiesByDoctor.getOrDefault(doctor.getId(), List.of());
+            Map<LocalDate, DoctorAvailabilityException> exceptions = exceptionsByDoctor.getOrDefault(doctor.getId(), Map.of());
+            Map<LocalDate, List<LocalDateTime>> booked = bookedByDoctor.getOrDefault(doctor.getId(), Map.of());
+
+            List<DaySchedule> days = new ArrayList<>();
+            for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+                DayOfWeek dayOfWeek = date.getDayOfWeek();
+                List<DoctorAvailability> dayAvailabilities = availabilities.stream()
+                        .filter(availability -> availability.getDayOfWeek() == dayOfWeek)
+                        .collect(Collectors.toList());
+                days.add(computeDaySchedule(date, dayAvailabilities, exceptions.get(date),
+                        booked.getOrDefault(date, List.of())));
+            }
+            schedules.put(doctor.getId(), days);
+        }
+
+        return schedules;
+    }
+
+    /**
+     * Jours de la semaine travaillés de plusieurs médecins, d'après leurs horaires actifs (une requête)
+     * Une exception ne fait que fermer ou restreindre un jour déjà travaillé : un médecin absent du
+     * résultat n'a aucun créneau, quelle que soit la période
+     */
+    public Map<Long, Set<DayOfWeek>> loadWorkingDays(List<User> doctors) {
+        Map<Long, Set<DayOfWeek>> workingDays = new HashMap<>();
+        if (doctors.isEmpty()) {
+            return workingDays;
+        }
+        for (DoctorAvailability availability : availabilityRepository.findByDoctorInAndIsActiveTrue(doctors)) {
+            Integer duration = availability.getSlotDurationMinutes();
+            if (duration != null && duration > 0 && availability.getStartTime().isBefore(availability.getEndTime())) {
+                workingDays
+                        .computeIfAbsent(availability.getDoctor().getId(), id -> EnumSet.noneOf(DayOfWeek.class))
+                        .add(availability.getDayOfWeek());
+            }
+        }
+        return workingDays;
+    }
+
+    /**
+     * Créneaux libres parmi une liste de créneaux d'un médecin, répartis sur plusieurs jours
+     * Trois requêtes ensemblistes quel que soit le nombre de créneaux ; seule l'occupation des
+     * créneaux demandés est chargée
+     */
+    public Set<LocalDateTime> findOpenSlots(User doctor, Collection<LocalDateTime> slots) {
+        Set<LocalDateTime> openSlots = new HashSet<>();
+        if (slots.isEmpty()) {
+            return openSlots;
+        }
+
+        TreeMap<LocalDate, List<LocalDateTime>> slotsByDate = slots.stream()
+                .collect(Collectors.groupingBy(LocalDateTime::toLocalDate, TreeMap::new, Collectors.toList()));
+        LocalDate from = slotsByDate.firstKey();
+        LocalDate to = slotsByDate.lastKey();
+
+        List<DoctorAvailability> availabilities = availabilityRepository.findByDoctorAndIsActiveTrue(doctor);
+        Map<LocalDate, DoctorAvailabilityException> exceptions = new HashMap<>();
+        for (DoctorAvailabilityException exception : exceptionRepository
+                .findByDoctorAndExceptionDateBetweenAndIsActive(doctor, from, to, true)) {
+            exceptions.putIfAbsent(exception.getExceptionDate(), exception);
+        }
+        List<LocalDateTime> bookedTimes = appointmentRepository.findBookedSlotTimesIn(doctor, slots);
+
+        for (Map.Entry<LocalDate, List<LocalDateTime>> entry : slotsByDate.entrySet()) {
+            LocalDate date = entry.getKey();
+            DayOfWeek dayOfWeek = date.getDayOfWeek();
+            List<DoctorAvailability> dayAvailabilities = availabilities.stream()
+                    .filter(availability -> availability.getDayOfWeek() == dayOfWeek)
+                    .collect(Collectors.toList());
+            DaySchedule schedule = computeDaySchedule(date, dayAvailabilities, exceptions.get(date), bookedTimes);
+            for (LocalDateTime slot : entry.getValue()) {
+                if (schedule.isOpenAt(slot.toLocalTime())) {
+                    openSlots.add(slot);
+                }
+            }
+        }
+
+        return openSlots;
+    }
+
+    /**
+     * Calculer la grille d'une journée à partir de données déjà chargées
+     * Les horaires doivent correspondre au jour de la semaine de la date
+     */
+    public DaySchedule computeDaySchedule(LocalDate date,
+                                          List<DoctorAvailability> availabilities,
+                                          DoctorAvailabilityException exception,
+                                          Collection<LocalDateTime> bookedTimes) {
+        if (exception != null && !exception.getIsAvailable()) {
+            return DaySchedule.closed(date);
+        }
+
+        // Occupation de la journée indexée par seconde
+        BitSet booked = new BitSet(LocalTime.MAX.toSecondOfDay() + 1);
+        for (LocalDateTime bookedTime : bookedTimes) {
+            if (bookedTime.toLocalDate().equals(date)) {
+                booked.set(bookedTime.toLocalTime().toSecondOfDay());
+            }
+        }
+
+        LocalTime exceptionStart = null;
+        LocalTime exceptionEnd = null;
+        if (exception != null && exception.getStartTime() != null && exception.getEndTime() != null) {
+            exceptionStart = LocalTime.parse(exception.getStartTime());
+            exceptionEnd = LocalTime.parse(exception.getEndTime());
+        }
+
+        int[] slotSeconds = new int[16];
+        BitSet bookable = new BitSet();
+        BitSet open = new BitSet();
+        int count = 0;
+
+        for (DoctorAvailability availability : availabilities) {
+            Integer duration = availability.getSlotDurationMinutes();
+            if (duration == null || duration <= 0) {
+                continue;
+            }
+
+            // Si l'exception a des horaires spécifiques, utiliser ceux-ci
+            LocalTime currentTime = exceptionStart != null ? exceptionStart : availability.getStartTime();
+            LocalTime endTime = exceptionEnd != null ? exceptionEnd : availability.getEndTime();
+
+            while (currentTime.isBefore(endTime)) {
+                if (count == slotSeconds.length) {
+                    slotSeconds = Arrays.copyOf(slotSeconds, count * 2);
+                }
+                int second = currentTime.toSecondOfDay();
+                slotSeconds[count] = second;
+                if (isWithinAvailabilities(currentTime, availabilities)) {
+                    bookable.set(count);
+                    if (!booked.get(second)) {
+                        open.set(count);
+                    }
+                }
+                count++;
+
+                LocalTime next = currentTime.plusMinutes(duration);
+                if (!next.isAfter(currentTime)) {
+                    break; // Passage à minuit
+                }
+                currentTime = next;
+            }
+        }
+
+        return new DaySchedule(date, Arrays.copyOf(slotSeconds, count), bookable, open);
+    }
+
+    private boolean isWithinAvailabilities(LocalTime time, List<DoctorAvailability> availabilities) {
+        for (DoctorAvailability availability : availabilities) {
+            if (!time.isBefore(availability.getStartTime()) && time.isBefore(availability.getEndTime())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
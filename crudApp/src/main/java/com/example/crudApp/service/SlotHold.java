@@ -0,0 +1,24 @@
+package com.example.crudApp.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Réservation temporaire d'un créneau par un patient, identifiée par un jeton
+ */
+@Getter
+@AllArgsConstructor
+public final class SlotHold {
+
+    private final String token;
+    private final Long doctorId;
+    private final LocalDateTime slot;
+    private final String username;
+    private final LocalDateTime expiresAt;
+
+    public boolean isExpired(LocalDateTime now) {
+        return !expiresAt.isAfter(now);
+    }
+}
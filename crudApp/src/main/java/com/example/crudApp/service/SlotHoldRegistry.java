@@ -0,0 +1,257 @@
+package com.example.crudApp.service;
+
+import com.example.crudApp.exception.SlotAlreadyBookedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+
+/**
+ * Réservations temporaires de créneaux (holds) conservées en mémoire
+ * Chaque hold est rangé dans une roue temporelle à la seconde de son expiration ; la tâche
+ * planifiée ne parcourt que les cases écoulées depuis son dernier passage. Les holds expirés
+ * sont aussi ignorés à la lecture, sans attendre la tâche. Un patient n'a qu'un hold à la fois.
+ */
+@Component
+public class SlotHoldRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlotHoldRegistry.class);
+
+    private final Clock clock;
+    private final int defaultHoldSeconds;
+    private final int maxHoldSeconds;
+
+    private final Map<Long, Map<LocalDateTime, SlotHold>> holdsByDoctor = new ConcurrentHashMap<>();
+    private final Map<String, SlotHold> holdsByToken = new ConcurrentHashMap<>();
+    private final Map<String, SlotHold> holdsByUser = new ConcurrentHashMap<>();
+
+    // Roue temporelle : une case par seconde, parcourue circulairement
+    private final ConcurrentLinkedQueue<SlotHold>[] wheel;
+    private long lastTick = -1;
+
+    @Autowired
+    public SlotHoldRegistry(@Value("${booking.hold.default-seconds:120}") int defaultHoldSeconds,
+                            @Value("${booking.hold.max-seconds:600}") int maxHoldSeconds) {
+        this(Clock.systemDefaultZone(), defaultHoldSeconds, maxHoldSeconds);
+    }
+
+    @SuppressWarnings("unchecked")
+    SlotHoldRegistry(Clock clock, int defaultHoldSeconds, int maxHoldSeconds) {
+        this.clock = clock;
+        this.defaultHoldSeconds = defaultHoldSeconds;
+        this.maxHoldSeconds = maxHoldSeconds;
+        this.wheel = new ConcurrentLinkedQueue[maxHoldSeconds + 2];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    /**
+     * Réserver temporairement un créneau pour un patient
+     * Le hold précédent du patient est libéré ; un créneau déjà tenu par un autre patient est refusé
+     */
+    public SlotHold hold(Long doctorId, LocalDateTime slot, String username, Integer holdSeconds) {
+        int seconds = holdSeconds != null ? holdSeconds : defaultHoldSeconds;
+        if (seconds < 1 || seconds > maxHoldSeconds) {
+            throw new IllegalArgumentException("La durée de réservation doit être comprise entre 1 et "
+                    + maxHoldSeconds + " secondes");
+        }
+
+        LocalDateTime now = LocalDateTime.now(clock);
+        SlotHold hold = new SlotHold(UUID.randomUUID().toString(), doctorId, slot, username, now.plusSeconds(seconds));
+
+        // Placement et retrait passent par l'entrée du médecin, pour qu'un hold ne soit jamais ajouté
+        // à une table que remove() vient de retirer parce qu'elle était vide
+        SlotHold[] replaced = new SlotHold[1];
+        holdsByDoctor.compute(doctorId, (id, slots) -> {
+            Map<LocalDateTime, SlotHold> doctorSlots = slots != null ? slots : new ConcurrentHashMap<>();
+            SlotHold existing = doctorSlots.get(slot);
+            if (existing != null && !existing.isExpired(now) && !existing.getUsername().equals(username)) {
+                throw new SlotAlreadyBookedException("Ce créneau est temporairement réservé par un autre patient");
+            }
+            replaced[0] = existing;
+            doctorSlots.put(slot, hold);
+            return doctorSlots;
+        });
+
+        holdsByToken.put(hold.getToken(), hold);
+        if (replaced[0] != null) {
+            holdsByToken.remove(replaced[0].getToken(), replaced[0]);
+        }
+        SlotHold previous = holdsByUser.put(username, hold);
+        if (previous != null && previous != replaced[0]) {
+            remove(previous);
+        }
+
+        wheel[bucketFor(hold)].add(hold);
+        logger.debug("Créneau {} du médecin ID: {} réservé par {} jusqu'à {}", slot, doctorId, username, hold.getExpiresAt());
+        return hold;
+    }
+
+    /**
+     * Hold valide correspondant au jeton, au patient et au créneau, ou null
+     */
+    public SlotHold findValidHold(String token, Long doctorId, LocalDateTime slot, String username) {
+        if (token == null) {
+            return null;
+        }
+        SlotHold hold = holdsByToken.get(token);
+        if (hold == null || expireIfNeeded(hold, LocalDateTime.now(clock))) {
+            return null;
+        }
+        boolean matches = hold.getDoctorId().equals(doctorId)
+                && hold.getSlot().equals(slot)
+                && hold.getUsername().equals(username);
+        return matches ? hold : null;
+    }
+
+    /**
+     * Vérifier si un créneau est tenu par un patient autre que celui indiqué (null : n'importe lequel)
+     */
+    public boolean isHeldByOther(Long doctorId, LocalDateTime slot, String username) {
+        Map<LocalDateTime, SlotHold> slots = holdsByDoctor.get(doctorId);
+        if (slots == null) {
+            return false;
+        }
+        SlotHold hold = slots.get(slot);
+        if (hold == null || expireIfNeeded(hold, LocalDateTime.now(clock))) {
+            return false;
+        }
+        return username == null || !hold.getUsername().equals(username);
+    }
+
+    /**
+     * Créneaux actuellement tenus pour un médecin à une date donnée
+     */
+    public Set<LocalDateTime> heldSlots(Long doctorId, LocalDate date) {
+        Map<LocalDateTime, SlotHold> slots = holdsByDoctor.get(doctorId);
+        if (slots == null || slots.isEmpty()) {
+            return Set.of();
+        }
+        LocalDateTime now = LocalDateTime.now(clock);
+        return slots.values().stream()
+                .filter(hold -> hold.getSlot().toLocalDate().equals(date) && !hold.isExpired(now))
+                .map(SlotHold::getSlot)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Libérer un hold par son jeton ; seul son propriétaire peut le libérer
+     */
+    public boolean release(String token, String username) {
+        SlotHold hold = holdsByToken.get(token);
+        if (hold == null || !hold.getUsername().equals(username)) {
+            return false;
+        }
+        remove(hold);
+        return true;
+    }
+
+    /**
+     * Libérer le hold d'un patient sur un créneau une fois la transaction courante validée
+     */
+    public void releaseAfterCommit(Long doctorId, LocalDateTime slot, String username) {
+        Runnable action = () -> {
+            SlotHold hold = holdsByUser.get(username);
+            if (hold != null && hold.getDoctorId().equals(doctorId) && hold.getSlot().equals(slot)) {
+                remove(hold);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Tâche planifiée qui fait tourner la roue et retire les holds expirés
+     */
+    @Scheduled(fixedRate = 1000)
+    public synchronized void expireHolds() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        long nowTick = toTick(now);
+        if (lastTick < 0) {
+            lastTick = nowTick - 1;
+        }
+
+        int expired = 0;
+        // Après un retard supérieur à un tour complet, chaque case n'est parcourue qu'une fois
+        long firstTick = Math.max(lastTick + 1, nowTick - wheel.length + 1);
+        for (long tick = firstTick; tick <= nowTick; tick++) {
+            ConcurrentLinkedQueue<SlotHold> bucket = wheel[(int) Math.floorMod(tick, (long) wheel.length)];
+            for (int pending = bucket.size(); pending > 0; pending--) {
+                SlotHold hold = bucket.poll();
+                if (hold == null) {
+                    break;
+                }
+                if (hold.isExpired(now)) {
+                    remove(hold);
+                    expired++;
+                } else {
+                    bucket.add(hold);
+                }
+            }
+        }
+        lastTick = nowTick;
+
+        if (expired > 0) {
+            logger.debug("{} réservation(s) temporaire(s) expirée(s)", expired);
+        }
+    }
+
+    int size() {
+        return holdsByToken.size();
+    }
+
+    int doctorCount() {
+        return holdsByDoctor.size();
+    }
+
+    private boolean expireIfNeeded(SlotHold hold, LocalDateTime now) {
+        if (hold.isExpired(now)) {
+            remove(hold);
+            return true;
+        }
+        return false;
+    }
+
+    private void remove(SlotHold hold) {
+        holdsByToken.remove(hold.getToken(), hold);
+        holdsByUser.remove(hold.getUsername(), hold);
+        holdsByDoctor.computeIfPresent(hold.getDoctorId(), (id, slots) -> {
+            slots.remove(hold.getSlot(), hold);
+            return slots.isEmpty() ? null : slots;
+        });
+    }
+
+    private int bucketFor(SlotHold hold) {
+        // Case de la première seconde entière où le hold est expiré
+        LocalDateTime expiresAt = hold.getExpiresAt();
+        long tick = toTick(expiresAt) + (expiresAt.getNano() > 0 ? 1 : 0);
+        return (int) Math.floorMod(tick, (long) wheel.length);
+    }
+
+    private long toTick(LocalDateTime dateTime) {
+        return dateTime.atZone(clock.getZone()).toEpochSecond();
+    }
+}
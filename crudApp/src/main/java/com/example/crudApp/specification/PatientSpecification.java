@@ -2,7 +2,14 @@ package com.example.crudApp.specification;
 
 import com.example.crudApp.dto.PatientSearchCriteria;
 import com.example.crudApp.model.Patient;
+import com.example.crudApp.model.PatientAllergy;
+import com.example.crudApp.util.AllergyNormalizer;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
 import org.springframework.data.jpa.domain.Specification;
 
 import java.util.ArrayList;
@@ -10,24 +17,52 @@ import java.util.List;
 
 public class PatientSpecification {
 
+    // Fonction SQL MATCH ... AGAINST enregistrée pour MySQL (voir MySqlFullTextFunctionContributor)
+    public static final String MATCH_AGAINST = "match_against";
+
+    // Taille des n-grammes de l'index FULLTEXT (ngram_token_size) : les termes plus courts passent par LIKE
+    static final int MIN_FULL_TEXT_TERM_LENGTH = 2;
+
+    // Colonnes couvertes par la recherche libre, dans l'ordre de l'index ft_patients_keyword
+    private static final String[] KEYWORD_FIELDS = {
+            "name", "email", "address", "allergies", "insuranceNumber", "emergencyContact"
+    };
+
     public static Specification<Patient> withCriteria(PatientSearchCriteria criteria) {
+        return withCriteria(criteria, false);
+    }
+
+    /**
+     * Critères de recherche ; avec {@code fullText}, les champs texte utilisent les index FULLTEXT
+     * MySQL au lieu de LIKE '%x%' (parcours complet de la table)
+     */
+    public static Specification<Patient> withCriteria(PatientSearchCriteria criteria, boolean fullText) {
         return (root, query, criteriaBuilder) -> {
             List<Predicate> predicates = new ArrayList<>();
 
+            // Recherche libre sur les champs texte
+            if (hasText(criteria.getKeyword())) {
+                if (useFullText(fullText, criteria.getKeyword())) {
+                    predicates.add(criteriaBuilder.greaterThan(
+                            keywordScore(root, criteriaBuilder, criteria.getKeyword()), 0.0));
+                } else {
+                    String pattern = "%" + criteria.getKeyword().toLowerCase() + "%";
+                    List<Predicate> anyField = new ArrayList<>();
+                    for (String field : KEYWORD_FIELDS) {
+                        anyField.add(criteriaBuilder.like(criteriaBuilder.lower(root.get(field)), pattern));
+                    }
+                    predicates.add(criteriaBuilder.or(anyField.toArray(new Predicate[0])));
+                }
+            }
+
             // Recherche par nom (case insensitive)
-            if (criteria.getName() != null && !criteria.getName().isEmpty()) {
-                predicates.add(criteriaBuilder.like(
-                        criteriaBuilder.lower(root.get("name")),
-                        "%" + criteria.getName().toLowerCase() + "%"
-                ));
+            if (hasText(criteria.getName())) {
+                predicates.add(textPredicate(root, criteriaBuilder, fullText, "name", criteria.getName()));
             }
 
             // Recherche par email (case insensitive)
-            if (criteria.getEmail() != null && !criteria.getEmail().isEmpty()) {
-                predicates.add(criteriaBuilder.like(
-                        criteriaBuilder.lower(root.get("email")),
-                        "%" + criteria.getEmail().toLowerCase() + "%"
-                ));
+            if (hasText(criteria.getEmail())) {
+                predicates.add(textPredicate(root, criteriaBuilder, fullText, "email", criteria.getEmail()));
             }
 
             // Recherche par âge minimum
@@ -47,11 +82,8 @@ public class PatientSpecification {
             }
 
             // Recherche par adresse (case insensitive)
-            if (criteria.getAddress() != null && !criteria.getAddress().isEmpty()) {
-                predicates.add(criteriaBuilder.like(
-                        criteriaBuilder.lower(root.get("address")),
-                        "%" + criteria.getAddress().toLowerCase() + "%"
-                ));
+            if (hasText(criteria.getAddress())) {
+                predicates.add(textPredicate(root, criteriaBuilder, fullText, "address", criteria.getAddress()));
             }
 
             // Recherche par groupe sanguin
@@ -62,12 +94,10 @@ public class PatientSpecification {
                 ));
             }
 
-            // Recherche par allergie (case insensitive)
-            if (criteria.getAllergy() != null && !criteria.getAllergy().isEmpty()) {
-                predicates.add(criteriaBuilder.like(
-                        criteriaBuilder.lower(root.get("allergies")),
-                        "%" + criteria.getAllergy().toLowerCase() + "%"
-                ));
+            // Recherche par allergie : correspondance exacte sur la forme normalisée (table patient_allergies)
+            String allergy = AllergyNormalizer.normalize(criteria.getAllergy());
+            if (allergy != null) {
+                predicates.add(hasAllergy(root, query, criteriaBuilder, allergy));
             }
 
             // Recherche par date de dernière visite (après)
@@ -95,11 +125,9 @@ public class PatientSpecification {
             }
 
             // Recherche par numéro d'assurance
-            if (criteria.getInsuranceNumber() != null && !criteria.getInsuranceNumber().isEmpty()) {
-                predicates.add(criteriaBuilder.like(
-                        criteriaBuilder.lower(root.get("insuranceNumber")),
-                        "%" + criteria.getInsuranceNumber().toLowerCase() + "%"
-                ));
+            if (hasText(criteria.getInsuranceNumber())) {
+                predicates.add(textPredicate(root, criteriaBuilder, fullText, "insuranceNumber",
+                        criteria.getInsuranceNumber()));
             }
 
             // Recherche par numéro de téléphone
@@ -111,11 +139,9 @@ public class PatientSpecification {
             }
 
             // Recherche par contact d'urgence
-            if (criteria.getEmergencyContact() != null && !criteria.getEmergencyContact().isEmpty()) {
-                predicates.add(criteriaBuilder.like(
-                        criteriaBuilder.lower(root.get("emergencyContact")),
-                        "%" + criteria.getEmergencyContact().toLowerCase() + "%"
-                ));
+            if (hasText(criteria.getEmergencyContact())) {
+                predicates.add(textPredicate(root, criteriaBuilder, fullText, "emergencyContact",
+                        criteria.getEmergencyContact()));
             }
 
             // Recherche par spécialité du médecin
@@ -129,4 +155,99 @@ public class PatientSpecification {
             return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
         };
     }
+
+    /**
+     * Tri par pertinence : somme des scores FULLTEXT des critères texte, du plus pertinent au moins pertinent
+     * Sans critère texte indexable, ne modifie pas la requête
+     */
+    public static Specification<Patient> orderByRelevance(PatientSearchCriteria criteria) {
+        return (root, query, criteriaBuilder) -> {
+            List<Expression<Double>> scores = new ArrayList<>();
+            if (useFullText(true, criteria.getKeyword())) {
+                scores.add(keywordScore(root, criteriaBuilder, criteria.getKeyword()));
+            }
+            addScore(scores, root, criteriaBuilder, "name", criteria.getName());
+            addScore(scores, root, criteriaBuilder, "email", criteria.getEmail());
+            addScore(scores, root, criteriaBuilder, "address", criteria.getAddress());
+            addScore(scores, root, criteriaBuilder, "insuranceNumber", criteria.getInsuranceNumber());
+            addScore(scores, root, criteriaBuilder, "emergencyContact", criteria.getEmergencyContact());
+
+            if (!scores.isEmpty() && !Long.class.equals(query.getResultType())) {
+                Expression<Double> total = scores.get(0);
+                for (int i = 1; i < scores.size(); i++) {
+                    total = criteriaBuilder.sum(total, scores.get(i));
+                }
+                query.orderBy(criteriaBuilder.desc(total), criteriaBuilder.asc(root.get("id")));
+            }
+            return null;
+        };
+    }
+
+    /**
+     * Vérifier si les critères contiennent au moins un terme texte servi par les index FULLTEXT
+     */
+    public static boolean hasFullTextTerm(PatientSearchCriteria criteria) {
+        return useFullText(true, criteria.getKeyword())
+                || useFullText(true, criteria.getName())
+                || useFullText(true, criteria.getEmail())
+                || useFullText(true, criteria.getAddress())
+                || useFullText(true, criteria.getInsuranceNumber())
+                || useFullText(true, criteria.getEmergencyContact());
+    }
+
+    private static Predicate textPredicate(Root<Patient> root, CriteriaBuilder criteriaBuilder,
+                                           boolean fullText, String field, String term) {
+        if (useFullText(fullText, term)) {
+            return criteriaBuilder.greaterThan(matchAgainst(criteriaBuilder, term, root.get(field)), 0.0);
+        }
+        return criteriaBuilder.like(criteriaBuilder.lower(root.get(field)), "%" + term.toLowerCase() + "%");
+    }
+
+    private static Predicate hasAllergy(Root<Patient> root, CriteriaQuery<?> query,
+                                        CriteriaBuilder criteriaBuilder, String normalizedName) {
+        Subquery<Long> subquery = query.subquery(Long.class);
+        Root<PatientAllergy> entry = subquery.from(PatientAllergy.class);
+        subquery.select(entry.get("id")).where(
+                criteriaBuilder.equal(entry.get("patient"), root),
+                criteriaBuilder.equal(entry.get("normalizedName"), normalizedName));
+        return criteriaBuilder.exists(subquery);
+    }
+
+    private static void addScore(List<Expression<Double>> scores, Root<Patient> root,
+                                 CriteriaBuilder criteriaBuilder, String field, String term) {
+        if (useFullText(true, term)) {
+            scores.add(matchAgainst(criteriaBuilder, term, root.get(field)));
+        }
+    }
+
+    private static Expression<Double> keywordScore(Root<Patient> root, CriteriaBuilder criteriaBuilder, String keyword) {
+        Expression<?>[] columns = new Expression<?>[KEYWORD_FIELDS.length];
+        for (int i = 0; i < KEYWORD_FIELDS.length; i++) {
+            columns[i] = root.get(KEYWORD_FIELDS[i]);
+        }
+        return matchAgainst(criteriaBuilder, keyword, columns);
+    }
+
+    private static Expression<Double> matchAgainst(CriteriaBuilder criteriaBuilder, String term,
+                                                   Expression<?>... columns) {
+        Expression<?>[] arguments = new Expression<?>[columns.length + 1];
+        System.arraycopy(columns, 0, arguments, 0, columns.length);
+        arguments[columns.length] = criteriaBuilder.literal(toPhrase(term));
+        return criteriaBuilder.function(MATCH_AGAINST, Double.class, arguments);
+    }
+
+    /**
+     * Expression booléenne FULLTEXT : le terme est cherché comme une phrase, les guillemets sont retirés
+     */
+    static String toPhrase(String term) {
+        return "\"" + term.replace('"', ' ').trim() + "\"";
+    }
+
+    private static boolean useFullText(boolean fullText, String term) {
+        return fullText && hasText(term) && term.trim().length() >= MIN_FULL_TEXT_TERM_LENGTH;
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isEmpty();
+    }
 }
@@ -0,0 +1,58 @@
+package com.example.crudApp.util;
+
+import java.text.Normalizer;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Utilitaire pour découper et normaliser les allergies saisies en texte libre
+ * La forme normalisée (minuscules, sans accents, espaces réduits) sert de clé de recherche exacte
+ */
+public final class AllergyNormalizer {
+
+    // Longueur maximale d'une allergie (colonnes de patient_allergies)
+    public static final int MAX_LENGTH = 255;
+
+    private static final Pattern SEPARATORS = Pattern.compile("[,;\\n\\r]+");
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    private AllergyNormalizer() {
+    }
+
+    /**
+     * Normaliser une allergie : "  Pénicilline " -> "penicilline" ; null si vide
+     */
+    public static String normalize(String allergy) {
+        if (allergy == null) {
+            return null;
+        }
+        String normalized = DIACRITICS.matcher(Normalizer.normalize(allergy, Normalizer.Form.NFD)).replaceAll("");
+        normalized = SPACES.matcher(normalized.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+        if (normalized.isEmpty()) {
+            return null;
+        }
+        return normalized.length() > MAX_LENGTH ? normalized.substring(0, MAX_LENGTH) : normalized;
+    }
+
+    /**
+     * Découper le texte des allergies (séparateurs : virgule, point-virgule, retour à la ligne)
+     * Retourne les allergies distinctes, forme normalisée -> libellé saisi, dans l'ordre de saisie
+     */
+    public static Map<String, String> tokenize(String allergies) {
+        Map<String, String> tokens = new LinkedHashMap<>();
+        if (allergies == null || allergies.isBlank()) {
+            return tokens;
+        }
+        for (String part : SEPARATORS.split(allergies)) {
+            String normalized = normalize(part);
+            if (normalized != null) {
+                String label = part.trim();
+                tokens.putIfAbsent(normalized, label.length() > MAX_LENGTH ? label.substring(0, MAX_LENGTH) : label);
+            }
+        }
+        return tokens;
+    }
+}
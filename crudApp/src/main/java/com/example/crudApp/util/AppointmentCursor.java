@@ -0,0 +1,57 @@
+package com.example.crudApp.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position dans l'historique des rendez-vous, triés par (date du rendez-vous, id) décroissants
+ * Transmise au client sous forme de jeton opaque (Base64 URL) pour demander la page suivante
+ */
+public final class AppointmentCursor {
+
+    private static final char SEPARATOR = '|';
+
+    private final LocalDateTime appointmentDateTime;
+    private final Long id;
+
+    public AppointmentCursor(LocalDateTime appointmentDateTime, Long id) {
+        this.appointmentDateTime = appointmentDateTime;
+        this.id = id;
+    }
+
+    public LocalDateTime getAppointmentDateTime() {
+        return appointmentDateTime;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Encoder la position en jeton opaque
+     */
+    public String encode() {
+        String raw = appointmentDateTime.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Décoder un jeton reçu du client ; un jeton illisible est une requête invalide
+     */
+    public static AppointmentCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Jeton de pagination invalide");
+            }
+            return new AppointmentCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.valueOf(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Jeton de pagination invalide");
+        }
+    }
+}
@@ -0,0 +1,18 @@
+-- Suivi des exports asynchrones, partagé entre les instances (ExportJobService)
+-- Le fichier produit est écrit dans le répertoire partagé export.jobs.dir
+CREATE TABLE export_jobs (
+    id VARCHAR(36) NOT NULL,
+    username VARCHAR(255) NOT NULL,
+    format ENUM ('CSV','EXCEL','PDF') NOT NULL,
+    status ENUM ('COMPLETED','FAILED','PENDING','RUNNING') NOT NULL,
+    total_rows BIGINT,
+    processed_rows BIGINT NOT NULL,
+    file_path VARCHAR(500),
+    error VARCHAR(255),
+    created_at DATETIME(6) NOT NULL,
+    updated_at DATETIME(6) NOT NULL,
+    completed_at DATETIME(6),
+    PRIMARY KEY (id),
+    INDEX idx_export_jobs_username_status (username, status),
+    INDEX idx_export_jobs_status_updated (status, updated_at)
+) ENGINE=InnoDB;
@@ -0,0 +1,2 @@
+-- Purge des messages envoyés et des lettres mortes anciens (EmailOutboxDispatcher.purgeDeliveredMessages)
+CREATE INDEX idx_email_outbox_status_created ON email_outbox (status, created_at);
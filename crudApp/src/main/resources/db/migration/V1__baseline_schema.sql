@@ -0,0 +1,99 @@
+-- Schéma initial, identique à celui généré par Hibernate (ddl-auto=update) avant l'adoption de Flyway
+-- Une base existante est marquée en version 1 sans exécuter ce script (baseline-on-migrate) :
+-- toute évolution ultérieure du schéma doit donc passer par une migration versionnée, jamais par ce fichier
+
+CREATE TABLE users (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    username VARCHAR(255) NOT NULL,
+    email VARCHAR(255),
+    password VARCHAR(255) NOT NULL,
+    roles VARCHAR(255),
+    user_type ENUM ('DOCTOR','PATIENT') NOT NULL,
+    medical_specialty ENUM ('ALLERGOLOGIE','ANATOMOPATHOLOGIE','ANESTHESIE_REANIMATION','AUDIOLOGIE','BIOLOGIE_MEDICALE','CARDIOLOGIE','CHIRURGIE_CARDIAQUE','CHIRURGIE_GENERALE','CHIRURGIE_ORTHOPEDIQUE','CHIRURGIE_PEDIATRIQUE','CHIRURGIE_PLASTIQUE','CHIRURGIE_VISCERALE','DERMATOLOGIE','ENDOCRINOLOGIE','GASTRO_ENTEROLOGIE','GERIATRIE','HEMATOLOGIE','INFECTIOLOGIE','MEDECINE_GENERALE','MEDECINE_LEGALE','MEDECINE_NUCLEAIRE','MEDECINE_PHYSIQUE_READAPTATION','MEDECINE_SPORT','MEDECINE_TRAVAIL','MEDECINE_URGENCE','NEPHROLOGIE','NEUROCHIRURGIE','NEUROLOGIE','ONCOLOGIE','OPHTALMOLOGIE','ORL','PEDIATRIE','PNEUMOLOGIE','PSYCHIATRIE','RADIOLOGIE','RHUMATOLOGIE','SANTE_PUBLIQUE'),
+    full_name VARCHAR(255),
+    phone_number VARCHAR(20),
+    address VARCHAR(255),
+    date_of_birth DATE,
+    profile_photo VARCHAR(500),
+    provider VARCHAR(255),
+    provider_id VARCHAR(255),
+    email_verified BIT,
+    PRIMARY KEY (id),
+    CONSTRAINT UKr43af9ap4edm43mmtq01oddj6 UNIQUE (username),
+    CONSTRAINT UK6dotkott2kjsp8vw4d0m25fb7 UNIQUE (email),
+    CONSTRAINT UK9q63snka3mdh91as4io72espi UNIQUE (phone_number)
+) ENGINE=InnoDB;
+
+CREATE TABLE patients (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(100) NOT NULL,
+    email VARCHAR(255) NOT NULL,
+    age INTEGER NOT NULL,
+    address VARCHAR(255) NOT NULL,
+    blood_type VARCHAR(3),
+    allergies VARCHAR(1000),
+    medical_history VARCHAR(5000),
+    last_visit DATE,
+    phone_number VARCHAR(20),
+    emergency_contact VARCHAR(100),
+    emergency_phone VARCHAR(20),
+    insurance_number VARCHAR(50),
+    is_active BIT,
+    user_id BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT UKa370hmxgv0l5c9panryr1ji7d UNIQUE (email),
+    CONSTRAINT UKjmj4vn423f1ecw04a2mcv470e UNIQUE (phone_number),
+    CONSTRAINT UK898ikjlngeolpml0vt2hrer1r UNIQUE (insurance_number),
+    CONSTRAINT FKuwca24wcd1tg6pjex8lmc0y7 FOREIGN KEY (user_id) REFERENCES users (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE refresh_tokens (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    token VARCHAR(255) NOT NULL,
+    user_id BIGINT NOT NULL,
+    expiry_date DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT UKghpmfn23vmxfu3spu3lfg4r2d UNIQUE (token),
+    CONSTRAINT FK1lih5y2npsf8u5o3vhdb9y0os FOREIGN KEY (user_id) REFERENCES users (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE appointments (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    doctor_id BIGINT NOT NULL,
+    patient_id BIGINT NOT NULL,
+    appointment_date_time DATETIME(6) NOT NULL,
+    status ENUM ('CANCELLED','COMPLETED','CONFIRMED','PENDING') NOT NULL,
+    reason VARCHAR(500),
+    doctor_notes VARCHAR(2000),
+    created_at DATETIME(6) NOT NULL,
+    updated_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT FK6u6s6egu60m2cbdjno44jbipa FOREIGN KEY (doctor_id) REFERENCES users (id),
+    CONSTRAINT FKopb2h9yhin1rb4dqote8bws6w FOREIGN KEY (patient_id) REFERENCES users (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE doctor_availability (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    doctor_id BIGINT NOT NULL,
+    day_of_week ENUM ('FRIDAY','MONDAY','SATURDAY','SUNDAY','THURSDAY','TUESDAY','WEDNESDAY') NOT NULL,
+    start_time TIME(6) NOT NULL,
+    end_time TIME(6) NOT NULL,
+    slot_duration_minutes INTEGER NOT NULL,
+    is_active BIT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT FK1mfkjo7s5ct426dm5a2hyiur0 FOREIGN KEY (doctor_id) REFERENCES users (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE doctor_availability_exceptions (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    doctor_id BIGINT NOT NULL,
+    exception_date DATE NOT NULL,
+    reason VARCHAR(255),
+    is_available BIT NOT NULL,
+    start_time VARCHAR(255),
+    end_time VARCHAR(255),
+    is_active BIT NOT NULL,
+    created_at DATE NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT FKek67xqf1je6otukxhy66vjcy2 FOREIGN KEY (doctor_id) REFERENCES users (id)
+) ENGINE=InnoDB;
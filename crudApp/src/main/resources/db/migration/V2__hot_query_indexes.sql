@@ -0,0 +1,28 @@
+-- Index composites des requêtes fréquentes des repositories
+-- Chaque index couvre les colonnes d'égalité en tête puis la colonne de plage ou de tri
+
+-- Conflits de créneaux, créneaux occupés et rendez-vous à venir d'un médecin
+-- (AppointmentRepository.countConflictingAppointments, findBookedSlotTimes, findBookedSlotsByDoctors)
+CREATE INDEX idx_appointments_doctor_date_status ON appointments (doctor_id, appointment_date_time, status);
+
+-- Rappels et clôture automatique par statut sur une période
+-- (AppointmentRepository.findByStatusAndAppointmentDateTimeBetween, findByStatusAndAppointmentDateTimeBefore)
+CREATE INDEX idx_appointments_status_date ON appointments (status, appointment_date_time);
+
+-- Horaires récurrents actifs d'un médecin, éventuellement pour un jour donné
+CREATE INDEX idx_availability_doctor_active_day ON doctor_availability (doctor_id, is_active, day_of_week);
+
+-- Exceptions actives d'un médecin à une date ou sur une période
+-- (DoctorAvailabilityExceptionRepository.findByDoctorAndExceptionDateAndIsActive et variantes)
+CREATE INDEX idx_exceptions_doctor_active_date ON doctor_availability_exceptions (doctor_id, is_active, exception_date);
+
+-- Exceptions actives de tous les médecins à une date
+CREATE INDEX idx_exceptions_date_active ON doctor_availability_exceptions (exception_date, is_active);
+
+-- Médecins par spécialité
+CREATE INDEX idx_users_type_specialty ON users (user_type, medical_specialty);
+
+-- Dossiers patients actifs par utilisateur, par dernière visite et par groupe sanguin
+CREATE INDEX idx_patients_user_active ON patients (user_id, is_active);
+CREATE INDEX idx_patients_active_last_visit ON patients (is_active, last_visit);
+CREATE INDEX idx_patients_blood_type ON patients (blood_type);
@@ -0,0 +1,17 @@
+-- Index FULLTEXT (analyseur ngram) pour la recherche de patients
+-- Remplacent les LIKE '%x%' de PatientSpecification, qui parcourent toute la table patients
+-- Un index par critère texte, plus un index multi-colonnes pour la recherche libre (paramètre q)
+
+-- Avec l'analyseur ngram, les mots vides par défaut ("a", "i", ...) excluraient tous les n-grammes
+-- qui les contiennent : ils sont désactivés pour les index créés par cette session
+SET SESSION innodb_ft_enable_stopword = OFF;
+
+-- InnoDB ne crée qu'un index FULLTEXT par instruction
+ALTER TABLE patients ADD FULLTEXT INDEX ft_patients_name (name) WITH PARSER ngram;
+ALTER TABLE patients ADD FULLTEXT INDEX ft_patients_email (email) WITH PARSER ngram;
+ALTER TABLE patients ADD FULLTEXT INDEX ft_patients_address (address) WITH PARSER ngram;
+ALTER TABLE patients ADD FULLTEXT INDEX ft_patients_allergies (allergies) WITH PARSER ngram;
+ALTER TABLE patients ADD FULLTEXT INDEX ft_patients_insurance_number (insurance_number) WITH PARSER ngram;
+ALTER TABLE patients ADD FULLTEXT INDEX ft_patients_emergency_contact (emergency_contact) WITH PARSER ngram;
+ALTER TABLE patients ADD FULLTEXT INDEX ft_patients_keyword
+    (name, email, address, allergies, insurance_number, emergency_contact) WITH PARSER ngram;
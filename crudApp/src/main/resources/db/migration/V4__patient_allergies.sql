@@ -0,0 +1,17 @@
+-- Allergies normalisées : une ligne par allergie et par patient
+-- La colonne patients.allergies reste le libellé affiché ; les patients existants sont repris
+-- en ligne par PatientAllergyBackfillJob
+
+CREATE TABLE patient_allergies (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    patient_id BIGINT NOT NULL,
+    name VARCHAR(255) NOT NULL,
+    normalized_name VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_patient_allergies_patient_name UNIQUE (patient_id, normalized_name),
+    INDEX idx_patient_allergies_name_patient (normalized_name, patient_id),
+    CONSTRAINT fk_patient_allergies_patient FOREIGN KEY (patient_id) REFERENCES patients (id)
+) ENGINE=InnoDB;
+
+-- Le critère allergie n'utilise plus l'index FULLTEXT dédié (la recherche libre garde ft_patients_keyword)
+ALTER TABLE patients DROP INDEX ft_patients_allergies;
@@ -0,0 +1,7 @@
+-- Marqueur d'envoi du rappel : un rendez-vous déjà rappelé n'est ni renvoyé ni relu par les
+-- fenêtres horaires suivantes, qui se chevauchent
+ALTER TABLE appointments ADD COLUMN reminder_sent_at DATETIME(6);
+
+-- Rappels à envoyer : statut et marqueur en égalité, puis plage de dates
+-- (AppointmentRepository.findDueReminders)
+CREATE INDEX idx_appointments_status_reminder_date ON appointments (status, reminder_sent_at, appointment_date_time);
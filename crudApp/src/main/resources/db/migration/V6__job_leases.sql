@@ -0,0 +1,9 @@
+-- Baux des tâches planifiées : une seule instance exécute chaque tâche par échéance
+-- (JobLeaseService.runExclusively)
+CREATE TABLE job_leases (
+    name VARCHAR(64) NOT NULL,
+    locked_until DATETIME(6) NOT NULL,
+    locked_at DATETIME(6) NOT NULL,
+    locked_by VARCHAR(255) NOT NULL,
+    PRIMARY KEY (name)
+) ENGINE=InnoDB;
@@ -0,0 +1,17 @@
+-- File d'envoi des emails (outbox) : les messages sont enregistrés dans la transaction métier
+-- puis envoyés par EmailOutboxDispatcher, avec nouvelles tentatives et lettres mortes
+CREATE TABLE email_outbox (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    type ENUM ('APPOINTMENT_CONFIRMATION','DOCTOR_NOTIFICATION','RECURRING_CONFIRMATION','RECURRING_DOCTOR_NOTIFICATION','REMINDER','STATUS_UPDATE','WELCOME') NOT NULL,
+    recipient VARCHAR(255) NOT NULL,
+    subject VARCHAR(255) NOT NULL,
+    body LONGTEXT NOT NULL,
+    status ENUM ('DEAD','PENDING','SENT') NOT NULL,
+    attempts INTEGER NOT NULL,
+    next_attempt_at DATETIME(6) NOT NULL,
+    last_error VARCHAR(1000),
+    created_at DATETIME(6) NOT NULL,
+    sent_at DATETIME(6),
+    PRIMARY KEY (id),
+    INDEX idx_email_outbox_status_next_attempt (status, next_attempt_at)
+) ENGINE=InnoDB;
@@ -0,0 +1,16 @@
+-- Créneau occupé d'un rendez-vous : renseigné pour les rendez-vous en attente ou confirmés, NULL sinon
+-- La contrainte d'unicité (médecin, créneau) interdit la double réservation (plusieurs NULL sont autorisés)
+ALTER TABLE appointments ADD COLUMN active_slot DATETIME(6);
+
+-- Reprise des rendez-vous actifs ; en cas de doublon existant, seul le plus ancien occupe le créneau,
+-- les autres restent actifs sans créneau et sont à traiter manuellement
+UPDATE appointments a
+INNER JOIN (
+    SELECT MIN(id) AS id
+    FROM appointments
+    WHERE status IN ('PENDING', 'CONFIRMED')
+    GROUP BY doctor_id, appointment_date_time
+) first_booking ON first_booking.id = a.id
+SET a.active_slot = a.appointment_date_time;
+
+ALTER TABLE appointments ADD CONSTRAINT uk_appointments_doctor_active_slot UNIQUE (doctor_id, active_slot);
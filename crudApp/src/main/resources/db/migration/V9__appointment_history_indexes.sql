@@ -0,0 +1,4 @@
+-- Pagination par curseur de l'historique des rendez-vous : filtre (patient ou médecin) puis tri (date, id)
+-- (AppointmentRepository.findHistoryByPatient, findHistoryByDoctor)
+CREATE INDEX idx_appointments_patient_date_id ON appointments (patient_id, appointment_date_time, id);
+CREATE INDEX idx_appointments_doctor_date_id ON appointments (doctor_id, appointment_date_time, id);
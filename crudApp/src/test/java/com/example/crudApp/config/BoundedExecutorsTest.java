@@ -0,0 +1,106 @@
+package com.example.crudApp.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BoundedExecutorsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private CountDownLatch release;
+    private ThreadPoolExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        release = new CountDownLatch(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void newExecutor_ShouldShedWork_WhenQueueIsFull() throws Exception {
+        // Given : un thread occupé et une file d'une place déjà prise
+        executor = BoundedExecutors.newExecutor("test", 1, 1, new ThreadPoolExecutor.AbortPolicy(), meterRegistry);
+        occupy();
+
+        // When & Then
+        assertThatThrownBy(() -> executor.execute(() -> { }))
+                .isInstanceOf(RejectedExecutionException.class);
+        assertThat(meterRegistry.get(BoundedExecutors.REJECTED_METRIC).tag("name", "test").counter().count())
+                .isEqualTo(1.0);
+        assertThat(meterRegistry.get("executor.active").tag("name", "test").gauge().value()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("executor.queued").tag("name", "test").gauge().value()).isEqualTo(1.0);
+    }
+
+    @Test
+    void runInCaller_ShouldRunTaskInCallingThread_WhenQueueIsFull() throws Exception {
+        // Given
+        executor = BoundedExecutors.newExecutor("test", 1, 1, BoundedExecutors.runInCaller(), meterRegistry);
+        occupy();
+        AtomicReference<Thread> ranOn = new AtomicReference<>();
+
+        // When
+        executor.execute(() -> ranOn.set(Thread.currentThread()));
+
+        // Then : le producteur a exécuté la tâche lui-même au lieu de l'empiler
+        assertThat(ranOn.get()).isSameAs(Thread.currentThread());
+        assertThat(meterRegistry.get(BoundedExecutors.REJECTED_METRIC).tag("name", "test").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void runInCaller_ShouldReject_WhenExecutorIsShutDown() {
+        // Given
+        executor = BoundedExecutors.newExecutor("test", 1, 1, BoundedExecutors.runInCaller(), meterRegistry);
+        executor.shutdown();
+
+        // When & Then : la tâche n'est ni exécutée ni perdue silencieusement
+        assertThatThrownBy(() -> executor.execute(() -> { }))
+                .isInstanceOf(RejectedExecutionException.class);
+    }
+
+    @Test
+    void newExecutor_ShouldNameThreadsAfterPool() throws Exception {
+        // Given
+        executor = BoundedExecutors.newExecutor("mail-sender", 1, 1, new ThreadPoolExecutor.AbortPolicy(), meterRegistry);
+        AtomicReference<String> threadName = new AtomicReference<>();
+
+        // When
+        executor.submit(() -> threadName.set(Thread.currentThread().getName())).get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(threadName.get()).startsWith("mail-sender-");
+    }
+
+    /**
+     * Occuper l'unique thread du pool et remplir sa file
+     */
+    private void occupy() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        executor.execute(() -> { });
+    }
+}
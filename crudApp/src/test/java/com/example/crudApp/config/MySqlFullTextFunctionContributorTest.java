@@ -0,0 +1,101 @@
+package com.example.crudApp.config;
+
+import com.example.crudApp.specification.PatientSpecification;
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.query.sqm.function.AbstractSqmSelfRenderingFunctionDescriptor;
+import org.hibernate.query.sqm.function.SqmFunctionDescriptor;
+import org.hibernate.query.sqm.function.SqmFunctionRegistry;
+import org.hibernate.sql.ast.SqlAstTranslator;
+import org.hibernate.sql.ast.spi.SqlAppender;
+import org.hibernate.sql.ast.tree.SqlAstNode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour MySqlFullTextFunctionContributor
+ * H2 n'enregistre pas match_against : le SQL MySQL est vérifié ici, sans base
+ */
+@ExtendWith(MockitoExtension.class)
+class MySqlFullTextFunctionContributorTest {
+
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    private FunctionContributions functionContributions;
+
+    @Mock
+    private SqmFunctionRegistry functionRegistry;
+
+    @Mock
+    private SqlAstTranslator<?> walker;
+
+    private final MySqlFullTextFunctionContributor contributor = new MySqlFullTextFunctionContributor();
+    private final StringBuilder sql = new StringBuilder();
+    private final SqlAppender sqlAppender = sql::append;
+
+    @Test
+    void render_ShouldProduceMatchAgainstInBooleanMode() {
+        // Given
+        when(functionContributions.getDialect()).thenReturn(mock(MySQLDialect.class));
+        when(functionContributions.getFunctionRegistry()).thenReturn(functionRegistry);
+        contributor.contributeFunctions(functionContributions);
+        ArgumentCaptor<SqmFunctionDescriptor> descriptor = ArgumentCaptor.forClass(SqmFunctionDescriptor.class);
+        verify(functionRegistry).register(eq(PatientSpecification.MATCH_AGAINST), descriptor.capture());
+
+        // When
+        ((AbstractSqmSelfRenderingFunctionDescriptor) descriptor.getValue()).render(sqlAppender,
+                List.of(node("col1"), node("col2"), node("?")), null, walker);
+
+        // Then
+        assertThat(sql).hasToString("match (col1, col2) against (? in boolean mode)");
+    }
+
+    @Test
+    void render_ShouldHandleSingleColumn() {
+        // Given
+        when(functionContributions.getDialect()).thenReturn(mock(MySQLDialect.class));
+        when(functionContributions.getFunctionRegistry()).thenReturn(functionRegistry);
+        contributor.contributeFunctions(functionContributions);
+        ArgumentCaptor<SqmFunctionDescriptor> descriptor = ArgumentCaptor.forClass(SqmFunctionDescriptor.class);
+        verify(functionRegistry).register(eq(PatientSpecification.MATCH_AGAINST), descriptor.capture());
+
+        // When
+        ((AbstractSqmSelfRenderingFunctionDescriptor) descriptor.getValue()).render(sqlAppender,
+                List.of(node("name"), node("?")), null, walker);
+
+        // Then
+        assertThat(sql).hasToString("match (name) against (? in boolean mode)");
+    }
+
+    @Test
+    void contributeFunctions_ShouldRegisterNothing_ForOtherDialects() {
+        // Given
+        when(functionContributions.getDialect()).thenReturn(mock(H2Dialect.class));
+
+        // When
+        contributor.contributeFunctions(functionContributions);
+
+        // Then
+        verify(functionContributions, never()).getFunctionRegistry();
+        verifyNoInteractions(functionRegistry);
+    }
+
+    /**
+     * Argument SQL rendu tel quel par le traducteur
+     */
+    private SqlAstNode node(String rendered) {
+        SqlAstNode node = mock(SqlAstNode.class);
+        doAnswer(invocation -> sql.append(rendered)).when(node).accept(walker);
+        return node;
+    }
+}
@@ -96,23 +96,21 @@ class AppointmentControllerTest {
     @Test
     void getMyAppointments_ShouldReturnPatientAppointments() {
         // Given
-        List<Appointment> appointments = Arrays.asList(testAppointment);
-        when(appointmentService.getPatientAppointments("patient@example.com")).thenReturn(appointments);
-        when(appointmentService.getDoctorAppointments("patient@example.com"))
-                .thenThrow(new RuntimeException("Not a doctor"));
+        List<AppointmentResponse> appointments = Arrays.asList(AppointmentResponse.fromAppointment(testAppointment));
+        when(appointmentService.getMyAppointments("patient@example.com", 100)).thenReturn(appointments);
 
         // When
-        ResponseEntity<List<AppointmentResponse>> response = appointmentController.getMyAppointments(authentication);
+        ResponseEntity<List<AppointmentResponse>> response = appointmentController.getMyAppointments(100, authentication);
 
         // Then
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(response.getBody()).isNotNull();
         assertThat(response.getBody()).hasSize(1);
-        verify(appointmentService, times(1)).getPatientAppointments("patient@example.com");
+        verify(appointmentService, times(1)).getMyAppointments("patient@example.com", 100);
     }
 
     @Test
-    void getMyAppointments_ShouldReturnBothPatientAndDoctorAppointments() {
+    void getMyAppointments_ShouldReturnDoctorAppointments_InASingleServiceCall() {
         // Given
         Appointment doctorAppointment = Appointment.builder()
                 .id(2L)
@@ -123,40 +121,38 @@ class AppointmentControllerTest {
                 .status(AppointmentStatus.CONFIRMED)
                 .build();
 
-        List<Appointment> patientAppointments = new java.util.ArrayList<>(Arrays.asList(testAppointment));
-        List<Appointment> doctorAppointments = Arrays.asList(doctorAppointment);
+        List<AppointmentResponse> appointments = Arrays.asList(
+                AppointmentResponse.fromAppointment(doctorAppointment),
+                AppointmentResponse.fromAppointment(testAppointment));
 
         when(authentication.getName()).thenReturn("doctor@example.com");
-        when(appointmentService.getPatientAppointments("doctor@example.com")).thenReturn(patientAppointments);
-        when(appointmentService.getDoctorAppointments("doctor@example.com")).thenReturn(doctorAppointments);
+        when(appointmentService.getMyAppointments("doctor@example.com", 100)).thenReturn(appointments);
 
         // When
-        ResponseEntity<List<AppointmentResponse>> response = appointmentController.getMyAppointments(authentication);
+        ResponseEntity<List<AppointmentResponse>> response = appointmentController.getMyAppointments(100, authentication);
 
         // Then
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(response.getBody()).isNotNull();
         assertThat(response.getBody()).hasSize(2);
-        verify(appointmentService, times(1)).getPatientAppointments("doctor@example.com");
-        verify(appointmentService, times(1)).getDoctorAppointments("doctor@example.com");
+        verify(appointmentService, times(1)).getMyAppointments("doctor@example.com", 100);
+        verifyNoMoreInteractions(appointmentService);
     }
 
     @Test
     void getUpcomingAppointments_ShouldReturnUpcomingAppointments() {
         // Given
-        List<Appointment> appointments = Arrays.asList(testAppointment);
-        when(appointmentService.getUpcomingPatientAppointments("patient@example.com")).thenReturn(appointments);
-        when(appointmentService.getUpcomingDoctorAppointments("patient@example.com"))
-                .thenThrow(new RuntimeException("Not a doctor"));
+        List<AppointmentResponse> appointments = Arrays.asList(AppointmentResponse.fromAppointment(testAppointment));
+        when(appointmentService.getMyUpcomingAppointments("patient@example.com", 100)).thenReturn(appointments);
 
         // When
-        ResponseEntity<List<AppointmentResponse>> response = appointmentController.getUpcomingAppointments(authentication);
+        ResponseEntity<List<AppointmentResponse>> response = appointmentController.getUpcomingAppointments(100, authentication);
 
         // Then
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(response.getBody()).isNotNull();
         assertThat(response.getBody()).hasSize(1);
-        verify(appointmentService, times(1)).getUpcomingPatientAppointments("patient@example.com");
+        verify(appointmentService, times(1)).getMyUpcomingAppointments("patient@example.com", 100);
     }
 
     @Test
@@ -0,0 +1,117 @@
+package com.example.crudApp.controller;
+
+import com.example.crudApp.dto.ExportJobResponse;
+import com.example.crudApp.dto.PatientSearchCriteria;
+import com.example.crudApp.exception.ExportNotReadyException;
+import com.example.crudApp.model.ExportFormat;
+import com.example.crudApp.model.ExportJob;
+import com.example.crudApp.model.ExportJobStatus;
+import com.example.crudApp.service.ExportJobService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour ExportJobController
+ */
+@ExtendWith(MockitoExtension.class)
+class ExportJobControllerTest {
+
+    @Mock
+    private ExportJobService exportJobService;
+
+    @Mock
+    private Authentication authentication;
+
+    @Mock
+    private ExportJob job;
+
+    @InjectMocks
+    private ExportJobController exportJobController;
+
+    @BeforeEach
+    void setUp() {
+        when(authentication.getName()).thenReturn("doctor");
+        lenient().when(job.getId()).thenReturn("job-1");
+        lenient().when(job.getFormat()).thenReturn(ExportFormat.EXCEL);
+    }
+
+    @Test
+    void submitExport_ShouldReturnAccepted_WithLocation() {
+        // Given
+        PatientSearchCriteria criteria = new PatientSearchCriteria();
+        when(job.getStatus()).thenReturn(ExportJobStatus.PENDING);
+        when(exportJobService.submit(ExportFormat.EXCEL, criteria, "doctor")).thenReturn(job);
+
+        // When
+        ResponseEntity<ExportJobResponse> response = exportJobController.submitExport("excel", criteria, authentication);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+        assertThat(response.getHeaders().getLocation()).hasToString("/api/patients/export-jobs/job-1");
+        assertThat(response.getBody().getId()).isEqualTo("job-1");
+        assertThat(response.getBody().getDownloadUrl()).isNull();
+    }
+
+    @Test
+    void submitExport_ShouldRejectUnknownFormat() {
+        assertThatThrownBy(() -> exportJobController.submitExport("docx", new PatientSearchCriteria(), authentication))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(exportJobService, never()).submit(any(), any(), any());
+    }
+
+    @Test
+    void getExport_ShouldExposeDownloadUrl_WhenCompleted() {
+        // Given
+        when(job.getStatus()).thenReturn(ExportJobStatus.COMPLETED);
+        when(exportJobService.getJob("job-1", "doctor")).thenReturn(job);
+
+        // When
+        ResponseEntity<ExportJobResponse> response = exportJobController.getExport("job-1", authentication);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody().getProgress()).isNull();
+        assertThat(response.getBody().getDownloadUrl()).isEqualTo("/api/patients/export-jobs/job-1/download");
+    }
+
+    @Test
+    void downloadExport_ShouldReturnFile_WithFormatHeaders() {
+        // Given
+        when(job.getFile()).thenReturn(java.nio.file.Path.of("exports", "job-1.xlsx"));
+        when(exportJobService.getCompletedJob("job-1", "doctor")).thenReturn(job);
+
+        // When
+        ResponseEntity<Resource> response = exportJobController.downloadExport("job-1", authentication);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getContentType().toString())
+                .isEqualTo("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+        assertThat(response.getHeaders().getContentDisposition().getFilename()).isEqualTo("patients.xlsx");
+        assertThat(response.getBody().getFilename()).isEqualTo("job-1.xlsx");
+    }
+
+    @Test
+    void downloadExport_ShouldPropagate_WhenNotReady() {
+        // Given
+        when(exportJobService.getCompletedJob("job-1", "doctor"))
+                .thenThrow(new ExportNotReadyException("L'export n'est pas terminé"));
+
+        // When & Then
+        assertThatThrownBy(() -> exportJobController.downloadExport("job-1", authentication))
+                .isInstanceOf(ExportNotReadyException.class);
+    }
+}
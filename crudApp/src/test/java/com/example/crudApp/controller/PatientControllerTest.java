@@ -312,6 +312,60 @@ class PatientControllerTest {
                 .andExpect(jsonPath("$.patients[0].name").value("Alice Martin"));
     }
 
+    @Test
+    void searchPatients_ShouldMatchWholeAllergy_WhenSearchByAllergyPrefix() throws Exception {
+        // Given
+        Patient patient = new Patient();
+        patient.setName("Alice Martin");
+        patient.setEmail("alice@example.com");
+        patient.setAge(30);
+        patient.setAddress("Paris");
+        patient.setAllergies("Pénicilline, Pollen");
+        patient.setIsActive(true);
+        patientRepository.save(patient);
+
+        // When & Then : "pen" ne correspond pas à "Pénicilline", "penicilline" sans accent oui
+        mockMvc.perform(get("/api/patients/search")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .param("allergy", "pen"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalItems").value(0));
+        mockMvc.perform(get("/api/patients/search")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .param("allergy", "PENICILLINE"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalItems").value(1));
+    }
+
+    @Test
+    void searchPatients_ShouldMatchAnyTextField_WhenSearchByKeyword() throws Exception {
+        // Given
+        Patient patient1 = new Patient();
+        patient1.setName("Alice Martin");
+        patient1.setEmail("alice@example.com");
+        patient1.setAge(30);
+        patient1.setAddress("Paris");
+        patient1.setAllergies("Pollen");
+        patient1.setIsActive(true);
+        patientRepository.save(patient1);
+
+        Patient patient2 = new Patient();
+        patient2.setName("Bob Durand");
+        patient2.setEmail("bob@example.com");
+        patient2.setAge(50);
+        patient2.setAddress("Lyon");
+        patient2.setIsActive(true);
+        patientRepository.save(patient2);
+
+        // When & Then : "lyon" ne figure que dans l'adresse du second patient
+        mockMvc.perform(get("/api/patients/search")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .param("q", "lyon"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalItems").value(1))
+                .andExpect(jsonPath("$.patients[0].name").value("Bob Durand"));
+    }
+
     @Test
     void archivePatient_ShouldMarkPatientAsInactive() throws Exception {
         // Given
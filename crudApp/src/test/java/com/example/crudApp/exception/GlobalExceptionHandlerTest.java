@@ -4,6 +4,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -110,6 +111,53 @@ class GlobalExceptionHandlerTest {
         assertEquals(400, response.getBody().getStatus());
     }
 
+    @Test
+    void testHandleSlotAlreadyBookedException() {
+        SlotAlreadyBookedException exception = new SlotAlreadyBookedException("Slot already booked");
+
+        ResponseEntity<ErrorResponse> response = exceptionHandler.handleSlotAlreadyBookedException(exception);
+
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals("Slot already booked", response.getBody().getMessage());
+        assertEquals(409, response.getBody().getStatus());
+    }
+
+    @Test
+    void testHandleBookingBusyException() {
+        BookingBusyException exception = new BookingBusyException("Doctor busy", 2);
+
+        ResponseEntity<ErrorResponse> response = exceptionHandler.handleBookingBusyException(exception);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("2", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertNotNull(response.getBody());
+        assertEquals("Doctor busy", response.getBody().getMessage());
+        assertEquals(503, response.getBody().getStatus());
+    }
+
+    @Test
+    void testHandleExportNotReadyException() {
+        ExportNotReadyException exception = new ExportNotReadyException("Export not ready");
+
+        ResponseEntity<ErrorResponse> response = exceptionHandler.handleExportNotReadyException(exception);
+
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals("Export not ready", response.getBody().getMessage());
+    }
+
+    @Test
+    void testHandleExportLimitExceededException() {
+        ExportLimitExceededException exception = new ExportLimitExceededException("Too many exports");
+
+        ResponseEntity<ErrorResponse> response = exceptionHandler.handleExportLimitExceededException(exception);
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(429, response.getBody().getStatus());
+    }
+
     @Test
     void testHandleIllegalArgumentException() {
         IllegalArgumentException exception = new IllegalArgumentException("Invalid argument");
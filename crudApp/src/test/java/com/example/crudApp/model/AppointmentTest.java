@@ -87,7 +87,9 @@ class AppointmentTest {
                 "Consultation",
                 "RAS",
                 now,
-                now
+                now,
+                now,
+                null
         );
 
         // Then
@@ -169,6 +171,24 @@ class AppointmentTest {
         assertThat(appointment.getUpdatedAt()).isCloseTo(beforeUpdate, within(100, ChronoUnit.MILLIS));
     }
 
+    @Test
+    void testActiveSlot_FollowsStatus() {
+        // Given
+        LocalDateTime slot = LocalDateTime.now().plusDays(1);
+        Appointment appointment = Appointment.builder()
+                .appointmentDateTime(slot)
+                .status(AppointmentStatus.PENDING)
+                .build();
+
+        // When & Then
+        appointment.onCreate();
+        assertThat(appointment.getActiveSlot()).isEqualTo(slot);
+
+        appointment.setStatus(AppointmentStatus.CANCELLED);
+        appointment.onUpdate();
+        assertThat(appointment.getActiveSlot()).isNull();
+    }
+
     @Test
     void testAppointmentStatuses() {
         // Given
@@ -0,0 +1,29 @@
+package com.example.crudApp.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExportFormatTest {
+
+    @Test
+    void testFrom_ShouldIgnoreCase() {
+        assertThat(ExportFormat.from("csv")).isEqualTo(ExportFormat.CSV);
+        assertThat(ExportFormat.from(" Excel ")).isEqualTo(ExportFormat.EXCEL);
+        assertThat(ExportFormat.from("PDF")).isEqualTo(ExportFormat.PDF);
+    }
+
+    @Test
+    void testFrom_ShouldRejectUnknownFormat() {
+        assertThatThrownBy(() -> ExportFormat.from("docx")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ExportFormat.from(null)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testFileNameAndContentType() {
+        assertThat(ExportFormat.EXCEL.getFileName()).isEqualTo("patients.xlsx");
+        assertThat(ExportFormat.CSV.getContentType()).isEqualTo("text/csv");
+        assertThat(ExportFormat.PDF.getContentType()).isEqualTo("application/pdf");
+    }
+}
@@ -188,6 +188,23 @@ class PatientTest {
         assertThat(patient1.hashCode()).isEqualTo(patient2.hashCode());
     }
 
+    @Test
+    void testSetAllergies_ShouldKeepUnchangedEntries() {
+        // Given
+        Patient patient = new Patient();
+        patient.setAllergies("Pénicilline, Pollen");
+        PatientAllergy penicillin = patient.getAllergyEntries().get(0);
+
+        // When
+        patient.setAllergies("pénicilline; Arachides");
+
+        // Then : la ligne existante est conservée, "Pollen" retiré, "Arachides" ajouté
+        assertThat(patient.getAllergyEntries()).extracting(PatientAllergy::getNormalizedName)
+                .containsExactly("penicilline", "arachides");
+        assertThat(patient.getAllergyEntries().get(0)).isSameAs(penicillin);
+        assertThat(patient.getAllergyEntries()).allMatch(entry -> entry.getPatient() == patient);
+    }
+
     @Test
     void testToString() {
         // Given
@@ -0,0 +1,115 @@
+package com.example.crudApp.repository;
+
+import com.example.crudApp.config.TestSecurityConfig;
+import com.example.crudApp.service.EmailService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Plans d'exécution (EXPLAIN H2) des requêtes fréquentes des repositories
+ * Chaque requête doit être servie par un index : un parcours complet de table ("tableScan") fait échouer le test
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestSecurityConfig.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+class HotQueryIndexTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private EmailService emailService;
+
+    @Test
+    void countConflictingAppointments_ShouldUseIndex() {
+        assertUsesIndex("SELECT COUNT(*) FROM appointments WHERE doctor_id = 1"
+                + " AND appointment_date_time = TIMESTAMP '2030-01-07 09:00:00'"
+                + " AND status IN ('PENDING', 'CONFIRMED')");
+    }
+
+    @Test
+    void findBookedSlotTimes_ShouldUseIndex() {
+        assertUsesIndex("SELECT appointment_date_time FROM appointments WHERE doctor_id = 1"
+                + " AND appointment_date_time >= TIMESTAMP '2030-01-07 00:00:00'"
+                + " AND appointment_date_time < TIMESTAMP '2030-01-08 00:00:00'"
+                + " AND status IN ('PENDING', 'CONFIRMED')");
+    }
+
+    @Test
+    void findByStatusAndAppointmentDateTimeBetween_ShouldUseIndex() {
+        assertUsesIndex("SELECT * FROM appointments WHERE status = 'CONFIRMED'"
+                + " AND appointment_date_time BETWEEN TIMESTAMP '2030-01-07 00:00:00' AND TIMESTAMP '2030-01-08 00:00:00'");
+    }
+
+    @Test
+    void findDueReminders_ShouldUseIndex() {
+        assertUsesIndex("SELECT * FROM appointments WHERE status = 'CONFIRMED' AND reminder_sent_at IS NULL"
+                + " AND appointment_date_time BETWEEN TIMESTAMP '2030-01-07 00:00:00' AND TIMESTAMP '2030-01-08 00:00:00'"
+                + " AND id > 0 ORDER BY id LIMIT 100");
+    }
+
+    @Test
+    void findByStatusAndAppointmentDateTimeBefore_ShouldUseIndex() {
+        assertUsesIndex("SELECT * FROM appointments WHERE status = 'PENDING'"
+                + " AND appointment_date_time < TIMESTAMP '2030-01-07 00:00:00'");
+    }
+
+    @Test
+    void findPatientHistory_ShouldUseIndex() {
+        assertUsesIndex("SELECT * FROM appointments WHERE patient_id = 1"
+                + " ORDER BY appointment_date_time DESC, id DESC LIMIT 21");
+    }
+
+    @Test
+    void findByDoctorAndExceptionDateAndIsActive_ShouldUseIndex() {
+        assertUsesIndex("SELECT * FROM doctor_availability_exceptions WHERE doctor_id = 1"
+                + " AND exception_date = DATE '2030-01-07' AND is_active = TRUE");
+    }
+
+    @Test
+    void findByExceptionDateAndIsActive_ShouldUseIndex() {
+        assertUsesIndex("SELECT * FROM doctor_availability_exceptions"
+                + " WHERE exception_date = DATE '2030-01-07' AND is_active = TRUE");
+    }
+
+    @Test
+    void findByDoctorAndDayOfWeekAndIsActiveTrue_ShouldUseIndex() {
+        assertUsesIndex("SELECT * FROM doctor_availability WHERE doctor_id = 1"
+                + " AND day_of_week = 'MONDAY' AND is_active = TRUE");
+    }
+
+    @Test
+    void findByUserTypeAndSpecialty_ShouldUseIndex() {
+        assertUsesIndex("SELECT * FROM users WHERE user_type = 'DOCTOR' AND medical_specialty = 'CARDIOLOGIE'");
+    }
+
+    @Test
+    void findByUserAndIsActive_ShouldUseIndex() {
+        assertUsesIndex("SELECT * FROM patients WHERE user_id = 1 AND is_active = TRUE");
+    }
+
+    @Test
+    void findPatientsWithRecentVisit_ShouldUseIndex() {
+        assertUsesIndex("SELECT * FROM patients WHERE last_visit >= DATE '2030-01-07' AND is_active = TRUE");
+    }
+
+    @Test
+    void findByNormalizedAllergy_ShouldUseIndex() {
+        assertUsesIndex("SELECT p.* FROM patients p JOIN patient_allergies a ON a.patient_id = p.id"
+                + " WHERE a.normalized_name = 'penicilline' AND p.is_active = TRUE");
+    }
+
+    private void assertUsesIndex(String sql) {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+        assertThat(plan).as("Plan d'exécution de : %s", sql).doesNotContain("tableScan");
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.crudApp.service;
+
+import com.example.crudApp.config.TestSecurityConfig;
+import com.example.crudApp.dto.AppointmentRequest;
+import com.example.crudApp.dto.RecurringAppointmentRequest;
+import com.example.crudApp.exception.SlotAlreadyBookedException;
+import com.example.crudApp.model.*;
+import com.example.crudApp.repository.AppointmentRepository;
+import com.example.crudApp.repository.DoctorAvailabilityRepository;
+import com.example.crudApp.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests de concurrence de la réservation : un seul rendez-vous actif par créneau
+ * Les données sont validées réellement (pas de rollback de test) puis supprimées après chaque test
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestSecurityConfig.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+class AppointmentBookingConcurrencyTest {
+
+    private static final int PARALLEL_BOOKINGS = 200;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private DoctorAvailabilityRepository availabilityRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @MockitoBean
+    private EmailService emailService;
+
+    private User doctor;
+    private User patient;
+    private LocalDateTime slot;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = String.valueOf(System.nanoTime());
+        doctor = userRepository.save(User.builder()
+                .username("concurrency-doctor-" + suffix)
+                .password("password")
+                .userType(UserType.DOCTOR)
+                .specialty(MedicalSpecialty.CARDIOLOGIE)
+                .build());
+        patient = userRepository.save(User.builder()
+                .username("concurrency-patient-" + suffix)
+                .password("password")
+                .userType(UserType.PATIENT)
+                .build());
+
+        slot = LocalDateTime.now().plusDays(3).withHour(10).withMinute(0).withSecond(0).withNano(0);
+        availabilityRepository.save(DoctorAvailability.builder()
+                .doctor(doctor)
+                .dayOfWeek(slot.getDayOfWeek())
+                .startTime(LocalTime.of(9, 0))
+                .endTime(LocalTime.of(17, 0))
+                .slotDurationMinutes(30)
+                .isActive(true)
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        appointmentRepository.deleteAll(appointmentRepository.findByDoctor(doctor));
+        availabilityRepository.deleteAll(availabilityRepository.findByDoctor(doctor));
+        userRepository.deleteAll(List.of(doctor, patient));
+    }
+
+    @Test
+    void createAppointment_ShouldBookSlotExactlyOnce_UnderParallelRequests() throws InterruptedException {
+        // Given
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(PARALLEL_BOOKINGS);
+        AtomicInteger successes = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        ConcurrentLinkedQueue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+
+        for (int i = 0; i < PARALLEL_BOOKINGS; i++) {
+            executor.submit(() -> {
+                try {
+                    start.await();
+                    AppointmentRequest request = new AppointmentRequest();
+                    request.setDoctorId(doctor.getId());
+                    request.setAppointmentDateTime(slot);
+                    request.setReason("Consultation");
+                    appointmentService.createAppointment(request, patient.getUsername());
+                    successes.incrementAndGet();
+                } catch (SlotAlreadyBookedException e) {
+                    conflicts.incrementAndGet();
+                } catch (Throwable e) {
+                    unexpected.add(e);
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        // When
+        start.countDown();
+        boolean finished = done.await(60, TimeUnit.SECONDS);
+        executor.shutdownNow();
+
+        // Then
+        assertThat(finished).isTrue();
+        assertThat(unexpected).isEmpty();
+        assertThat(successes.get()).isEqualTo(1);
+        assertThat(conflicts.get()).isEqualTo(PARALLEL_BOOKINGS - 1);
+        assertThat(appointmentRepository.countConflictingAppointments(doctor, slot)).isEqualTo(1L);
+    }
+
+    @Test
+    void uniqueConstraint_ShouldRejectSecondActiveAppointment_ButAllowCancelledOnes() {
+        // Given
+        appointmentRepository.saveAndFlush(appointment(AppointmentStatus.CANCELLED));
+        appointmentRepository.saveAndFlush(appointment(AppointmentStatus.CONFIRMED));
+
+        // When & Then : la contrainte s'applique même sans passer par le service
+        assertThatThrownBy(() -> appointmentRepository.saveAndFlush(appointment(AppointmentStatus.PENDING)))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    void createRecurringAppointments_ShouldInsertSeriesWithJdbcBatch_AndOccupyEverySlot() {
+        // Given : la troisième occurrence est déjà prise
+        appointmentRepository.saveAndFlush(Appointment.builder()
+                .doctor(doctor)
+                .patient(patient)
+                .appointmentDateTime(slot.plusWeeks(2))
+                .status(AppointmentStatus.CONFIRMED)
+                .build());
+        RecurringAppointmentRequest request = new RecurringAppointmentRequest();
+        request.setDoctorId(doctor.getId());
+        request.setFirstAppointmentDateTime(slot);
+        request.setOccurrences(4);
+        request.setReason("Kinésithérapie");
+
+        // When & Then : la série entière est refusée
+        assertThatThrownBy(() -> appointmentService.createRecurringAppointments(request, patient.getUsername()))
+                .isInstanceOf(SlotAlreadyBookedException.class);
+        assertThat(appointmentRepository.findByDoctor(doctor)).hasSize(1);
+
+        // When : série décalée d'une semaine sur des créneaux libres
+        request.setFirstAppointmentDateTime(slot.plusWeeks(3));
+        List<Appointment> created = appointmentService.createRecurringAppointments(request, patient.getUsername());
+
+        // Then
+        assertThat(created).hasSize(4);
+        assertThat(created).extracting(Appointment::getId).doesNotContainNull();
+        assertThat(created).extracting(Appointment::getActiveSlot)
+                .containsExactly(slot.plusWeeks(3), slot.plusWeeks(4), slot.plusWeeks(5), slot.plusWeeks(6));
+        assertThat(appointmentRepository.countConflictingAppointments(doctor, slot.plusWeeks(6))).isEqualTo(1L);
+    }
+
+    private Appointment appointment(AppointmentStatus status) {
+        return Appointment.builder()
+                .doctor(doctor)
+                .patient(patient)
+                .appointmentDateTime(slot)
+                .status(status)
+                .build();
+    }
+}
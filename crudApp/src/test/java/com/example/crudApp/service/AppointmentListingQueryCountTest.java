@@ -0,0 +1,161 @@
+package com.example.crudApp.service;
+
+import com.example.crudApp.config.TestSecurityConfig;
+import com.example.crudApp.dto.AppointmentPageResponse;
+import com.example.crudApp.dto.AppointmentResponse;
+import com.example.crudApp.model.*;
+import com.example.crudApp.repository.AppointmentRepository;
+import com.example.crudApp.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Nombre de requêtes SQL des listes de rendez-vous, mesuré par les statistiques Hibernate
+ * Chaque liste ou page doit coûter deux requêtes (utilisateur + rendez-vous) quel que soit le nombre de lignes
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@Import(TestSecurityConfig.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+class AppointmentListingQueryCountTest {
+
+    private static final int DOCTORS = 5;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockitoBean
+    private EmailService emailService;
+
+    private final List<User> doctors = new ArrayList<>();
+    private User patient;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = String.valueOf(System.nanoTime());
+        patient = userRepository.save(User.builder()
+                .username("listing-patient-" + suffix)
+                .password("password")
+                .fullName("Patient Liste")
+                .userType(UserType.PATIENT)
+                .build());
+
+        LocalDateTime slot = LocalDateTime.now().plusDays(2).withHour(9).withMinute(0).withSecond(0).withNano(0);
+        for (int i = 0; i < DOCTORS; i++) {
+            User doctor = userRepository.save(User.builder()
+                    .username("listing-doctor-" + i + "-" + suffix)
+                    .password("password")
+                    .fullName("Médecin " + i)
+                    .userType(UserType.DOCTOR)
+                    .specialty(MedicalSpecialty.CARDIOLOGIE)
+                    .build());
+            doctors.add(doctor);
+            appointmentRepository.save(Appointment.builder()
+                    .doctor(doctor)
+                    .patient(patient)
+                    .appointmentDateTime(slot.plusHours(i))
+                    .status(AppointmentStatus.PENDING)
+                    .reason("Consultation")
+                    .build());
+        }
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        appointmentRepository.deleteAll(appointmentRepository.findByPatient(patient));
+        userRepository.deleteAll(doctors);
+        userRepository.delete(patient);
+    }
+
+    @Test
+    void getMyAppointments_ShouldUseTwoStatements_WhateverTheNumberOfDoctors() {
+        // When
+        List<AppointmentResponse> responses = appointmentService.getMyAppointments(patient.getUsername(), 100);
+
+        // Then
+        assertThat(responses).hasSize(DOCTORS);
+        assertThat(responses).extracting(AppointmentResponse::getDoctorFullName).doesNotContainNull();
+        assertThat(responses).extracting(AppointmentResponse::getPatientUsername).containsOnly(patient.getUsername());
+        assertThat(responses).extracting(AppointmentResponse::getAppointmentDateTime)
+                .isSortedAccordingTo(Comparator.reverseOrder());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(1);
+    }
+
+    @Test
+    void getMyUpcomingAppointments_ShouldUseTwoStatements_AndLimitInDatabase() {
+        // When
+        List<AppointmentResponse> responses = appointmentService.getMyUpcomingAppointments(patient.getUsername(), 3);
+
+        // Then
+        assertThat(responses).hasSize(3);
+        assertThat(responses).extracting(AppointmentResponse::getAppointmentDateTime).isSorted();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void getMyAppointments_ShouldServeDoctorsWithoutExceptionFallback() {
+        // When
+        List<AppointmentResponse> responses = appointmentService.getMyAppointments(doctors.get(0).getUsername(), 100);
+        List<AppointmentResponse> upcoming = appointmentService.getMyUpcomingAppointments(doctors.get(0).getUsername(), 100);
+
+        // Then
+        assertThat(responses).hasSize(1);
+        assertThat(responses.get(0).getPatientFullName()).isEqualTo("Patient Liste");
+        assertThat(upcoming).hasSize(1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(4);
+    }
+
+    @Test
+    void getAppointmentHistory_ShouldWalkAllPages_WithTwoStatementsPerPage() {
+        // When : parcours complet par pages de 2
+        List<AppointmentResponse> visited = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            statistics.clear();
+            AppointmentPageResponse page = appointmentService.getAppointmentHistory(patient.getUsername(), cursor, 2);
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+            visited.addAll(page.getContent());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        // Then : chaque rendez-vous une seule fois, du plus récent au plus ancien
+        assertThat(pages).isEqualTo(3);
+        assertThat(visited).hasSize(DOCTORS);
+        assertThat(visited).extracting(AppointmentResponse::getId).doesNotHaveDuplicates();
+        assertThat(visited).extracting(AppointmentResponse::getAppointmentDateTime)
+                .isSortedAccordingTo(Comparator.reverseOrder());
+    }
+}
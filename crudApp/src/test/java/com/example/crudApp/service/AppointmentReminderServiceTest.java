@@ -1,23 +1,29 @@
 package com.example.crudApp.service;
 
+import com.example.crudApp.dto.AppointmentReminder;
 import com.example.crudApp.exception.ResourceNotFoundException;
 import com.example.crudApp.model.Appointment;
 import com.example.crudApp.model.AppointmentStatus;
 import com.example.crudApp.model.User;
 import com.example.crudApp.repository.AppointmentRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.time.LocalDateTime;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -25,13 +31,21 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class AppointmentReminderServiceTest {
 
+    private static final int BATCH_SIZE = 2;
+
     @Mock
     private AppointmentRepository appointmentRepository;
 
     @Mock
     private EmailService emailService;
 
-    @InjectMocks
+    @Mock
+    private JobLeaseService jobLeaseService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
     private AppointmentReminderService appointmentReminderService;
 
     private Appointment appointment;
@@ -40,6 +54,15 @@ class AppointmentReminderServiceTest {
 
     @BeforeEach
     void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        appointmentReminderService = new AppointmentReminderService(appointmentRepository, emailService, jobLeaseService,
+                meterRegistry, transactionManager, BATCH_SIZE);
+        // Bail toujours obtenu : les tâches s'exécutent directement
+        lenient().when(jobLeaseService.runExclusively(anyString(), any(), any(), any())).thenAnswer(invocation -> {
+            invocation.<Runnable>getArgument(3).run();
+            return true;
+        });
+
         doctor = User.builder()
                 .id(1L)
                 .username("doctor1")
@@ -65,162 +88,186 @@ class AppointmentReminderServiceTest {
     @Test
     void testSendAppointmentReminders_WithUpcomingAppointments() {
         // Given
-        List<Appointment> upcomingAppointments = Arrays.asList(appointment);
-        when(appointmentRepository.findByStatusAndAppointmentDateTimeBetween(
-                eq(AppointmentStatus.CONFIRMED),
-                any(LocalDateTime.class),
-                any(LocalDateTime.class)
-        )).thenReturn(upcomingAppointments);
-
-        doNothing().when(emailService).sendAppointmentReminderEmail(any(Appointment.class));
+        List<AppointmentReminder> reminders = List.of(reminder(1L));
+        when(appointmentRepository.findDueReminders(eq(AppointmentStatus.CONFIRMED), any(LocalDateTime.class),
+                any(LocalDateTime.class), eq(0L), any(Pageable.class))).thenReturn(reminders);
+        when(emailService.sendAppointmentReminderEmails(reminders)).thenReturn(1);
 
         // When
         appointmentReminderService.sendAppointmentReminders();
 
-        // Then
-        verify(appointmentRepository).findByStatusAndAppointmentDateTimeBetween(
-                eq(AppointmentStatus.CONFIRMED),
-                any(LocalDateTime.class),
-                any(LocalDateTime.class)
-        );
-        verify(emailService).sendAppointmentReminderEmail(appointment);
+        // Then : marqueur et mise en file dans une même transaction, sans relecture d'entités
+        InOrder inOrder = inOrder(transactionManager, appointmentRepository, emailService);
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(appointmentRepository).markRemindersSent(eq(List.of(1L)), any(LocalDateTime.class));
+        inOrder.verify(emailService).sendAppointmentReminderEmails(reminders);
+        inOrder.verify(transactionManager).commit(any());
+        verify(emailService, never()).sendAppointmentReminderEmail(any(Appointment.class));
     }
 
     @Test
     void testSendAppointmentReminders_NoUpcomingAppointments() {
         // Given
-        when(appointmentRepository.findByStatusAndAppointmentDateTimeBetween(
-                eq(AppointmentStatus.CONFIRMED),
-                any(LocalDateTime.class),
-                any(LocalDateTime.class)
-        )).thenReturn(Collections.emptyList());
+        when(appointmentRepository.findDueReminders(eq(AppointmentStatus.CONFIRMED), any(LocalDateTime.class),
+                any(LocalDateTime.class), eq(0L), any(Pageable.class))).thenReturn(Collections.emptyList());
 
         // When
         appointmentReminderService.sendAppointmentReminders();
 
         // Then
-        verify(appointmentRepository).findByStatusAndAppointmentDateTimeBetween(
-                eq(AppointmentStatus.CONFIRMED),
-                any(LocalDateTime.class),
-                any(LocalDateTime.class)
-        );
-        verify(emailService, never()).sendAppointmentReminderEmail(any(Appointment.class));
+        verify(appointmentRepository, never()).markRemindersSent(anyCollection(), any(LocalDateTime.class));
+        verify(emailService, never()).sendAppointmentReminderEmails(anyList());
     }
 
     @Test
-    void testSendAppointmentReminders_EmailServiceThrowsException() {
+    void testSendAppointmentReminders_ShouldPageThroughDueAppointments() {
+        // Given : une page pleine puis une page partielle, lues après le dernier identifiant
+        List<AppointmentReminder> firstPage = new ArrayList<>();
+        for (long id = 1; id <= AppointmentReminderService.REMINDER_BATCH_SIZE; id++) {
+            firstPage.add(reminder(id));
+        }
+        long lastId = AppointmentReminderService.REMINDER_BATCH_SIZE;
+        List<AppointmentReminder> secondPage = List.of(reminder(lastId + 1));
+        when(appointmentRepository.findDueReminders(eq(AppointmentStatus.CONFIRMED), any(LocalDateTime.class),
+                any(LocalDateTime.class), eq(0L), any(Pageable.class))).thenReturn(firstPage);
+        when(appointmentRepository.findDueReminders(eq(AppointmentStatus.CONFIRMED), any(LocalDateTime.class),
+                any(LocalDateTime.class), eq(lastId), any(Pageable.class))).thenReturn(secondPage);
+        when(emailService.sendAppointmentReminderEmails(anyList())).thenAnswer(invocation -> invocation.<List<?>>getArgument(0).size());
+
+        // When
+        appointmentReminderService.sendAppointmentReminders();
+
+        // Then : la page partielle termine la tâche
+        verify(emailService).sendAppointmentReminderEmails(firstPage);
+        verify(emailService).sendAppointmentReminderEmails(secondPage);
+        verify(appointmentRepository).markRemindersSent(eq(List.of(lastId + 1)), any(LocalDateTime.class));
+        verify(appointmentRepository, times(2)).findDueReminders(any(), any(), any(), anyLong(), any(Pageable.class));
+    }
+
+    @Test
+    void testSendAppointmentReminders_EnqueueFails_ShouldRollbackMarker() {
         // Given
-        List<Appointment> upcomingAppointments = Arrays.asList(appointment);
-        when(appointmentRepository.findByStatusAndAppointmentDateTimeBetween(
-                eq(AppointmentStatus.CONFIRMED),
-                any(LocalDateTime.class),
-                any(LocalDateTime.class)
-        )).thenReturn(upcomingAppointments);
+        List<AppointmentReminder> reminders = List.of(reminder(1L), reminder(2L));
+        when(appointmentRepository.findDueReminders(eq(AppointmentStatus.CONFIRMED), any(LocalDateTime.class),
+                any(LocalDateTime.class), eq(0L), any(Pageable.class))).thenReturn(reminders);
+        when(emailService.sendAppointmentReminderEmails(reminders)).thenThrow(new RuntimeException("Database error"));
+
+        // When
+        appointmentReminderService.sendAppointmentReminders();
 
-        doThrow(new RuntimeException("Email service error"))
-                .when(emailService).sendAppointmentReminderEmail(any(Appointment.class));
+        // Then - Should not throw exception, le marqueur est annulé avec le lot et les rappels seront repris
+        verify(appointmentRepository).markRemindersSent(eq(List.of(1L, 2L)), any(LocalDateTime.class));
+        verify(transactionManager).rollback(any());
+        verify(transactionManager, never()).commit(any());
+    }
+
+    @Test
+    void testScheduledJobs_ShouldSkip_WhenLeaseIsHeldByAnotherInstance() {
+        // Given
+        doReturn(false).when(jobLeaseService).runExclusively(anyString(), any(), any(), any());
 
         // When
         appointmentReminderService.sendAppointmentReminders();
+        appointmentReminderService.cleanupOldAppointments();
+        appointmentReminderService.autoCompletePassedAppointments();
 
-        // Then - Should not throw exception, just log error
-        verify(emailService).sendAppointmentReminderEmail(appointment);
+        // Then
+        verify(jobLeaseService).runExclusively(eq(AppointmentReminderService.REMINDERS_LEASE), any(), any(), any());
+        verify(jobLeaseService).runExclusively(eq(AppointmentReminderService.CLEANUP_LEASE), any(), any(), any());
+        verify(jobLeaseService).runExclusively(eq(AppointmentReminderService.AUTO_COMPLETE_LEASE), any(), any(), any());
+        verifyNoInteractions(appointmentRepository, emailService);
     }
 
     @Test
     void testCleanupOldAppointments_WithOldCancelledAppointments() {
         // Given
-        Appointment oldAppointment = Appointment.builder()
-                .id(2L)
-                .doctor(doctor)
-                .patient(patient)
-                .appointmentDateTime(LocalDateTime.now().minusMonths(7))
-                .status(AppointmentStatus.CANCELLED)
-                .build();
-
-        List<Appointment> oldAppointments = Arrays.asList(oldAppointment);
-        when(appointmentRepository.findByStatusAndAppointmentDateTimeBefore(
-                eq(AppointmentStatus.CANCELLED),
-                any(LocalDateTime.class)
-        )).thenReturn(oldAppointments);
+        List<Long> oldIds = List.of(2L, 5L);
+        when(appointmentRepository.findIdsByStatusAndAppointmentDateTimeBefore(
+                eq(AppointmentStatus.CANCELLED), any(LocalDateTime.class), any(Pageable.class)
+        )).thenReturn(oldIds);
+        when(appointmentRepository.deleteByIdInAndStatus(oldIds, AppointmentStatus.CANCELLED)).thenReturn(2);
 
         // When
         appointmentReminderService.cleanupOldAppointments();
 
-        // Then
-        verify(appointmentRepository).findByStatusAndAppointmentDateTimeBefore(
-                eq(AppointmentStatus.CANCELLED),
-                any(LocalDateTime.class)
-        );
-        verify(appointmentRepository).deleteAll(oldAppointments);
+        // Then : une seule suppression en masse, sans chargement des entités
+        verify(appointmentRepository).deleteByIdInAndStatus(oldIds, AppointmentStatus.CANCELLED);
+        verify(appointmentRepository, never()).deleteAll(anyList());
+        assertThat(rowsCounter(AppointmentReminderService.CLEANUP_JOB)).isEqualTo(2.0);
+        assertThat(durationTimerCount(AppointmentReminderService.CLEANUP_JOB)).isEqualTo(1);
     }
 
     @Test
     void testCleanupOldAppointments_NoOldAppointments() {
         // Given
-        when(appointmentRepository.findByStatusAndAppointmentDateTimeBefore(
-                eq(AppointmentStatus.CANCELLED),
-                any(LocalDateTime.class)
+        when(appointmentRepository.findIdsByStatusAndAppointmentDateTimeBefore(
+                eq(AppointmentStatus.CANCELLED), any(LocalDateTime.class), any(Pageable.class)
         )).thenReturn(Collections.emptyList());
 
         // When
         appointmentReminderService.cleanupOldAppointments();
 
         // Then
-        verify(appointmentRepository).findByStatusAndAppointmentDateTimeBefore(
-                eq(AppointmentStatus.CANCELLED),
-                any(LocalDateTime.class)
-        );
-        verify(appointmentRepository, never()).deleteAll(anyList());
+        verify(appointmentRepository, never()).deleteByIdInAndStatus(anyList(), any());
+        assertThat(rowsCounter(AppointmentReminderService.CLEANUP_JOB)).isZero();
     }
 
     @Test
     void testAutoCompletePassedAppointments_WithPassedAppointments() {
-        // Given
-        Appointment passedAppointment = Appointment.builder()
-                .id(3L)
-                .doctor(doctor)
-                .patient(patient)
-                .appointmentDateTime(LocalDateTime.now().minusHours(2))
-                .status(AppointmentStatus.CONFIRMED)
-                .build();
+        // Given : un lot plein puis un lot partiel
+        List<Long> firstBatch = List.of(3L, 4L);
+        List<Long> secondBatch = List.of(7L);
+        when(appointmentRepository.findIdsByStatusAndAppointmentDateTimeBefore(
+                eq(AppointmentStatus.CONFIRMED), any(LocalDateTime.class), eq(PageRequest.of(0, BATCH_SIZE))
+        )).thenReturn(firstBatch, secondBatch);
+        when(appointmentRepository.completeConfirmedAppointments(eq(firstBatch), anyString(), any(LocalDateTime.class)))
+                .thenReturn(2);
+        when(appointmentRepository.completeConfirmedAppointments(eq(secondBatch), anyString(), any(LocalDateTime.class)))
+                .thenReturn(1);
 
-        List<Appointment> passedAppointments = Arrays.asList(passedAppointment);
-        when(appointmentRepository.findByStatusAndAppointmentDateTimeBefore(
-                eq(AppointmentStatus.CONFIRMED),
-                any(LocalDateTime.class)
-        )).thenReturn(passedAppointments);
+        // When
+        appointmentReminderService.autoCompletePassedAppointments();
 
-        when(appointmentRepository.save(any(Appointment.class))).thenReturn(passedAppointment);
+        // Then
+        verify(appointmentRepository, times(2)).findIdsByStatusAndAppointmentDateTimeBefore(
+                eq(AppointmentStatus.CONFIRMED), any(LocalDateTime.class), any(Pageable.class));
+        verify(appointmentRepository).completeConfirmedAppointments(eq(firstBatch),
+                eq("Rendez-vous marqué automatiquement comme terminé"), any(LocalDateTime.class));
+        verify(appointmentRepository, never()).save(any(Appointment.class));
+        assertThat(rowsCounter(AppointmentReminderService.AUTO_COMPLETE_JOB)).isEqualTo(3.0);
+    }
+
+    @Test
+    void testAutoCompletePassedAppointments_ShouldStop_WhenBatchIsNotUpdated() {
+        // Given : le lot a changé de statut entre la lecture et la mise à jour
+        List<Long> batch = List.of(3L, 4L);
+        when(appointmentRepository.findIdsByStatusAndAppointmentDateTimeBefore(
+                eq(AppointmentStatus.CONFIRMED), any(LocalDateTime.class), any(Pageable.class)
+        )).thenReturn(batch);
+        when(appointmentRepository.completeConfirmedAppointments(eq(batch), anyString(), any(LocalDateTime.class)))
+                .thenReturn(0);
 
         // When
         appointmentReminderService.autoCompletePassedAppointments();
 
         // Then
-        verify(appointmentRepository).findByStatusAndAppointmentDateTimeBefore(
-                eq(AppointmentStatus.CONFIRMED),
-                any(LocalDateTime.class)
-        );
-        verify(appointmentRepository).save(passedAppointment);
+        verify(appointmentRepository, times(1)).findIdsByStatusAndAppointmentDateTimeBefore(
+                eq(AppointmentStatus.CONFIRMED), any(LocalDateTime.class), any(Pageable.class));
     }
 
     @Test
     void testAutoCompletePassedAppointments_NoPassedAppointments() {
         // Given
-        when(appointmentRepository.findByStatusAndAppointmentDateTimeBefore(
-                eq(AppointmentStatus.CONFIRMED),
-                any(LocalDateTime.class)
+        when(appointmentRepository.findIdsByStatusAndAppointmentDateTimeBefore(
+                eq(AppointmentStatus.CONFIRMED), any(LocalDateTime.class), any(Pageable.class)
         )).thenReturn(Collections.emptyList());
 
         // When
         appointmentReminderService.autoCompletePassedAppointments();
 
         // Then
-        verify(appointmentRepository).findByStatusAndAppointmentDateTimeBefore(
-                eq(AppointmentStatus.CONFIRMED),
-                any(LocalDateTime.class)
-        );
-        verify(appointmentRepository, never()).save(any(Appointment.class));
+        verify(appointmentRepository, never()).completeConfirmedAppointments(anyList(), anyString(), any(LocalDateTime.class));
+        assertThat(durationTimerCount(AppointmentReminderService.AUTO_COMPLETE_JOB)).isEqualTo(1);
     }
 
     @Test
@@ -249,4 +296,17 @@ class AppointmentReminderServiceTest {
 
         verify(emailService, never()).sendAppointmentReminderEmail(any(Appointment.class));
     }
+
+    private AppointmentReminder reminder(Long appointmentId) {
+        return new AppointmentReminder(appointmentId, LocalDateTime.now().plusHours(24), 2L, "patient@example.com",
+                "patient1", null, "doctor1", null);
+    }
+
+    private double rowsCounter(String job) {
+        return meterRegistry.counter(AppointmentReminderService.MAINTENANCE_ROWS_METRIC, "job", job).count();
+    }
+
+    private long durationTimerCount(String job) {
+        return meterRegistry.timer(AppointmentReminderService.MAINTENANCE_DURATION_METRIC, "job", job).count();
+    }
 }
@@ -1,25 +1,39 @@
 package com.example.crudApp.service;
 
+import com.example.crudApp.dto.AppointmentPageResponse;
 import com.example.crudApp.dto.AppointmentRequest;
+import com.example.crudApp.dto.AppointmentResponse;
+import com.example.crudApp.dto.AvailableSlotResponse;
+import com.example.crudApp.dto.DoctorCalendarResponse;
+import com.example.crudApp.dto.NextAvailableSlotResponse;
+import com.example.crudApp.dto.RecurringAppointmentRequest;
 import com.example.crudApp.exception.ResourceNotFoundException;
 import com.example.crudApp.exception.ServiceException;
+import com.example.crudApp.exception.SlotAlreadyBookedException;
 import com.example.crudApp.exception.TokenRefreshException;
 import com.example.crudApp.model.*;
+import com.example.crudApp.repository.AppointmentBatchRepository;
 import com.example.crudApp.repository.AppointmentRepository;
 import com.example.crudApp.repository.DoctorAvailabilityRepository;
 import com.example.crudApp.repository.UserRepository;
+import com.example.crudApp.util.AppointmentCursor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -43,6 +57,21 @@ class AppointmentServiceTest {
     @Mock
     private EmailService emailService;
 
+    @Mock
+    private AvailabilityIndex availabilityIndex;
+
+    @Mock
+    private DoctorBookingLocks bookingLocks;
+
+    @Mock
+    private SlotHoldRegistry slotHoldRegistry;
+
+    @Mock
+    private SlotAvailabilityEngine slotAvailabilityEngine;
+
+    @Mock
+    private AppointmentBatchRepository appointmentBatchRepository;
+
     @InjectMocks
     private AppointmentService appointmentService;
 
@@ -97,13 +126,133 @@ class AppointmentServiceTest {
                 .thenReturn(Arrays.asList(availability));
         when(doctorAvailabilityExceptionService.getExceptionForDate(any(), any())).thenReturn(null);
         when(appointmentRepository.countConflictingAppointments(any(), any())).thenReturn(0L);
-        when(appointmentRepository.save(any(Appointment.class))).thenReturn(appointment);
+        when(appointmentRepository.saveAndFlush(any(Appointment.class))).thenReturn(appointment);
 
         Appointment result = appointmentService.createAppointment(request, "patient1");
 
         assertNotNull(result);
-        verify(appointmentRepository, times(1)).save(any(Appointment.class));
+        verify(bookingLocks).lockUntilCompletion(2L);
+        verify(appointmentRepository, times(1)).saveAndFlush(any(Appointment.class));
         verify(emailService, times(1)).sendAppointmentConfirmationEmail(any(Appointment.class));
+        verify(availabilityIndex).onSlotBooked(2L, request.getAppointmentDateTime());
+    }
+
+    @Test
+    void testCreateAppointment_SlotAlreadyBooked() {
+        AppointmentRequest request = bookableRequest();
+        when(appointmentRepository.countConflictingAppointments(doctor, request.getAppointmentDateTime())).thenReturn(1L);
+
+        assertThrows(SlotAlreadyBookedException.class, () -> appointmentService.createAppointment(request, "patient1"));
+
+        verify(appointmentRepository, never()).saveAndFlush(any(Appointment.class));
+        verifyNoInteractions(emailService, availabilityIndex);
+    }
+
+    @Test
+    void testCreateAppointment_UniqueConstraintViolation() {
+        AppointmentRequest request = bookableRequest();
+        when(appointmentRepository.countConflictingAppointments(doctor, request.getAppointmentDateTime())).thenReturn(0L);
+        when(appointmentRepository.saveAndFlush(any(Appointment.class)))
+                .thenThrow(new DataIntegrityViolationException("uk_appointments_doctor_active_slot"));
+
+        assertThrows(SlotAlreadyBookedException.class, () -> appointmentService.createAppointment(request, "patient1"));
+
+        verifyNoInteractions(emailService, availabilityIndex);
+    }
+
+    @Test
+    void testCreateAppointment_PropagatesNotificationFailure() {
+        AppointmentRequest request = bookableRequest();
+        when(appointmentRepository.countConflictingAppointments(doctor, request.getAppointmentDateTime())).thenReturn(0L);
+        when(appointmentRepository.saveAndFlush(any(Appointment.class))).thenReturn(appointment);
+        doThrow(new RuntimeException("Database error")).when(emailService).sendAppointmentConfirmationEmail(appointment);
+
+        // La transaction est annulée : pas de rendez-vous sans ses notifications
+        assertThrows(RuntimeException.class, () -> appointmentService.createAppointment(request, "patient1"));
+    }
+
+    @Test
+    void testCreateAppointment_WithValidHold_SkipsConflictQuery() {
+        AppointmentRequest request = bookableRequest();
+        request.setHoldToken("hold-token");
+        SlotHold hold = new SlotHold("hold-token", 2L, request.getAppointmentDateTime(), "patient1",
+                LocalDateTime.now().plusMinutes(2));
+        when(slotHoldRegistry.findValidHold("hold-token", 2L, request.getAppointmentDateTime(), "patient1"))
+                .thenReturn(hold);
+        when(appointmentRepository.saveAndFlush(any(Appointment.class))).thenReturn(appointment);
+
+        appointmentService.createAppointment(request, "patient1");
+
+        verify(appointmentRepository, never()).countConflictingAppointments(any(), any());
+        verify(slotHoldRegistry, never()).isHeldByOther(any(), any(), any());
+        verify(slotHoldRegistry).releaseAfterCommit(2L, request.getAppointmentDateTime(), "patient1");
+    }
+
+    @Test
+    void testCreateAppointment_SlotHeldByAnotherPatient() {
+        AppointmentRequest request = bookableRequest();
+        when(slotHoldRegistry.isHeldByOther(2L, request.getAppointmentDateTime(), "patient1")).thenReturn(true);
+
+        assertThrows(SlotAlreadyBookedException.class, () -> appointmentService.createAppointment(request, "patient1"));
+
+        verify(appointmentRepository, never()).countConflictingAppointments(any(), any());
+        verify(appointmentRepository, never()).saveAndFlush(any(Appointment.class));
+    }
+
+    @Test
+    void testCreateRecurringAppointments_InsertsAllOccurrencesInOneBatch() {
+        RecurringAppointmentRequest request = recurringRequest(4);
+        List<LocalDateTime> slots = List.of(
+                request.getFirstAppointmentDateTime(),
+                request.getFirstAppointmentDateTime().plusWeeks(1),
+                request.getFirstAppointmentDateTime().plusWeeks(2),
+                request.getFirstAppointmentDateTime().plusWeeks(3));
+        List<Appointment> saved = List.of(appointment);
+        when(userRepository.findByUsername("patient1")).thenReturn(Optional.of(patient));
+        when(userRepository.findById(2L)).thenReturn(Optional.of(doctor));
+        when(slotAvailabilityEngine.findOpenSlots(doctor, slots)).thenReturn(Set.copyOf(slots));
+        when(appointmentRepository.findByDoctorAndPatientAndActiveSlotInOrderByAppointmentDateTimeAsc(doctor, patient, slots))
+                .thenReturn(saved);
+
+        List<Appointment> result = appointmentService.createRecurringAppointments(request, "patient1");
+
+        assertSame(saved, result);
+        verify(bookingLocks).lockUntilCompletion(2L);
+        verify(appointmentBatchRepository).insertAll(argThat(appointments -> appointments.size() == 4
+                && appointments.get(3).getAppointmentDateTime().equals(slots.get(3))
+                && appointments.stream().allMatch(a -> a.getStatus() == AppointmentStatus.PENDING)));
+        verify(appointmentRepository, never()).saveAndFlush(any(Appointment.class));
+        verify(appointmentRepository, never()).countConflictingAppointments(any(), any());
+        verify(availabilityIndex, times(4)).onSlotBooked(eq(2L), any(LocalDateTime.class));
+        verify(emailService).sendRecurringAppointmentsConfirmationEmail(saved);
+        verify(emailService).sendRecurringAppointmentsNotificationToDoctor(saved);
+        verify(emailService, never()).sendAppointmentConfirmationEmail(any(Appointment.class));
+    }
+
+    @Test
+    void testCreateRecurringAppointments_RejectsWholeSeries_WhenOneSlotIsTaken() {
+        RecurringAppointmentRequest request = recurringRequest(3);
+        LocalDateTime first = request.getFirstAppointmentDateTime();
+        when(userRepository.findByUsername("patient1")).thenReturn(Optional.of(patient));
+        when(userRepository.findById(2L)).thenReturn(Optional.of(doctor));
+        when(slotAvailabilityEngine.findOpenSlots(eq(doctor), any()))
+                .thenReturn(Set.of(first, first.plusWeeks(2)));
+
+        SlotAlreadyBookedException exception = assertThrows(SlotAlreadyBookedException.class,
+                () -> appointmentService.createRecurringAppointments(request, "patient1"));
+
+        assertTrue(exception.getMessage().contains(first.plusWeeks(1).toString()));
+        verifyNoInteractions(appointmentBatchRepository, emailService, availabilityIndex);
+    }
+
+    @Test
+    void testCreateRecurringAppointments_RejectsTooManyOccurrences() {
+        RecurringAppointmentRequest request = recurringRequest(53);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> appointmentService.createRecurringAppointments(request, "patient1"));
+
+        verifyNoInteractions(userRepository, appointmentBatchRepository);
     }
 
     @Test
@@ -138,29 +287,223 @@ class AppointmentServiceTest {
     }
 
     @Test
-    void testGetPatientAppointments_Success() {
-        List<Appointment> appointments = Arrays.asList(appointment);
+    void testGetAvailableSlots_UsesAvailabilityIndex() {
+        LocalDate date = LocalDate.now().plusDays(3);
+        DoctorAvailability availability = DoctorAvailability.builder()
+                .doctor(doctor)
+                .dayOfWeek(date.getDayOfWeek())
+                .startTime(java.time.LocalTime.of(9, 0))
+                .endTime(java.time.LocalTime.of(10, 0))
+                .slotDurationMinutes(30)
+                .isActive(true)
+                .build();
+        DaySchedule schedule = new SlotAvailabilityEngine(null, null, null)
+                .computeDaySchedule(date, List.of(availability), null, List.of(date.atTime(9, 30)));
+
+        when(userRepository.findById(2L)).thenReturn(Optional.of(doctor));
+        when(availabilityIndex.getDaySchedule(doctor, date)).thenReturn(schedule);
+
+        List<AvailableSlotResponse> slots = appointmentService.getAvailableSlots(2L, date);
+
+        assertEquals(2, slots.size());
+        assertTrue(slots.get(0).isAvailable());
+        assertFalse(slots.get(1).isAvailable());
+        verify(appointmentRepository, never()).countConflictingAppointments(any(), any());
+        verify(doctorAvailabilityExceptionService, never()).getExceptionForDate(any(), any());
+    }
+
+    @Test
+    void testGetAvailabilityCalendar_BySpecialty() {
+        LocalDate from = LocalDate.now().plusDays(1);
+        LocalDate to = from.plusDays(6);
+        List<DaySchedule> week = new ArrayList<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            week.add(DaySchedule.closed(date));
+        }
+
+        when(userRepository.findByUserTypeAndSpecialty(UserType.DOCTOR, MedicalSpecialty.CARDIOLOGIE))
+                .thenReturn(List.of(doctor));
+        when(availabilityIndex.getSchedules(List.of(doctor), from, to)).thenReturn(Map.of(2L, week));
+
+        List<DoctorCalendarResponse> calendar = appointmentService.getAvailabilityCalendar(
+                MedicalSpecialty.CARDIOLOGIE, null, from, to);
+
+        assertEquals(1, calendar.size());
+        assertEquals(2L, calendar.get(0).getDoctorId());
+        assertEquals(7, calendar.get(0).getDays().size());
+        assertEquals("", calendar.get(0).getDays().get(0).getAvailability());
+    }
+
+    @Test
+    void testGetAvailabilityCalendar_RejectsTooLongRange() {
+        LocalDate from = LocalDate.now();
+
+        assertThrows(IllegalArgumentException.class, () ->
+                appointmentService.getAvailabilityCalendar(MedicalSpecialty.CARDIOLOGIE, null, from, from.plusDays(60)));
+
+        verifyNoInteractions(availabilityIndex);
+    }
+
+    @Test
+    void testFindNextAvailableSlots_MergesDoctorsInTimeOrder() {
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+        User otherDoctor = new User();
+        otherDoctor.setId(3L);
+        otherDoctor.setUserType(UserType.DOCTOR);
+        otherDoctor.setSpecialty(MedicalSpecialty.CARDIOLOGIE);
+
+        SlotAvailabilityEngine engine = new SlotAvailabilityEngine(null, null, null);
+        DaySchedule doctorDay = engine.computeDaySchedule(tomorrow, List.of(availability(doctor, tomorrow, 9, 0, 10, 0)),
+                null, List.of());
+        DaySchedule otherDoctorDay = engine.computeDaySchedule(tomorrow, List.of(availability(otherDoctor, tomorrow, 9, 15, 9, 45)),
+                null, List.of());
+
+        when(userRepository.findByUserTypeAndSpecialty(UserType.DOCTOR, MedicalSpecialty.CARDIOLOGIE))
+                .thenReturn(List.of(doctor, otherDoctor));
+        when(slotAvailabilityEngine.loadWorkingDays(List.of(doctor, otherDoctor))).thenReturn(Map.of(
+                2L, Set.of(tomorrow.getDayOfWeek()),
+                3L, Set.of(tomorrow.getDayOfWeek())));
+        when(availabilityIndex.getDaySchedule(any(User.class), any(LocalDate.class))).thenAnswer(invocation -> {
+            User requested = invocation.getArgument(0);
+            LocalDate date = invocation.getArgument(1);
+            if (!date.equals(tomorrow)) {
+                return DaySchedule.closed(date);
+            }
+            return requested == doctor ? doctorDay : otherDoctorDay;
+        });
+
+        List<NextAvailableSlotResponse> slots = appointmentService.findNextAvailableSlots(MedicalSpecialty.CARDIOLOGIE, 3);
+
+        assertEquals(3, slots.size());
+        assertEquals(tomorrow.atTime(9, 0), slots.get(0).getDateTime());
+        assertEquals(2L, slots.get(0).getDoctorId());
+        assertEquals(tomorrow.atTime(9, 15), slots.get(1).getDateTime());
+        assertEquals(3L, slots.get(1).getDoctorId());
+        assertEquals(tomorrow.atTime(9, 30), slots.get(2).getDateTime());
+        // Arrêt anticipé : les jours suivants ne sont jamais consultés
+        verify(availabilityIndex, never()).getDaySchedule(any(User.class), eq(tomorrow.plusDays(1)));
+    }
+
+    @Test
+    void testFindNextAvailableSlots_SkipsDoctorsAndDaysWithoutSchedule() {
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+        User otherDoctor = new User();
+        otherDoctor.setId(3L);
+        otherDoctor.setUserType(UserType.DOCTOR);
+        otherDoctor.setSpecialty(MedicalSpecialty.CARDIOLOGIE);
+
+        when(userRepository.findByUserTypeAndSpecialty(UserType.DOCTOR, MedicalSpecialty.CARDIOLOGIE))
+                .thenReturn(List.of(doctor, otherDoctor));
+        // Seul le médecin 2 travaille, et uniquement le jour de la semaine de demain
+        when(slotAvailabilityEngine.loadWorkingDays(List.of(doctor, otherDoctor)))
+                .thenReturn(Map.of(2L, Set.of(tomorrow.getDayOfWeek())));
+        when(availabilityIndex.getDaySchedule(eq(doctor), any(LocalDate.class)))
+                .thenAnswer(invocation -> DaySchedule.closed(invocation.getArgument(1)));
+
+        List<NextAvailableSlotResponse> slots = appointmentService.findNextAvailableSlots(MedicalSpecialty.CARDIOLOGIE, 3);
+
+        assertTrue(slots.isEmpty());
+        verify(availabilityIndex, never()).getDaySchedule(eq(otherDoctor), any(LocalDate.class));
+        // Un jour sur sept au plus sur l'horizon de 90 jours, au lieu de 90
+        verify(availabilityIndex, atMost(13)).getDaySchedule(eq(doctor), any(LocalDate.class));
+        verify(availabilityIndex, never()).getDaySchedule(doctor, tomorrow.plusDays(1));
+    }
+
+    @Test
+    void testFindNextAvailableSlots_RejectsInvalidLimit() {
+        assertThrows(IllegalArgumentException.class, () ->
+                appointmentService.findNextAvailableSlots(MedicalSpecialty.CARDIOLOGIE, 0));
+
+        verifyNoInteractions(userRepository, availabilityIndex);
+    }
+
+    @Test
+    void testGetMyAppointments_PatientUsesSingleQuery() {
+        List<AppointmentResponse> appointments = Arrays.asList(AppointmentResponse.fromAppointment(appointment));
         when(userRepository.findByUsername("patient1")).thenReturn(Optional.of(patient));
-        when(appointmentRepository.findByPatient(patient)).thenReturn(appointments);
+        when(appointmentRepository.findPatientHistory(patient, PageRequest.of(0, 100))).thenReturn(appointments);
 
-        List<Appointment> result = appointmentService.getPatientAppointments("patient1");
+        List<AppointmentResponse> result = appointmentService.getMyAppointments("patient1", 100);
 
         assertNotNull(result);
         assertEquals(1, result.size());
-        verify(appointmentRepository, times(1)).findByPatient(patient);
+        verify(userRepository, times(1)).findByUsername("patient1");
+        verifyNoMoreInteractions(appointmentRepository);
     }
 
     @Test
-    void testGetDoctorAppointments_Success() {
-        List<Appointment> appointments = Arrays.asList(appointment);
+    void testGetMyUpcomingAppointments_DoctorUsesSingleQuery() {
+        List<AppointmentResponse> appointments = Arrays.asList(AppointmentResponse.fromAppointment(appointment));
         when(userRepository.findByUsername("doctor1")).thenReturn(Optional.of(doctor));
-        when(appointmentRepository.findByDoctor(doctor)).thenReturn(appointments);
+        when(appointmentRepository.findUpcomingResponsesByDoctor(eq(doctor), any(LocalDateTime.class), eq(PageRequest.of(0, 10))))
+                .thenReturn(appointments);
 
-        List<Appointment> result = appointmentService.getDoctorAppointments("doctor1");
+        List<AppointmentResponse> result = appointmentService.getMyUpcomingAppointments("doctor1", 10);
+
+        assertEquals(1, result.size());
+        verifyNoMoreInteractions(appointmentRepository);
+    }
+
+    @Test
+    void testGetMyAppointments_DoctorUsesDoctorQuery() {
+        List<AppointmentResponse> appointments = Arrays.asList(AppointmentResponse.fromAppointment(appointment));
+        when(userRepository.findByUsername("doctor1")).thenReturn(Optional.of(doctor));
+        when(appointmentRepository.findDoctorHistory(doctor, PageRequest.of(0, 100))).thenReturn(appointments);
+
+        List<AppointmentResponse> result = appointmentService.getMyAppointments("doctor1", 100);
 
-        assertNotNull(result);
         assertEquals(1, result.size());
-        verify(appointmentRepository, times(1)).findByDoctor(doctor);
+        verifyNoMoreInteractions(appointmentRepository);
+    }
+
+    @Test
+    void testGetMyAppointments_RejectsInvalidLimit() {
+        assertThrows(IllegalArgumentException.class, () -> appointmentService.getMyAppointments("patient1", 0));
+
+        verifyNoInteractions(userRepository, appointmentRepository);
+    }
+
+    @Test
+    void testGetAppointmentHistory_FirstPageReturnsCursor() {
+        AppointmentResponse newest = AppointmentResponse.builder().id(9L).appointmentDateTime(LocalDateTime.of(2024, 5, 3, 10, 0)).build();
+        AppointmentResponse middle = AppointmentResponse.builder().id(7L).appointmentDateTime(LocalDateTime.of(2024, 5, 2, 10, 0)).build();
+        AppointmentResponse extra = AppointmentResponse.builder().id(5L).appointmentDateTime(LocalDateTime.of(2024, 5, 1, 10, 0)).build();
+        when(userRepository.findByUsername("patient1")).thenReturn(Optional.of(patient));
+        when(appointmentRepository.findPatientHistory(patient, PageRequest.of(0, 3)))
+                .thenReturn(new ArrayList<>(List.of(newest, middle, extra)));
+
+        AppointmentPageResponse page = appointmentService.getAppointmentHistory("patient1", null, 2);
+
+        assertEquals(List.of(newest, middle), page.getContent());
+        assertTrue(page.isHasNext());
+        AppointmentCursor cursor = AppointmentCursor.decode(page.getNextCursor());
+        assertEquals(middle.getAppointmentDateTime(), cursor.getAppointmentDateTime());
+        assertEquals(7L, cursor.getId());
+    }
+
+    @Test
+    void testGetAppointmentHistory_DoctorNextPageUsesKeyset() {
+        LocalDateTime dateTime = LocalDateTime.of(2024, 5, 2, 10, 0);
+        String token = new AppointmentCursor(dateTime, 7L).encode();
+        AppointmentResponse last = AppointmentResponse.builder().id(5L).appointmentDateTime(dateTime.minusDays(1)).build();
+        when(userRepository.findByUsername("doctor1")).thenReturn(Optional.of(doctor));
+        when(appointmentRepository.findDoctorHistoryAfter(doctor, dateTime, 7L, PageRequest.of(0, 21)))
+                .thenReturn(List.of(last));
+
+        AppointmentPageResponse page = appointmentService.getAppointmentHistory("doctor1", token, 20);
+
+        assertEquals(List.of(last), page.getContent());
+        assertFalse(page.isHasNext());
+        assertNull(page.getNextCursor());
+        verify(appointmentRepository, never()).findPatientHistoryAfter(any(), any(), any(), any());
+    }
+
+    @Test
+    void testGetAppointmentHistory_RejectsInvalidPageSize() {
+        assertThrows(IllegalArgumentException.class,
+                () -> appointmentService.getAppointmentHistory("patient1", null, 101));
+
+        verifyNoInteractions(userRepository, appointmentRepository);
     }
 
     @Test
@@ -173,6 +516,7 @@ class AppointmentServiceTest {
         assertNotNull(result);
         assertEquals(AppointmentStatus.CANCELLED, result.getStatus());
         verify(emailService, times(1)).sendAppointmentStatusUpdateEmail(any(Appointment.class), anyString());
+        verify(availabilityIndex).onSlotReleased(2L, appointment.getAppointmentDateTime());
     }
 
     @Test
@@ -219,4 +563,41 @@ class AppointmentServiceTest {
         assertEquals("Token expired", exception.getMessage());
         assertEquals(cause, exception.getCause());
     }
+
+    private DoctorAvailability availability(User owner, LocalDate date, int startHour, int startMinute,
+                                            int endHour, int endMinute) {
+        DoctorAvailability availability = new DoctorAvailability();
+        availability.setDoctor(owner);
+        availability.setDayOfWeek(date.getDayOfWeek());
+        availability.setStartTime(java.time.LocalTime.of(startHour, startMinute));
+        availability.setEndTime(java.time.LocalTime.of(endHour, endMinute));
+        availability.setSlotDurationMinutes(30);
+        availability.setIsActive(true);
+        return availability;
+    }
+
+    private RecurringAppointmentRequest recurringRequest(int occurrences) {
+        RecurringAppointmentRequest request = new RecurringAppointmentRequest();
+        request.setDoctorId(2L);
+        request.setFirstAppointmentDateTime(LocalDateTime.now().plusDays(2).withHour(10).withMinute(0).withSecond(0).withNano(0));
+        request.setOccurrences(occurrences);
+        request.setReason("Kinésithérapie");
+        return request;
+    }
+
+    private AppointmentRequest bookableRequest() {
+        AppointmentRequest request = new AppointmentRequest();
+        request.setDoctorId(2L);
+        request.setAppointmentDateTime(LocalDateTime.now().plusDays(2).withHour(10).withMinute(0).withSecond(0).withNano(0));
+        request.setReason("Consultation");
+
+        when(userRepository.findByUsername("patient1")).thenReturn(Optional.of(patient));
+        when(userRepository.findById(2L)).thenReturn(Optional.of(doctor));
+        when(doctorAvailabilityExceptionService.getExceptionForDate(doctor, request.getAppointmentDateTime().toLocalDate()))
+                .thenReturn(null);
+        when(doctorAvailabilityRepository.findByDoctorAndDayOfWeekAndIsActiveTrue(
+                doctor, request.getAppointmentDateTime().getDayOfWeek()))
+                .thenReturn(List.of(availability(doctor, request.getAppointmentDateTime().toLocalDate(), 9, 0, 17, 0)));
+        return request;
+    }
 }
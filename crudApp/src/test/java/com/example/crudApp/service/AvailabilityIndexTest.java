@@ -0,0 +1,139 @@
+package com.example.crudApp.service;
+
+import com.example.crudApp.model.DoctorAvailability;
+import com.example.crudApp.model.User;
+import com.example.crudApp.model.UserType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour AvailabilityIndex
+ */
+@ExtendWith(MockitoExtension.class)
+class AvailabilityIndexTest {
+
+    @Mock
+    private SlotAvailabilityEngine slotAvailabilityEngine;
+
+    private AvailabilityIndex availabilityIndex;
+
+    private User doctor;
+    private LocalDate date;
+    private DaySchedule schedule;
+
+    @BeforeEach
+    void setUp() {
+        availabilityIndex = new AvailabilityIndex(slotAvailabilityEngine, 300);
+
+        doctor = User.builder()
+                .id(1L)
+                .username("doctor@example.com")
+                .userType(UserType.DOCTOR)
+                .build();
+
+        date = LocalDate.now().plusDays(7);
+
+        DoctorAvailability morning = DoctorAvailability.builder()
+                .doctor(doctor)
+                .dayOfWeek(date.getDayOfWeek())
+                .startTime(LocalTime.of(9, 0))
+                .endTime(LocalTime.of(10, 0))
+                .slotDurationMinutes(30)
+                .isActive(true)
+                .build();
+        schedule = new SlotAvailabilityEngine(null, null, null)
+                .computeDaySchedule(date, List.of(morning), null, Collections.emptyList());
+    }
+
+    @Test
+    void getDaySchedule_ShouldComputeOnlyOnce() {
+        // Given
+        when(slotAvailabilityEngine.loadDaySchedule(doctor, date)).thenReturn(schedule);
+
+        // When
+        DaySchedule first = availabilityIndex.getDaySchedule(doctor, date);
+        DaySchedule second = availabilityIndex.getDaySchedule(doctor, date);
+
+        // Then
+        assertThat(second).isSameAs(first);
+        verify(slotAvailabilityEngine, times(1)).loadDaySchedule(doctor, date);
+    }
+
+    @Test
+    void onSlotBooked_ShouldUpdateCachedDay_WithoutReloading() {
+        // Given
+        when(slotAvailabilityEngine.loadDaySchedule(doctor, date)).thenReturn(schedule);
+        availabilityIndex.getDaySchedule(doctor, date);
+
+        // When : hors transaction, la mise à jour est appliquée immédiatement
+        availabilityIndex.onSlotBooked(1L, date.atTime(9, 30));
+        DaySchedule booked = availabilityIndex.getDaySchedule(doctor, date);
+        availabilityIndex.onSlotReleased(1L, date.atTime(9, 30));
+        DaySchedule released = availabilityIndex.getDaySchedule(doctor, date);
+
+        // Then
+        assertThat(booked.isOpen(0)).isTrue();
+        assertThat(booked.isOpen(1)).isFalse();
+        assertThat(released.isOpen(1)).isTrue();
+        assertThat(schedule.isOpen(1)).isTrue();
+        verify(slotAvailabilityEngine, times(1)).loadDaySchedule(doctor, date);
+    }
+
+    @Test
+    void onSlotReleased_ShouldNotOpenSlotOutsideTemplates() {
+        // Given
+        when(slotAvailabilityEngine.loadDaySchedule(doctor, date)).thenReturn(DaySchedule.closed(date));
+        availabilityIndex.getDaySchedule(doctor, date);
+
+        // When
+        availabilityIndex.onSlotReleased(1L, date.atTime(9, 0));
+
+        // Then
+        assertThat(availabilityIndex.getDaySchedule(doctor, date).isEmpty()).isTrue();
+    }
+
+    @Test
+    void invalidateDoctor_ShouldForceReload() {
+        // Given
+        when(slotAvailabilityEngine.loadDaySchedule(doctor, date)).thenReturn(schedule);
+        availabilityIndex.getDaySchedule(doctor, date);
+
+        // When
+        availabilityIndex.invalidateDoctor(1L);
+        availabilityIndex.getDaySchedule(doctor, date);
+
+        // Then
+        verify(slotAvailabilityEngine, times(2)).loadDaySchedule(doctor, date);
+    }
+
+    @Test
+    void getSchedules_ShouldOnlyLoadDoctorsMissingFromIndex() {
+        // Given
+        User otherDoctor = User.builder().id(2L).username("other@example.com").userType(UserType.DOCTOR).build();
+        when(slotAvailabilityEngine.loadDaySchedule(doctor, date)).thenReturn(schedule);
+        when(slotAvailabilityEngine.loadSchedules(List.of(otherDoctor), date, date))
+                .thenReturn(Map.of(2L, List.of(DaySchedule.closed(date))));
+        availabilityIndex.getDaySchedule(doctor, date);
+
+        // When
+        Map<Long, List<DaySchedule>> schedules = availabilityIndex.getSchedules(List.of(doctor, otherDoctor), date, date);
+
+        // Then
+        assertThat(schedules.keySet()).containsExactly(1L, 2L);
+        assertThat(schedules.get(1L)).containsExactly(schedule);
+        assertThat(schedules.get(2L).get(0).isEmpty()).isTrue();
+        assertThat(availabilityIndex.size()).isEqualTo(2);
+    }
+}
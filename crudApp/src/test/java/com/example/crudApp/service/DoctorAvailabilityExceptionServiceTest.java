@@ -39,6 +39,9 @@ class DoctorAvailabilityExceptionServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private AvailabilityIndex availabilityIndex;
+
     @InjectMocks
     private DoctorAvailabilityExceptionService exceptionService;
 
@@ -223,6 +226,7 @@ class DoctorAvailabilityExceptionServiceTest {
         assertThat(result).isNotNull();
         verify(exceptionRepository, times(1)).findById(1L);
         verify(exceptionRepository, times(1)).save(any(DoctorAvailabilityException.class));
+        verify(availabilityIndex, times(2)).invalidateDay(1L, LocalDate.of(2024, 12, 25));
     }
 
     @Test
@@ -37,6 +37,9 @@ class DoctorAvailabilityServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private AvailabilityIndex availabilityIndex;
+
     @InjectMocks
     private DoctorAvailabilityService doctorAvailabilityService;
 
@@ -221,6 +224,7 @@ class DoctorAvailabilityServiceTest {
         assertThat(result).isNotNull();
         verify(availabilityRepository, times(1)).findById(1L);
         verify(availabilityRepository, times(1)).save(any(DoctorAvailability.class));
+        verify(availabilityIndex).invalidateDoctor(1L);
     }
 
     @Test
@@ -0,0 +1,51 @@
+package com.example.crudApp.service;
+
+import com.example.crudApp.exception.BookingBusyException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests unitaires pour DoctorBookingLocks
+ */
+class DoctorBookingLocksTest {
+
+    private final DoctorBookingLocks locks = new DoctorBookingLocks(4, 50);
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void lockUntilCompletion_ShouldReportBusy_WhenLockIsHeldElsewhere() throws Exception {
+        // Given : une autre transaction garde le verrou du médecin
+        TransactionSynchronizationManager.initSynchronization();
+        locks.lockUntilCompletion(1L);
+
+        // When & Then : refus momentané avec délai de nouvel essai, et non conflit de créneau
+        CompletableFuture<Void> other = CompletableFuture.runAsync(() -> {
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                locks.lockUntilCompletion(1L);
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        });
+        assertThatThrownBy(() -> other.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(BookingBusyException.class)
+                .cause()
+                .satisfies(e -> assertThat(((BookingBusyException) e).getRetryAfterSeconds()).isEqualTo(1L));
+    }
+}
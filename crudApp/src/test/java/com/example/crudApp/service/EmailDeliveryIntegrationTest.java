@@ -0,0 +1,103 @@
+package com.example.crudApp.service;
+
+import com.example.crudApp.config.TestSecurityConfig;
+import com.example.crudApp.model.EmailOutboxMessage;
+import com.example.crudApp.model.EmailType;
+import com.example.crudApp.model.OutboxStatus;
+import com.example.crudApp.model.User;
+import com.example.crudApp.model.UserType;
+import com.example.crudApp.repository.EmailOutboxRepository;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Envoi des emails de bout en bout : mise en file par EmailService, envoi par EmailOutboxDispatcher
+ * vers un serveur SMTP local (GreenMail, port 3025 comme spring.mail.port du profil de test)
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestSecurityConfig.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+class EmailDeliveryIntegrationTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private EmailOutboxDispatcher emailOutboxDispatcher;
+
+    @Autowired
+    private EmailOutboxRepository emailOutboxRepository;
+
+    @AfterEach
+    void tearDown() {
+        emailOutboxRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void welcomeEmail_ShouldBeQueued_ThenDeliveredBySmtp() throws Exception {
+        // Given
+        User user = User.builder()
+                .id(1L)
+                .username("marie.martin")
+                .email("marie.martin@example.com")
+                .fullName("Marie Martin")
+                .userType(UserType.PATIENT)
+                .build();
+
+        // When : la mise en file n'envoie rien
+        emailService.sendWelcomeEmail(user);
+        assertThat(greenMail.getReceivedMessages()).isEmpty();
+        emailOutboxDispatcher.dispatch();
+
+        // Then
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertThat(received).hasSize(1);
+        assertThat(received[0].getSubject()).startsWith("Bienvenue sur");
+        assertThat(received[0].getAllRecipients()[0].toString()).isEqualTo("marie.martin@example.com");
+
+        List<EmailOutboxMessage> outbox = emailOutboxRepository.findAll();
+        assertThat(outbox).singleElement().satisfies(message -> {
+            assertThat(message.getType()).isEqualTo(EmailType.WELCOME);
+            assertThat(message.getStatus()).isEqualTo(OutboxStatus.SENT);
+            assertThat(message.getAttempts()).isEqualTo(1);
+            assertThat(message.getSentAt()).isNotNull();
+        });
+    }
+
+    @Test
+    void dispatch_ShouldNotResendDeliveredMessages() {
+        // Given
+        User user = User.builder()
+                .id(2L)
+                .username("jean.dupont")
+                .email("jean.dupont@example.com")
+                .userType(UserType.DOCTOR)
+                .build();
+        emailService.sendWelcomeEmail(user);
+
+        // When
+        emailOutboxDispatcher.dispatch();
+        emailOutboxDispatcher.dispatch();
+
+        // Then
+        assertThat(greenMail.getReceivedMessages()).hasSize(1);
+        assertThat(emailOutboxRepository.countByStatus(OutboxStatus.PENDING)).isZero();
+    }
+}
@@ -0,0 +1,314 @@
+package com.example.crudApp.service;
+
+import com.example.crudApp.model.EmailOutboxMessage;
+import com.example.crudApp.model.EmailType;
+import com.example.crudApp.model.OutboxStatus;
+import com.example.crudApp.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.mail.MailParseException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EmailOutboxDispatcherTest {
+
+    private static final int BATCH_SIZE = 10;
+    private static final int SEND_BATCH_SIZE = 4;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final Duration INITIAL_BACKOFF = Duration.ofSeconds(30);
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(5);
+    private static final Duration SENT_RETENTION = Duration.ofDays(7);
+    private static final Duration DEAD_RETENTION = Duration.ofDays(30);
+
+    @Mock
+    private EmailOutboxRepository emailOutboxRepository;
+
+    @Mock
+    private JavaMailSender mailSender;
+
+    @Mock
+    private JobLeaseService jobLeaseService;
+
+    private final Clock clock = Clock.fixed(Instant.parse("2025-03-10T08:00:00Z"), ZoneOffset.UTC);
+    private final LocalDateTime now = LocalDateTime.now(clock);
+
+    private SimpleMeterRegistry meterRegistry;
+    private ExecutorService executor;
+    private EmailOutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        executor = Executors.newFixedThreadPool(2);
+        dispatcher = new EmailOutboxDispatcher(emailOutboxRepository, mailSender, jobLeaseService, meterRegistry, clock,
+                executor, BATCH_SIZE, SEND_BATCH_SIZE, 5, MAX_ATTEMPTS, INITIAL_BACKOFF, MAX_BACKOFF, Duration.ofMinutes(5),
+                SENT_RETENTION, DEAD_RETENTION);
+        // Bail toujours obtenu : l'envoi s'exécute directement
+        lenient().when(jobLeaseService.runExclusively(anyString(), any(), any(), any())).thenAnswer(invocation -> {
+            invocation.<Runnable>getArgument(3).run();
+            return true;
+        });
+        lenient().when(mailSender.createMimeMessage()).thenAnswer(invocation -> new MimeMessage((Session) null));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void dispatch_ShouldSendDueMessages_AndMarkThemSent() {
+        // Given
+        when(emailOutboxRepository.findDue(eq(now), any(Pageable.class)))
+                .thenReturn(List.of(message(1L, 0), message(2L, 0)));
+        when(emailOutboxRepository.countByStatus(OutboxStatus.PENDING)).thenReturn(0L);
+
+        // When
+        dispatcher.dispatch();
+
+        // Then : une seule connexion pour les deux messages, un seul marquage, page partielle donc pas de relecture
+        verify(mailSender, times(1)).send(any(MimeMessage[].class));
+        verify(emailOutboxRepository).markSent(List.of(1L, 2L), now);
+        verify(emailOutboxRepository, never()).markFailed(anyLong(), any(), anyInt(), any(), anyString());
+        verify(emailOutboxRepository, times(1)).findDue(any(), any(Pageable.class));
+        assertThat(messagesCounter("sent")).isEqualTo(2.0);
+        assertThat(meterRegistry.timer(EmailOutboxDispatcher.DELIVERY_LATENCY_METRIC, "type", "REMINDER").count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void dispatch_ShouldScheduleRetryWithBackoff_WhenSendFails() {
+        // Given : deuxième tentative en échec
+        when(emailOutboxRepository.findDue(eq(now), any(Pageable.class))).thenReturn(List.of(message(1L, 1)));
+        doThrow(new MailSendException("Connection refused")).when(mailSender).send(any(MimeMessage[].class));
+
+        // When
+        dispatcher.dispatch();
+
+        // Then : délai doublé après le deuxième échec
+        verify(emailOutboxRepository).markFailed(eq(1L), eq(OutboxStatus.PENDING), eq(2),
+                eq(now.plus(INITIAL_BACKOFF.multipliedBy(2))), contains("Connection refused"));
+        verify(emailOutboxRepository, never()).markSent(any(), any());
+        assertThat(messagesCounter("retry")).isEqualTo(1.0);
+    }
+
+    @Test
+    void dispatch_ShouldGiveUpOnHungConnection_BeforeLeaseExpires() {
+        // Given : le serveur SMTP ne répond plus
+        CountDownLatch release = new CountDownLatch(1);
+        dispatcher = new EmailOutboxDispatcher(emailOutboxRepository, mailSender, jobLeaseService, meterRegistry, clock,
+                executor, BATCH_SIZE, SEND_BATCH_SIZE, 5, MAX_ATTEMPTS, INITIAL_BACKOFF, MAX_BACKOFF, Duration.ofMillis(200),
+                SENT_RETENTION, DEAD_RETENTION);
+        when(emailOutboxRepository.findDue(eq(now), any(Pageable.class))).thenReturn(List.of(message(1L, 0)));
+        doAnswer(invocation -> release.await(5, TimeUnit.SECONDS)).when(mailSender).send(any(MimeMessage[].class));
+
+        // When
+        long start = System.nanoTime();
+        dispatcher.dispatch();
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        release.countDown();
+
+        // Then : le passage se termine à l'échéance et le message est retenté plus tard
+        assertThat(elapsedMs).isLessThan(5000);
+        verify(emailOutboxRepository).markFailed(eq(1L), eq(OutboxStatus.PENDING), eq(1), any(), contains("Délai d'envoi dépassé"));
+        verify(emailOutboxRepository, never()).markSent(any(), any());
+    }
+
+    @Test
+    void constructor_ShouldRejectSendTimeoutLongerThanLease() {
+        assertThatThrownBy(() -> new EmailOutboxDispatcher(emailOutboxRepository, mailSender, jobLeaseService, meterRegistry,
+                clock, executor, BATCH_SIZE, SEND_BATCH_SIZE, 5, MAX_ATTEMPTS, INITIAL_BACKOFF, MAX_BACKOFF, Duration.ofMinutes(10),
+                SENT_RETENTION, DEAD_RETENTION))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void purgeDeliveredMessages_ShouldDeleteOldSentAndDeadMessagesInBatches() {
+        // Given : un lot plein de messages envoyés, puis un lot partiel ; une lettre morte
+        List<Long> fullBatch = new ArrayList<>();
+        for (long id = 1; id <= BATCH_SIZE; id++) {
+            fullBatch.add(id);
+        }
+        LocalDateTime sentBefore = now.minus(SENT_RETENTION);
+        LocalDateTime deadBefore = now.minus(DEAD_RETENTION);
+        when(emailOutboxRepository.findIdsByStatusCreatedBefore(eq(OutboxStatus.SENT), eq(sentBefore), any(Pageable.class)))
+                .thenReturn(fullBatch, List.of(11L));
+        when(emailOutboxRepository.findIdsByStatusCreatedBefore(eq(OutboxStatus.DEAD), eq(deadBefore), any(Pageable.class)))
+                .thenReturn(List.of(20L));
+        when(emailOutboxRepository.deleteByIdInAndStatus(any(), any())).thenAnswer(invocation ->
+                invocation.<List<Long>>getArgument(0).size());
+
+        // When
+        dispatcher.purgeDeliveredMessages();
+
+        // Then : un lot partiel termine la purge d'un statut
+        verify(emailOutboxRepository).deleteByIdInAndStatus(fullBatch, OutboxStatus.SENT);
+        verify(emailOutboxRepository).deleteByIdInAndStatus(List.of(11L), OutboxStatus.SENT);
+        verify(emailOutboxRepository).deleteByIdInAndStatus(List.of(20L), OutboxStatus.DEAD);
+        verify(emailOutboxRepository, times(3)).findIdsByStatusCreatedBefore(any(), any(), any(Pageable.class));
+        verify(jobLeaseService).runExclusively(eq(EmailOutboxDispatcher.PURGE_LEASE), any(), any(), any());
+    }
+
+    @Test
+    void purgeDeliveredMessages_ShouldDoNothing_WhenLeaseIsHeldElsewhere() {
+        // Given
+        doReturn(false).when(jobLeaseService).runExclusively(anyString(), any(), any(), any());
+
+        // When
+        dispatcher.purgeDeliveredMessages();
+
+        // Then
+        verifyNoInteractions(emailOutboxRepository);
+    }
+
+    @Test
+    void dispatch_ShouldDeadLetter_AfterMaxAttempts() {
+        // Given : dernière tentative autorisée
+        when(emailOutboxRepository.findDue(eq(now), any(Pageable.class)))
+                .thenReturn(List.of(message(1L, MAX_ATTEMPTS - 1)));
+        doThrow(new MailSendException("Connection refused")).when(mailSender).send(any(MimeMessage[].class));
+
+        // When
+        dispatcher.dispatch();
+
+        // Then
+        verify(emailOutboxRepository).markFailed(eq(1L), eq(OutboxStatus.DEAD), eq(MAX_ATTEMPTS), any(), anyString());
+        assertThat(messagesCounter("dead")).isEqualTo(1.0);
+    }
+
+    @Test
+    void dispatch_ShouldRetryOnlyFailedMessages_WhenServerRejectsPartOfTheGroup() {
+        // Given : le serveur refuse le deuxième destinataire, les autres messages de la connexion sont partis
+        when(emailOutboxRepository.findDue(eq(now), any(Pageable.class)))
+                .thenReturn(List.of(message(1L, 0), message(2L, 0), message(3L, 0)));
+        doAnswer(invocation -> {
+            MimeMessage[] sent = (MimeMessage[]) invocation.getRawArguments()[0];
+            throw new MailSendException(Map.of(sent[1], new MessagingException("550 Mailbox unavailable")));
+        }).when(mailSender).send(any(MimeMessage[].class));
+
+        // When
+        dispatcher.dispatch();
+
+        // Then
+        verify(emailOutboxRepository).markSent(List.of(1L, 3L), now);
+        verify(emailOutboxRepository).markFailed(eq(2L), eq(OutboxStatus.PENDING), eq(1), any(), contains("550"));
+        assertThat(messagesCounter("sent")).isEqualTo(2.0);
+        assertThat(messagesCounter("retry")).isEqualTo(1.0);
+    }
+
+    @Test
+    void dispatch_ShouldDeadLetterImmediately_WhenMessageIsInvalid() {
+        // Given : adresse mal formée, le message valide du groupe part quand même
+        EmailOutboxMessage invalid = message(1L, 0);
+        invalid.setRecipient("<patient1@example.com");
+        when(emailOutboxRepository.findDue(eq(now), any(Pageable.class))).thenReturn(List.of(invalid, message(2L, 0)));
+
+        // When
+        dispatcher.dispatch();
+
+        // Then : une nouvelle tentative échouerait de la même façon
+        verify(emailOutboxRepository).markFailed(eq(1L), eq(OutboxStatus.DEAD), eq(1), any(), anyString());
+        verify(emailOutboxRepository).markSent(List.of(2L), now);
+    }
+
+    @Test
+    void dispatch_ShouldDeadLetterImmediately_WhenServerRejectsMessageFormat() {
+        // Given
+        when(emailOutboxRepository.findDue(eq(now), any(Pageable.class))).thenReturn(List.of(message(1L, 0)));
+        doThrow(new MailParseException("Illegal address")).when(mailSender).send(any(MimeMessage[].class));
+
+        // When
+        dispatcher.dispatch();
+
+        // Then
+        verify(emailOutboxRepository).markFailed(eq(1L), eq(OutboxStatus.DEAD), eq(1), any(), contains("Illegal address"));
+    }
+
+    @Test
+    void dispatch_ShouldDrainFullBatches_AndPublishPendingGauge() {
+        // Given : un lot plein puis la file vide
+        List<EmailOutboxMessage> fullBatch = new ArrayList<>();
+        for (long id = 1; id <= BATCH_SIZE; id++) {
+            fullBatch.add(message(id, 0));
+        }
+        when(emailOutboxRepository.findDue(eq(now), any(Pageable.class)))
+                .thenReturn(fullBatch, Collections.emptyList());
+        when(emailOutboxRepository.countByStatus(OutboxStatus.PENDING)).thenReturn(3L);
+
+        // When
+        dispatcher.dispatch();
+
+        // Then : groupes de 4, 4 et 2 messages, chacun sur sa connexion
+        verify(mailSender, times(3)).send(any(MimeMessage[].class));
+        verify(emailOutboxRepository, times(2)).findDue(any(), any(Pageable.class));
+        assertThat(meterRegistry.get(EmailOutboxDispatcher.PENDING_METRIC).gauge().value()).isEqualTo(3.0);
+    }
+
+    @Test
+    void dispatch_ShouldSkip_WhenLeaseIsHeldByAnotherInstance() {
+        // Given
+        doReturn(false).when(jobLeaseService).runExclusively(anyString(), any(), any(), any());
+
+        // When
+        dispatcher.dispatch();
+
+        // Then
+        verify(jobLeaseService).runExclusively(eq(EmailOutboxDispatcher.LEASE), any(), any(), any());
+        verifyNoInteractions(emailOutboxRepository, mailSender);
+    }
+
+    @Test
+    void backoff_ShouldDoubleAndBeCapped() {
+        assertThat(dispatcher.backoff(1)).isEqualTo(INITIAL_BACKOFF);
+        assertThat(dispatcher.backoff(3)).isEqualTo(Duration.ofMinutes(2));
+        assertThat(dispatcher.backoff(10)).isEqualTo(MAX_BACKOFF);
+    }
+
+    private EmailOutboxMessage message(Long id, int attempts) {
+        return EmailOutboxMessage.builder()
+                .id(id)
+                .type(EmailType.REMINDER)
+                .recipient("patient" + id + "@example.com")
+                .subject("Rappel : Rendez-vous médical demain")
+                .body("<p>Rappel</p>")
+                .attempts(attempts)
+                .nextAttemptAt(now.minusMinutes(1))
+                .createdAt(now.minusMinutes(5))
+                .build();
+    }
+
+    private double messagesCounter(String outcome) {
+        return meterRegistry.counter(EmailOutboxDispatcher.MESSAGES_METRIC, "type", "REMINDER", "outcome", outcome).count();
+    }
+}
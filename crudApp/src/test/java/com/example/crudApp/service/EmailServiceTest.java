@@ -1,21 +1,25 @@
 package com.example.crudApp.service;
 
+import com.example.crudApp.dto.AppointmentReminder;
 import com.example.crudApp.model.*;
-import jakarta.mail.internet.MimeMessage;
+import com.example.crudApp.repository.EmailOutboxRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -27,10 +31,10 @@ import static org.mockito.Mockito.*;
 class EmailServiceTest {
 
     @Mock
-    private JavaMailSender mailSender;
+    private EmailOutboxRepository emailOutboxRepository;
 
-    @Mock
-    private MimeMessage mimeMessage;
+    @Spy
+    private EmailTemplateRenderer templateRenderer = new EmailTemplateRenderer();
 
     @InjectMocks
     private EmailService emailService;
@@ -47,6 +51,7 @@ class EmailServiceTest {
         testDoctor = User.builder()
                 .id(1L)
                 .username("doctor@example.com")
+                .email("doctor@example.com")
                 .fullName("Dr. Jean Dupont")
                 .userType(UserType.DOCTOR)
                 .specialty(MedicalSpecialty.CARDIOLOGIE)
@@ -57,6 +62,7 @@ class EmailServiceTest {
         testPatient = User.builder()
                 .id(2L)
                 .username("patient@example.com")
+                .email("patient@example.com")
                 .fullName("Marie Martin")
                 .userType(UserType.PATIENT)
                 .phoneNumber("0612345678")
@@ -73,21 +79,24 @@ class EmailServiceTest {
                 .reason("Consultation de routine")
                 .status(AppointmentStatus.PENDING)
                 .build();
-
-        // Mock du JavaMailSender
-        when(mailSender.createMimeMessage()).thenReturn(mimeMessage);
     }
 
     @Test
     void testSendAppointmentConfirmationEmail_Success() {
-        // Arrange
-        doNothing().when(mailSender).send(any(MimeMessage.class));
-
-        // Act - Ne doit pas lever d'exception
+        // Act
         emailService.sendAppointmentConfirmationEmail(testAppointment);
 
-        // Assert - La méthode async a été appelée sans erreur
-        // Note: Les méthodes @Async ne s'exécutent pas dans les tests unitaires sans contexte Spring
+        // Assert - L'email est mis en file, en attente d'envoi
+        EmailOutboxMessage message = enqueued();
+        assertThat(message.getType()).isEqualTo(EmailType.APPOINTMENT_CONFIRMATION);
+        assertThat(message.getRecipient()).isEqualTo(testPatient.getEmail());
+        assertThat(message.getSubject()).isEqualTo("Confirmation de votre demande de rendez-vous");
+        assertThat(message.getStatus()).isEqualTo(OutboxStatus.PENDING);
+        assertThat(message.getAttempts()).isZero();
+        assertThat(message.getBody())
+                .contains("Bonjour Marie Martin,")
+                .contains("Jean Dupont le "
+                        + testAppointment.getAppointmentDateTime().format(EmailTemplateRenderer.APPOINTMENT_DATE_FORMATTER));
     }
 
     @Test
@@ -105,75 +114,126 @@ class EmailServiceTest {
         // Act - Ne doit pas lever d'exception même si le patient n'a pas d'email
         emailService.sendAppointmentConfirmationEmail(testAppointment);
 
-        // Assert - Pas d'exception levée
+        // Assert - Rien n'est mis en file
+        verifyNoInteractions(emailOutboxRepository);
     }
 
     @Test
     void testSendAppointmentNotificationToDoctor_Success() {
-        // Arrange
-        doNothing().when(mailSender).send(any(MimeMessage.class));
-
-        // Act - Ne doit pas lever d'exception
+        // Act
         emailService.sendAppointmentNotificationToDoctor(testAppointment);
 
-        // Assert - La méthode async a été appelée sans erreur
+        // Assert
+        EmailOutboxMessage message = enqueued();
+        assertThat(message.getType()).isEqualTo(EmailType.DOCTOR_NOTIFICATION);
+        assertThat(message.getRecipient()).isEqualTo(testDoctor.getEmail());
     }
 
     @Test
     void testSendAppointmentStatusUpdateEmail_Success() {
         // Arrange
-        doNothing().when(mailSender).send(any(MimeMessage.class));
         testAppointment.setStatus(AppointmentStatus.CONFIRMED);
 
-        // Act - Ne doit pas lever d'exception
+        // Act
         emailService.sendAppointmentStatusUpdateEmail(testAppointment, "PENDING");
 
-        // Assert - La méthode async a été appelée sans erreur
+        // Assert
+        assertThat(enqueued().getType()).isEqualTo(EmailType.STATUS_UPDATE);
     }
 
     @Test
     void testSendAppointmentReminderEmail_Success() {
-        // Arrange
-        doNothing().when(mailSender).send(any(MimeMessage.class));
-
-        // Act - Ne doit pas lever d'exception
+        // Act
         emailService.sendAppointmentReminderEmail(testAppointment);
 
-        // Assert - La méthode async a été appelée sans erreur
+        // Assert
+        assertThat(enqueued().getType()).isEqualTo(EmailType.REMINDER);
     }
 
     @Test
-    void testSendAppointmentConfirmationEmail_EmailSendingFails() {
-        // Arrange
-        doThrow(new RuntimeException("SMTP error")).when(mailSender).send(any(MimeMessage.class));
+    @SuppressWarnings("unchecked")
+    void testSendAppointmentReminderEmails_ShouldEnqueueBatch_SkippingPatientsWithoutEmail() {
+        // Arrange : le troisième patient n'a pas d'email
+        LocalDateTime dateTime = LocalDateTime.now().plusDays(1);
+        List<AppointmentReminder> reminders = List.of(
+                new AppointmentReminder(1L, dateTime, 2L, "patient@example.com", "patient1", "Marie Martin", "doctor1", null),
+                new AppointmentReminder(2L, dateTime, 3L, "other@example.com", "patient2", null, "doctor1", "Jean Dupont"),
+                new AppointmentReminder(3L, dateTime, 4L, null, "patient3", null, "doctor1", null));
+
+        // Act
+        int enqueued = emailService.sendAppointmentReminderEmails(reminders);
+
+        // Assert - Un seul enregistrement pour tout le lot
+        ArgumentCaptor<List<EmailOutboxMessage>> captor = ArgumentCaptor.forClass(List.class);
+        verify(emailOutboxRepository).saveAll(captor.capture());
+        assertThat(enqueued).isEqualTo(2);
+        assertThat(captor.getValue())
+                .extracting(EmailOutboxMessage::getRecipient)
+                .containsExactly("patient@example.com", "other@example.com");
+        assertThat(captor.getValue()).allMatch(message -> message.getType() == EmailType.REMINDER);
+        verify(emailOutboxRepository, never()).save(any());
+    }
 
-        // Act - Ne doit pas lever d'exception même en cas d'erreur SMTP
-        emailService.sendAppointmentConfirmationEmail(testAppointment);
+    @Test
+    void testSendAppointmentConfirmationEmail_EnqueueFails() {
+        // Arrange
+        doThrow(new RuntimeException("Database error")).when(emailOutboxRepository).save(any(EmailOutboxMessage.class));
 
-        // Assert - L'erreur est gérée en interne et loggée
+        // Act & Assert - L'erreur remonte pour annuler la transaction du rendez-vous
+        assertThatThrownBy(() -> emailService.sendAppointmentConfirmationEmail(testAppointment))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("Database error");
     }
 
     @Test
     void testSendAppointmentStatusUpdateEmail_CancelledStatus() {
         // Arrange
-        doNothing().when(mailSender).send(any(MimeMessage.class));
         testAppointment.setStatus(AppointmentStatus.CANCELLED);
 
-        // Act - Ne doit pas lever d'exception
+        // Act
         emailService.sendAppointmentStatusUpdateEmail(testAppointment, "CONFIRMED");
 
-        // Assert - La méthode async a été appelée sans erreur
+        // Assert
+        assertThat(enqueued().getBody()).isNotBlank();
     }
 
     @Test
     void testSendAppointmentStatusUpdateEmail_CompletedStatus() {
         // Arrange
-        doNothing().when(mailSender).send(any(MimeMessage.class));
         testAppointment.setStatus(AppointmentStatus.COMPLETED);
 
-        // Act - Ne doit pas lever d'exception
+        // Act
         emailService.sendAppointmentStatusUpdateEmail(testAppointment, "CONFIRMED");
 
-        // Assert - La méthode async a été appelée sans erreur
+        // Assert
+        assertThat(enqueued().getBody()).isNotBlank();
+    }
+
+    @Test
+    void testSendRecurringAppointmentsEmails_OneEmailPerRecipient() {
+        // Arrange
+        testPatient.setEmail("patient@example.com");
+        testDoctor.setEmail("doctor@example.com");
+        Appointment secondAppointment = Appointment.builder()
+                .id(101L)
+                .doctor(testDoctor)
+                .patient(testPatient)
+                .appointmentDateTime(testAppointment.getAppointmentDateTime().plusWeeks(1))
+                .status(AppointmentStatus.PENDING)
+                .build();
+        List<Appointment> series = List.of(testAppointment, secondAppointment);
+
+        // Act
+        emailService.sendRecurringAppointmentsConfirmationEmail(series);
+        emailService.sendRecurringAppointmentsNotificationToDoctor(series);
+
+        // Assert - Un seul email par destinataire pour toute la série
+        verify(emailOutboxRepository, times(2)).save(any(EmailOutboxMessage.class));
+    }
+
+    private EmailOutboxMessage enqueued() {
+        ArgumentCaptor<EmailOutboxMessage> captor = ArgumentCaptor.forClass(EmailOutboxMessage.class);
+        verify(emailOutboxRepository).save(captor.capture());
+        return captor.getValue();
     }
 }
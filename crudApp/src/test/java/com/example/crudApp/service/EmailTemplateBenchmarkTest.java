@@ -0,0 +1,55 @@
+package com.example.crudApp.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Durées du rendu par gabarits précompilés comparées aux anciens constructeurs String.format
+ * L'égalité du contenu est vérifiée par EmailTemplateLegacyOutputTest ; ce test, exclu du build, se lance
+ * avec mvn test -Pbenchmark (mesure complète avec -Demail.benchmark.renders=1000000)
+ */
+@Tag("benchmark")
+class EmailTemplateBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailTemplateBenchmarkTest.class);
+
+    private final EmailTemplateRenderer renderer = new EmailTemplateRenderer();
+    private final int renders = Integer.getInteger("email.benchmark.renders", 50_000);
+
+    @Test
+    void reminder_RenderDuration() {
+        compare("rappel", EmailTemplateLegacyOutputTest.legacyReminder(), EmailTemplateLegacyOutputTest.reminder(renderer));
+    }
+
+    @Test
+    void welcome_RenderDuration() {
+        compare("bienvenue", EmailTemplateLegacyOutputTest.legacyWelcome(), EmailTemplateLegacyOutputTest.welcome(renderer));
+    }
+
+    private void compare(String email, IntFunction<String> legacy, IntFunction<String> template) {
+        // Chauffe, puis mesure
+        run(legacy, renders / 10);
+        run(template, renders / 10);
+        long legacyMs = run(legacy, renders);
+        long templateMs = run(template, renders);
+
+        logger.info("Email {}, {} rendus : String.format {} ms, gabarit {} ms (x{})",
+                email, renders, legacyMs, templateMs, String.format("%.2f", (double) legacyMs / Math.max(1, templateMs)));
+    }
+
+    private static long run(IntFunction<String> render, int count) {
+        long start = System.nanoTime();
+        long length = 0;
+        for (int i = 0; i < count; i++) {
+            length += render.apply(i).length();
+        }
+        assertThat(length).isPositive();
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
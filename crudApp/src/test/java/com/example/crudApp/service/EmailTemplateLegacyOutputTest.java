@@ -0,0 +1,130 @@
+package com.example.crudApp.service;
+
+import com.example.crudApp.model.EmailType;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Rendu par gabarits précompilés comparé aux anciens constructeurs String.format (copiés ci-dessous)
+ * Le contenu doit être identique ; les durées sont mesurées par EmailTemplateBenchmarkTest.
+ */
+class EmailTemplateLegacyOutputTest {
+
+    static final String[] NAMES = {"Marie Martin", "Jean Dupont", "Sophie Bernard", "Luc Petit"};
+    static final LocalDateTime DATE_TIME = LocalDateTime.of(2025, 3, 11, 9, 30);
+
+    private final EmailTemplateRenderer renderer = new EmailTemplateRenderer();
+
+    @Test
+    void reminder_ShouldMatchLegacyBuilder() {
+        assertSameOutput(legacyReminder(), reminder(renderer));
+    }
+
+    @Test
+    void welcome_ShouldMatchLegacyBuilder() {
+        assertSameOutput(legacyWelcome(), welcome(renderer));
+    }
+
+    private static void assertSameOutput(IntFunction<String> legacy, IntFunction<String> template) {
+        for (int i = 0; i < 64; i++) {
+            assertThat(template.apply(i)).isEqualTo(legacy.apply(i));
+        }
+    }
+
+    static IntFunction<String> legacyReminder() {
+        return i -> legacyReminder(NAMES[i & 3], NAMES[(i + 1) & 3], DATE_TIME.plusMinutes(i));
+    }
+
+    static IntFunction<String> reminder(EmailTemplateRenderer renderer) {
+        return i -> renderer.render(EmailType.REMINDER, Map.of(
+                "patientName", NAMES[i & 3],
+                "doctorName", NAMES[(i + 1) & 3],
+                "appointmentDate", DATE_TIME.plusMinutes(i).format(EmailTemplateRenderer.APPOINTMENT_DATE_FORMATTER)));
+    }
+
+    static IntFunction<String> legacyWelcome() {
+        return i -> legacyWelcome(NAMES[i & 3], "user" + i, "user" + i + "@example.com");
+    }
+
+    static IntFunction<String> welcome(EmailTemplateRenderer renderer) {
+        return i -> renderer.render(EmailType.WELCOME, Map.of(
+                "greeting", "",
+                "fullName", NAMES[i & 3],
+                "username", "user" + i,
+                "email", "user" + i + "@example.com",
+                "accountType", "Patient",
+                "specificMessage", "En tant que patient, vous pouvez maintenant rechercher des médecins et prendre rendez-vous en ligne."));
+    }
+
+    private static String legacyReminder(String patientName, String doctorName, LocalDateTime appointmentDateTime) {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy à HH:mm");
+        String appointmentDate = appointmentDateTime.format(formatter);
+        return String.format("""
+                <h2>Bonjour %s,</h2>
+                <p>Rappel : vous avez un rendez-vous avec Dr. %s demain (%s)</p>
+                """, patientName, doctorName, appointmentDate);
+    }
+
+    private static String legacyWelcome(String fullName, String username, String email) {
+        String appName = "Wi-M-dicalE";
+        return String.format("""
+        <!DOCTYPE html>
+        <html>
+        <head>
+            <style>
+                body { font-family: Arial, sans-serif; line-height: 1.6; color: #333; }
+                .container { max-width: 600px; margin: 0 auto; padding: 20px; }
+                .header { background-color: #4CAF50; color: white; padding: 20px; text-align: center; border-radius: 5px 5px 0 0; }
+                .content { background-color: #f9f9f9; padding: 20px; border: 1px solid #ddd; }
+                .info-box { background-color: white; padding: 15px; margin: 15px 0; border-left: 4px solid #4CAF50; }
+                .footer { text-align: center; padding: 20px; color: #777; font-size: 12px; }
+            </style>
+        </head>
+        <body>
+            <div class="container">
+                <div class="header">
+                    <h1>🎉 Bienvenue sur %s !</h1>
+                </div>
+                <div class="content">
+                    <h2>Bonjour %s%s,</h2>
+                    <p>Nous sommes ravis de vous accueillir sur notre plateforme de gestion de rendez-vous médicaux !</p>
+
+                    <div class="info-box">
+                        <h3>✅ Votre compte a été créé avec succès</h3>
+                        <p><strong>Nom d'utilisateur :</strong> %s</p>
+                        <p><strong>Email :</strong> %s</p>
+                        <p><strong>Type de compte :</strong> %s</p>
+                    </div>
+
+                    <div class="info-box">
+                        <h3>🚀 Prochaines étapes</h3>
+                        <p>%s</p>
+                        <ul>
+                            <li>Connectez-vous à votre espace personnel</li>
+                            <li>Complétez votre profil</li>
+                            <li>Explorez toutes les fonctionnalités disponibles</li>
+                        </ul>
+                    </div>
+
+                    <p>Si vous avez des questions ou besoin d'aide, n'hésitez pas à nous contacter.</p>
+                    <p>Cordialement,<br>L'équipe %s</p>
+                </div>
+                <div class="footer">
+                    <p>Cet email a été envoyé automatiquement, merci de ne pas y répondre.</p>
+                    <p>© 2025 %s - Tous droits réservés</p>
+                </div>
+            </div>
+        </body>
+        </html>
+        """,
+                appName, "", fullName, username, email, "Patient",
+                "En tant que patient, vous pouvez maintenant rechercher des médecins et prendre rendez-vous en ligne.",
+                appName, appName);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.crudApp.service;
+
+import com.example.crudApp.model.EmailType;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EmailTemplateRendererTest {
+
+    private final EmailTemplateRenderer renderer = new EmailTemplateRenderer();
+
+    @Test
+    void parse_ShouldAlternateStaticFragmentsAndVariables() {
+        // Given
+        EmailTemplate template = EmailTemplate.parse("test.html", "<p>{{ name }} : {{{list}}}</p>");
+        StringBuilder out = new StringBuilder();
+
+        // When
+        template.renderTo(out, Map.of("name", "Marie", "list", "<ul></ul>"));
+
+        // Then
+        assertThat(out).hasToString("<p>Marie : <ul></ul></p>");
+        assertThat(template.getStaticLength()).isEqualTo("<p> : </p>".length());
+    }
+
+    @Test
+    void parse_ShouldFail_WhenVariableIsNotClosed() {
+        assertThatThrownBy(() -> EmailTemplate.parse("broken.html", "<p>{{name</p>"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("broken.html");
+    }
+
+    @Test
+    void render_ShouldEscapeHtmlInValues() {
+        // When
+        String body = renderer.render(EmailType.REMINDER, Map.of(
+                "patientName", "<script>alert('x')</script>",
+                "doctorName", "Martin & Fils",
+                "appointmentDate", "11/03/2025 à 09:00"));
+
+        // Then
+        assertThat(body)
+                .contains("Bonjour &lt;script&gt;alert(&#39;x&#39;)&lt;/script&gt;,")
+                .contains("Dr. Martin &amp; Fils demain (11/03/2025 à 09:00)")
+                .doesNotContain("<script>");
+    }
+
+    @Test
+    void render_ShouldFail_WhenVariableIsMissing() {
+        Map<String, Object> model = new HashMap<>();
+        model.put("patientName", "Marie");
+
+        assertThatThrownBy(() -> renderer.render(EmailType.REMINDER, model))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("doctorName");
+    }
+
+    @Test
+    void render_ShouldReuseBufferWithoutLeakingPreviousRender() {
+        // Given
+        String first = renderer.render(EmailType.REMINDER, Map.of(
+                "patientName", "Un nom de patient nettement plus long", "doctorName", "Dupont", "appointmentDate", "d1"));
+
+        // When
+        String second = renderer.render(EmailType.REMINDER, Map.of(
+                "patientName", "Marie", "doctorName", "Dupont", "appointmentDate", "d2"));
+
+        // Then
+        assertThat(first).contains("Un nom de patient nettement plus long");
+        assertThat(second).doesNotContain("nettement").endsWith("demain (d2)</p>\n");
+    }
+}
@@ -0,0 +1,397 @@
+package com.example.crudApp.service;
+
+import com.example.crudApp.dto.PatientSearchCriteria;
+import com.example.crudApp.exception.ExportLimitExceededException;
+import com.example.crudApp.exception.ExportNotReadyException;
+import com.example.crudApp.exception.ResourceNotFoundException;
+import com.example.crudApp.model.ExportFormat;
+import com.example.crudApp.model.ExportJob;
+import com.example.crudApp.model.ExportJobStatus;
+import com.example.crudApp.repository.ExportJobRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour ExportJobService
+ */
+@ExtendWith(MockitoExtension.class)
+class ExportJobServiceTest {
+
+    @Mock
+    private PatientExportService patientExportService;
+
+    @Mock
+    private ParallelPatientExporter parallelPatientExporter;
+
+    @Mock
+    private ExportJobRepository exportJobRepository;
+
+    @Mock
+    private JobLeaseService jobLeaseService;
+
+    @TempDir
+    Path storageDir;
+
+    private MutableClock clock;
+    private ThreadPoolExecutor executor;
+    private ExportJobService exportJobService;
+    private PatientSearchCriteria criteria;
+
+    // Table export_jobs partagée par les instances, simulée en mémoire
+    private final Map<String, ExportJob> table = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        executor = new ThreadPoolExecutor(2, 2, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1));
+        clock = new MutableClock(Instant.parse("2025-03-10T08:00:00Z"));
+        exportJobService = newInstance(executor);
+        criteria = new PatientSearchCriteria();
+        lenient().when(patientExportService.supports(any())).thenReturn(true);
+        lenient().when(parallelPatientExporter.supports(any())).thenReturn(false);
+
+        lenient().when(exportJobRepository.save(any(ExportJob.class))).thenAnswer(invocation -> {
+            ExportJob job = invocation.getArgument(0);
+            table.put(job.getId(), job);
+            return job;
+        });
+        lenient().when(exportJobRepository.findById(any())).thenAnswer(invocation ->
+                Optional.ofNullable(table.get(invocation.<String>getArgument(0))));
+        lenient().doAnswer(invocation -> table.remove(invocation.<String>getArgument(0)))
+                .when(exportJobRepository).deleteById(any());
+        lenient().doAnswer(invocation -> table.remove(invocation.<ExportJob>getArgument(0).getId()))
+                .when(exportJobRepository).delete(any(ExportJob.class));
+        lenient().when(exportJobRepository.countByUsernameAndStatusIn(any(), any())).thenAnswer(invocation -> {
+            String username = invocation.getArgument(0);
+            Collection<ExportJobStatus> statuses = invocation.getArgument(1);
+            return table.values().stream()
+                    .filter(job -> job.getUsername().equals(username) && statuses.contains(job.getStatus()))
+                    .count();
+        });
+        lenient().when(exportJobRepository.findByStatusInAndUpdatedAtBefore(any(), any())).thenAnswer(invocation -> {
+            Collection<ExportJobStatus> statuses = invocation.getArgument(0);
+            LocalDateTime before = invocation.getArgument(1);
+            return table.values().stream()
+                    .filter(job -> statuses.contains(job.getStatus()) && job.getUpdatedAt().isBefore(before))
+                    .toList();
+        });
+        lenient().when(exportJobRepository.markCompleted(any(), anyLong(), any(), any())).thenAnswer(invocation ->
+                table.containsKey(invocation.<String>getArgument(0)) ? 1 : 0);
+        lenient().when(exportJobRepository.markFailed(any(), anyLong(), any(), any())).thenAnswer(invocation ->
+                table.containsKey(invocation.<String>getArgument(0)) ? 1 : 0);
+        lenient().when(jobLeaseService.runExclusively(anyString(), any(), any(), any())).thenAnswer(invocation -> {
+            invocation.<Runnable>getArgument(3).run();
+            return true;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void submit_ShouldWriteFileAndTrackProgress() throws Exception {
+        // Given
+        when(patientExportService.count(criteria)).thenReturn(2L);
+        when(patientExportService.export(eq(ExportFormat.CSV), eq(criteria), any(OutputStream.class), any(AtomicLong.class)))
+                .thenAnswer(invocation -> {
+                    OutputStream outputStream = invocation.getArgument(2);
+                    AtomicLong processedRows = invocation.getArgument(3);
+                    outputStream.write("ID,Nom\n1,A\n2,B\n".getBytes(StandardCharsets.UTF_8));
+                    processedRows.addAndGet(2);
+                    return 2L;
+                });
+
+        // When
+        ExportJob job = exportJobService.submit(ExportFormat.CSV, criteria, "doctor");
+        awaitDone(job);
+
+        // Then
+        ExportJob completed = exportJobService.getCompletedJob(job.getId(), "doctor");
+        assertThat(completed.getStatus()).isEqualTo(ExportJobStatus.COMPLETED);
+        assertThat(completed.getProgress()).isEqualTo(100);
+        assertThat(completed.getProcessedRows()).isEqualTo(2);
+        assertThat(completed.getTotalRows()).isEqualTo(2);
+        assertThat(completed.getFile()).startsWith(storageDir).hasFileName(job.getId() + ".csv");
+        assertThat(Files.readString(completed.getFile())).contains("2,B");
+    }
+
+    @Test
+    void submit_ShouldUseParallelExporter_WhenFormatIsSupported() throws Exception {
+        // Given
+        when(parallelPatientExporter.supports(ExportFormat.EXCEL)).thenReturn(true);
+        when(patientExportService.count(criteria)).thenReturn(1L);
+        when(parallelPatientExporter.export(eq(ExportFormat.EXCEL), eq(criteria), any(OutputStream.class), any(AtomicLong.class)))
+                .thenAnswer(invocation -> {
+                    AtomicLong processedRows = invocation.getArgument(3);
+                    processedRows.incrementAndGet();
+                    return 1L;
+                });
+
+        // When
+        ExportJob job = exportJobService.submit(ExportFormat.EXCEL, criteria, "doctor");
+        awaitDone(job);
+
+        // Then
+        assertThat(job.getStatus()).isEqualTo(ExportJobStatus.COMPLETED);
+        assertThat(job.getProcessedRows()).isEqualTo(1);
+        verify(patientExportService, never()).export(any(), any(), any(), any());
+    }
+
+    @Test
+    void submit_ShouldLimitActiveJobsPerUser() throws Exception {
+        // Given : un export bloqué jusqu'à la fin du test
+        CountDownLatch release = new CountDownLatch(1);
+        when(patientExportService.export(any(), any(), any(), any())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return 0L;
+        });
+        ExportJob running = exportJobService.submit(ExportFormat.EXCEL, criteria, "doctor");
+
+        // When & Then : le même utilisateur est refusé, un autre ne l'est pas
+        assertThatThrownBy(() -> exportJobService.submit(ExportFormat.PDF, criteria, "doctor"))
+                .isInstanceOf(ExportLimitExceededException.class);
+        ExportJob other = exportJobService.submit(ExportFormat.PDF, criteria, "other");
+        assertThat(other.isActive()).isTrue();
+
+        release.countDown();
+        awaitDone(running);
+        awaitDone(other);
+        assertThat(exportJobService.submit(ExportFormat.CSV, criteria, "doctor")).isNotNull();
+    }
+
+    @Test
+    void submit_ShouldRejectWhenQueueIsFull() throws Exception {
+        // Given : deux threads occupés et une place dans la file
+        CountDownLatch release = new CountDownLatch(1);
+        when(patientExportService.export(any(), any(), any(), any())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return 0L;
+        });
+        exportJobService.submit(ExportFormat.CSV, criteria, "user-1");
+        exportJobService.submit(ExportFormat.CSV, criteria, "user-2");
+        exportJobService.submit(ExportFormat.CSV, criteria, "user-3");
+
+        // When & Then
+        assertThatThrownBy(() -> exportJobService.submit(ExportFormat.CSV, criteria, "user-4"))
+                .isInstanceOf(ExportLimitExceededException.class);
+        assertThat(table).hasSize(3);
+        release.countDown();
+    }
+
+    @Test
+    void submit_ShouldRejectUnsupportedFormat() {
+        // Given
+        when(patientExportService.supports(ExportFormat.PDF)).thenReturn(false);
+
+        // When & Then
+        assertThatThrownBy(() -> exportJobService.submit(ExportFormat.PDF, criteria, "doctor"))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoMoreInteractions(patientExportService);
+    }
+
+    @Test
+    void run_ShouldMarkJobFailed_AndDeleteFile() throws Exception {
+        // Given
+        when(patientExportService.export(any(), any(), any(), any())).thenThrow(new IllegalStateException("boom"));
+
+        // When
+        ExportJob job = exportJobService.submit(ExportFormat.CSV, criteria, "doctor");
+        awaitDone(job);
+
+        // Then
+        assertThat(job.getStatus()).isEqualTo(ExportJobStatus.FAILED);
+        assertThat(job.getError()).isNotBlank();
+        assertThat(storageDir.resolve(job.getId() + ".csv")).doesNotExist();
+        assertThatThrownBy(() -> exportJobService.getCompletedJob(job.getId(), "doctor"))
+                .isInstanceOf(ExportNotReadyException.class);
+    }
+
+    @Test
+    void run_ShouldKeepJobFailed_WhenAnotherInstanceClosedItMeanwhile() throws Exception {
+        // Given : l'export a été marqué en échec par une autre instance pendant la génération
+        when(patientExportService.count(criteria)).thenReturn(1L);
+        when(patientExportService.export(any(), any(), any(), any())).thenReturn(1L);
+        doReturn(0).when(exportJobRepository).markCompleted(any(), anyLong(), any(), any());
+
+        // When
+        ExportJob job = exportJobService.submit(ExportFormat.CSV, criteria, "doctor");
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+
+        // Then : le statut en base n'est pas écrasé et le fichier est abandonné
+        verify(exportJobRepository).markCompleted(eq(job.getId()), eq(1L), any(), any());
+        verify(exportJobRepository, never()).markFailed(any(), anyLong(), any(), any());
+        assertThat(storageDir.resolve(job.getId() + ".csv")).doesNotExist();
+    }
+
+    @Test
+    void getJob_ShouldHideJobsOfOtherUsers() throws Exception {
+        // Given
+        ExportJob job = exportJobService.submit(ExportFormat.CSV, criteria, "doctor");
+        awaitDone(job);
+
+        // When & Then
+        assertThat(exportJobService.getJob(job.getId(), "doctor")).isSameAs(job);
+        assertThatThrownBy(() -> exportJobService.getJob(job.getId(), "other"))
+                .isInstanceOf(ResourceNotFoundException.class);
+        assertThatThrownBy(() -> exportJobService.getJob("unknown", "doctor"))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void purgeExpiredJobs_ShouldRemoveFinishedJobsAndFiles() throws Exception {
+        // Given
+        ExportJob job = exportJobService.submit(ExportFormat.CSV, criteria, "doctor");
+        awaitDone(job);
+        Path file = job.getFile();
+        assertThat(file).exists();
+
+        // When : encore conservé après 30 minutes, supprimé après 2 heures
+        clock.advance(Duration.ofMinutes(30));
+        exportJobService.purgeExpiredJobs();
+        assertThat(table).hasSize(1);
+        clock.advance(Duration.ofMinutes(90));
+        exportJobService.purgeExpiredJobs();
+
+        // Then
+        assertThat(table).isEmpty();
+        assertThat(file).doesNotExist();
+    }
+
+    @Test
+    void getCompletedJob_ShouldBeServedByAnotherInstance() throws Exception {
+        // Given : export exécuté par une instance, fichier dans le répertoire partagé
+        ExportJob job = exportJobService.submit(ExportFormat.CSV, criteria, "doctor");
+        awaitDone(job);
+        ThreadPoolExecutor otherExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1));
+        ExportJobService otherInstance = newInstance(otherExecutor);
+
+        // When
+        ExportJob served = otherInstance.getCompletedJob(job.getId(), "doctor");
+
+        // Then
+        assertThat(served.getFile()).isEqualTo(job.getFile()).exists();
+        otherExecutor.shutdownNow();
+    }
+
+    @Test
+    void reportProgress_ShouldPublishLocalProgress_AsHeartbeat() throws Exception {
+        // Given : un export en cours, bloqué après 5 lignes
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch written = new CountDownLatch(1);
+        when(patientExportService.count(criteria)).thenReturn(10L);
+        when(patientExportService.export(any(), any(), any(), any())).thenAnswer(invocation -> {
+            invocation.<AtomicLong>getArgument(3).addAndGet(5);
+            written.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return 5L;
+        });
+        ExportJob job = exportJobService.submit(ExportFormat.CSV, criteria, "doctor");
+        assertThat(written.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When
+        exportJobService.reportProgress();
+
+        // Then
+        verify(exportJobRepository).updateProgress(job.getId(), 5L, LocalDateTime.now(clock));
+        release.countDown();
+        awaitDone(job);
+    }
+
+    @Test
+    void purgeExpiredJobs_ShouldFailJobsAbandonedByAStoppedInstance() {
+        // When
+        clock.advance(Duration.ofMinutes(20));
+        exportJobService.purgeExpiredJobs();
+
+        // Then
+        LocalDateTime now = LocalDateTime.now(clock);
+        verify(exportJobRepository).failStale(eq(now.minusMinutes(10)), eq(now), anyString());
+    }
+
+    @Test
+    void purgeExpiredJobs_ShouldDoNothing_WhenLeaseIsHeldElsewhere() {
+        // Given
+        doReturn(false).when(jobLeaseService).runExclusively(anyString(), any(), any(), any());
+
+        // When
+        exportJobService.purgeExpiredJobs();
+
+        // Then
+        verify(exportJobRepository, never()).failStale(any(), any(), any());
+        verify(exportJobRepository, never()).findByStatusInAndUpdatedAtBefore(any(), any());
+    }
+
+    private ExportJobService newInstance(ThreadPoolExecutor instanceExecutor) {
+        return new ExportJobService(patientExportService, parallelPatientExporter, exportJobRepository, jobLeaseService,
+                clock, storageDir, instanceExecutor, 1, 60, 10);
+    }
+
+    private void awaitDone(ExportJob job) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (job.isActive() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(job.isActive()).as("Export %s terminé", job.getId()).isFalse();
+    }
+
+    private static final class MutableClock extends Clock {
+        private volatile Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
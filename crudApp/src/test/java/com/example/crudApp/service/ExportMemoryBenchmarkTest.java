@@ -0,0 +1,101 @@
+package com.example.crudApp.service;
+
+import com.example.crudApp.model.Patient;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Mémoire des exports en flux (Excel SXSSF, PDF par blocs) selon le nombre de lignes
+ * Le tas retenu en fin d'écriture doit rester plat quand le volume augmente.
+ * La mesure repose sur System.gc(), qui n'est qu'une indication : le test est exclu du build et se lance
+ * avec mvn test -Pbenchmark (mesure complète avec -Dexport.benchmark.rows=10000,100000,1000000)
+ */
+@Tag("benchmark")
+class ExportMemoryBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportMemoryBenchmarkTest.class);
+
+    private static final long MAX_HEAP_GROWTH_BYTES = 32L * 1024 * 1024;
+
+    private final ExportService exportService = new ExportService();
+
+    @FunctionalInterface
+    private interface ExportWriter {
+        long write(Stream<Patient> patients, OutputStream outputStream) throws Exception;
+    }
+
+    @Test
+    void writePatientsToExcel_ShouldKeepHeapFlat_WhenRowsGrow() throws Exception {
+        assertHeapStaysFlat("Excel", exportService::writePatientsToExcel);
+    }
+
+    @Test
+    void writePatientsToPDF_ShouldKeepHeapFlat_WhenRowsGrow() throws Exception {
+        assertHeapStaysFlat("PDF", exportService::writePatientsToPDF);
+    }
+
+    private void assertHeapStaysFlat(String format, ExportWriter writer) throws Exception {
+        long[] sizes = Arrays.stream(System.getProperty("export.benchmark.rows", "10000,50000").split(","))
+                .map(String::trim)
+                .mapToLong(Long::parseLong)
+                .toArray();
+        long[] retainedHeap = new long[sizes.length];
+
+        for (int run = 0; run < sizes.length; run++) {
+            long rows = sizes[run];
+            long[] heapBeforeLastRow = new long[1];
+            Stream<Patient> patients = LongStream.rangeClosed(1, rows).mapToObj(id -> {
+                if (id == rows) {
+                    heapBeforeLastRow[0] = usedHeapAfterGc();
+                }
+                return patient(id);
+            });
+
+            long start = System.nanoTime();
+            long written = writer.write(patients, OutputStream.nullOutputStream());
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+            assertThat(written).isEqualTo(rows);
+            retainedHeap[run] = heapBeforeLastRow[0];
+            logger.info("Export {} : {} lignes en {} ms, tas retenu {} Ko",
+                    format, rows, elapsedMs, retainedHeap[run] / 1024);
+        }
+
+        assertThat(retainedHeap[sizes.length - 1] - retainedHeap[0])
+                .as("Croissance du tas %s entre %d et %d lignes", format, sizes[0], sizes[sizes.length - 1])
+                .isLessThan(MAX_HEAP_GROWTH_BYTES);
+    }
+
+    private Patient patient(long id) {
+        Patient patient = new Patient();
+        patient.setId(id);
+        patient.setName("Patient " + id);
+        patient.setEmail("patient" + id + "@example.com");
+        patient.setAge((int) (id % 90));
+        patient.setAddress(id + " rue de la République, Lyon");
+        patient.setBloodType("O+");
+        patient.setAllergies("Pénicilline, Pollen");
+        patient.setPhoneNumber("06" + String.format("%08d", id % 100_000_000));
+        patient.setInsuranceNumber(String.format("%013d", id));
+        patient.setLastVisit(LocalDate.of(2024, 1, 1).plusDays(id % 365));
+        patient.setIsActive(id % 10 != 0);
+        return patient;
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
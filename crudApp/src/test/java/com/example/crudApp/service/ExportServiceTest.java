@@ -2,16 +2,26 @@ package com.example.crudApp.service;
 
 import com.example.crudApp.model.Patient;
 import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.parser.PdfTextExtractor;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -95,6 +105,22 @@ class ExportServiceTest {
         assertThat(csvContent).contains("ID,Nom,Email");
     }
 
+    @Test
+    void writePatientsToCSV_ShouldStreamUtf8Rows_AndCountThem() throws IOException {
+        // Given
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // When
+        long rows = exportService.writePatientsToCSV(testPatients.stream(), outputStream);
+
+        // Then
+        String csvContent = outputStream.toString(StandardCharsets.UTF_8);
+        assertThat(rows).isEqualTo(2);
+        assertThat(csvContent).isEqualTo(exportService.exportPatientsToCSV(testPatients));
+        assertThat(csvContent.split("\r\n")).hasSize(3);
+        assertThat(csvContent).contains("Pénicilline");
+    }
+
     @Test
     void exportPatientsToExcel_ShouldGenerateValidExcel() throws IOException {
         // When
@@ -140,6 +166,26 @@ class ExportServiceTest {
         assertThat(excelContent.length).isGreaterThan(0);
     }
 
+    @Test
+    void writePatientsToExcel_ShouldStreamRows_AndEstimateColumnWidths() throws IOException {
+        // Given
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // When
+        long rows = exportService.writePatientsToExcel(testPatients.stream(), outputStream);
+
+        // Then
+        assertThat(rows).isEqualTo(2);
+        try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            Sheet sheet = workbook.getSheet("Patients");
+            assertThat(sheet.getLastRowNum()).isEqualTo(2);
+            assertThat(sheet.getRow(1).getCell(1).getStringCellValue()).isEqualTo("Jean Dupont");
+            assertThat(sheet.getRow(2).getCell(12).getStringCellValue()).isEqualTo("Archivé");
+            // "sophie.martin@example.com" (25 caractères) + marge
+            assertThat(sheet.getColumnWidth(2)).isEqualTo(27 * 256);
+        }
+    }
+
     @Test
     void exportPatientsToPDF_ShouldGenerateValidPDF() throws DocumentException {
         // When
@@ -152,6 +198,37 @@ class ExportServiceTest {
         assertThat(new String(pdfContent, 0, 4)).isEqualTo("%PDF");
     }
 
+    @Test
+    void writePatientsToPDF_ShouldFlushTableInChunks_AndRepeatHeaderOnEachPage() throws Exception {
+        // Given : plusieurs blocs de lignes
+        int count = 1200;
+        Stream<Patient> patients = IntStream.rangeClosed(1, count).mapToObj(i -> {
+            Patient patient = new Patient();
+            patient.setId((long) i);
+            patient.setName("Patient " + i);
+            patient.setEmail("patient" + i + "@example.com");
+            patient.setAge(40);
+            patient.setIsActive(true);
+            return patient;
+        });
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // When
+        long rows = exportService.writePatientsToPDF(patients, outputStream);
+
+        // Then
+        assertThat(rows).isEqualTo(count);
+        PdfReader reader = new PdfReader(outputStream.toByteArray());
+        try {
+            int pages = reader.getNumberOfPages();
+            assertThat(pages).isGreaterThan(1);
+            assertThat(PdfTextExtractor.getTextFromPage(reader, 2)).contains("Groupe Sanguin");
+            assertThat(PdfTextExtractor.getTextFromPage(reader, pages)).contains("Patient " + count, "Document confidentiel");
+        } finally {
+            reader.close();
+        }
+    }
+
     @Test
     void exportPatientsToPDF_ShouldHandleEmptyList() throws DocumentException {
         // Given
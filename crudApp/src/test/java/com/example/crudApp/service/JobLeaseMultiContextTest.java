@@ -0,0 +1,108 @@
+package com.example.crudApp.service;
+
+import com.example.crudApp.CrudAppApplication;
+import com.example.crudApp.config.TestSecurityConfig;
+import com.example.crudApp.model.Appointment;
+import com.example.crudApp.model.AppointmentStatus;
+import com.example.crudApp.model.MedicalSpecialty;
+import com.example.crudApp.model.User;
+import com.example.crudApp.model.UserType;
+import com.example.crudApp.repository.AppointmentRepository;
+import com.example.crudApp.repository.UserRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Baux des tâches planifiées entre deux contextes d'application démarrés dans la même JVM
+ * Chaque contexte est une instance complète de l'application (son propre JobLeaseService, son propre pool
+ * de connexions) ; les deux partagent la base H2 nommée, comme deux instances partagent la base MySQL.
+ */
+class JobLeaseMultiContextTest {
+
+    private static final String DATABASE_URL = "jdbc:h2:mem:leases;DB_CLOSE_DELAY=-1";
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    static void startNodes() {
+        nodeA = startNode();
+        nodeB = startNode();
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        if (nodeA != null) {
+            nodeA.getBean(JdbcTemplate.class).execute("DROP ALL OBJECTS");
+            nodeA.close();
+        }
+        if (nodeB != null) {
+            nodeB.close();
+        }
+    }
+
+    @Test
+    void sendAppointmentReminders_ShouldRunOnOneNodeOnly() {
+        // Given : un rendez-vous confirmé dans la fenêtre des rappels
+        UserRepository userRepository = nodeA.getBean(UserRepository.class);
+        AppointmentRepository appointmentRepository = nodeA.getBean(AppointmentRepository.class);
+        String suffix = String.valueOf(System.nanoTime());
+        User doctor = userRepository.save(User.builder()
+                .username("lease-doctor-" + suffix)
+                .password("password")
+                .userType(UserType.DOCTOR)
+                .specialty(MedicalSpecialty.CARDIOLOGIE)
+                .build());
+        User patient = userRepository.save(User.builder()
+                .username("lease-patient-" + suffix)
+                .password("password")
+                .email("lease-patient-" + suffix + "@example.com")
+                .userType(UserType.PATIENT)
+                .build());
+        LocalDateTime tomorrow = LocalDateTime.now().plusHours(24).truncatedTo(ChronoUnit.MINUTES);
+        appointmentRepository.save(confirmed(doctor, patient, tomorrow));
+
+        // When : le nœud A exécute la tâche ; un nouveau rendez-vous arrive, puis le nœud B atteint la même échéance
+        nodeA.getBean(AppointmentReminderService.class).sendAppointmentReminders();
+        Appointment late = appointmentRepository.save(confirmed(doctor, patient, tomorrow.plusMinutes(30)));
+        nodeB.getBean(AppointmentReminderService.class).sendAppointmentReminders();
+
+        // Then : B a trouvé le bail pris par A (lockAtLeastFor) et n'a rien envoyé
+        Integer queued = nodeB.getBean(JdbcTemplate.class).queryForObject(
+                "SELECT COUNT(*) FROM email_outbox WHERE recipient = ?", Integer.class, patient.getEmail());
+        assertThat(queued).isEqualTo(1);
+        assertThat(appointmentRepository.findById(late.getId()).orElseThrow().getReminderSentAt()).isNull();
+    }
+
+    private static ConfigurableApplicationContext startNode() {
+        return new SpringApplicationBuilder(CrudAppApplication.class, TestSecurityConfig.class)
+                .profiles("test")
+                .properties(
+                        "spring.datasource.url=" + DATABASE_URL,
+                        "spring.datasource.username=sa",
+                        "spring.datasource.password=",
+                        // Le premier nœud crée le schéma, le second le réutilise
+                        "spring.jpa.hibernate.ddl-auto=update",
+                        "server.port=0")
+                .run();
+    }
+
+    private static Appointment confirmed(User doctor, User patient, LocalDateTime dateTime) {
+        return Appointment.builder()
+                .doctor(doctor)
+                .patient(patient)
+                .appointmentDateTime(dateTime)
+                .status(AppointmentStatus.CONFIRMED)
+                .reason("Consultation")
+                .build();
+    }
+}
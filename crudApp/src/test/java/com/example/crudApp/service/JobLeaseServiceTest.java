@@ -0,0 +1,171 @@
+package com.example.crudApp.service;
+
+import com.example.crudApp.config.TestSecurityConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Baux des tâches planifiées sur une base réelle
+ * Chaque instance de JobLeaseService joue le rôle d'un nœud avec son propre identifiant et une horloge
+ * contrôlée ; toutes partagent la table job_leases de la base H2. Le scénario avec deux contextes
+ * d'application complets est couvert par JobLeaseMultiContextTest.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestSecurityConfig.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+class JobLeaseServiceTest {
+
+    private static final Duration AT_MOST = Duration.ofMinutes(10);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private EmailService emailService;
+
+    private MutableClock clock;
+    private JobLeaseService nodeA;
+    private JobLeaseService nodeB;
+    private String job;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2025-03-10T08:00:00Z"));
+        nodeA = new JobLeaseService(jdbcTemplate, clock, "node-a");
+        nodeB = new JobLeaseService(jdbcTemplate, clock, "node-b");
+        job = "job-" + System.nanoTime();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM job_leases WHERE name LIKE 'job-%'");
+    }
+
+    @Test
+    void runExclusively_ShouldSkip_WhileAnotherNodeRunsTheJob() {
+        // Given
+        AtomicBoolean ranOnB = new AtomicBoolean();
+
+        // When : le nœud B tente la tâche pendant que A l'exécute
+        boolean ranOnA = nodeA.runExclusively(job, AT_MOST, Duration.ZERO,
+                () -> nodeB.runExclusively(job, AT_MOST, Duration.ZERO, () -> ranOnB.set(true)));
+
+        // Then : relâché en fin de tâche, le bail est de nouveau disponible
+        assertThat(ranOnA).isTrue();
+        assertThat(ranOnB).isFalse();
+        assertThat(nodeB.runExclusively(job, AT_MOST, Duration.ZERO, () -> ranOnB.set(true))).isTrue();
+        assertThat(ranOnB).isTrue();
+    }
+
+    @Test
+    void runExclusively_ShouldKeepLease_ForLockAtLeastFor() {
+        // Given
+        nodeA.runExclusively(job, AT_MOST, Duration.ofMinutes(5), () -> { });
+
+        // When & Then : même échéance vue un peu plus tard par un autre nœud
+        clock.advance(Duration.ofMinutes(4));
+        assertThat(nodeB.runExclusively(job, AT_MOST, Duration.ZERO, () -> { })).isFalse();
+        clock.advance(Duration.ofMinutes(1));
+        assertThat(nodeB.runExclusively(job, AT_MOST, Duration.ZERO, () -> { })).isTrue();
+    }
+
+    @Test
+    void runExclusively_ShouldTakeOverExpiredLease_WhenNodeStopsDuringTheJob() {
+        // Given : le nœud A prend le bail puis s'arrête sans le relâcher
+        jdbcTemplate.update("INSERT INTO job_leases (name, locked_until, locked_at, locked_by) VALUES (?, ?, ?, ?)",
+                job, LocalDateTime.now(clock).plus(AT_MOST), LocalDateTime.now(clock), "node-a");
+
+        // When & Then
+        assertThat(nodeB.runExclusively(job, AT_MOST, Duration.ZERO, () -> { })).isFalse();
+        clock.advance(AT_MOST);
+        assertThat(nodeB.runExclusively(job, AT_MOST, Duration.ZERO, () -> { })).isTrue();
+        assertThat(jdbcTemplate.queryForObject("SELECT locked_by FROM job_leases WHERE name = ?", String.class, job))
+                .isEqualTo("node-b");
+    }
+
+    @Test
+    void runExclusively_ShouldRunOnce_WhenNodesStartTheSameTickConcurrently() throws Exception {
+        // Given : quatre nœuds déclenchent la même échéance en même temps, première exécution (bail absent)
+        int nodes = 4;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(nodes);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < nodes; i++) {
+                JobLeaseService node = new JobLeaseService(jdbcTemplate, clock, "node-" + i);
+                results.add(executor.submit(() -> {
+                    start.await(5, TimeUnit.SECONDS);
+                    return node.runExclusively(job, AT_MOST, Duration.ofMinutes(5), runs::incrementAndGet);
+                }));
+            }
+
+            // When
+            start.countDown();
+            int acquired = 0;
+            for (Future<Boolean> result : results) {
+                acquired += result.get(10, TimeUnit.SECONDS) ? 1 : 0;
+            }
+
+            // Then
+            assertThat(acquired).isEqualTo(1);
+            assertThat(runs).hasValue(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+        private volatile Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.crudApp.service;
+
+import com.example.crudApp.config.TestSecurityConfig;
+import com.example.crudApp.dto.PatientSearchCriteria;
+import com.example.crudApp.model.ExportFormat;
+import com.example.crudApp.model.Patient;
+import com.example.crudApp.repository.PatientRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Durées de l'export parallèle par blocs comparées à l'export séquentiel, sur une base réelle
+ * L'équivalence du contenu est vérifiée par ParallelPatientExporterTest ; ce test, exclu du build, se lance
+ * avec mvn test -Pbenchmark (mesure complète avec -Dexport.benchmark.patients=100000)
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {"export.parallel.threads=4", "export.parallel.chunk-size=250"})
+@ActiveProfiles("test")
+@Import(TestSecurityConfig.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+class ParallelExportBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParallelExportBenchmarkTest.class);
+
+    @Autowired
+    private PatientExportService patientExportService;
+
+    @Autowired
+    private ParallelPatientExporter parallelPatientExporter;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @MockitoBean
+    private EmailService emailService;
+
+    private final List<Patient> patients = new ArrayList<>();
+    private PatientSearchCriteria criteria;
+    private int size;
+
+    @BeforeEach
+    void setUp() {
+        size = Integer.getInteger("export.benchmark.patients", 3000);
+        String suffix = String.valueOf(System.nanoTime());
+        List<Patient> batch = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Patient patient = new Patient();
+            patient.setName("Parallel " + suffix + " " + i);
+            patient.setEmail("parallel-" + i + "-" + suffix + "@example.com");
+            patient.setAge(20 + i % 60);
+            patient.setAddress(i + " rue de la République, Lyon");
+            patient.setBloodType(i % 2 == 0 ? "A+" : "O-");
+            patient.setIsActive(i % 10 != 0);
+            batch.add(patient);
+        }
+        patients.addAll(patientRepository.saveAll(batch));
+
+        criteria = new PatientSearchCriteria();
+        criteria.setName(suffix);
+    }
+
+    @AfterEach
+    void tearDown() {
+        patientRepository.deleteAllInBatch(patients);
+    }
+
+    @Test
+    void exportCSV_ParallelVersusSequential() throws Exception {
+        benchmark(ExportFormat.CSV);
+    }
+
+    @Test
+    void exportExcel_ParallelVersusSequential() throws Exception {
+        benchmark(ExportFormat.EXCEL);
+    }
+
+    private void benchmark(ExportFormat format) throws Exception {
+        long sequentialMs = timed(() -> patientExportService.export(format, criteria, OutputStream.nullOutputStream()));
+        long parallelMs = timed(() -> parallelPatientExporter.export(format, criteria, OutputStream.nullOutputStream(),
+                new AtomicLong()));
+
+        logger.info("Export {} de {} patients : séquentiel {} ms, parallèle {} ms (x{})",
+                format, size, sequentialMs, parallelMs,
+                String.format("%.2f", (double) sequentialMs / Math.max(1, parallelMs)));
+    }
+
+    @FunctionalInterface
+    private interface Export {
+        long run() throws Exception;
+    }
+
+    private long timed(Export export) throws Exception {
+        long start = System.nanoTime();
+        assertThat(export.run()).isEqualTo(size);
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
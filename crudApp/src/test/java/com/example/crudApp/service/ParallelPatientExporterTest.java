@@ -0,0 +1,122 @@
+package com.example.crudApp.service;
+
+import com.example.crudApp.config.TestSecurityConfig;
+import com.example.crudApp.dto.PatientSearchCriteria;
+import com.example.crudApp.model.ExportFormat;
+import com.example.crudApp.model.Patient;
+import com.example.crudApp.repository.PatientRepository;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * L'export parallèle par blocs doit produire le même contenu que l'export séquentiel
+ * Petits blocs pour que quelques centaines de patients couvrent plusieurs blocs et leur réordonnancement
+ */
+@SpringBootTest(properties = {"export.parallel.threads=4", "export.parallel.chunk-size=25"})
+@ActiveProfiles("test")
+@Import(TestSecurityConfig.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+class ParallelPatientExporterTest {
+
+    private static final int PATIENTS = 300;
+
+    @Autowired
+    private PatientExportService patientExportService;
+
+    @Autowired
+    private ParallelPatientExporter parallelPatientExporter;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @MockitoBean
+    private EmailService emailService;
+
+    private final List<Patient> patients = new ArrayList<>();
+    private PatientSearchCriteria criteria;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = String.valueOf(System.nanoTime());
+        List<Patient> batch = new ArrayList<>();
+        for (int i = 0; i < PATIENTS; i++) {
+            Patient patient = new Patient();
+            patient.setName("Parallel " + suffix + " " + i);
+            patient.setEmail("parallel-" + i + "-" + suffix + "@example.com");
+            patient.setAge(20 + i % 60);
+            patient.setAddress(i + " rue de la République, Lyon");
+            patient.setBloodType(i % 2 == 0 ? "A+" : "O-");
+            patient.setIsActive(i % 10 != 0);
+            batch.add(patient);
+        }
+        patients.addAll(patientRepository.saveAll(batch));
+
+        criteria = new PatientSearchCriteria();
+        criteria.setName(suffix);
+    }
+
+    @AfterEach
+    void tearDown() {
+        patientRepository.deleteAllInBatch(patients);
+    }
+
+    @Test
+    void exportCSV_ShouldMatchSequentialExport() throws Exception {
+        // Given
+        ByteArrayOutputStream sequential = new ByteArrayOutputStream();
+        ByteArrayOutputStream parallel = new ByteArrayOutputStream();
+        AtomicLong processedRows = new AtomicLong();
+
+        // When
+        long sequentialRows = patientExportService.export(ExportFormat.CSV, criteria, sequential);
+        long parallelRows = parallelPatientExporter.export(ExportFormat.CSV, criteria, parallel, processedRows);
+
+        // Then
+        assertThat(sequentialRows).isEqualTo(PATIENTS);
+        assertThat(parallelRows).isEqualTo(PATIENTS);
+        assertThat(processedRows.get()).isEqualTo(PATIENTS);
+        assertThat(parallel.toByteArray()).isEqualTo(sequential.toByteArray());
+    }
+
+    @Test
+    void exportExcel_ShouldMatchSequentialExport() throws Exception {
+        // Given
+        ByteArrayOutputStream sequential = new ByteArrayOutputStream();
+        ByteArrayOutputStream parallel = new ByteArrayOutputStream();
+
+        // When
+        patientExportService.export(ExportFormat.EXCEL, criteria, sequential);
+        long parallelRows = parallelPatientExporter.export(ExportFormat.EXCEL, criteria, parallel, new AtomicLong());
+
+        // Then : les archives diffèrent (horodatage), les cellules doivent être identiques
+        assertThat(parallelRows).isEqualTo(PATIENTS);
+        try (Workbook expected = new XSSFWorkbook(new ByteArrayInputStream(sequential.toByteArray()));
+             Workbook actual = new XSSFWorkbook(new ByteArrayInputStream(parallel.toByteArray()))) {
+            Sheet expectedSheet = expected.getSheetAt(0);
+            Sheet actualSheet = actual.getSheetAt(0);
+            assertThat(actualSheet.getLastRowNum()).isEqualTo(PATIENTS).isEqualTo(expectedSheet.getLastRowNum());
+            for (int row = 1; row <= PATIENTS; row++) {
+                assertThat(actualSheet.getRow(row).getCell(1).getStringCellValue())
+                        .isEqualTo(expectedSheet.getRow(row).getCell(1).getStringCellValue());
+            }
+        }
+    }
+}
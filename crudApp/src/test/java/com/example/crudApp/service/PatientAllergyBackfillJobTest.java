@@ -0,0 +1,94 @@
+package com.example.crudApp.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour PatientAllergyBackfillJob
+ */
+@ExtendWith(MockitoExtension.class)
+class PatientAllergyBackfillJobTest {
+
+    @Mock
+    private PatientService patientService;
+
+    @Mock
+    private JobLeaseService jobLeaseService;
+
+    @BeforeEach
+    void setUp() {
+        // Bail toujours obtenu : la tâche s'exécute directement
+        lenient().when(jobLeaseService.runExclusively(anyString(), any(), any(), any())).thenAnswer(invocation -> {
+            invocation.<Runnable>getArgument(3).run();
+            return true;
+        });
+    }
+
+    @Test
+    void run_ShouldProcessBatchesFromFirstRemainingPatient() {
+        // Given : deux lots par passage
+        PatientAllergyBackfillJob job = new PatientAllergyBackfillJob(patientService, jobLeaseService, 100, 2);
+        when(patientService.backfillAllergyEntries(0L, 100)).thenReturn(120L);
+        when(patientService.backfillAllergyEntries(120L, 100)).thenReturn(250L);
+
+        // When
+        job.run();
+
+        // Then
+        verify(patientService).backfillAllergyEntries(0L, 100);
+        verify(patientService).backfillAllergyEntries(120L, 100);
+        verifyNoMoreInteractions(patientService);
+    }
+
+    @Test
+    void run_ShouldRestartFromDatabase_OnEveryRun() {
+        // Given : les patients déjà repris ne sont plus retournés par la requête
+        PatientAllergyBackfillJob job = new PatientAllergyBackfillJob(patientService, jobLeaseService, 100, 2);
+        when(patientService.backfillAllergyEntries(0L, 100))
+                .thenReturn(120L)
+                .thenReturn(null);
+        when(patientService.backfillAllergyEntries(120L, 100)).thenReturn(null);
+
+        // When : le second passage peut être exécuté par une autre instance
+        job.run();
+        new PatientAllergyBackfillJob(patientService, jobLeaseService, 100, 2).run();
+
+        // Then
+        verify(patientService, times(2)).backfillAllergyEntries(0L, 100);
+        verify(patientService).backfillAllergyEntries(120L, 100);
+    }
+
+    @Test
+    void run_ShouldRetrySameBatch_AfterFailure() {
+        // Given
+        PatientAllergyBackfillJob job = new PatientAllergyBackfillJob(patientService, jobLeaseService, 100, 1);
+        when(patientService.backfillAllergyEntries(0L, 100))
+                .thenThrow(new IllegalStateException("Verrou"))
+                .thenReturn(null);
+
+        // When
+        job.run();
+        job.run();
+
+        // Then
+        verify(patientService, times(2)).backfillAllergyEntries(0L, 100);
+    }
+
+    @Test
+    void run_ShouldSkip_WhenLeaseIsHeldByAnotherInstance() {
+        // Given
+        PatientAllergyBackfillJob job = new PatientAllergyBackfillJob(patientService, jobLeaseService, 100, 1);
+        doReturn(false).when(jobLeaseService).runExclusively(eq(PatientAllergyBackfillJob.LEASE), any(), any(), any());
+
+        // When
+        job.run();
+
+        // Then
+        verifyNoInteractions(patientService);
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.crudApp.service;
+
+import com.example.crudApp.config.TestSecurityConfig;
+import com.example.crudApp.dto.PatientSearchCriteria;
+import com.example.crudApp.model.ExportFormat;
+import com.example.crudApp.model.Patient;
+import com.example.crudApp.repository.PatientRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Exports en flux des patients, sur une base réelle (lecture par curseur dans une transaction en lecture seule)
+ */
+@SpringBootTest(properties = "export.fetch-size=2")
+@ActiveProfiles("test")
+@Import(TestSecurityConfig.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+class PatientExportServiceTest {
+
+    private static final int PATIENTS = 5;
+
+    @Autowired
+    private PatientExportService patientExportService;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @MockitoBean
+    private EmailService emailService;
+
+    private final List<Patient> patients = new ArrayList<>();
+    private String suffix;
+
+    @BeforeEach
+    void setUp() {
+        suffix = String.valueOf(System.nanoTime());
+        for (int i = 0; i < PATIENTS; i++) {
+            Patient patient = new Patient();
+            patient.setName("Export " + suffix + " " + i);
+            patient.setEmail("export-" + i + "-" + suffix + "@example.com");
+            patient.setAge(30 + i);
+            patient.setAddress("Lyon");
+            patient.setBloodType(i % 2 == 0 ? "A+" : "O-");
+            patient.setIsActive(i != 0);
+            patients.add(patientRepository.save(patient));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        patientRepository.deleteAll(patients);
+    }
+
+    @Test
+    void exportPatientsToCSV_ShouldStreamEveryMatchingPatient_ById() throws Exception {
+        // Given
+        PatientSearchCriteria criteria = new PatientSearchCriteria();
+        criteria.setName(suffix);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // When : plus de lignes que la taille de lot du curseur
+        long rows = patientExportService.export(ExportFormat.CSV, criteria, outputStream);
+
+        // Then
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertThat(rows).isEqualTo(PATIENTS);
+        assertThat(lines).hasSize(PATIENTS + 1);
+        for (int i = 0; i < PATIENTS; i++) {
+            assertThat(lines[i + 1]).startsWith(patients.get(i).getId() + ",Export " + suffix + " " + i + ",");
+        }
+    }
+
+    @Test
+    void exportPatientsToCSV_ShouldApplySearchFilters() throws Exception {
+        // Given : patients actifs du groupe A+ (indices 2 et 4)
+        PatientSearchCriteria criteria = new PatientSearchCriteria();
+        criteria.setName(suffix);
+        criteria.setBloodType("A+");
+        criteria.setIsActive(true);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // When
+        long rows = patientExportService.export(ExportFormat.CSV, criteria, outputStream);
+
+        // Then
+        String csvContent = outputStream.toString(StandardCharsets.UTF_8);
+        assertThat(rows).isEqualTo(2);
+        assertThat(csvContent).contains("Export " + suffix + " 2", "Export " + suffix + " 4");
+        assertThat(csvContent).doesNotContain("Export " + suffix + " 0", "Archivé");
+    }
+
+    @Test
+    void export_ShouldCountProcessedRows_ForEveryFormat() throws Exception {
+        // Given
+        PatientSearchCriteria criteria = new PatientSearchCriteria();
+        criteria.setName(suffix);
+
+        for (ExportFormat format : ExportFormat.values()) {
+            AtomicLong processedRows = new AtomicLong();
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+            // When
+            long rows = patientExportService.export(format, criteria, outputStream, processedRows);
+
+            // Then
+            assertThat(rows).as(format.name()).isEqualTo(PATIENTS);
+            assertThat(processedRows.get()).as(format.name()).isEqualTo(PATIENTS);
+            assertThat(outputStream.size()).as(format.name()).isPositive();
+        }
+        assertThat(patientExportService.count(criteria)).isEqualTo(PATIENTS);
+    }
+}
@@ -1,13 +1,16 @@
 package com.example.crudApp.service;
 
+import com.example.crudApp.config.FullTextSearchSupport;
 import com.example.crudApp.dto.PatientRequest;
 import com.example.crudApp.dto.PatientResponse;
 import com.example.crudApp.dto.PatientSearchCriteria;
 import com.example.crudApp.exception.DuplicateResourceException;
 import com.example.crudApp.exception.ResourceNotFoundException;
 import com.example.crudApp.model.Patient;
+import com.example.crudApp.model.PatientAllergy;
 import com.example.crudApp.model.User;
 import com.example.crudApp.model.UserType;
+import com.example.crudApp.repository.PatientAllergyRepository;
 import com.example.crudApp.repository.PatientRepository;
 import com.example.crudApp.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -18,6 +21,9 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 
 import java.time.LocalDate;
@@ -40,6 +46,12 @@ class PatientServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private FullTextSearchSupport fullTextSearchSupport;
+
+    @Mock
+    private PatientAllergyRepository patientAllergyRepository;
+
     @InjectMocks
     private PatientService patientService;
 
@@ -239,6 +251,91 @@ class PatientServiceTest {
         assertThat(result.getTotalElements()).isEqualTo(1);
     }
 
+    @Test
+    void testSearchPatients_ShouldRankByRelevance_WhenFullTextAvailable() {
+        // Given
+        PatientSearchCriteria criteria = new PatientSearchCriteria();
+        criteria.setKeyword("pollen");
+        when(fullTextSearchSupport.isAvailable()).thenReturn(true);
+        when(patientRepository.findAll(any(Specification.class), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(patient)));
+
+        // When
+        Page<PatientResponse> result = patientService.searchPatients(criteria, 0, 10, "relevance", "asc");
+
+        // Then : l'ordre vient du score FULLTEXT, pas d'un tri de la page
+        assertThat(result.getContent()).hasSize(1);
+        verify(patientRepository).findAll(any(Specification.class), eq(PageRequest.of(0, 10)));
+    }
+
+    @Test
+    void testSearchPatients_ShouldSortByName_WhenRelevanceWithoutFullText() {
+        // Given
+        PatientSearchCriteria criteria = new PatientSearchCriteria();
+        criteria.setKeyword("pollen");
+        when(patientRepository.findAll(any(Specification.class), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(patient)));
+
+        // When
+        patientService.searchPatients(criteria, 0, 10, "relevance", "asc");
+
+        // Then
+        verify(patientRepository).findAll(any(Specification.class),
+                eq(PageRequest.of(0, 10, Sort.by("name").ascending())));
+    }
+
+    @Test
+    void testBackfillAllergyEntries_ShouldNormalizeBatch_AndReturnLastId() {
+        // Given
+        Patient first = Patient.builder().id(4L).allergies("Pénicilline, Pollen").build();
+        Patient second = Patient.builder().id(9L).allergies("Arachides").build();
+        when(patientRepository.findPatientsWithoutAllergyEntries(0L, PageRequest.of(0, 2)))
+                .thenReturn(List.of(first, second));
+
+        // When
+        Long lastId = patientService.backfillAllergyEntries(0L, 2);
+
+        // Then
+        assertThat(lastId).isEqualTo(9L);
+        org.mockito.ArgumentCaptor<List<PatientAllergy>> captor = org.mockito.ArgumentCaptor.forClass(List.class);
+        verify(patientAllergyRepository).saveAll(captor.capture());
+        assertThat(captor.getValue()).extracting(PatientAllergy::getNormalizedName)
+                .containsExactly("penicilline", "pollen", "arachides");
+        assertThat(captor.getValue().get(2).getPatient()).isSameAs(second);
+    }
+
+    @Test
+    void testBackfillAllergyEntries_ShouldClearTextWithoutAllergy() {
+        // Given : texte sans allergie, qui ne produirait jamais de ligne patient_allergies
+        Patient blank = Patient.builder().id(4L).allergies(" ; ").build();
+        Patient separators = Patient.builder().id(6L).allergies(",").build();
+        Patient valid = Patient.builder().id(9L).allergies("Arachides").build();
+        when(patientRepository.findPatientsWithoutAllergyEntries(0L, PageRequest.of(0, 3)))
+                .thenReturn(List.of(blank, separators, valid));
+
+        // When
+        Long lastId = patientService.backfillAllergyEntries(0L, 3);
+
+        // Then : ces patients ne sont plus retournés par la requête de reprise
+        assertThat(lastId).isEqualTo(9L);
+        assertThat(blank.getAllergies()).isNull();
+        assertThat(separators.getAllergies()).isNull();
+        assertThat(valid.getAllergies()).isEqualTo("Arachides");
+        org.mockito.ArgumentCaptor<List<PatientAllergy>> captor = org.mockito.ArgumentCaptor.forClass(List.class);
+        verify(patientAllergyRepository).saveAll(captor.capture());
+        assertThat(captor.getValue()).extracting(PatientAllergy::getNormalizedName).containsExactly("arachides");
+    }
+
+    @Test
+    void testBackfillAllergyEntries_ShouldReturnNull_WhenNothingLeft() {
+        // Given
+        when(patientRepository.findPatientsWithoutAllergyEntries(9L, PageRequest.of(0, 2))).thenReturn(List.of());
+
+        // When & Then
+        assertThat(patientService.backfillAllergyEntries(9L, 2)).isNull();
+        verifyNoInteractions(patientAllergyRepository);
+    }
+
     @Test
     void testGetPatientsByDoctor_Success() {
         // Given
@@ -0,0 +1,255 @@
+package com.example.crudApp.service;
+
+import com.example.crudApp.dto.AvailableSlotResponse;
+import com.example.crudApp.model.DoctorAvailability;
+import com.example.crudApp.model.DoctorAvailabilityException;
+import com.example.crudApp.model.MedicalSpecialty;
+import com.example.crudApp.model.User;
+import com.example.crudApp.model.UserType;
+import com.example.crudApp.repository.AppointmentRepository;
+import com.example.crudApp.repository.DoctorAvailabilityExceptionRepository;
+import com.example.crudApp.repository.DoctorAvailabilityRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour SlotAvailabilityEngine
+ */
+@ExtendWith(MockitoExtension.class)
+class SlotAvailabilityEngineTest {
+
+    @Mock
+    private DoctorAvailabilityRepository availabilityRepository;
+
+    @Mock
+    private DoctorAvailabilityExceptionRepository exceptionRepository;
+
+    @Mock
+    private AppointmentRepository appointmentRepository;
+
+    @InjectMocks
+    private SlotAvailabilityEngine engine;
+
+    private User doctor;
+    private LocalDate date;
+    private DoctorAvailability morning;
+
+    @BeforeEach
+    void setUp() {
+        doctor = User.builder()
+                .id(1L)
+                .username("doctor@example.com")
+                .userType(UserType.DOCTOR)
+                .specialty(MedicalSpecialty.CARDIOLOGIE)
+                .build();
+
+        date = LocalDate.now().plusDays(7);
+
+        morning = DoctorAvailability.builder()
+                .doctor(doctor)
+                .dayOfWeek(date.getDayOfWeek())
+                .startTime(LocalTime.of(9, 0))
+                .endTime(LocalTime.of(10, 0))
+                .slotDurationMinutes(15)
+                .isActive(true)
+                .build();
+    }
+
+    @Test
+    void loadWorkingDays_ShouldGroupActiveSchedulesByDoctor_InOneQuery() {
+        // Given : le second médecin n'a qu'un horaire sans durée de créneau, donc aucun créneau
+        User otherDoctor = User.builder().id(2L).userType(UserType.DOCTOR).build();
+        DoctorAvailability invalid = DoctorAvailability.builder()
+                .doctor(otherDoctor)
+                .dayOfWeek(date.getDayOfWeek())
+                .startTime(LocalTime.of(9, 0))
+                .endTime(LocalTime.of(10, 0))
+                .slotDurationMinutes(0)
+                .isActive(true)
+                .build();
+        when(availabilityRepository.findByDoctorInAndIsActiveTrue(List.of(doctor, otherDoctor)))
+                .thenReturn(List.of(morning, invalid));
+
+        // When
+        Map<Long, Set<DayOfWeek>> workingDays = engine.loadWorkingDays(List.of(doctor, otherDoctor));
+
+        // Then
+        assertThat(workingDays).containsOnlyKeys(1L);
+        assertThat(workingDays.get(1L)).containsExactly(date.getDayOfWeek());
+        verify(availabilityRepository, times(1)).findByDoctorInAndIsActiveTrue(any());
+        verifyNoInteractions(exceptionRepository, appointmentRepository);
+    }
+
+    @Test
+    void loadDaySchedule_ShouldUseAtMostThreeQueries_AndMarkBookedSlots() {
+        // Given
+        when(exceptionRepository.findByDoctorAndExceptionDateAndIsActive(doctor, date, true))
+                .thenReturn(Optional.empty());
+        when(availabilityRepository.findByDoctorAndDayOfWeekAndIsActiveTrue(doctor, date.getDayOfWeek()))
+                .thenReturn(List.of(morning));
+        when(appointmentRepository.findBookedSlotTimes(doctor, date.atStartOfDay(), date.plusDays(1).atStartOfDay()))
+                .thenReturn(List.of(date.atTime(9, 15)));
+
+        // When
+        DaySchedule schedule = engine.loadDaySchedule(doctor, date);
+
+        // Then
+        assertThat(schedule.size()).isEqualTo(4);
+        assertThat(schedule.isOpen(0)).isTrue();
+        assertThat(schedule.isOpen(1)).isFalse();
+        assertThat(schedule.isOpen(2)).isTrue();
+        assertThat(schedule.slotAt(3)).isEqualTo(date.atTime(9, 45));
+        verify(appointmentRepository, never()).countConflictingAppointments(any(), any());
+        verifyNoMoreInteractions(exceptionRepository, availabilityRepository, appointmentRepository);
+    }
+
+    @Test
+    void loadDaySchedule_ShouldReturnClosedDay_WhenExceptionIsUnavailable() {
+        // Given
+        DoctorAvailabilityException vacation = DoctorAvailabilityException.builder()
+                .doctor(doctor)
+                .exceptionDate(date)
+                .isAvailable(false)
+                .reason("Vacances")
+                .build();
+        when(exceptionRepository.findByDoctorAndExceptionDateAndIsActive(doctor, date, true))
+                .thenReturn(Optional.of(vacation));
+
+        // When
+        DaySchedule schedule = engine.loadDaySchedule(doctor, date);
+
+        // Then
+        assertThat(schedule.isEmpty()).isTrue();
+        verifyNoInteractions(availabilityRepository, appointmentRepository);
+    }
+
+    @Test
+    void computeDaySchedule_ShouldUseExceptionHours_WithinTemplate() {
+        // Given
+        DoctorAvailabilityException shortDay = DoctorAvailabilityException.builder()
+                .doctor(doctor)
+                .exceptionDate(date)
+                .isAvailable(true)
+                .startTime("09:30")
+                .endTime("11:00")
+                .build();
+
+        // When
+        DaySchedule schedule = engine.computeDaySchedule(date, List.of(morning), shortDay, Collections.emptyList());
+
+        // Then : 09:30, 09:45 dans les horaires ; 10:00 à 10:45 hors horaires récurrents
+        assertThat(schedule.size()).isEqualTo(6);
+        assertThat(schedule.isOpen(0)).isTrue();
+        assertThat(schedule.isOpen(1)).isTrue();
+        assertThat(schedule.isOpen(2)).isFalse();
+        assertThat(schedule.isOpen(5)).isFalse();
+    }
+
+    @Test
+    void loadSchedules_ShouldBuildEveryDayForEveryDoctor_FromThreeQueries() {
+        // Given
+        User otherDoctor = User.builder().id(2L).username("other@example.com").userType(UserType.DOCTOR).build();
+        List<User> doctors = List.of(doctor, otherDoctor);
+        LocalDate to = date.plusDays(6);
+        DoctorAvailabilityException vacation = DoctorAvailabilityException.builder()
+                .doctor(otherDoctor)
+                .exceptionDate(date)
+                .isAvailable(false)
+                .build();
+
+        when(availabilityRepository.findByDoctorInAndIsActiveTrue(doctors)).thenReturn(List.of(morning));
+        when(exceptionRepository.findByDoctorInAndExceptionDateBetweenAndIsActive(doctors, date, to, true))
+                .thenReturn(List.of(vacation));
+        when(appointmentRepository.findBookedSlotsByDoctors(doctors, date.atStartOfDay(), to.plusDays(1).atStartOfDay()))
+                .thenReturn(List.of(bookedSlot(1L, date.atTime(9, 0))));
+
+        // When
+        Map<Long, List<DaySchedule>> schedules = engine.loadSchedules(doctors, date, to);
+
+        // Then
+        assertThat(schedules.get(1L)).hasSize(7);
+        assertThat(schedules.get(2L)).hasSize(7);
+        DaySchedule firstDay = schedules.get(1L).get(0);
+        assertThat(firstDay.size()).isEqualTo(4);
+        assertThat(firstDay.isOpen(0)).isFalse();
+        assertThat(firstDay.isOpen(1)).isTrue();
+        // Les autres jours de la semaine n'ont pas d'horaires
+        assertThat(schedules.get(1L).get(1).isEmpty()).isTrue();
+        assertThat(schedules.get(2L).get(0).isEmpty()).isTrue();
+        verifyNoMoreInteractions(exceptionRepository, availabilityRepository, appointmentRepository);
+    }
+
+    @Test
+    void findOpenSlots_ShouldCheckEveryOccurrence_FromThreeQueries() {
+        // Given : un créneau occupé, un libre, un jour de congé et un horaire hors grille
+        List<LocalDateTime> slots = List.of(
+                date.atTime(9, 0),
+                date.plusWeeks(1).atTime(9, 15),
+                date.plusWeeks(2).atTime(9, 15),
+                date.plusWeeks(3).atTime(9, 5));
+        DoctorAvailabilityException vacation = DoctorAvailabilityException.builder()
+                .doctor(doctor)
+                .exceptionDate(date.plusWeeks(2))
+                .isAvailable(false)
+                .build();
+
+        when(availabilityRepository.findByDoctorAndIsActiveTrue(doctor)).thenReturn(List.of(morning));
+        when(exceptionRepository.findByDoctorAndExceptionDateBetweenAndIsActive(doctor, date, date.plusWeeks(3), true))
+                .thenReturn(List.of(vacation));
+        when(appointmentRepository.findBookedSlotTimesIn(doctor, slots)).thenReturn(List.of(date.atTime(9, 0)));
+
+        // When
+        Set<LocalDateTime> openSlots = engine.findOpenSlots(doctor, slots);
+
+        // Then
+        assertThat(openSlots).containsExactly(date.plusWeeks(1).atTime(9, 15));
+        verifyNoMoreInteractions(exceptionRepository, availabilityRepository, appointmentRepository);
+    }
+
+    @Test
+    void toSlotResponses_ShouldMarkPastSlotsUnavailable() {
+        // Given
+        DaySchedule schedule = engine.computeDaySchedule(date, List.of(morning), null, Collections.emptyList());
+        LocalDateTime now = date.atTime(9, 20);
+
+        // When
+        List<AvailableSlotResponse> slots = schedule.toSlotResponses(now);
+
+        // Then
+        assertThat(slots).extracting(AvailableSlotResponse::isAvailable)
+                .containsExactly(false, false, true, true);
+        assertThat(slots.get(0).getDisplayTime()).isEqualTo("09:00");
+    }
+
+    private AppointmentRepository.BookedSlot bookedSlot(Long doctorId, LocalDateTime dateTime) {
+        return new AppointmentRepository.BookedSlot() {
+            @Override
+            public Long getDoctorId() {
+                return doctorId;
+            }
+
+            @Override
+            public LocalDateTime getAppointmentDateTime() {
+                return dateTime;
+            }
+        };
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.crudApp.service;
+
+import com.example.crudApp.exception.SlotAlreadyBookedException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests unitaires pour SlotHoldRegistry
+ */
+class SlotHoldRegistryTest {
+
+    private MutableClock clock;
+    private SlotHoldRegistry registry;
+    private LocalDateTime slot;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2025-03-10T08:00:00Z"));
+        registry = new SlotHoldRegistry(clock, 120, 600);
+        slot = LocalDateTime.of(2025, 3, 12, 10, 0);
+    }
+
+    @Test
+    void hold_ShouldRejectOtherPatient_WhileHoldIsActive() {
+        // Given
+        SlotHold hold = registry.hold(1L, slot, "alice", null);
+
+        // When & Then
+        assertThat(hold.getExpiresAt()).isEqualTo(LocalDateTime.of(2025, 3, 10, 8, 2));
+        assertThat(registry.isHeldByOther(1L, slot, "bob")).isTrue();
+        assertThat(registry.isHeldByOther(1L, slot, "alice")).isFalse();
+        assertThat(registry.heldSlots(1L, slot.toLocalDate())).containsExactly(slot);
+        assertThatThrownBy(() -> registry.hold(1L, slot, "bob", null))
+                .isInstanceOf(SlotAlreadyBookedException.class);
+    }
+
+    @Test
+    void hold_ShouldKeepOneHoldPerPatient() {
+        // Given
+        SlotHold first = registry.hold(1L, slot, "alice", null);
+
+        // When
+        SlotHold second = registry.hold(1L, slot.plusMinutes(30), "alice", null);
+
+        // Then
+        assertThat(registry.size()).isEqualTo(1);
+        assertThat(registry.findValidHold(first.getToken(), 1L, slot, "alice")).isNull();
+        assertThat(registry.findValidHold(second.getToken(), 1L, slot.plusMinutes(30), "alice")).isSameAs(second);
+        assertThat(registry.isHeldByOther(1L, slot, "bob")).isFalse();
+    }
+
+    @Test
+    void findValidHold_ShouldRequireMatchingSlotAndPatient() {
+        // Given
+        SlotHold hold = registry.hold(1L, slot, "alice", null);
+
+        // When & Then
+        assertThat(registry.findValidHold(hold.getToken(), 1L, slot, "bob")).isNull();
+        assertThat(registry.findValidHold(hold.getToken(), 2L, slot, "alice")).isNull();
+        assertThat(registry.findValidHold("unknown", 1L, slot, "alice")).isNull();
+        assertThat(registry.findValidHold(hold.getToken(), 1L, slot, "alice")).isSameAs(hold);
+    }
+
+    @Test
+    void expireHolds_ShouldRemoveExpiredHolds_WhenWheelTurns() {
+        // Given
+        registry.expireHolds();
+        registry.hold(1L, slot, "alice", 30);
+        registry.hold(1L, slot.plusMinutes(30), "bob", 90);
+
+        // When
+        clock.advance(Duration.ofSeconds(31));
+        registry.expireHolds();
+
+        // Then
+        assertThat(registry.size()).isEqualTo(1);
+        assertThat(registry.isHeldByOther(1L, slot, "carol")).isFalse();
+        assertThat(registry.isHeldByOther(1L, slot.plusMinutes(30), "carol")).isTrue();
+
+        clock.advance(Duration.ofSeconds(60));
+        registry.expireHolds();
+        assertThat(registry.size()).isZero();
+        assertThat(registry.doctorCount()).isZero();
+    }
+
+    @Test
+    void isHeldByOther_ShouldIgnoreExpiredHold_BeforeWheelTurns() {
+        // Given
+        registry.hold(1L, slot, "alice", 10);
+
+        // When
+        clock.advance(Duration.ofSeconds(11));
+
+        // Then
+        assertThat(registry.isHeldByOther(1L, slot, "bob")).isFalse();
+        assertThat(registry.hold(1L, slot, "bob", null).getUsername()).isEqualTo("bob");
+    }
+
+    @Test
+    void release_ShouldOnlyBeAllowedForOwner() {
+        // Given
+        SlotHold hold = registry.hold(1L, slot, "alice", null);
+
+        // When & Then
+        assertThat(registry.release(hold.getToken(), "bob")).isFalse();
+        assertThat(registry.release(hold.getToken(), "alice")).isTrue();
+        assertThat(registry.size()).isZero();
+        assertThat(registry.doctorCount()).isZero();
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -3,10 +3,14 @@ package com.example.crudApp.specification;
 import com.example.crudApp.dto.PatientSearchCriteria;
 import com.example.crudApp.model.MedicalSpecialty;
 import com.example.crudApp.model.Patient;
+import com.example.crudApp.model.PatientAllergy;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Order;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -46,6 +50,18 @@ class PatientSpecificationTest {
     @Mock
     private Predicate predicate;
 
+    @Mock
+    private Expression<String> literal;
+
+    @Mock
+    private Expression<Double> score;
+
+    @Mock
+    private Subquery<Long> subquery;
+
+    @Mock
+    private Root<PatientAllergy> allergyRoot;
+
     @BeforeEach
     void setUp() {
         when(root.get(anyString())).thenReturn(path);
@@ -156,15 +172,22 @@ class PatientSpecificationTest {
         // Given
         PatientSearchCriteria criteria = new PatientSearchCriteria();
         criteria.setAllergy("Pénicilline");
+        doReturn(subquery).when(query).subquery(Long.class);
+        when(subquery.from(PatientAllergy.class)).thenReturn(allergyRoot);
+        when(allergyRoot.get(anyString())).thenReturn(path);
+        when(subquery.select(any())).thenReturn(subquery);
+        when(criteriaBuilder.exists(subquery)).thenReturn(predicate);
 
         // When
         Specification<Patient> spec = PatientSpecification.withCriteria(criteria);
         Predicate result = spec.toPredicate(root, query, criteriaBuilder);
 
-        // Then
+        // Then : correspondance exacte sur l'allergie normalisée, sans LIKE
         assertThat(spec).isNotNull();
         assertThat(result).isNotNull();
-        verify(criteriaBuilder, atLeastOnce()).like(any(), eq("%pénicilline%"));
+        verify(criteriaBuilder).equal(path, "penicilline");
+        verify(criteriaBuilder).exists(subquery);
+        verify(criteriaBuilder, never()).like(any(), anyString());
     }
 
     @Test
@@ -353,4 +376,63 @@ class PatientSpecificationTest {
         // Empty strings should not create predicates
         verify(criteriaBuilder, never()).like(any(), eq("%%"));
     }
+
+    @Test
+    void withCriteria_ShouldSearchEveryTextField_WhenKeywordWithoutFullText() {
+        // Given
+        PatientSearchCriteria criteria = new PatientSearchCriteria();
+        criteria.setKeyword("Pollen");
+        when(criteriaBuilder.or(any(Predicate[].class))).thenReturn(predicate);
+
+        // When
+        PatientSpecification.withCriteria(criteria).toPredicate(root, query, criteriaBuilder);
+
+        // Then
+        verify(criteriaBuilder, times(6)).like(any(), eq("%pollen%"));
+        verify(criteriaBuilder).or(any(Predicate[].class));
+        verify(criteriaBuilder, never()).function(anyString(), any(), any(Expression[].class));
+    }
+
+    @Test
+    void withCriteria_ShouldUseMatchAgainst_WhenFullTextAvailable() {
+        // Given
+        PatientSearchCriteria criteria = new PatientSearchCriteria();
+        criteria.setName("Jean");
+        criteria.setEmail("j");
+        when(criteriaBuilder.literal("\"Jean\"")).thenReturn(literal);
+        when(criteriaBuilder.function(anyString(), eq(Double.class), any(Expression[].class))).thenReturn(score);
+        when(criteriaBuilder.greaterThan(score, 0.0)).thenReturn(predicate);
+
+        // When
+        PatientSpecification.withCriteria(criteria, true).toPredicate(root, query, criteriaBuilder);
+
+        // Then : le nom passe par l'index FULLTEXT, le terme trop court reste en LIKE
+        verify(criteriaBuilder).function(PatientSpecification.MATCH_AGAINST, Double.class, path, literal);
+        verify(criteriaBuilder).greaterThan(score, 0.0);
+        verify(criteriaBuilder, never()).like(any(), eq("%jean%"));
+        verify(criteriaBuilder).like(any(), eq("%j%"));
+    }
+
+    @Test
+    void orderByRelevance_ShouldOrderByScore_OnlyForSelectQueries() {
+        // Given
+        PatientSearchCriteria criteria = new PatientSearchCriteria();
+        criteria.setName("Martin");
+        when(criteriaBuilder.function(anyString(), eq(Double.class), any(Expression[].class))).thenReturn(score);
+        doReturn(Patient.class).when(query).getResultType();
+
+        // When
+        Predicate result = PatientSpecification.orderByRelevance(criteria).toPredicate(root, query, criteriaBuilder);
+
+        // Then
+        assertThat(result).isNull();
+        verify(criteriaBuilder).desc(score);
+        verify(query).orderBy(any(Order[].class));
+        assertThat(PatientSpecification.hasFullTextTerm(criteria)).isTrue();
+    }
+
+    @Test
+    void toPhrase_ShouldQuoteTerm_AndStripQuotes() {
+        assertThat(PatientSpecification.toPhrase(" Jean \"Paul\" ")).isEqualTo("\"Jean  Paul\"");
+    }
 }
@@ -0,0 +1,32 @@
+package com.example.crudApp.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour AllergyNormalizer
+ */
+class AllergyNormalizerTest {
+
+    @Test
+    void testNormalize_RemovesAccentsCaseAndExtraSpaces() {
+        assertEquals("penicilline", AllergyNormalizer.normalize("  Pénicilline "));
+        assertEquals("fruits a coque", AllergyNormalizer.normalize("Fruits   à  coque"));
+        assertNull(AllergyNormalizer.normalize("   "));
+        assertNull(AllergyNormalizer.normalize(null));
+    }
+
+    @Test
+    void testTokenize_SplitsAndDeduplicates() {
+        Map<String, String> tokens = AllergyNormalizer.tokenize("Pénicilline, Pollen;pollen\nArachides, ,");
+
+        assertEquals(List.of("penicilline", "pollen", "arachides"), List.copyOf(tokens.keySet()));
+        assertEquals("Pénicilline", tokens.get("penicilline"));
+        assertEquals("Pollen", tokens.get("pollen"));
+        assertTrue(AllergyNormalizer.tokenize(null).isEmpty());
+    }
+}
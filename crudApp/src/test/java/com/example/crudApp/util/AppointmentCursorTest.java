@@ -0,0 +1,38 @@
+package com.example.crudApp.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour AppointmentCursor
+ */
+class AppointmentCursorTest {
+
+    @Test
+    void testEncodeDecode_RoundTrip() {
+        LocalDateTime dateTime = LocalDateTime.of(2024, 3, 12, 14, 30);
+        String token = new AppointmentCursor(dateTime, 4321L).encode();
+
+        AppointmentCursor decoded = AppointmentCursor.decode(token);
+
+        assertEquals(dateTime, decoded.getAppointmentDateTime());
+        assertEquals(4321L, decoded.getId());
+        assertFalse(token.contains("="), "Le jeton doit pouvoir être passé tel quel dans une URL");
+    }
+
+    @Test
+    void testDecode_InvalidToken() {
+        String notBase64 = "%%%";
+        String missingId = Base64.getUrlEncoder().encodeToString("2024-03-12T14:30".getBytes(StandardCharsets.UTF_8));
+        String badDate = Base64.getUrlEncoder().encodeToString("hier|12".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(IllegalArgumentException.class, () -> AppointmentCursor.decode(notBase64));
+        assertThrows(IllegalArgumentException.class, () -> AppointmentCursor.decode(missingId));
+        assertThrows(IllegalArgumentException.class, () -> AppointmentCursor.decode(badDate));
+    }
+}